@@ -62,7 +62,7 @@ import org.glassfish.common.util.ObjectInputOutputStreamFactoryFactory;
  */
 class GlassFishObjectInputStream extends ObjectInputStream
 {
-    private ClassLoader appLoader;
+    ClassLoader appLoader;
 
 	private static Logger _logger = LogDomains.getLogger(GlassFishObjectInputStream.class, LogDomains.JNDI_LOGGER);
 
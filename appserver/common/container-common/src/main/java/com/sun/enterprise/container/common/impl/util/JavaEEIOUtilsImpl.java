@@ -46,6 +46,7 @@ import org.jvnet.hk2.annotations.Service;
 import org.glassfish.hk2.api.PostConstruct;
 import org.glassfish.hk2.api.ServiceLocator;
 
+import com.sun.enterprise.container.common.spi.util.ClassDescriptorDictionary;
 import com.sun.enterprise.container.common.spi.util.GlassFishOutputStreamHandler;
 import com.sun.enterprise.container.common.spi.util.GlassFishInputStreamHandler;
 import com.sun.enterprise.container.common.spi.util.JavaEEIOUtils;
@@ -56,6 +57,10 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * A contract that defines a set of methods to serialize / deserialze Java EE
@@ -74,6 +79,15 @@ public class JavaEEIOUtilsImpl implements JavaEEIOUtils {
 	private static Logger _logger = LogDomains.getLogger(
 			JavaEEIOUtilsImpl.class, LogDomains.JNDI_LOGGER);
 
+	// Header of blobs written by serializeObjectCompact.  Java serialization
+	// streams start with 0xACED, so the two formats can be told apart.
+	private static final byte COMPACT_MAGIC_0 = (byte) 0xC5;
+	private static final byte COMPACT_MAGIC_1 = (byte) 0x4A;
+	// Version 2 adds a field layout hash to each class descriptor
+	private static final byte COMPACT_VERSION = 2;
+	private static final byte COMPACT_FLAG_DEFLATED = 0x01;
+	private static final int COMPACT_HEADER_LENGTH = 4;
+
 	@Inject
 	ServiceLocator habitat;
 
@@ -127,13 +141,36 @@ public class JavaEEIOUtilsImpl implements JavaEEIOUtils {
 
 	public Object deserializeObject(byte[] data, boolean resolveObject,
 			ClassLoader appClassLoader) throws Exception {
+		return deserializeObject(data, resolveObject, appClassLoader, null);
+	}
+
+	public Object deserializeObject(byte[] data, boolean resolveObject,
+			ClassLoader appClassLoader, ClassDescriptorDictionary dictionary)
+			throws Exception {
 
 		Object obj = null;
-		ByteArrayInputStream bis = null;
+		InputStream bis = null;
 		ObjectInputStream ois = null;
+		Inflater inflater = null;
 		try {
-			bis = new ByteArrayInputStream(data);
-			ois = createObjectInputStream(bis, resolveObject, appClassLoader);
+			if (isCompact(data)) {
+				// Blobs of another version carry a different descriptor format
+				if (data[2] != COMPACT_VERSION) {
+					throw new StreamCorruptedException(
+							"Unsupported compact serialization version " + data[2]);
+				}
+				bis = new ByteArrayInputStream(data, COMPACT_HEADER_LENGTH,
+						data.length - COMPACT_HEADER_LENGTH);
+				if ((data[3] & COMPACT_FLAG_DEFLATED) != 0) {
+					inflater = new Inflater();
+					bis = new InflaterInputStream(bis, inflater);
+				}
+				ois = new CompactObjectInputStream(inputHandlers, bis, appClassLoader,
+						resolveObject, (dictionary != null) ? dictionary : new ClassDescriptorDictionary());
+			} else {
+				bis = new ByteArrayInputStream(data);
+				ois = createObjectInputStream(bis, resolveObject, appClassLoader);
+			}
 			obj = ois.readObject();
 		} catch (Exception ex) {
 			_logger.log(Level.FINE, "Error during deserialization", ex);
@@ -149,10 +186,61 @@ public class JavaEEIOUtilsImpl implements JavaEEIOUtils {
 			} catch (Exception ex) {
 				_logger.log(Level.FINEST, "Error during bis.close()", ex);
 			}
+			if (inflater != null) {
+				inflater.end();
+			}
 		}
 		return obj;
 	}
 
+	public byte[] serializeObjectCompact(Object obj, boolean replaceObject,
+			ClassDescriptorDictionary dictionary, boolean compress)
+			throws java.io.IOException {
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = null;
+		Deflater deflater = null;
+		try {
+			bos.write(COMPACT_MAGIC_0);
+			bos.write(COMPACT_MAGIC_1);
+			bos.write(COMPACT_VERSION);
+			bos.write(compress ? COMPACT_FLAG_DEFLATED : 0);
+
+			OutputStream out = bos;
+			if (compress) {
+				deflater = new Deflater(Deflater.BEST_SPEED);
+				out = new DeflaterOutputStream(bos, deflater);
+			}
+			oos = new CompactObjectOutputStream(outputHandlers, out, replaceObject, dictionary);
+			oos.writeObject(obj);
+			// Also finishes the deflater
+			oos.close();
+			oos = null;
+			return bos.toByteArray();
+		} catch (java.io.NotSerializableException notSerEx) {
+			throw notSerEx;
+		} catch (Exception th) {
+			IOException ioEx = new IOException(th.toString());
+			ioEx.initCause(th);
+			throw ioEx;
+		} finally {
+			if (oos != null) {
+				try {
+					oos.close();
+				} catch (Exception ex) {
+				}
+			}
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+	}
+
+	private static boolean isCompact(byte[] data) {
+		return data.length >= COMPACT_HEADER_LENGTH
+				&& data[0] == COMPACT_MAGIC_0 && data[1] == COMPACT_MAGIC_1;
+	}
+
 	public void addGlassFishOutputStreamHandler(GlassFishOutputStreamHandler handler) {
 		outputHandlers.add(handler);
 
@@ -0,0 +1,128 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.container.common.spi.util;
+
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class descriptors shared by all compact serialization blobs of one
+ * owner (e.g. an EJB container).  Compact blobs only carry class names, 
+ * which are resolved through this dictionary when the blob is read back.
+ * Descriptors of classes written through the dictionary are remembered, so 
+ * blobs read back in the same server do not need to load classes by name.
+ * <p>
+ * Besides the name, a compact blob records the serialVersionUID and a hash
+ * of the serializable field layout (field names and types) of each class.
+ * A blob can only be read back if the local class has the same
+ * serialVersionUID and the same field layout; it is rejected otherwise,
+ * even where standard serialization would tolerate the difference (e.g. a
+ * field added without changing the serialVersionUID).  State written by
+ * one version of an application therefore cannot be read by another
+ * version whose serializable classes changed shape.
+ * <p>
+ * The layout hash only covers the fields returned by
+ * {@link ObjectStreamClass#getFields()}.  Changes to custom
+ * <code>writeObject</code>/<code>readObject</code> methods, or to the
+ * format written by an <code>Externalizable</code> class, are not detected;
+ * such classes must change their serialVersionUID when their format changes.
+ *
+ * @see JavaEEIOUtils#serializeObjectCompact
+ */
+public class ClassDescriptorDictionary {
+
+    private final ConcurrentHashMap<String, ObjectStreamClass> descriptors =
+            new ConcurrentHashMap<String, ObjectStreamClass>();
+
+    private final ConcurrentHashMap<ObjectStreamClass, Long> layoutHashes =
+            new ConcurrentHashMap<ObjectStreamClass, Long>();
+
+    public void add(ObjectStreamClass desc) {
+        if (desc.forClass() != null) {
+            descriptors.putIfAbsent(desc.getName(), desc);
+        }
+    }
+
+    public ObjectStreamClass lookup(String className, ClassLoader loader)
+            throws ClassNotFoundException {
+        ObjectStreamClass desc = descriptors.get(className);
+        if (desc == null) {
+            desc = ObjectStreamClass.lookupAny(Class.forName(className, false, loader));
+            ObjectStreamClass existing = descriptors.putIfAbsent(className, desc);
+            if (existing != null) {
+                desc = existing;
+            }
+        }
+        return desc;
+    }
+
+    /**
+     * Returns a 64-bit FNV-1a hash of the serializable fields of the class
+     * described by desc, in their canonical serialization order.
+     */
+    public long getLayoutHash(ObjectStreamClass desc) {
+        Long hash = layoutHashes.get(desc);
+        if (hash == null) {
+            long h = 0xcbf29ce484222325L;
+            h = hash(h, desc.getName());
+            for (ObjectStreamField field : desc.getFields()) {
+                h = hash(h, field.getName());
+                String type = field.getTypeString();
+                h = hash(h, (type != null) ? type : String.valueOf(field.getTypeCode()));
+            }
+            hash = h;
+            layoutHashes.putIfAbsent(desc, hash);
+        }
+        return hash;
+    }
+
+    private static long hash(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        // separator, so that "ab","c" and "a","bc" differ
+        h ^= 0xff;
+        h *= 0x100000001b3L;
+        return h;
+    }
+}
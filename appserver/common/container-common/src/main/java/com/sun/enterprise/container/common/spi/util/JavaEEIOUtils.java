@@ -71,8 +71,31 @@ public interface JavaEEIOUtils {
     public byte[] serializeObject(Object obj, boolean replaceObject)
 	    throws java.io.IOException;
 
+    /**
+     * Reads blobs written by serializeObject as well as blobs written by
+     * serializeObjectCompact.
+     */
     public Object deserializeObject(byte[] data, boolean resolveObject, ClassLoader appClassLoader)
             throws Exception;
+
+    /**
+     * Serializes obj into a compact blob that records class descriptors by
+     * name, serialVersionUID and field layout hash only, optionally deflated.
+     * The dictionary remembers the written descriptors for later reads.
+     * Unlike serializeObject, the blob can only be read back by classes with
+     * exactly the same serializable fields; see ClassDescriptorDictionary.
+     */
+    public byte[] serializeObjectCompact(Object obj, boolean replaceObject,
+            ClassDescriptorDictionary dictionary, boolean compress)
+	    throws java.io.IOException;
+
+    /**
+     * Same as deserializeObject(byte[], boolean, ClassLoader), but resolves
+     * class descriptors of compact blobs through the given dictionary.
+     */
+    public Object deserializeObject(byte[] data, boolean resolveObject, ClassLoader appClassLoader,
+            ClassDescriptorDictionary dictionary)
+            throws Exception;
     
     public void addGlassFishOutputStreamHandler(GlassFishOutputStreamHandler handler);
     
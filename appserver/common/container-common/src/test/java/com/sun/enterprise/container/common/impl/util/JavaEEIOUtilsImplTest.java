@@ -0,0 +1,196 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.container.common.impl.util;
+
+import com.sun.enterprise.container.common.spi.util.ClassDescriptorDictionary;
+
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests compact serialization through {@link JavaEEIOUtilsImpl}, and that
+ * blobs written by the standard format are still read back.
+ */
+public class JavaEEIOUtilsImplTest {
+
+    private final JavaEEIOUtilsImpl ioUtils = new JavaEEIOUtilsImpl();
+
+    private final ClassLoader loader = getClass().getClassLoader();
+
+    @Test
+    public void testCompactRoundTrip() throws Exception {
+        assertRoundTrip(false);
+    }
+
+    @Test
+    public void testCompactDeflatedRoundTrip() throws Exception {
+        assertRoundTrip(true);
+    }
+
+    @Test
+    public void testLegacyBlobIsStillRead() throws Exception {
+        State state = newState();
+        byte[] data = ioUtils.serializeObject(state, false);
+
+        assertEquals(state, ioUtils.deserializeObject(data, false, loader));
+        assertEquals(state, ioUtils.deserializeObject(data, false, loader,
+                new ClassDescriptorDictionary()));
+    }
+
+    @Test
+    public void testSerialVersionUIDMismatchIsRejected() throws Exception {
+        byte[] data = ioUtils.serializeObjectCompact(newState(), false,
+                new ClassDescriptorDictionary(), false);
+        // The serialVersionUID follows the class name
+        data[descriptorOffset(data)] ^= 1;
+        assertRejected(data, InvalidClassException.class);
+    }
+
+    @Test
+    public void testFieldLayoutMismatchIsRejected() throws Exception {
+        byte[] data = ioUtils.serializeObjectCompact(newState(), false,
+                new ClassDescriptorDictionary(), false);
+        // The layout hash follows the serialVersionUID
+        data[descriptorOffset(data) + 8] ^= 1;
+        assertRejected(data, InvalidClassException.class);
+    }
+
+    @Test
+    public void testUnknownCompactVersionIsRejected() throws Exception {
+        byte[] data = ioUtils.serializeObjectCompact(newState(), false,
+                new ClassDescriptorDictionary(), false);
+        data[2] = 99;
+        Exception ex = assertRejected(data, StreamCorruptedException.class);
+        // Not handed to the standard format, which fails on the header
+        assertTrue(ex.getMessage(), ex.getMessage().contains("version 99"));
+    }
+
+    private void assertRoundTrip(boolean compress) throws Exception {
+        ClassDescriptorDictionary writer = new ClassDescriptorDictionary();
+        State state = newState();
+        byte[] data = ioUtils.serializeObjectCompact(state, false, writer, compress);
+
+        // Read back through the dictionary that wrote it, and through a new
+        // one that has to resolve the classes by name
+        assertEquals(state, ioUtils.deserializeObject(data, false, loader, writer));
+        assertEquals(state, ioUtils.deserializeObject(data, false, loader,
+                new ClassDescriptorDictionary()));
+        assertEquals(state, ioUtils.deserializeObject(data, false, loader));
+    }
+
+    private Exception assertRejected(byte[] data, Class<? extends Exception> expected) {
+        try {
+            ioUtils.deserializeObject(data, false, loader, new ClassDescriptorDictionary());
+        } catch (Exception ex) {
+            assertTrue(ex.toString(), expected.isInstance(ex));
+            return ex;
+        }
+        fail("Expected " + expected.getName());
+        return null;
+    }
+
+    private static int descriptorOffset(byte[] data) {
+        byte[] name = State.class.getName().getBytes(Charset.forName("UTF-8"));
+        for (int i = 0; i <= data.length - name.length; i++) {
+            int j = 0;
+            while (j < name.length && data[i + j] == name[j]) {
+                j++;
+            }
+            if (j == name.length) {
+                return i + name.length;
+            }
+        }
+        throw new AssertionError("No class descriptor for " + State.class.getName());
+    }
+
+    private static State newState() {
+        State state = new State();
+        state.name = "cart";
+        state.count = 3;
+        state.items.add("a");
+        state.items.add("b");
+        state.next = new State();
+        state.next.name = "nested";
+        return state;
+    }
+
+    static class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        String name;
+
+        int count;
+
+        List<String> items = new ArrayList<String>();
+
+        State next;
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof State)) {
+                return false;
+            }
+            State other = (State) obj;
+            return eq(name, other.name) && count == other.count
+                    && items.equals(other.items) && eq(next, other.next);
+        }
+
+        @Override
+        public int hashCode() {
+            return (name == null) ? count : name.hashCode() + count;
+        }
+
+        private static boolean eq(Object a, Object b) {
+            return (a == null) ? b == null : a.equals(b);
+        }
+    }
+}
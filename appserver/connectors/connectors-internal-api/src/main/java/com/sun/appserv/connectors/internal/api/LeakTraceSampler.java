@@ -0,0 +1,282 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+
+package com.sun.appserv.connectors.internal.api;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a leak detector captures the stack of the caller that
+ * checks out a resource, and de-duplicates the captured stacks.
+ * <p>
+ * With a sample rate of 1 the stack is captured for every checkout. With a
+ * sample rate of N, the stack is captured for 1 in N checkouts chosen at
+ * random, and for every checkout made by an application (identified by the
+ * context class loader of the caller) that has leaked a resource whose stack
+ * was not captured. Captured stacks are interned in a bounded table keyed by
+ * their frames, so that the stacks retained for the many resources checked
+ * out from the same call site are shared, and the number of leaks per call
+ * site is known.
+ */
+public class LeakTraceSampler {
+
+    //Maximum number of distinct call sites remembered
+    public static final int MAX_CALL_SITES = 256;
+    //Maximum number of applications for which every checkout is traced
+    private static final int MAX_LEAKING_CONTEXTS = 16;
+
+    private final int sampleRate;
+    private final ConcurrentHashMap<Frames, CallSite> callSites = new ConcurrentHashMap<Frames, CallSite>();
+    private final AtomicLong callSiteIds = new AtomicLong();
+    //Copy on write, so that checkouts read it without locking
+    private volatile WeakReference<ClassLoader>[] leakingContexts = newContexts(0);
+
+    /**
+     * @param sampleRate capture the stack for 1 in sampleRate checkouts
+     */
+    public LeakTraceSampler(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Called when a resource is checked out.
+     *
+     * @return trace of the checkout, holding the caller stack if it was sampled
+     */
+    public LeakTrace capture() {
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0
+                || isLeakingContext(context)) {
+            return new LeakTrace(context, intern(Thread.currentThread().getStackTrace()));
+        }
+        return new LeakTrace(context, null);
+    }
+
+    /**
+     * Called when a checked out resource is considered leaked. When the
+     * stack of the checkout was not captured, the stacks of all further
+     * checkouts made by the same application are captured.
+     *
+     * @param trace trace of the leaked checkout
+     * @return the call site of the leak, null if the stack was not captured
+     */
+    public CallSite leakDetected(LeakTrace trace) {
+        CallSite callSite = trace.getCallSite();
+        if (callSite != null) {
+            callSite.leaks.incrementAndGet();
+        } else if (trace.context != null) {
+            addLeakingContext(trace.context);
+        }
+        return callSite;
+    }
+
+    public int getCallSiteCount() {
+        return callSites.size();
+    }
+
+    /**
+     * Index of the first frame of the caller in the stack of the thread,
+     * skipping the frames of this class and of <code>Thread.getStackTrace</code>.
+     * The stack is not copied, so that capturing every checkout costs no more
+     * than <code>Thread.getStackTrace</code>.
+     */
+    private int callerStart(StackTraceElement[] stack) {
+        int start = 0;
+        while (start < stack.length && !getClass().getName().equals(stack[start].getClassName())) {
+            start++;
+        }
+        while (start < stack.length && getClass().getName().equals(stack[start].getClassName())) {
+            start++;
+        }
+        return start < stack.length ? start : 0;
+    }
+
+    private CallSite intern(StackTraceElement[] stack) {
+        Frames frames = new Frames(stack, callerStart(stack));
+        CallSite callSite = callSites.get(frames);
+        if (callSite == null) {
+            callSite = new CallSite(callSiteIds.incrementAndGet(), frames);
+            if (callSites.size() < MAX_CALL_SITES) {
+                CallSite existing = callSites.putIfAbsent(frames, callSite);
+                if (existing != null) {
+                    callSite = existing;
+                }
+            }
+        }
+        return callSite;
+    }
+
+    private boolean isLeakingContext(ClassLoader context) {
+        if (context == null) {
+            return false;
+        }
+        for (WeakReference<ClassLoader> leakingContext : leakingContexts) {
+            if (leakingContext.get() == context) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void addLeakingContext(ClassLoader context) {
+        if (isLeakingContext(context)) {
+            return;
+        }
+        int live = 0;
+        WeakReference<ClassLoader>[] contexts = newContexts(leakingContexts.length + 1);
+        for (WeakReference<ClassLoader> leakingContext : leakingContexts) {
+            if (leakingContext.get() != null) {
+                contexts[live++] = leakingContext;
+            }
+        }
+        if (live == MAX_LEAKING_CONTEXTS) {
+            //Forget the oldest application
+            System.arraycopy(contexts, 1, contexts, 0, --live);
+        }
+        contexts[live++] = new WeakReference<ClassLoader>(context);
+        leakingContexts = Arrays.copyOf(contexts, live);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<ClassLoader>[] newContexts(int size) {
+        return new WeakReference[size];
+    }
+
+    /**
+     * A resource checkout whose leak is being traced.
+     */
+    public static final class LeakTrace {
+        private final ClassLoader context;
+        private final CallSite callSite;
+
+        private LeakTrace(ClassLoader context, CallSite callSite) {
+            this.context = context;
+            this.callSite = callSite;
+        }
+
+        /**
+         * @return the call site of the checkout, null if its stack was not captured
+         */
+        public CallSite getCallSite() {
+            return callSite;
+        }
+    }
+
+    /**
+     * A distinct caller stack from which resources are checked out.
+     */
+    public static final class CallSite {
+        private final long id;
+        private final Frames frames;
+        private final AtomicLong leaks = new AtomicLong();
+
+        private CallSite(long id, Frames frames) {
+            this.id = id;
+            this.frames = frames;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * @return stack of the caller, starting with the frame of the leak detector
+         */
+        public StackTraceElement[] getStack() {
+            //Only called when a leak is reported
+            return Arrays.copyOfRange(frames.stack, frames.start, frames.stack.length);
+        }
+
+        public long getLeakCount() {
+            return leaks.get();
+        }
+    }
+
+    /**
+     * Key of the call site table, comparing the frames of the caller in
+     * captured stacks frame by frame.
+     */
+    private static final class Frames {
+        private final StackTraceElement[] stack;
+        private final int start;
+        private final int hash;
+
+        private Frames(StackTraceElement[] stack, int start) {
+            this.stack = stack;
+            this.start = start;
+            int h = 1;
+            for (int i = start; i < stack.length; i++) {
+                h = 31 * h + stack[i].hashCode();
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Frames)) {
+                return false;
+            }
+            Frames other = (Frames) o;
+            if (hash != other.hash || stack.length - start != other.stack.length - other.start) {
+                return false;
+            }
+            for (int i = start, j = other.start; i < stack.length; i++, j++) {
+                if (!stack[i].equals(other.stack[j])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
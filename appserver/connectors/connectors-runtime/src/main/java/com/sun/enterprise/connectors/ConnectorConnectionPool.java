@@ -87,6 +87,7 @@ public class ConnectorConnectionPool implements Serializable {
     private String poolDataStructureType;
     private String poolWaitQueue;
     private String dataStructureParameters;
+    private int threadAffinityCacheSize = 0;
     private String resourceGatewayClass;
     private String resourceSelectionStrategyClass;
     private boolean nonTransactional_ = false;
@@ -107,6 +108,13 @@ public class ConnectorConnectionPool implements Serializable {
     //This property will be set by ConnectorConnectionPoolDeployer or
     //JdbcConnectionPoolDeployer.
     private boolean preferValidateOverRecreate_ = false;
+    //Background validation and pre-warming are set by ConnectorConnectionPoolDeployer
+    //or JdbcConnectionPoolDeployer.
+    private int backgroundValidationInterval_ = 0;
+    private boolean prewarmConnections_ = false;
+    //Stack trace of 1 in leakTraceSampleRate_ connections is captured by the
+    //leak detector. Set by ConnectorConnectionPoolDeployer or JdbcConnectionPoolDeployer.
+    private int leakTraceSampleRate_ = 1;
     
     private String validateAtmostOncePeriod_ = null;
 
@@ -239,6 +247,7 @@ public class ConnectorConnectionPool implements Serializable {
         clone.setPartitionedPool(isPartitionedPool());
         clone.setDataStructureParameters(getDataStructureParameters());
         clone.setPoolDataStructureType(getPoolDataStructureType());
+        clone.setThreadAffinityCacheSize(getThreadAffinityCacheSize());
         clone.setPoolWaitQueue(getPoolWaitQueue());
         clone.setLazyConnectionEnlist(isLazyConnectionEnlist());
 
@@ -251,6 +260,9 @@ public class ConnectorConnectionPool implements Serializable {
                 (getConCreationRetryInterval());
         clone.setConCreationRetryAttempts(getConCreationRetryAttempts());
         clone.setPreferValidateOverRecreate(isPreferValidateOverRecreate());
+        clone.setBackgroundValidationInterval(getBackgroundValidationInterval());
+        clone.setPrewarmConnections(isPrewarmConnections());
+        clone.setLeakTraceSampleRate(getLeakTraceSampleRate());
         clone.setPooling(isPoolingOn());
         clone.setPingDuringPoolCreation(getPingDuringPoolCreation());
         return clone;
@@ -753,11 +765,19 @@ public class ConnectorConnectionPool implements Serializable {
             sb.append(isConnectionValidationRequired_);
             sb.append("\npreferValidateOverRecreate_ ");
             sb.append(preferValidateOverRecreate_);
+            sb.append("\nbackgroundValidationInterval_ ");
+            sb.append(backgroundValidationInterval_);
+            sb.append("\nprewarmConnections_ ");
+            sb.append(prewarmConnections_);
+            sb.append("\nleakTraceSampleRate_ ");
+            sb.append(leakTraceSampleRate_);
 
             sb.append("\nmatchConnections_ ");
             sb.append(matchConnections_);
             sb.append("\nassociateWithThread_ ");
             sb.append(associateWithThread_);
+            sb.append("\nthreadAffinityCacheSize ");
+            sb.append(threadAffinityCacheSize);
             sb.append("\nlazyConnectionAssoc_ ");
             sb.append(lazyConnectionAssoc_);
             sb.append("\nlazyConnectionEnlist_ ");
@@ -857,6 +877,19 @@ public class ConnectorConnectionPool implements Serializable {
         this.dataStructureParameters = dataStructureParameters;
     }
 
+    /**
+     * Number of released connections kept per thread, 0 disables the cache.
+     *
+     * @return thread affinity cache size
+     */
+    public int getThreadAffinityCacheSize() {
+        return threadAffinityCacheSize;
+    }
+
+    public void setThreadAffinityCacheSize(int threadAffinityCacheSize) {
+        this.threadAffinityCacheSize = threadAffinityCacheSize;
+    }
+
     public String getResourceGatewayClass() {
         return resourceGatewayClass;
     }
@@ -881,6 +914,51 @@ public class ConnectorConnectionPool implements Serializable {
         preferValidateOverRecreate_ = preferValidateOverRecreate;
     }
 
+    /**
+     * Interval (in seconds) at which free connections are validated in the
+     * background, 0 disables background validation.
+     *
+     * @return background validation interval
+     */
+    public int getBackgroundValidationInterval() {
+        return backgroundValidationInterval_;
+    }
+
+    public void setBackgroundValidationInterval(int backgroundValidationInterval) {
+        backgroundValidationInterval_ = backgroundValidationInterval;
+    }
+
+    /**
+     * Whether the resizer creates connections ahead of the predicted demand.
+     * Pre-warming is done by the resizer, which only runs when
+     * idle-timeout-in-seconds is greater than 0, so it has no effect on
+     * pools without an idle timeout.
+     *
+     * @return prewarm connections
+     */
+    public boolean isPrewarmConnections() {
+        return prewarmConnections_;
+    }
+
+    public void setPrewarmConnections(boolean prewarmConnections) {
+        prewarmConnections_ = prewarmConnections;
+    }
+
+    /**
+     * The connection leak detector captures the stack trace of 1 in
+     * leak-trace-sample-rate connections, and of every connection of an
+     * application that leaked a connection whose stack trace was not captured.
+     *
+     * @return leak trace sample rate
+     */
+    public int getLeakTraceSampleRate() {
+        return leakTraceSampleRate_;
+    }
+
+    public void setLeakTraceSampleRate(int leakTraceSampleRate) {
+        leakTraceSampleRate_ = leakTraceSampleRate;
+    }
+
     public long getDynamicReconfigWaitTimeout() {
         return dynamicReconfigWaitTimeout;
     }
@@ -109,6 +109,10 @@ public final class ConnectionPoolReconfigHelper {
         if (newCcp.isPartitionedPool() != oldCcp.isPartitionedPool()) {
             return ReconfigAction.RECREATE_POOL;
         }
+
+        if (newCcp.getThreadAffinityCacheSize() != oldCcp.getThreadAffinityCacheSize()) {
+            return ReconfigAction.RECREATE_POOL;
+        }
         if (newCcp.getPoolDataStructureType() == null && oldCcp.getPoolDataStructureType() != null) {
             return ReconfigAction.RECREATE_POOL;
         }
@@ -538,6 +538,38 @@ public class ConnectorConnectionPoolDeployer extends AbstractConnectorResourceDe
                     if(_logger.isLoggable(Level.FINE)) {
                         _logger.fine("DATASTRUCTUREPARAMETERS");
                     }
+                } else if ("THREADAFFINITYCACHESIZE".equals(ep.getName().toUpperCase(locale))) {
+                    try {
+                        ccp.setThreadAffinityCacheSize(Integer.parseInt(ep.getValue()));
+                        if(_logger.isLoggable(Level.FINE)) {
+                            _logger.fine("THREADAFFINITYCACHESIZE");
+                        }
+                    } catch (NumberFormatException nfe) {
+                        _logger.log(Level.WARNING, "Invalid value for 'ThreadAffinityCacheSize' : " + ep.getValue());
+                    }
+                } else if ("BACKGROUNDVALIDATIONINTERVAL".equals(ep.getName().toUpperCase(locale))) {
+                    try {
+                        ccp.setBackgroundValidationInterval(Integer.parseInt(ep.getValue()));
+                        if(_logger.isLoggable(Level.FINE)) {
+                            _logger.fine("BACKGROUNDVALIDATIONINTERVAL");
+                        }
+                    } catch (NumberFormatException nfe) {
+                        _logger.log(Level.WARNING, "Invalid value for 'BackgroundValidationInterval' : " + ep.getValue());
+                    }
+                } else if ("LEAKTRACESAMPLERATE".equals(ep.getName().toUpperCase(locale))) {
+                    try {
+                        ccp.setLeakTraceSampleRate(Integer.parseInt(ep.getValue()));
+                        if(_logger.isLoggable(Level.FINE)) {
+                            _logger.fine("LEAKTRACESAMPLERATE");
+                        }
+                    } catch (NumberFormatException nfe) {
+                        _logger.log(Level.WARNING, "Invalid value for 'LeakTraceSampleRate' : " + ep.getValue());
+                    }
+                } else if ("PREWARMCONNECTIONS".equals(ep.getName().toUpperCase(locale))) {
+                    ccp.setPrewarmConnections(toBoolean(ep.getValue(), false));
+                    if(_logger.isLoggable(Level.FINE)) {
+                        _logger.fine("PREWARMCONNECTIONS");
+                    }
                 } else if ("PREFER-VALIDATE-OVER-RECREATE".equals(ep.getName().toUpperCase(locale))) {
                     String value = ep.getValue();
                     if (_logger.isLoggable(Level.FINE)) {
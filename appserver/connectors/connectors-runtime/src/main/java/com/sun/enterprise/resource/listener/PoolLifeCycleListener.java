@@ -64,6 +64,13 @@ public interface PoolLifeCycleListener {
      */
     void connectionRequestServed(long timeTakenInMillis);
 
+    /**
+     * indicates that a connection request that had to wait in the wait queue
+     * is served in the time
+     * @param timeTakenInMillis time taken to serve a connection
+     */
+    void queuedConnectionRequestServed(long timeTakenInMillis);
+
     /**
      * indicates that a connection is timed-out
      */
@@ -143,4 +150,19 @@ public interface PoolLifeCycleListener {
      */
     void connectionRequestDequeued();
 
+    /**
+     * indicates that a request was served by the thread affinity cache
+     */
+    void affinityCacheHit();
+
+    /**
+     * indicates that a request could not be served by the thread affinity cache
+     */
+    void affinityCacheMiss();
+
+    /**
+     * indicates that connections cached by threads were returned to the pool
+     * @param count number of connections
+     */
+    void affinityCacheSteal(int count);
 }
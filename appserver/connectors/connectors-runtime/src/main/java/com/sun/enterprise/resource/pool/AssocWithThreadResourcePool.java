@@ -47,6 +47,7 @@ import com.sun.enterprise.resource.ResourceSpec;
 import com.sun.enterprise.resource.allocator.ResourceAllocator;
 import com.sun.enterprise.resource.pool.datastructure.DataStructureFactory;
 import com.sun.enterprise.resource.pool.resizer.AssocWithThreadPoolResizer;
+import com.sun.enterprise.resource.pool.resizer.BackgroundValidator;
 import com.sun.enterprise.resource.pool.resizer.Resizer;
 import org.glassfish.resourcebase.resources.api.PoolInfo;
 
@@ -77,6 +78,14 @@ public class AssocWithThreadResourcePool extends ConnectionPool {
                 maxPoolSize, this, resourceSelectionStrategyClass);
     }
 
+    /**
+     * Resources are already associated with the thread, hence the thread
+     * affinity cache is not used by this pool.
+     */
+    @Override
+    protected void initializeThreadAffinityCache() {
+        //do nothing
+    }
 
     /**
      * Prefetch is called to check whether there there is a free resource is already associated with the thread
@@ -161,6 +170,16 @@ public class AssocWithThreadResourcePool extends ConnectionPool {
                 preferValidateOverRecreate);
     }
 
+    /**
+     * Free resources of this pool remain associated with their threads and
+     * cannot be taken out of the pool for validation, hence they are only
+     * validated by the resizer.
+     */
+    @Override
+    protected BackgroundValidator initializeBackgroundValidator() {
+        return null;
+    }
+
     /**
      * to associate a resource with the thread
      * @param h ResourceHandle
@@ -259,6 +278,32 @@ public class AssocWithThreadResourcePool extends ConnectionPool {
         return result;
     }
 
+    /**
+     * A resource handed off by a releasing thread gets the same checks and
+     * association with the thread as one from <code>getUnenlistedResource</code>.
+     */
+    @Override
+    protected ResourceHandle acceptHandedOffResource(ResourceHandle h, ResourceAllocator alloc)
+            throws PoolingException {
+        //It is possible that Resizer might have marked the resource for recycle
+        //and hence we should not use this resource.
+        synchronized (h.lock) {
+            if (h instanceof AssocWithThreadResourceHandle &&
+                    ((AssocWithThreadResourceHandle) h).isDirty()) {
+                ds.removeResource(h);
+                return null;
+            }
+        }
+
+        ResourceHandle result = super.acceptHandedOffResource(h, alloc);
+
+        if (localResource.get() == null) {
+            if (result instanceof AssocWithThreadResourceHandle)
+                setInThreadLocal((AssocWithThreadResourceHandle) result);
+        }
+        return result;
+    }
+
     /**
      * return the resource back to pool only if it is not associated with the thread.
      * @param h ResourceHandle
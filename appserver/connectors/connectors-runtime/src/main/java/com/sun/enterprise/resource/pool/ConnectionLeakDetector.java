@@ -40,6 +40,9 @@
 
 package com.sun.enterprise.resource.pool;
 
+import com.sun.appserv.connectors.internal.api.LeakTraceSampler;
+import com.sun.appserv.connectors.internal.api.LeakTraceSampler.CallSite;
+import com.sun.appserv.connectors.internal.api.LeakTraceSampler.LeakTrace;
 import com.sun.enterprise.connectors.ConnectorRuntime;
 import com.sun.enterprise.resource.ResourceHandle;
 import com.sun.enterprise.util.i18n.StringManager;
@@ -58,17 +61,19 @@ import java.util.logging.Logger;
  * Connection leak detector, book keeps the caller stack-trace during getConnection()<br>
  * Once the leak-timeout expires, assumes a connection leak and prints the caller stack-trace<br>
  * Also, reclaims the connection if connection-leak-reclaim in ON<br>
+ * The caller stack-trace may be sampled, see {@link LeakTraceSampler}<br>
  *
  * @author Kshitiz Saxena, Jagadish Ramu
  */
 public class ConnectionLeakDetector {
-    private HashMap<ResourceHandle, StackTraceElement[]> connectionLeakThreadStackHashMap;
+    private HashMap<ResourceHandle, LeakTrace> connectionLeakThreadStackHashMap;
     private HashMap<ResourceHandle, ConnectionLeakTask> connectionLeakTimerTaskHashMap;
     private boolean connectionLeakTracing;
     private long connectionLeakTimeoutInMillis;
     private boolean connectionLeakReclaim;
     private PoolInfo connectionPoolInfo;
     private Map<ResourceHandle, ConnectionLeakListener> listeners;
+    private volatile LeakTraceSampler leakTraceSampler;
 
     //Lock on HashMap to trace connection leaks
     private final Object connectionLeakLock;
@@ -79,23 +84,36 @@ public class ConnectionLeakDetector {
 
 
     public ConnectionLeakDetector(PoolInfo poolInfo, boolean leakTracing, long leakTimeoutInMillis, boolean leakReclaim) {
+        this(poolInfo, leakTracing, leakTimeoutInMillis, leakReclaim, 1);
+    }
+
+    public ConnectionLeakDetector(PoolInfo poolInfo, boolean leakTracing, long leakTimeoutInMillis, boolean leakReclaim,
+                                  int leakTraceSampleRate) {
         connectionPoolInfo = poolInfo;
-        connectionLeakThreadStackHashMap = new HashMap<ResourceHandle, StackTraceElement[]>();
+        connectionLeakThreadStackHashMap = new HashMap<ResourceHandle, LeakTrace>();
         connectionLeakTimerTaskHashMap = new HashMap<ResourceHandle, ConnectionLeakTask>();
         listeners = new HashMap<ResourceHandle, ConnectionLeakListener>();
         connectionLeakLock = new Object();
         connectionLeakTracing = leakTracing;
         connectionLeakTimeoutInMillis = leakTimeoutInMillis;
         connectionLeakReclaim = leakReclaim;
+        leakTraceSampler = new LeakTraceSampler(leakTraceSampleRate);
     }
 
     public void reset(boolean leakTracing, long leakTimeoutInMillis, boolean leakReclaim) {
+        reset(leakTracing, leakTimeoutInMillis, leakReclaim, leakTraceSampler.getSampleRate());
+    }
+
+    public void reset(boolean leakTracing, long leakTimeoutInMillis, boolean leakReclaim, int leakTraceSampleRate) {
         if (!connectionLeakTracing && leakTracing) {
             clearAllConnectionLeakTasks();
         }
         connectionLeakTracing = leakTracing;
         connectionLeakTimeoutInMillis = leakTimeoutInMillis;
         connectionLeakReclaim = leakReclaim;
+        if (leakTraceSampler.getSampleRate() != leakTraceSampleRate) {
+            leakTraceSampler = new LeakTraceSampler(leakTraceSampleRate);
+        }
     }
 
     private void registerListener(ResourceHandle handle, ConnectionLeakListener listener) {
@@ -116,7 +134,7 @@ public class ConnectionLeakDetector {
         if (connectionLeakTracing) {
             synchronized (connectionLeakLock) {
                 if (!connectionLeakThreadStackHashMap.containsKey(resourceHandle)) {
-                    connectionLeakThreadStackHashMap.put(resourceHandle, Thread.currentThread().getStackTrace());
+                    connectionLeakThreadStackHashMap.put(resourceHandle, leakTraceSampler.capture());
                     ConnectionLeakTask connectionLeakTask = new ConnectionLeakTask(resourceHandle);
                     connectionLeakTimerTaskHashMap.put(resourceHandle, connectionLeakTask);
                     registerListener(resourceHandle, listener);
@@ -155,10 +173,10 @@ public class ConnectionLeakDetector {
     private void potentialConnectionLeakFound(ResourceHandle resourceHandle) {
         synchronized (connectionLeakLock) {
             if (connectionLeakThreadStackHashMap.containsKey(resourceHandle)) {
-                StackTraceElement[] threadStack = connectionLeakThreadStackHashMap.remove(resourceHandle);
+                LeakTrace leakTrace = connectionLeakThreadStackHashMap.remove(resourceHandle);
                 ConnectionLeakListener connLeakListener = listeners.get(resourceHandle);
                 connLeakListener.potentialConnectionLeakFound();
-                printConnectionLeakTrace(threadStack, connLeakListener);
+                printConnectionLeakTrace(leakTraceSampler.leakDetected(leakTrace), connLeakListener);
                 connectionLeakTimerTaskHashMap.remove(resourceHandle);
                 if (connectionLeakReclaim) {
                     resourceHandle.markForReclaim(true);
@@ -173,11 +191,23 @@ public class ConnectionLeakDetector {
     /**
      * Prints the stack trace of thread leaking connection to server logs
      *
-     * @param threadStackTrace Application(caller) thread stack trace
+     * @param callSite Application(caller) call site, null if its stack trace was not sampled
      */
-    private void printConnectionLeakTrace(StackTraceElement[] threadStackTrace,
+    private void printConnectionLeakTrace(CallSite callSite,
             ConnectionLeakListener connLeakListener) {
         StringBuffer stackTrace = new StringBuffer();
+        if (callSite == null) {
+            stackTrace.append(localStrings.getStringWithDefault(
+                    "potential.connection.leak.unsampled.msg",
+                    "A potential connection leak detected for connection pool " + connectionPoolInfo +
+                            ". The stack trace of the thread was not sampled, it will be captured for" +
+                            " every connection the application gets from now on.",
+                    new Object[]{connectionPoolInfo}));
+            connLeakListener.printConnectionLeakTrace(stackTrace);
+            _logger.log(Level.WARNING, stackTrace.toString(), "ConnectionPoolName=" + connectionPoolInfo);
+            return;
+        }
+        StackTraceElement[] threadStackTrace = callSite.getStack();
         String msg = localStrings.getStringWithDefault(
                 "potential.connection.leak.msg",
                 "A potential connection leak detected for connection pool " + connectionPoolInfo +
@@ -185,7 +215,8 @@ public class ConnectionLeakDetector {
                 new Object[]{connectionPoolInfo});
         stackTrace.append(msg);
         stackTrace.append("\n");
-        for (int i = 2; i < threadStackTrace.length; i++) {
+        //Skip the frame of startConnectionLeakTracing
+        for (int i = 1; i < threadStackTrace.length; i++) {
             stackTrace.append(threadStackTrace[i].toString());
             stackTrace.append("\n");
         }
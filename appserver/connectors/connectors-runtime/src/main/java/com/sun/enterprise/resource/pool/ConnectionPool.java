@@ -52,9 +52,12 @@ import com.sun.enterprise.resource.allocator.ResourceAllocator;
 import com.sun.enterprise.resource.listener.PoolLifeCycleListener;
 import com.sun.enterprise.resource.pool.datastructure.DataStructure;
 import com.sun.enterprise.resource.pool.datastructure.DataStructureFactory;
+import com.sun.enterprise.resource.pool.resizer.BackgroundValidator;
 import com.sun.enterprise.resource.pool.resizer.Resizer;
+import com.sun.enterprise.resource.pool.waitqueue.FairPoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueue;
 import com.sun.enterprise.resource.pool.waitqueue.PoolWaitQueueFactory;
+import com.sun.enterprise.resource.pool.waitqueue.PoolWaiter;
 import com.sun.enterprise.transaction.api.JavaEETransaction;
 import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.logging.LogDomains;
@@ -96,6 +99,8 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
     protected boolean preferValidateOverRecreate = false;
     // hold on to the resizer task so we can cancel/reschedule it.
     protected Resizer resizerTask;
+    // background validation task, null when background validation is off.
+    protected BackgroundValidator validatorTask;
 
 
     protected volatile boolean poolInitialized = false;
@@ -106,6 +111,8 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
     protected int connectionCreationRetryAttempts_;
     protected long conCreationRetryInterval_;
     protected long validateAtmostPeriodInMilliSeconds_;
+    protected long backgroundValidationIntervalInMilliSeconds_;
+    protected boolean prewarmConnections_;
     protected int maxConnectionUsage_;
     //To validate a Sun RA Pool Connection if it hasnot been validated
     //  in the past x sec. (x=idle-timeout)
@@ -127,6 +134,10 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
     protected String dataStructureType;
     protected String dataStructureParameters;
 
+    //per-thread cache of released resources, null when disabled
+    protected ThreadAffinityCache affinityCache;
+    protected int threadAffinityCacheSize;
+
     protected PoolWaitQueue waitQueue;
     protected PoolWaitQueue reconfigWaitQueue;
     private long reconfigWaitTime ;
@@ -148,6 +159,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         this.poolInfo = poolInfo;
         setPoolConfiguration(env);
         initializePoolDataStructure();
+        initializeThreadAffinityCache();
         initializeResourceSelectionStrategy();
         initializePoolWaitQueue();
         poolTxHelper = new PoolTxHelper(this.poolInfo);
@@ -159,7 +171,12 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
     protected void initializePoolWaitQueue() throws PoolingException {
         waitQueue = PoolWaitQueueFactory.createPoolWaitQueue(poolWaitQueueClass);
-        reconfigWaitQueue = PoolWaitQueueFactory.createPoolWaitQueue(poolWaitQueueClass);
+        if (waitQueue instanceof FairPoolWaitQueue) {
+            //reconfig-wait-queue holds plain monitors that are notified during reconfiguration
+            reconfigWaitQueue = PoolWaitQueueFactory.createPoolWaitQueue(null);
+        } else {
+            reconfigWaitQueue = PoolWaitQueueFactory.createPoolWaitQueue(poolWaitQueueClass);
+        }
     }
 
     protected void initializePoolDataStructure() throws PoolingException {
@@ -171,6 +188,12 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         //do nothing
     }
 
+    protected void initializeThreadAffinityCache() {
+        if (threadAffinityCacheSize > 0) {
+            affinityCache = new ThreadAffinityCache(threadAffinityCacheSize);
+        }
+    }
+
     private void setPoolConfiguration(Hashtable env) throws PoolingException {
 
         ConnectorConnectionPool poolResource = getPoolConfigurationFromJndi(env);
@@ -196,6 +219,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         validateAtmostEveryIdleSecs = poolResource.isValidateAtmostEveryIdleSecs();
         dataStructureType = poolResource.getPoolDataStructureType();
         dataStructureParameters = poolResource.getDataStructureParameters();
+        threadAffinityCacheSize = poolResource.getThreadAffinityCacheSize();
         poolWaitQueueClass = poolResource.getPoolWaitQueue();
         resourceSelectionStrategyClass = poolResource.getResourceSelectionStrategyClass();
         resourceGatewayClass = poolResource.getResourceGatewayClass();
@@ -232,6 +256,8 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         // if the idle time out is 0, then don't schedule the resizer task
         if (idletime > 0) {
             scheduleResizerTask();
+        } else {
+            scheduleValidatorTask();
         }
 
         //Need to set the numConnFree of monitoring statistics to the steadyPoolSize
@@ -257,6 +283,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         }
 
         resizerTask = initializeResizer();
+        resizerTask.setPrewarm(prewarmConnections_);
 
         if (timer == null) {
             timer = ConnectorRuntime.getRuntime().getTimer();
@@ -266,10 +293,49 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         if (_logger.isLoggable(Level.FINEST)) {
             _logger.finest("scheduled resizer task");
         }
+        scheduleValidatorTask();
+    }
+
+    /**
+     * Schedules the background validation task when connection validation and
+     * background validation are on. A currently scheduled task is canceled.
+     */
+    private void scheduleValidatorTask() {
+        if (validatorTask != null) {
+            validatorTask.cancel();
+            validatorTask = null;
+        }
+        if (!validation || backgroundValidationIntervalInMilliSeconds_ <= 0) {
+            return;
+        }
+
+        validatorTask = initializeBackgroundValidator();
+        if (validatorTask == null) {
+            return;
+        }
+
+        if (timer == null) {
+            timer = ConnectorRuntime.getRuntime().getTimer();
+        }
+
+        timer.scheduleAtFixedRate(validatorTask, backgroundValidationIntervalInMilliSeconds_,
+                backgroundValidationIntervalInMilliSeconds_);
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.finest("scheduled background validation task");
+        }
+    }
+
+    protected BackgroundValidator initializeBackgroundValidator() {
+        BackgroundValidator validator = new BackgroundValidator(poolInfo, ds, this, this,
+                backgroundValidationIntervalInMilliSeconds_);
+        validator.setAffinityCache(affinityCache);
+        return validator;
     }
 
     protected Resizer initializeResizer() {
-        return new Resizer(poolInfo, ds, this, this, preferValidateOverRecreate);
+        Resizer resizer = new Resizer(poolInfo, ds, this, this, preferValidateOverRecreate);
+        resizer.setAffinityCache(affinityCache);
+        return resizer;
     }
 
     /**
@@ -365,9 +431,11 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         long startTime = System.currentTimeMillis();
         long elapsedWaitTime;
         long remainingWaitTime = 0;
+        boolean queued = false;
 
         while (true) {
-            if (gateway.allowed()) {
+            //result is already set when a resource was handed off by the fair wait-queue
+            if (result == null && gateway.allowed()) {
                 //See comment #1 above
                 JavaEETransaction jtx = ((JavaEETransaction) txn);
                 Set resourcesSet = null;
@@ -390,6 +458,9 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                     poolLifeCycleListener.connectionAcquired(result.getId());
                     elapsedWaitTime = System.currentTimeMillis() - startTime;
                     poolLifeCycleListener.connectionRequestServed(elapsedWaitTime);
+                    if (queued) {
+                        poolLifeCycleListener.queuedConnectionRequestServed(elapsedWaitTime);
+                    }
                     if (_logger.isLoggable( Level.FINE) ) {
                         _logger.log(Level.FINE, "Resource Pool: elapsed time " +
                                 "(ms) to get connection for [" + spec + "] : " +
@@ -420,8 +491,17 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
                     }
                 }
 
-                if (!blocked) {
+                if (!blocked && waitQueue instanceof FairPoolWaitQueue) {
+                    queued = true;
+                    try {
+                        result = waitForResource(remainingWaitTime, alloc);
+                    } catch (InterruptedException ex) {
+                        //Could be system shutdown.
+                        break;
+                    }
+                } else if (!blocked) {
                     //add to wait-queue
+                    queued = true;
                     Object waitMonitor = new Object();
                     if (poolLifeCycleListener != null) {
                         poolLifeCycleListener.connectionRequestQueued();
@@ -492,6 +572,121 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         return result;
     }
 
+    /**
+     * Wait in the fair wait-queue until a resource is handed off, the waiter is
+     * signalled to retry the pool or the wait time expires.
+     *
+     * @param waitTime time to wait in milliseconds, 0 to wait indefinitely
+     * @param alloc    ResourceAllocator of the request
+     * @return ResourceHandle resource handed off by a releasing thread or null
+     * @throws InterruptedException when the waiting thread is interrupted
+     * @throws PoolingException     when a replacement for a failed resource cannot be created
+     */
+    private ResourceHandle waitForResource(long waitTime, ResourceAllocator alloc)
+            throws InterruptedException, PoolingException {
+        PoolWaiter waiter = new PoolWaiter(waitTime);
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.connectionRequestQueued();
+        }
+        waitQueue.addToQueue(waiter);
+        ResourceHandle h;
+        try {
+            logFine("Resource Pool: getting on fair wait queue");
+            h = waiter.await();
+        } catch (InterruptedException ex) {
+            h = waiter.cancel();
+            if (h != null) {
+                ds.returnResource(h);
+                notifyWaitingThreads();
+            }
+            throw ex;
+        } finally {
+            if (waitQueue.removeFromQueue(waiter)) {
+                if (poolLifeCycleListener != null) {
+                    poolLifeCycleListener.connectionRequestDequeued();
+                }
+            }
+        }
+        if (h != null) {
+            h = acceptHandedOffResource(h, alloc);
+        }
+        return h;
+    }
+
+    /**
+     * Check that the resource handed off by a releasing thread can serve the request,
+     * the same way as a resource taken from the pool by <code>getResourceFromPool</code>.<br>
+     * A resource that does not match is returned to the pool, an invalid one is removed.
+     *
+     * @param h     ResourceHandle handed off
+     * @param alloc ResourceAllocator of the request
+     * @return ResourceHandle in busy state or null
+     * @throws PoolingException when a replacement for a failed resource cannot be created
+     */
+    protected ResourceHandle acceptHandedOffResource(ResourceHandle h, ResourceAllocator alloc)
+            throws PoolingException {
+        if (h.hasConnectionErrorOccurred()) {
+            ds.removeResource(h);
+            return null;
+        }
+        if (!matchConnection(h, alloc) || h.isShareable() != alloc.shareableWithinComponent()) {
+            ds.returnResource(h);
+            notifyWaitingThreads();
+            return null;
+        }
+        if (!isConnectionValid(h, alloc) || h.hasConnectionErrorOccurred()) {
+            if (failAllConnections) {
+                //no need to match since the resource is created with the allocator of caller.
+                h = createSingleResourceAndAdjustPool(alloc, null);
+                if (h == null) {
+                    return null;
+                }
+            } else {
+                ds.removeResource(h);
+                return null;
+            }
+        }
+        setResourceStateToBusy(h);
+        if (maxConnectionUsage_ > 0) {
+            h.incrementUsageCount();
+        }
+        if (poolLifeCycleListener != null) {
+            poolLifeCycleListener.connectionUsed(h.getId());
+            poolLifeCycleListener.decrementNumConnFree();
+        }
+        return h;
+    }
+
+    /**
+     * Hand the released resource to the oldest request in the fair wait-queue.
+     *
+     * @param h released ResourceHandle
+     * @return boolean indicating whether a waiting request took the resource
+     */
+    private boolean handOffToWaiter(ResourceHandle h) {
+        if (!(waitQueue instanceof FairPoolWaitQueue)) {
+            return false;
+        }
+        while (true) {
+            PoolWaiter waiter = null;
+            synchronized (waitQueue) {
+                if (waitQueue.getQueueLength() > 0) {
+                    waiter = (PoolWaiter) waitQueue.remove();
+                    if (poolLifeCycleListener != null) {
+                        poolLifeCycleListener.connectionRequestDequeued();
+                    }
+                }
+            }
+            if (waiter == null) {
+                return false;
+            }
+            //waiters that timed out or were cancelled do not accept the resource
+            if (waiter.fulfill(h)) {
+                return true;
+            }
+        }
+    }
+
     /**
      * Overridden in AssocWithThreadResourcePool to fetch the resource
      * cached in the ThreadLocal
@@ -648,8 +843,12 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         if (validation || validateAtmostEveryIdleSecs) {
             long validationPeriod;
             //validation period is idle timeout if validateAtmostEveryIdleSecs is set to true
-            //else it is validateAtmostPeriodInMilliSeconds_
-            if (validation)
+            //else it is validateAtmostPeriodInMilliSeconds_, extended to the background
+            //validation interval when free connections are validated in the background
+            if (validation && validatorTask != null)
+                validationPeriod = Math.max(validateAtmostPeriodInMilliSeconds_,
+                        backgroundValidationIntervalInMilliSeconds_);
+            else if (validation)
                 validationPeriod = validateAtmostPeriodInMilliSeconds_;
             else
                 validationPeriod = idletime;
@@ -716,7 +915,10 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         ResourceHandle h;
         ArrayList<ResourceHandle> freeResources = new ArrayList<ResourceHandle>();
         try{
-            while ((h = ds.getResource()) != null) {
+            if (affinityCache != null) {
+                result = getResourceFromAffinityCache(alloc, spec, freeResources);
+            }
+            while (result == null && (h = ds.getResource()) != null) {
 
                 if (h.hasConnectionErrorOccurred()) {
                     ds.removeResource(h);
@@ -765,6 +967,65 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         return result;
     }
 
+    /**
+     * Try to serve the request from the resources cached by the calling thread.<br>
+     * A cached resource that does not match the request is returned to the pool.
+     *
+     * @param alloc         ResourceAllocator
+     * @param spec          ResourceSpec
+     * @param freeResources resources to be returned to the pool
+     * @return ResourceHandle matched, valid resource or null
+     * @throws PoolingException when a replacement for a failed resource cannot be created
+     */
+    private ResourceHandle getResourceFromAffinityCache(ResourceAllocator alloc, ResourceSpec spec,
+                                                        List<ResourceHandle> freeResources)
+            throws PoolingException {
+        ResourceHandle h = affinityCache.poll();
+        ResourceHandle result = null;
+        if (h != null) {
+            if (h.hasConnectionErrorOccurred()) {
+                ds.removeResource(h);
+            } else if (matchConnection(h, alloc) && h.isShareable() == alloc.shareableWithinComponent()) {
+                if (isConnectionValid(h, alloc) && !h.hasConnectionErrorOccurred()) {
+                    result = h;
+                } else if (failAllConnections) {
+                    //same as the shared pool: do not hand out a resource
+                    //of a pool whose connections have been declared failed
+                    result = createSingleResourceAndAdjustPool(alloc, spec);
+                } else {
+                    ds.removeResource(h);
+                }
+            } else {
+                freeResources.add(h);
+            }
+        }
+        if (poolLifeCycleListener != null) {
+            //a replacement created for a failed resource is not a hit
+            if (result != null && result == h) {
+                poolLifeCycleListener.affinityCacheHit();
+            } else {
+                poolLifeCycleListener.affinityCacheMiss();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the resources cached by all threads to the pool.
+     *
+     * @return int number of resources stolen back
+     */
+    private int stealFromAffinityCache() {
+        int stolen = 0;
+        if (affinityCache != null) {
+            stolen = affinityCache.stealInto(ds);
+            if (stolen > 0 && poolLifeCycleListener != null) {
+                poolLifeCycleListener.affinityCacheSteal(stolen);
+            }
+        }
+        return stolen;
+    }
+
     /**
      * Scale-up the pool to serve the new request. <br>
      * If pool is at max-pool-size and free resources are found, purge unmatched<br>
@@ -794,6 +1055,10 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         if (numOfConnsToCreate > 0) {
             createResources(alloc, numOfConnsToCreate);
             result = getMatchedResourceFromPool(alloc);
+        } else if (stealFromAffinityCache() > 0
+                && (result = getMatchedResourceFromPool(alloc)) != null) {
+            //pool is at max-pool-size, served by a resource parked by another thread
+            return result;
         } else if (ds.getFreeListSize() > 0) {
             //pool cannot create more connections as it is at max-pool-size.
             //If there are free resources at max-pool-size, then none of the free resources
@@ -954,6 +1219,9 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
     }
 
     public void deleteResource(ResourceHandle resourceHandle) {
+        if (affinityCache != null) {
+            affinityCache.remove(resourceHandle);
+        }
         try {
             resourceHandle.getResourceAllocator().destroyResource(resourceHandle);
         } catch (Exception ex) {
@@ -1054,13 +1322,19 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
     protected void freeResource(ResourceHandle resourceHandle) {
         if(cleanupResource(resourceHandle)) {
+            boolean handedOff = false;
             //Only when resource handle usage count is more than maxConnUsage
             if (maxConnectionUsage_ > 0 &&
                     resourceHandle.getUsageCount() >= maxConnectionUsage_) {
                  performMaxConnectionUsageOperation(resourceHandle);
             } else {
-                // Put it back to the free collection.
-                ds.returnResource(resourceHandle);
+                // Hand it to the oldest waiter, keep it with the releasing thread
+                // unless there are waiters, else put it back to the free collection.
+                handedOff = handOffToWaiter(resourceHandle);
+                if (!handedOff && (affinityCache == null || waitQueue.getQueueLength() > 0
+                        || !affinityCache.offer(resourceHandle))) {
+                    ds.returnResource(resourceHandle);
+                }
                 //update the monitoring data
                 if (poolLifeCycleListener != null && !resourceHandle.getDestroyByLeakTimeOut()) {
                     poolLifeCycleListener.decrementConnectionUsed(resourceHandle.getId());
@@ -1069,7 +1343,9 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
             }
             //for both the cases of free.add and maxConUsageOperation, a free resource is added.
             // Hence notify waiting threads
-            notifyWaitingThreads();
+            if (!handedOff) {
+                notifyWaitingThreads();
+            }
         }
     }
     
@@ -1218,15 +1494,26 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
     protected void notifyWaitingThreads() {
         // notify the first thread in the waitqueue
         Object waitMonitor = null;
-        synchronized (waitQueue) {
-            if (waitQueue.getQueueLength() > 0) {
-                waitMonitor = waitQueue.remove();
-                if(poolLifeCycleListener != null) {
-                    poolLifeCycleListener.connectionRequestDequeued();
+        while (true) {
+            synchronized (waitQueue) {
+                if (waitQueue.getQueueLength() > 0) {
+                    waitMonitor = waitQueue.remove();
+                    if(poolLifeCycleListener != null) {
+                        poolLifeCycleListener.connectionRequestDequeued();
+                    }
+                } else {
+                    waitMonitor = null;
                 }
             }
+            //waiters that timed out or were cancelled do not take the wakeup,
+            //pass it on to the next one
+            if (!(waitMonitor instanceof PoolWaiter) || ((PoolWaiter) waitMonitor).signal()) {
+                break;
+            }
         }
-        if (waitMonitor != null) {
+        if (waitMonitor instanceof PoolWaiter) {
+            logFine("Signalled pool waiter to retry");
+        } else if (waitMonitor != null) {
             synchronized (waitMonitor) {
                 if (_logger.isLoggable(Level.FINE)) {
                     _logger.log(Level.FINE, "Notifying wait monitor : " + waitMonitor.toString());
@@ -1258,6 +1545,10 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         if (_logger.isLoggable(Level.FINE)) {
             _logger.log(Level.FINE, "EmptyPool: Name = " + poolInfo);
         }
+        if (affinityCache != null) {
+            //the cached resources are destroyed along with the others
+            affinityCache.clear();
+        }
         ds.removeAll();
     }
 
@@ -1266,6 +1557,7 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
             _logger.log(Level.FINE, "Emptying free connections in pool : " + poolInfo);
         }
 
+        stealFromAffinityCache();
         ResourceHandle h;
         while ((h = ds.getResource()) != null) {
             ds.removeResource(h);
@@ -1383,6 +1675,12 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         validation = poolResource.isIsConnectionValidationRequired();
         failAllConnections = poolResource.isFailAllConnections();
         setAdvancedPoolConfiguration(poolResource);
+        if (poolInitialized) {
+            if (resizerTask != null) {
+                resizerTask.setPrewarm(prewarmConnections_);
+            }
+            scheduleValidatorTask();
+        }
 
         //Self managed quantities. These are ignored if self management
         //is on
@@ -1461,6 +1759,14 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
 
         validateAtmostPeriodInMilliSeconds_ =
                 Integer.parseInt(poolResource.getValidateAtmostOncePeriod()) * 1000L;
+        backgroundValidationIntervalInMilliSeconds_ =
+                poolResource.getBackgroundValidationInterval() * 1000L;
+        prewarmConnections_ = poolResource.isPrewarmConnections();
+        if (prewarmConnections_
+                && Integer.parseInt(poolResource.getIdleTimeoutInSeconds()) <= 0) {
+            logFine("PrewarmConnections is ignored for pool " + poolInfo
+                    + " as the resizer does not run without an idle timeout");
+        }
         boolean connectionLeakReclaim_ = poolResource.isConnectionReclaim();
         long connectionLeakTimeoutInMilliSeconds_ = Integer.parseInt(
                 poolResource.getConnectionLeakTracingTimeout()) * 1000L;
@@ -1468,10 +1774,12 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         boolean connectionLeakTracing_ = connectionLeakTimeoutInMilliSeconds_ > 0;
         if (leakDetector == null) {
             leakDetector = new ConnectionLeakDetector(poolInfo, connectionLeakTracing_,
-                    connectionLeakTimeoutInMilliSeconds_, connectionLeakReclaim_);
+                    connectionLeakTimeoutInMilliSeconds_, connectionLeakReclaim_,
+                    poolResource.getLeakTraceSampleRate());
         } else {
             leakDetector.reset(connectionLeakTracing_,
-                    connectionLeakTimeoutInMilliSeconds_, connectionLeakReclaim_);
+                    connectionLeakTimeoutInMilliSeconds_, connectionLeakReclaim_,
+                    poolResource.getLeakTraceSampleRate());
         }
     }
 
@@ -1535,6 +1843,12 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         }
         resizerTask = null;
 
+        //background validation is rescheduled along with the resizer
+        if (validatorTask != null) {
+            validatorTask.cancel();
+        }
+        validatorTask = null;
+
         if (timer != null) {
             timer.purge();
         }
@@ -1579,6 +1893,19 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
         return steadyPoolSize;
     }
 
+    /**
+     * free resources in the datastructure and the thread affinity cache
+     *
+     * @return int count
+     */
+    private int getFreeResourcesCount() {
+        int free = ds.getFreeListSize();
+        if (affinityCache != null) {
+            free += affinityCache.size();
+        }
+        return free;
+    }
+
 
     public void setMaxPoolSize(int size) {
         if (size < ds.getResourcesSize()) {
@@ -1654,8 +1981,8 @@ public class ConnectionPool implements ResourcePool, ConnectionLeakListener,
      */
     public PoolStatus getPoolStatus() {
         PoolStatus poolStatus = new PoolStatus(this.poolInfo);
-        int numFree = (this.poolInitialized) ? ds.getFreeListSize() : 0;
-        int numUsed = (this.poolInitialized) ? ds.getResourcesSize()-ds.getFreeListSize() : 0;
+        int numFree = (this.poolInitialized) ? getFreeResourcesCount() : 0;
+        int numUsed = (this.poolInitialized) ? ds.getResourcesSize() - numFree : 0;
         poolStatus.setNumConnFree(numFree);
         poolStatus.setNumConnUsed(numUsed);
         return poolStatus;
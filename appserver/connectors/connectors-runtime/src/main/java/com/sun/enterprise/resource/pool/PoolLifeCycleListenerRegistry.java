@@ -122,6 +122,12 @@ public class PoolLifeCycleListenerRegistry implements PoolLifeCycleListener {
         }
     }
 
+    public void queuedConnectionRequestServed(long timeTakenInMillis) {
+        for (PoolLifeCycleListener listener : poolListenersList) {
+            listener.queuedConnectionRequestServed(timeTakenInMillis);
+        }
+    }
+
     public void connectionTimedOut() {
         for (PoolLifeCycleListener listener : poolListenersList) {
             listener.connectionTimedOut();
@@ -211,4 +217,22 @@ public class PoolLifeCycleListenerRegistry implements PoolLifeCycleListener {
             listener.connectionRequestDequeued();
         }
     }
+
+    public void affinityCacheHit() {
+        for (PoolLifeCycleListener listener : poolListenersList) {
+            listener.affinityCacheHit();
+        }
+    }
+
+    public void affinityCacheMiss() {
+        for (PoolLifeCycleListener listener : poolListenersList) {
+            listener.affinityCacheMiss();
+        }
+    }
+
+    public void affinityCacheSteal(int count) {
+        for (PoolLifeCycleListener listener : poolListenersList) {
+            listener.affinityCacheSteal(count);
+        }
+    }
 }
@@ -0,0 +1,217 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool;
+
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.pool.datastructure.DataStructure;
+import com.sun.enterprise.resource.pool.datastructure.StripedDataStructure;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded per-thread cache of free resources that sits in front of the pool's
+ * datastructure.<br>
+ * A resource released by a thread is kept in that thread's slot so that the
+ * next request of the same thread can be served without touching the shared
+ * datastructure. Slots of all threads are reachable from the cache so that
+ * resources parked by (possibly idle) threads can be stolen back when the
+ * pool runs low.<br>
+ * Every slot entry is claimed using compare-and-set, hence a resource is handed
+ * out either to its owner thread or to a thief, never to both.<br>
+ * A slot only weakly refers to its owner thread. Slots of threads that have
+ * died are dropped, and their resources returned to the pool, the next time
+ * resources are stolen back.<br>
+ * Slots are looked up by the thread hint shared with the striped datastructure
+ * rather than through a ThreadLocal of the cache, so a discarded pool leaves
+ * no slot (and no resource) reachable from the threads that used it.
+ */
+public class ThreadAffinityCache {
+
+    private final int slotSize;
+
+    //slots keyed on the thread hint of their owner, also used for steal-back
+    //and removal of destroyed resources
+    private final ConcurrentHashMap<Integer, Slot> slots = new ConcurrentHashMap<Integer, Slot>();
+
+    /**
+     * @param slotSize maximum number of resources cached per thread
+     */
+    public ThreadAffinityCache(int slotSize) {
+        this.slotSize = slotSize;
+    }
+
+    private Slot localSlot() {
+        Integer hint = StripedDataStructure.getThreadHint();
+        Slot slot = slots.get(hint);
+        if (slot == null) {
+            Slot created = new Slot(slotSize, Thread.currentThread());
+            slot = slots.putIfAbsent(hint, created);
+            if (slot == null) {
+                slot = created;
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * get a resource cached by the calling thread
+     *
+     * @return ResourceHandle most recently cached resource or null
+     */
+    public ResourceHandle poll() {
+        AtomicReferenceArray<ResourceHandle> entries = localSlot().entries;
+        for (int i = slotSize - 1; i >= 0; i--) {
+            ResourceHandle h = entries.get(i);
+            if (h != null && entries.compareAndSet(i, h, null)) {
+                return h;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * cache the resource in the calling thread's slot
+     *
+     * @param resource ResourceHandle free resource
+     * @return boolean false when the slot is full
+     */
+    public boolean offer(ResourceHandle resource) {
+        AtomicReferenceArray<ResourceHandle> entries = localSlot().entries;
+        for (int i = 0; i < slotSize; i++) {
+            if (entries.get(i) == null && entries.compareAndSet(i, null, resource)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * remove the resource from whichever slot it is cached in
+     *
+     * @param resource ResourceHandle
+     * @return boolean true if the resource was cached
+     */
+    public boolean remove(ResourceHandle resource) {
+        for (Slot slot : slots.values()) {
+            AtomicReferenceArray<ResourceHandle> entries = slot.entries;
+            for (int i = 0; i < slotSize; i++) {
+                if (entries.get(i) == resource && entries.compareAndSet(i, resource, null)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * steal resources cached by all threads and return them to the datastructure
+     *
+     * @param ds DataStructure to which the resources are returned
+     * @return int number of resources stolen
+     */
+    public int stealInto(DataStructure ds) {
+        int stolen = 0;
+        for (Iterator<Slot> iter = slots.values().iterator(); iter.hasNext();) {
+            Slot slot = iter.next();
+            if (!slot.isOwnerAlive()) {
+                //nobody can offer to this slot anymore, empty it below
+                iter.remove();
+            }
+            AtomicReferenceArray<ResourceHandle> entries = slot.entries;
+            for (int i = 0; i < slotSize; i++) {
+                ResourceHandle h = entries.get(i);
+                if (h != null && entries.compareAndSet(i, h, null)) {
+                    ds.returnResource(h);
+                    stolen++;
+                }
+            }
+        }
+        return stolen;
+    }
+
+    /**
+     * drop the resources cached by all threads without returning them to
+     * the datastructure, for use when the datastructure itself is emptied
+     */
+    public void clear() {
+        for (Slot slot : slots.values()) {
+            AtomicReferenceArray<ResourceHandle> entries = slot.entries;
+            for (int i = 0; i < slotSize; i++) {
+                entries.set(i, null);
+            }
+        }
+    }
+
+    /**
+     * get the number of resources currently cached by all threads
+     *
+     * @return int count
+     */
+    public int size() {
+        int size = 0;
+        for (Slot slot : slots.values()) {
+            for (int i = 0; i < slotSize; i++) {
+                if (slot.entries.get(i) != null) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static final class Slot {
+        private final AtomicReferenceArray<ResourceHandle> entries;
+        private final WeakReference<Thread> owner;
+
+        Slot(int size, Thread owner) {
+            entries = new AtomicReferenceArray<ResourceHandle>(size);
+            this.owner = new WeakReference<Thread>(owner);
+        }
+
+        boolean isOwnerAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+    }
+}
@@ -56,6 +56,7 @@ public interface DataStructure {
     String DS_TYPE_DEFAULT = "LIST";
     String DS_TYPE_CIRCULAR_LIST = "CIRCULAR_LIST";
     String DS_TYPE_PARTITIONED = "PARTITIONED";
+    String DS_TYPE_STRIPED = "STRIPED";
 
     /**
      * Set maxSize based on the new max pool size set on the connection pool 
@@ -68,6 +68,10 @@ public class DataStructureFactory {
                 ds = new ListDataStructure(parameters, maxPoolSize, handler, strategyClass);
             }else if(className.equals(RWLockDataStructure.class.getName())){
                 ds = new RWLockDataStructure(parameters, maxPoolSize, handler, strategyClass);
+            }else if(className.equals(StripedDataStructure.class.getName())
+                    || className.equalsIgnoreCase(DataStructure.DS_TYPE_STRIPED)){
+                debug("Initializing Striped DataStructure");
+                ds = new StripedDataStructure(parameters, maxPoolSize, handler, strategyClass);
             }else{
                 ds = initializeCustomDataStructureInPrivilegedMode(className, parameters, maxPoolSize, handler, strategyClass);
             }
@@ -0,0 +1,285 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.datastructure;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.logging.LogDomains;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lock-free datastructure for pool.<br>
+ * Free resources are kept in a number of stripes (lock-free deques). Each
+ * thread has an affinity to one stripe : resources are returned to and
+ * preferably taken from the stripe of the calling thread, other stripes are
+ * scanned (stolen from) only when the home stripe is empty. This keeps
+ * concurrent <i>getResource</i> / <i>returnResource</i> calls of different
+ * threads on different memory locations instead of a single monitor.<br>
+ * The number of stripes can be specified using the pool property
+ * <i>DataStructureParameters</i>, defaults to the number of processors.
+ */
+public class StripedDataStructure implements DataStructure {
+
+    private static final int MAX_STRIPES = 64;
+
+    private ResourceHandler handler;
+    private volatile int maxSize;
+
+    private final Set<ResourceHandle> resources;
+    private final ConcurrentLinkedDeque<ResourceHandle>[] stripes;
+    private final int stripeMask;
+    private final LongAdder freeCount = new LongAdder();
+    private final DynamicSemaphore dynSemaphore = new DynamicSemaphore();
+
+    //affinity hint of the calling thread, assigned round-robin on first access
+    //and shared by all pools, each pool masks it with its own stripe count
+    private static final AtomicInteger nextStripe = new AtomicInteger();
+    private static final ThreadLocal<Integer> homeStripe = new ThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return nextStripe.getAndIncrement();
+        }
+    };
+
+    protected final static Logger _logger =
+            LogDomains.getLogger(StripedDataStructure.class, LogDomains.RSR_LOGGER);
+
+    /**
+     * get the affinity hint of the calling thread. The hint is distinct for
+     * every thread and stays the same for the lifetime of the thread, so
+     * other per-thread structures of a pool can be keyed on it instead of
+     * owning a ThreadLocal of their own
+     *
+     * @return Integer affinity hint
+     */
+    public static Integer getThreadHint() {
+        return homeStripe.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    public StripedDataStructure(String parameters, int maxSize,
+                                ResourceHandler handler, String strategyClass) {
+        int numStripes = toPowerOfTwo(getStripeCount(parameters));
+        stripes = new ConcurrentLinkedDeque[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new ConcurrentLinkedDeque<ResourceHandle>();
+        }
+        stripeMask = numStripes - 1;
+        resources = ConcurrentHashMap.newKeySet((maxSize > 1000) ? 1000 : maxSize);
+        this.handler = handler;
+        setMaxSize(maxSize);
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.log(Level.FINEST, "pool.datastructure.stripedds.init", numStripes);
+        }
+    }
+
+    private static int getStripeCount(String parameters) {
+        if (parameters != null) {
+            try {
+                int count = Integer.parseInt(parameters.trim());
+                if (count > 0) {
+                    return count;
+                }
+            } catch (NumberFormatException nfe) {
+                if (_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE, "Invalid stripe count [" + parameters + "], using default");
+                }
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private static int toPowerOfTwo(int count) {
+        int n = 1;
+        while (n < count && n < MAX_STRIPES) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * Set maxSize based on the new max pool size set on the connection pool
+     * during a reconfiguration. Permits of the semaphore that guards resource
+     * creation are released or reduced accordingly.
+     *
+     * @param newMaxSize new max size
+     */
+    public synchronized void setMaxSize(int newMaxSize) {
+        int permits = newMaxSize - this.maxSize;
+        if (permits > 0) {
+            dynSemaphore.release(permits);
+        } else if (permits < 0) {
+            dynSemaphore.reducePermits(-permits);
+        }
+        this.maxSize = newMaxSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int addResource(ResourceAllocator allocator, int count) throws PoolingException {
+        int numResAdded = 0;
+        for (int i = 0; i < count && dynSemaphore.tryAcquire(); i++) {
+            try {
+                ResourceHandle handle = handler.createResource(allocator);
+                resources.add(handle);
+                offer(handle);
+                numResAdded++;
+            } catch (Exception e) {
+                dynSemaphore.release();
+                PoolingException pe = new PoolingException(e.getMessage());
+                pe.initCause(e);
+                throw pe;
+            }
+        }
+        return numResAdded;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ResourceHandle getResource() {
+        int home = homeStripe.get() & stripeMask;
+        for (int i = 0; i <= stripeMask; i++) {
+            ConcurrentLinkedDeque<ResourceHandle> stripe = stripes[(home + i) & stripeMask];
+            ResourceHandle h;
+            while ((h = stripe.pollFirst()) != null) {
+                freeCount.decrement();
+                //resource could have been removed while it was in the free list
+                if (resources.contains(h)) {
+                    return h;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void removeResource(ResourceHandle resource) {
+        if (resources.remove(resource)) {
+            for (ConcurrentLinkedDeque<ResourceHandle> stripe : stripes) {
+                if (stripe.remove(resource)) {
+                    freeCount.decrement();
+                    break;
+                }
+            }
+            dynSemaphore.release();
+            handler.deleteResource(resource);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void returnResource(ResourceHandle resource) {
+        offer(resource);
+    }
+
+    private void offer(ResourceHandle resource) {
+        //most recently used resources are served first (LIFO) to keep them warm
+        stripes[homeStripe.get() & stripeMask].offerFirst(resource);
+        freeCount.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getFreeListSize() {
+        int free = freeCount.intValue();
+        return free < 0 ? 0 : free;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void removeAll() {
+        Iterator<ResourceHandle> it = resources.iterator();
+        while (it.hasNext()) {
+            removeResource(it.next());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getResourcesSize() {
+        return resources.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<ResourceHandle> getAllResources() {
+        return new ArrayList<ResourceHandle>(resources);
+    }
+
+    /**
+     * Semaphore whose available permits change according to the
+     * changes in max-pool-size via a reconfiguration.
+     */
+    private static final class DynamicSemaphore extends Semaphore {
+
+        DynamicSemaphore() {
+            //Default is 0
+            super(0);
+        }
+
+        @Override
+        protected void reducePermits(int size) {
+            super.reducePermits(size);
+        }
+    }
+}
@@ -146,6 +146,17 @@ public class ConnectionPoolEmitterImpl implements PoolLifeCycleListener {
         poolProbeProvider.connectionRequestServedEvent(poolName, appName, moduleName, timeTakenInMillis);
     }
 
+    /**
+     * Fires probe event that a connection request of the given jdbc connection
+     * pool that had to wait in the wait queue is served in the time
+     * <code>timeTakenInMillis</code>.
+     *
+     * @param timeTakenInMillis time taken to serve a connection
+     */
+    public void queuedConnectionRequestServed(long timeTakenInMillis) {
+        poolProbeProvider.queuedConnectionRequestServedEvent(poolName, appName, moduleName, timeTakenInMillis);
+    }
+
     /**
      * Fires probe event related to the fact that the given jdbc connection pool
      * has got a connection timed-out event.
@@ -299,6 +310,32 @@ public class ConnectionPoolEmitterImpl implements PoolLifeCycleListener {
         poolProbeProvider.connectionRequestDequeuedEvent(poolName, appName, moduleName);
     }
 
+    /**
+     * Fires probe event that a connection request of the given jdbc connection
+     * pool was served from the thread affinity cache.
+     */
+    public void affinityCacheHit() {
+        poolProbeProvider.affinityCacheHitEvent(poolName, appName, moduleName);
+    }
+
+    /**
+     * Fires probe event that a connection request of the given jdbc connection
+     * pool could not be served from the thread affinity cache.
+     */
+    public void affinityCacheMiss() {
+        poolProbeProvider.affinityCacheMissEvent(poolName, appName, moduleName);
+    }
+
+    /**
+     * Fires probe event that connections cached by threads were stolen back
+     * to the given jdbc connection pool.
+     * 
+     * @param count number of connections stolen
+     */
+    public void affinityCacheSteal(int count) {
+        poolProbeProvider.affinityCacheStealEvent(poolName, appName, moduleName, count);
+    }
+
     private String getAppName(long resourceHandleId) {
 
         // if monitoring is disabled, avoid sending events
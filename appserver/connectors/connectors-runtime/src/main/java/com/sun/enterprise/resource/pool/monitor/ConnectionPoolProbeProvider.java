@@ -154,6 +154,19 @@ public abstract class ConnectionPoolProbeProvider {
     public void connectionRequestServedEvent(String poolName, String appName, String moduleName, long timeTakenInMillis) {
     }
 
+    /**
+     * Emits probe event/notification that a connection request that had to
+     * wait in the wait queue is served in the time <code>timeTakenInMillis</code>
+     * for the given connection pool <code> poolName</code>
+     *
+     * @param poolName
+     * @param appName application-name in which the pool is defined
+     * @param moduleName module-name in which the pool is defined
+     * @param timeTakenInMillis time taken to serve a connection
+     */
+    public void queuedConnectionRequestServedEvent(String poolName, String appName, String moduleName, long timeTakenInMillis) {
+    }
+
     /**
      * Emits probe event/notification that a connection is destroyed for the 
      * given  connection pool <code>poolName</code>
@@ -245,4 +258,38 @@ public abstract class ConnectionPoolProbeProvider {
      */
     public void connectionRequestDequeuedEvent(String poolName, String appName, String moduleName) {
     }
+
+    /**
+     * Emits probe event/notification that a connection request of the given jdbc connection
+     * pool was served from the thread affinity cache.
+     * 
+     * @param poolName
+     * @param appName application-name in which the pool is defined
+     * @param moduleName module-name in which the pool is defined
+     */
+    public void affinityCacheHitEvent(String poolName, String appName, String moduleName) {
+    }
+
+    /**
+     * Emits probe event/notification that a connection request of the given jdbc connection
+     * pool could not be served from the thread affinity cache.
+     * 
+     * @param poolName
+     * @param appName application-name in which the pool is defined
+     * @param moduleName module-name in which the pool is defined
+     */
+    public void affinityCacheMissEvent(String poolName, String appName, String moduleName) {
+    }
+
+    /**
+     * Emits probe event/notification that connections cached by threads were stolen back
+     * to the given jdbc connection pool.
+     * 
+     * @param poolName
+     * @param appName application-name in which the pool is defined
+     * @param moduleName module-name in which the pool is defined
+     * @param count number of connections stolen
+     */
+    public void affinityCacheStealEvent(String poolName, String appName, String moduleName, int count) {
+    }
 }
@@ -184,6 +184,22 @@ public class ConnectorConnPoolProbeProvider extends ConnectionPoolProbeProvider
             @ProbeParam("moduleName") String moduleName,
             @ProbeParam("timeTakenInMillis") long timeTakenInMillis) { }
 
+    /**
+     * Emits probe event/notification that a connection request that had to
+     * wait in the wait queue is served in the time <code>timeTakenInMillis</code>
+     * for the given jca connection pool <code>poolName</code>
+     *
+     * @param poolName
+     * @param timeTakenInMillis time taken to serve a connection
+     */
+    @Probe(name="queuedConnectionRequestServedEvent")
+    @Override
+    public void queuedConnectionRequestServedEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("timeTakenInMillis") long timeTakenInMillis) { }
+
     /**
      * Emits probe event/notification that a connection is destroyed for the 
      * given jca connection pool <code>poolName</code>
@@ -297,4 +313,45 @@ public class ConnectorConnPoolProbeProvider extends ConnectionPoolProbeProvider
                                                @ProbeParam("appName") String appName,
                                                @ProbeParam("moduleName") String moduleName
                                                ) { }
+
+    /**
+     * Emits probe event/notification that a connection request of the given connector connection
+     * pool was served from the thread affinity cache.
+     * 
+     * @param poolName
+     */
+    @Probe(name="affinityCacheHitEvent")
+    @Override
+    public void affinityCacheHitEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName) { }
+
+    /**
+     * Emits probe event/notification that a connection request of the given connector connection
+     * pool could not be served from the thread affinity cache.
+     * 
+     * @param poolName
+     */
+    @Probe(name="affinityCacheMissEvent")
+    @Override
+    public void affinityCacheMissEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName) { }
+
+    /**
+     * Emits probe event/notification that connections cached by threads were stolen back
+     * to the given connector connection pool.
+     * 
+     * @param poolName
+     * @param count number of connections stolen
+     */
+    @Probe(name="affinityCacheStealEvent")
+    @Override
+    public void affinityCacheStealEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("count") int count) { }
 }
@@ -0,0 +1,142 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.monitor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of connection request wait times with fixed, roughly
+ * logarithmic buckets. Recording is lock-free so that it can be done from
+ * the probe listeners on every connection request.
+ */
+public class WaitTimeHistogram {
+
+    /**
+     * inclusive upper bounds of the buckets in milliseconds. The last bucket
+     * holds everything above the last bound.
+     */
+    private static final long[] BOUNDS = {
+            0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000
+    };
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+
+    public void record(long waitTimeInMillis) {
+        int i = 0;
+        while (i < BOUNDS.length && waitTimeInMillis > BOUNDS[i]) {
+            i++;
+        }
+        counts.incrementAndGet(i);
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the upper bound of the bucket that holds the given percentile.
+     *
+     * @param percentile value between 0 and 100
+     * @return upper bound in milliseconds, -1 if nothing is recorded and
+     *         Long.MAX_VALUE if the percentile is beyond the last bound
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long c : snapshot) {
+            total += c;
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && seen > 0) {
+                return i < BOUNDS.length ? BOUNDS[i] : Long.MAX_VALUE;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the non-empty buckets and the 50th, 99th and 99.9th percentiles
+     *         in the form "p50<=1ms p99<=50ms p99.9<=200ms | <=0ms:12 <=1ms:3"
+     */
+    @Override
+    public String toString() {
+        long[] snapshot = snapshot();
+        StringBuilder sb = new StringBuilder();
+        sb.append("p50").append(format(getPercentile(50)));
+        sb.append(" p99").append(format(getPercentile(99)));
+        sb.append(" p99.9").append(format(getPercentile(99.9)));
+        sb.append(" |");
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] > 0) {
+                sb.append(' ');
+                sb.append(i < BOUNDS.length ? "<=" + BOUNDS[i] : ">" + BOUNDS[BOUNDS.length - 1]);
+                sb.append("ms:").append(snapshot[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String format(long bound) {
+        if (bound < 0) {
+            return "=n/a";
+        }
+        if (bound == Long.MAX_VALUE) {
+            return ">" + BOUNDS[BOUNDS.length - 1] + "ms";
+        }
+        return "<=" + bound + "ms";
+    }
+}
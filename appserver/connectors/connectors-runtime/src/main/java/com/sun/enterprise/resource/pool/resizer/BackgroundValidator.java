@@ -0,0 +1,178 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.resizer;
+
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.PoolProperties;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.enterprise.resource.pool.ThreadAffinityCache;
+import com.sun.enterprise.resource.pool.datastructure.DataStructure;
+import com.sun.logging.LogDomains;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Validates the free connections of a pool in the background so that
+ * requests can be served without a validation round trip.<br>
+ * Connections validated within half of the interval are skipped, as the
+ * pool hands out connections validated within the interval without checking
+ * them again. Invalid connections are removed from the pool.<br>
+ * The free connections are taken from the pool and held until the end of
+ * the run, so that every free connection is looked at once whatever order
+ * the datastructure hands them out in. The run stops and gives them back as
+ * soon as a request has to wait for a connection.
+ * A run validates at most <code>MAX_VALIDATIONS_PER_RUN</code> connections,
+ * the rest are left for the following runs.
+ */
+public class BackgroundValidator extends TimerTask {
+    protected PoolInfo poolInfo;
+    protected DataStructure ds;
+    protected PoolProperties pool;
+    protected ResourceHandler handler;
+    protected long interval;
+    protected ThreadAffinityCache affinityCache;
+
+    protected static final int MAX_VALIDATIONS_PER_RUN = 32;
+
+    protected final static Logger _logger = LogDomains.getLogger(BackgroundValidator.class, LogDomains.RSR_LOGGER);
+
+    /**
+     * @param interval validation interval in milliseconds
+     */
+    public BackgroundValidator(PoolInfo poolInfo, DataStructure ds, PoolProperties pp,
+                               ResourceHandler handler, long interval) {
+        this.poolInfo = poolInfo;
+        this.ds = ds;
+        this.pool = pp;
+        this.handler = handler;
+        this.interval = interval;
+    }
+
+    /**
+     * Resources cached by threads are returned to the datastructure before
+     * validation so that they are validated as well.
+     *
+     * @param affinityCache thread affinity cache of the pool, if any
+     */
+    public void setAffinityCache(ThreadAffinityCache affinityCache) {
+        this.affinityCache = affinityCache;
+    }
+
+    public void run() {
+        debug("Background validation for pool " + poolInfo);
+        try {
+            validateFreeResources();
+        } catch (Exception ex) {
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "Exception during background validation of pool " + poolInfo, ex);
+            }
+        }
+    }
+
+    /**
+     * Validate the free resources that were not validated recently.
+     *
+     * @return int number of invalid resources removed
+     */
+    protected int validateFreeResources() {
+        //requests are waiting, the free resources will be handed out and validated anyway
+        if (pool.getWaitQueueLength() > 0) {
+            return 0;
+        }
+        if (affinityCache != null) {
+            affinityCache.stealInto(ds);
+        }
+
+        int invalidResources = 0;
+        int validated = 0;
+        long freshness = interval / 2;
+        //hold the resources looked at, so that the datastructure hands out
+        //a different free resource each time
+        List<ResourceHandle> held = new ArrayList<ResourceHandle>();
+        try {
+            int attempts = ds.getFreeListSize();
+            ResourceHandle h;
+            while (attempts-- > 0 && validated < MAX_VALIDATIONS_PER_RUN
+                    && pool.getWaitQueueLength() == 0 && (h = ds.getResource()) != null) {
+                if (h.hasConnectionErrorOccurred()) {
+                    ds.removeResource(h);
+                    invalidResources++;
+                    continue;
+                }
+                held.add(h);
+                if (System.currentTimeMillis() - h.getLastValidated() < freshness) {
+                    continue;
+                }
+
+                ResourceAllocator alloc = h.getResourceAllocator();
+                boolean valid = alloc.isConnectionValid(h);
+                validated++;
+                if (valid) {
+                    h.setLastValidated(System.currentTimeMillis());
+                } else {
+                    held.remove(held.size() - 1);
+                    ds.removeResource(h);
+                    handler.invalidConnectionDetected(h);
+                    invalidResources++;
+                }
+            }
+        } finally {
+            //in reverse, so that the resource taken first is handed out first again
+            for (int i = held.size() - 1; i >= 0; i--) {
+                ds.returnResource(held.get(i));
+            }
+        }
+        debug("Number of invalid resources removed by background validation for pool [ "
+                + poolInfo + " ] - " + invalidResources);
+        return invalidResources;
+    }
+
+    protected static void debug(String debugStatement) {
+        if (_logger.isLoggable(Level.FINE))
+            _logger.log(Level.FINE, debugStatement);
+    }
+}
@@ -46,6 +46,7 @@ import com.sun.enterprise.resource.ResourceState;
 import com.sun.enterprise.resource.allocator.ResourceAllocator;
 import com.sun.enterprise.resource.pool.PoolProperties;
 import com.sun.enterprise.resource.pool.ResourceHandler;
+import com.sun.enterprise.resource.pool.ThreadAffinityCache;
 import com.sun.enterprise.resource.pool.datastructure.DataStructure;
 import com.sun.logging.LogDomains;
 import org.glassfish.resourcebase.resources.api.PoolInfo;
@@ -78,6 +79,13 @@ public class
     protected PoolProperties pool;
     protected ResourceHandler handler;
     protected boolean preferValidateOverRecreate = false;
+    protected ThreadAffinityCache affinityCache;
+    protected volatile boolean prewarm = false;
+
+    //weight of the latest sample in the predicted number of resources in use
+    private static final double DEMAND_SMOOTHING = 0.5;
+    private double predictedDemand = -1;
+    private int lastInUse = 0;
 
     protected final static Logger _logger = LogDomains.getLogger(Resizer.class, LogDomains.RSR_LOGGER);
 
@@ -90,6 +98,26 @@ public class
         this.preferValidateOverRecreate = preferValidateOverRecreate;
     }
 
+    /**
+     * Resources cached by threads are returned to the datastructure before
+     * resizing so that idle and invalid ones are removed as well.
+     *
+     * @param affinityCache thread affinity cache of the pool, if any
+     */
+    public void setAffinityCache(ThreadAffinityCache affinityCache) {
+        this.affinityCache = affinityCache;
+    }
+
+    /**
+     * When pre-warming, the pool is kept at the predicted demand plus
+     * "resize-quantity" instead of only at steady-pool-size.
+     *
+     * @param prewarm create resources ahead of the predicted demand
+     */
+    public void setPrewarm(boolean prewarm) {
+        this.prewarm = prewarm;
+    }
+
     public void run() {
         debug("Resizer for pool " + poolInfo);
         try {
@@ -112,9 +140,20 @@ public class
             return;
         }
 
+        if (affinityCache != null) {
+            int stolen = affinityCache.stealInto(ds);
+            debug("Resources returned from thread affinity cache for pool [ " + poolInfo + " ] : " + stolen);
+        }
+
+        int warmPoolSize = prewarm ? predictPoolSize() : 0;
+
         //remove invalid and idle resource(s)
         int noOfResourcesRemoved = removeIdleAndInvalidResources();
         int poolScaleDownQuantity = pool.getResizeQuantity() - noOfResourcesRemoved;
+        if (prewarm) {
+            //do not scale down below the predicted demand
+            poolScaleDownQuantity = Math.min(poolScaleDownQuantity, ds.getResourcesSize() - warmPoolSize);
+        }
 
         //scale down pool by atmost "resize-quantity"
         scaleDownPool(poolScaleDownQuantity, forced);
@@ -122,6 +161,10 @@ public class
         //ensure that steady-pool-size is maintained
         ensureSteadyPool();
 
+        if (prewarm) {
+            prewarmPool(warmPoolSize);
+        }
+
         debug("No. of resources held for pool [ " + poolInfo + " ] : " + ds.getResourcesSize());
     }
 
@@ -143,6 +186,51 @@ public class
         }
     }
 
+    /**
+     * Predict the pool size needed until the next run from the number of
+     * resources in use. The prediction is a moving average of the samples
+     * taken at each run, plus the growth since the last run and
+     * "resize-quantity" as head room.
+     *
+     * @return int predicted pool size, at most max-pool-size
+     */
+    protected int predictPoolSize() {
+        int inUse = ds.getResourcesSize() - ds.getFreeListSize();
+        if (predictedDemand < 0) {
+            predictedDemand = inUse;
+        } else {
+            predictedDemand = DEMAND_SMOOTHING * inUse + (1 - DEMAND_SMOOTHING) * predictedDemand;
+        }
+        int growth = Math.max(0, inUse - lastInUse);
+        lastInUse = inUse;
+
+        long predicted = (long) Math.ceil(Math.max(predictedDemand, inUse)) + growth + pool.getResizeQuantity();
+        debug("Predicted pool size for pool [ " + poolInfo + " ] : " + predicted + " (in use : " + inUse + ")");
+        return (int) Math.min(pool.getMaxPoolSize(), predicted);
+    }
+
+    /**
+     * Create resources so that the pool can serve the predicted demand
+     * without creating resources on the request path.
+     *
+     * @param warmPoolSize predicted pool size
+     */
+    private void prewarmPool(int warmPoolSize) {
+        int numOfResourcesToCreate = warmPoolSize - ds.getResourcesSize();
+        if (numOfResourcesToCreate > 0) {
+            debug("Pre-warming pool [ " + poolInfo + " ] with " + numOfResourcesToCreate + " resources");
+            for (int i = 0; i < numOfResourcesToCreate; i++) {
+                try {
+                    handler.createResourceAndAddToPool();
+                } catch (PoolingException ex) {
+                    Object[] params = new Object[]{poolInfo, ex.getMessage()};
+                    _logger.log(Level.WARNING, "resource_pool.resize_pool_error", params);
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * Scale down pool by a <code>size &lt;= pool-resize-quantity</code>
      *
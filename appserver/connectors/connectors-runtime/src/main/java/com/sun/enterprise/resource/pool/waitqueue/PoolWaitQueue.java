@@ -51,6 +51,7 @@ import java.util.Collection;
 public interface PoolWaitQueue {
     String DEFAULT_WAIT_QUEUE = "DEFAULT_WAIT_QUEUE";
     String THREAD_PRIORITY_BASED_WAIT_QUEUE = "THREAD_PRIORITY_BASED_WAIT_QUEUE";
+    String FAIR_WAIT_QUEUE = "FAIR_WAIT_QUEUE";
 
     /**
      * returns the length of wait queue
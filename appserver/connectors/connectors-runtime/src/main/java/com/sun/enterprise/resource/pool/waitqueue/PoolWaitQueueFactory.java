@@ -60,7 +60,11 @@ public class PoolWaitQueueFactory {
     public static PoolWaitQueue createPoolWaitQueue(String className) throws PoolingException {
         PoolWaitQueue waitQueue;
 
-        if (className != null) {
+        if (PoolWaitQueue.FAIR_WAIT_QUEUE.equalsIgnoreCase(className)
+                || FairPoolWaitQueue.class.getName().equals(className)) {
+            waitQueue = new FairPoolWaitQueue();
+            debug("Initializing Fair Pool Wait Queue");
+        } else if (className != null) {
             waitQueue = initializeCustomWaitQueueInPrivilegedMode(className);
         } else {
             waitQueue = new DefaultPoolWaitQueue();
@@ -0,0 +1,159 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import com.sun.enterprise.resource.ResourceHandle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A resource request waiting in the {@link FairPoolWaitQueue}.<br>
+ * Each waiter carries its own deadline. A released resource can be handed
+ * to the waiter directly, in which case the waiter does not have to compete
+ * with other threads for it. A waiter that times out, is interrupted or is
+ * woken up without a resource is cancelled and will not accept a resource
+ * afterwards.
+ */
+public class PoolWaiter {
+
+    private static final int WAITING = 0;
+    private static final int FULFILLED = 1;
+    private static final int SIGNALLED = 2;
+    private static final int CANCELLED = 3;
+
+    private final long deadline;
+    private int state = WAITING;
+    private ResourceHandle resource;
+
+    /**
+     * @param maxWaitTimeInMillis time the request is willing to wait,
+     *                            0 to wait indefinitely
+     */
+    public PoolWaiter(long maxWaitTimeInMillis) {
+        deadline = maxWaitTimeInMillis > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitTimeInMillis) : 0;
+    }
+
+    /**
+     * Hand a resource to this waiter.
+     *
+     * @param h ResourceHandle released to the pool
+     * @return boolean indicating whether the waiter took the resource
+     */
+    public synchronized boolean fulfill(ResourceHandle h) {
+        if (state != WAITING || isExpired()) {
+            return false;
+        }
+        resource = h;
+        state = FULFILLED;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Wake up the waiter without a resource so that it retries the pool.
+     *
+     * @return boolean indicating whether the waiter was still waiting and
+     *         has been woken up
+     */
+    public synchronized boolean signal() {
+        if (state != WAITING || isExpired()) {
+            return false;
+        }
+        state = SIGNALLED;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Wait until a resource is handed over, the waiter is signalled or the
+     * deadline expires. The waiter is cancelled on return unless it
+     * received a resource.
+     *
+     * @return ResourceHandle handed over to this waiter, null otherwise
+     * @throws InterruptedException when the waiting thread is interrupted.
+     *         A resource handed over concurrently is available through
+     *         {@link #cancel()}.
+     */
+    public synchronized ResourceHandle await() throws InterruptedException {
+        try {
+            while (state == WAITING) {
+                if (deadline == 0) {
+                    wait();
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+        } finally {
+            if (state == WAITING) {
+                state = CANCELLED;
+            }
+        }
+        //the resource now belongs to the caller, a later cancel has nothing to give back
+        ResourceHandle h = resource;
+        resource = null;
+        return h;
+    }
+
+    /**
+     * Cancel the request.
+     *
+     * @return ResourceHandle that was handed over before the cancellation
+     *         and has to be returned to the pool, null otherwise
+     */
+    public synchronized ResourceHandle cancel() {
+        ResourceHandle h = null;
+        if (state == FULFILLED) {
+            h = resource;
+            resource = null;
+        }
+        state = CANCELLED;
+        return h;
+    }
+
+    private boolean isExpired() {
+        return deadline != 0 && deadline - System.nanoTime() <= 0;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.datastructure.DataStructure;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the per-thread slots of a {@link ThreadAffinityCache}.
+ */
+public class ThreadAffinityCacheTest {
+
+    @Test
+    public void testPollReturnsOwnResourcesOnly() throws Exception {
+        final ThreadAffinityCache cache = new ThreadAffinityCache(2);
+        ResourceHandle first = newHandle();
+        ResourceHandle second = newHandle();
+        assertTrue(cache.offer(first));
+        assertTrue(cache.offer(second));
+        assertFalse(cache.offer(newHandle()));
+
+        final AtomicReference<ResourceHandle> polled = new AtomicReference<ResourceHandle>(first);
+        runInThread(new Runnable() {
+            public void run() {
+                polled.set(cache.poll());
+            }
+        });
+        assertNull(polled.get());
+
+        assertSame(second, cache.poll());
+        assertSame(first, cache.poll());
+        assertNull(cache.poll());
+    }
+
+    @Test
+    public void testStealIntoDropsSlotsOfDeadThreads() throws Exception {
+        final ThreadAffinityCache cache = new ThreadAffinityCache(2);
+        final ResourceHandle parked = newHandle();
+        runInThread(new Runnable() {
+            public void run() {
+                cache.offer(parked);
+            }
+        });
+        ResourceHandle own = newHandle();
+        cache.offer(own);
+        assertEquals(2, cache.size());
+
+        RecordingDataStructure ds = new RecordingDataStructure();
+        assertEquals(2, cache.stealInto(ds));
+        assertTrue(ds.returned.contains(parked));
+        assertTrue(ds.returned.contains(own));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.stealInto(ds));
+
+        // The slot of the live thread is kept
+        assertTrue(cache.offer(own));
+        assertSame(own, cache.poll());
+    }
+
+    @Test
+    public void testRemoveFromOtherThreadsSlot() throws Exception {
+        final ThreadAffinityCache cache = new ThreadAffinityCache(1);
+        final ResourceHandle parked = newHandle();
+        runInThread(new Runnable() {
+            public void run() {
+                cache.offer(parked);
+            }
+        });
+        assertTrue(cache.remove(parked));
+        assertFalse(cache.remove(parked));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testDiscardedCacheReleasesResources() throws Exception {
+        ThreadAffinityCache cache = new ThreadAffinityCache(1);
+        ResourceHandle handle = newHandle();
+        cache.offer(handle);
+        WeakReference<ResourceHandle> ref = new WeakReference<ResourceHandle>(handle);
+        handle = null;
+        cache = null;
+
+        // The calling thread outlives the cache, it must not keep the
+        // cached resource reachable
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get());
+    }
+
+    private static ResourceHandle newHandle() {
+        return new ResourceHandle(null, null, null, null);
+    }
+
+    private static void runInThread(Runnable task) throws InterruptedException {
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+    }
+
+    private static class RecordingDataStructure implements DataStructure {
+
+        private final List<ResourceHandle> returned = new ArrayList<ResourceHandle>();
+
+        public void setMaxSize(int maxSize) {
+        }
+
+        public int addResource(ResourceAllocator allocator, int count) throws PoolingException {
+            return 0;
+        }
+
+        public ResourceHandle getResource() {
+            return null;
+        }
+
+        public void removeResource(ResourceHandle resource) {
+        }
+
+        public void returnResource(ResourceHandle resource) {
+            returned.add(resource);
+        }
+
+        public int getFreeListSize() {
+            return returned.size();
+        }
+
+        public void removeAll() {
+        }
+
+        public int getResourcesSize() {
+            return returned.size();
+        }
+
+        public ArrayList<ResourceHandle> getAllResources() {
+            return new ArrayList<ResourceHandle>(returned);
+        }
+    }
+}
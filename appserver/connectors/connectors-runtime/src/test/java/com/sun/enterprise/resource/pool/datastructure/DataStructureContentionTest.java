@@ -0,0 +1,175 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.datastructure;
+
+import com.sun.appserv.connectors.internal.api.PoolingException;
+import com.sun.enterprise.resource.ResourceHandle;
+import com.sun.enterprise.resource.allocator.ResourceAllocator;
+import com.sun.enterprise.resource.pool.ResourceHandler;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Contention test for the pool datastructures. Every thread repeatedly
+ * takes a resource from the datastructure and returns it, the test verifies
+ * that a resource is never handed out to two threads at the same time and
+ * that no resource is lost or duplicated once all threads are done.
+ */
+public class DataStructureContentionTest {
+
+    private static final int POOL_SIZE = 32;
+    private static final int THREADS = 64;
+    private static final int ITERATIONS = 20000;
+
+    @Test
+    public void testListDataStructure() throws Exception {
+        runContention(ListDataStructure.class.getName());
+    }
+
+    @Test
+    public void testRWLockDataStructure() throws Exception {
+        runContention(RWLockDataStructure.class.getName());
+    }
+
+    @Test
+    public void testStripedDataStructure() throws Exception {
+        runContention(StripedDataStructure.class.getName());
+    }
+
+    @Test
+    public void testStripedRemoveAll() throws Exception {
+        CountingHandler handler = new CountingHandler();
+        DataStructure ds = DataStructureFactory.getDataStructure(
+                DataStructure.DS_TYPE_STRIPED, "4", POOL_SIZE, handler, null);
+        assertEquals(POOL_SIZE, ds.addResource(null, POOL_SIZE + 10));
+        ResourceHandle busy = ds.getResource();
+        assertEquals(POOL_SIZE - 1, ds.getFreeListSize());
+        ds.removeResource(busy);
+        assertEquals(POOL_SIZE - 1, ds.getResourcesSize());
+        assertEquals(1, ds.addResource(null, 1));
+        ds.removeAll();
+        assertEquals(0, ds.getResourcesSize());
+        assertEquals(0, ds.getFreeListSize());
+        assertEquals(POOL_SIZE + 1, handler.deleted.get());
+    }
+
+    private void runContention(String className) throws Exception {
+        final DataStructure ds = DataStructureFactory.getDataStructure(
+                className, null, POOL_SIZE, new CountingHandler(), null);
+        ds.addResource(null, POOL_SIZE);
+
+        final Set<ResourceHandle> inUse =
+                Collections.newSetFromMap(new ConcurrentHashMap<ResourceHandle, Boolean>());
+        final AtomicInteger violations = new AtomicInteger();
+        final AtomicLong acquired = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            ResourceHandle h = ds.getResource();
+                            if (h == null) {
+                                Thread.yield();
+                                continue;
+                            }
+                            if (!inUse.add(h)) {
+                                violations.incrementAndGet();
+                            }
+                            acquired.incrementAndGet();
+                            inUse.remove(h);
+                            ds.returnResource(h);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            };
+            thread.start();
+        }
+
+        start.countDown();
+        done.await();
+
+        assertTrue(acquired.get() > 0);
+        assertEquals(0, violations.get());
+        assertEquals(POOL_SIZE, ds.getResourcesSize());
+        assertEquals(POOL_SIZE, ds.getFreeListSize());
+    }
+
+    private static class CountingHandler implements ResourceHandler {
+
+        private final AtomicInteger deleted = new AtomicInteger();
+
+        public void deleteResource(ResourceHandle resourceHandle) {
+            deleted.incrementAndGet();
+        }
+
+        public ResourceHandle createResource(ResourceAllocator allocator) throws PoolingException {
+            return new ResourceHandle(null, null, allocator, null);
+        }
+
+        public void createResourceAndAddToPool() throws PoolingException {
+        }
+
+        public Set getInvalidConnections(Set connections) {
+            return Collections.EMPTY_SET;
+        }
+
+        public void invalidConnectionDetected(ResourceHandle h) {
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.enterprise.resource.pool.waitqueue;
+
+import com.sun.enterprise.resource.ResourceHandle;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the hand-off, signal and cancellation of a {@link PoolWaiter}.
+ */
+public class PoolWaiterTest {
+
+    private static final int RACES = 2000;
+
+    @Test
+    public void testHandOffWakesWaiter() throws Exception {
+        final PoolWaiter waiter = new PoolWaiter(0);
+        final AtomicReference<ResourceHandle> received = new AtomicReference<ResourceHandle>();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread thread = new Thread() {
+            public void run() {
+                try {
+                    received.set(waiter.await());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        thread.start();
+
+        ResourceHandle h = newResource();
+        assertTrue(waiter.fulfill(h));
+        done.await();
+        assertSame(h, received.get());
+        //the waiter took the resource, there is nothing to give back
+        assertNull(waiter.cancel());
+    }
+
+    @Test
+    public void testTimedOutWaiterRejectsSignalAndResource() throws Exception {
+        PoolWaiter waiter = new PoolWaiter(1);
+        assertNull(waiter.await());
+        assertFalse(waiter.signal());
+        assertFalse(waiter.fulfill(newResource()));
+    }
+
+    @Test
+    public void testCancelledWaiterRejectsSignalAndResource() {
+        PoolWaiter waiter = new PoolWaiter(0);
+        assertNull(waiter.cancel());
+        assertFalse(waiter.signal());
+        assertFalse(waiter.fulfill(newResource()));
+    }
+
+    @Test
+    public void testSignalledWaiterRejectsResource() throws Exception {
+        PoolWaiter waiter = new PoolWaiter(0);
+        assertTrue(waiter.signal());
+        assertFalse(waiter.signal());
+        assertFalse(waiter.fulfill(newResource()));
+        assertNull(waiter.await());
+    }
+
+    @Test
+    public void testCancelGivesBackResourceHandedOffBefore() {
+        PoolWaiter waiter = new PoolWaiter(0);
+        ResourceHandle h = newResource();
+        assertTrue(waiter.fulfill(h));
+        assertSame(h, waiter.cancel());
+        assertNull(waiter.cancel());
+    }
+
+    /**
+     * A resource handed off concurrently with the cancellation is either
+     * rejected or given back by the cancellation, never lost.
+     */
+    @Test
+    public void testHandOffRacingCancel() throws Exception {
+        for (int i = 0; i < RACES; i++) {
+            final PoolWaiter waiter = new PoolWaiter(0);
+            final ResourceHandle h = newResource();
+            final CyclicBarrier barrier = new CyclicBarrier(2);
+            final AtomicReference<Boolean> fulfilled = new AtomicReference<Boolean>();
+            Thread releaser = new Thread() {
+                public void run() {
+                    try {
+                        barrier.await();
+                        fulfilled.set(waiter.fulfill(h));
+                    } catch (Exception e) {
+                        fulfilled.set(null);
+                    }
+                }
+            };
+            releaser.start();
+            barrier.await();
+            ResourceHandle givenBack = waiter.cancel();
+            releaser.join();
+
+            assertEquals(Boolean.valueOf(givenBack != null), fulfilled.get());
+            if (givenBack != null) {
+                assertSame(h, givenBack);
+            }
+        }
+    }
+
+    /**
+     * A waiter whose timeout races a signal is done waiting either way and
+     * takes neither a signal nor a resource afterwards.
+     */
+    @Test
+    public void testSignalRacingTimeout() throws Exception {
+        for (int i = 0; i < RACES / 10; i++) {
+            final PoolWaiter waiter = new PoolWaiter(1);
+            Thread notifier = new Thread() {
+                public void run() {
+                    waiter.signal();
+                }
+            };
+            notifier.start();
+            assertNull(waiter.await());
+            notifier.join();
+            assertFalse(waiter.signal());
+            assertFalse(waiter.fulfill(newResource()));
+        }
+    }
+
+    private static ResourceHandle newResource() {
+        return new ResourceHandle(null, null, null, null);
+    }
+}
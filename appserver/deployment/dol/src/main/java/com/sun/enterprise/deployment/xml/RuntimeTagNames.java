@@ -225,6 +225,23 @@ public interface RuntimeTagNames extends TagNames {
     public static final String THREAD_QUEUE_CAPACITY = "thread-queue-capacity";
     public static final String ALLOW_CORE_THREAD_TIMEOUT = "allow-core-thread-timeout";
     public static final String PRESTART_ALL_CORE_THREADS = "prestart-all-core-threads";
+
+    // per-thread reuse of EjbInvocation objects
+    public static final String RECYCLE_INVOCATIONS = "recycle-invocations";
+
+    // generated classes instead of dynamic proxies for local business views
+    public static final String GENERATED_LOCAL_PROXIES = "generated-local-proxies";
+
+    // @Asynchronous method dispatch
+    public static final String ASYNC_EXECUTOR_MODE = "async-executor-mode";
+    public static final String ASYNC_MAX_CONCURRENCY_PER_BEAN = "async-max-concurrency-per-bean";
+
+    // format of passivated and replicated SFSB state
+    public static final String SFSB_STATE_SERIALIZER = "sfsb-state-serializer";
+    public static final String SFSB_STATE_COMPRESSION = "sfsb-state-compression";
+
+    // number of threads passivating SFSBs when a container shuts down
+    public static final String SFSB_SHUTDOWN_PASSIVATION_THREADS = "sfsb-shutdown-passivation-threads";
     
     // flush-at-end-of-method
     public static final String FLUSH_AT_END_OF_METHOD =
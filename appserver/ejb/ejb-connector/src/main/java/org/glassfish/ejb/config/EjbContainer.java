@@ -300,12 +300,15 @@ public interface EjbContainer extends ConfigBeanProxy, PropertyBag, ConfigExtens
      * nru
      *     policy tries to pick 'not recently used' instances and is a
      *     pseudo-random selection process.
+     * segmented-lru
+     *     approximate lru over independently locked segments, with
+     *     passivation handed off to a background task.
      *
      * @return possible object is
      *         {@link String }
      */
     @Attribute (defaultValue="nru")
-    @Pattern(regexp="(nru|fifo|lru)")
+    @Pattern(regexp="(nru|fifo|lru|segmented-lru)")
     String getVictimSelectionPolicy();
 
     /**
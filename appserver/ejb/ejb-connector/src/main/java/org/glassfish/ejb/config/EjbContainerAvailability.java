@@ -114,7 +114,9 @@ public interface EjbContainerAvailability extends ConfigBeanProxy,
      * Gets the value of the sfsbPersistenceType property.
      *
      * Specifies the passivation mechanism for stateful session beans that do
-     * not have availability enabled. Default is "file".
+     * not have availability enabled. Default is "file". "segment-log" appends
+     * the state to memory mapped segment files instead of writing one file
+     * per bean.
      *
      * @return possible object is
      *         {@link String }
@@ -200,6 +200,24 @@ public class EJBUtils {
             packageName + "." + optionalIntfName : optionalIntfName;
     }
 
+    /**
+     * Name of the class generated for a local business interface proxy.
+     * It goes in the package of the bean class, and includes the container
+     * id since several beans of a module may expose the same interface.
+     * Being outside the package of the interface, such a class can only be
+     * generated for public interfaces.
+     */
+    public static String getGeneratedLocalProxyName(String ejbClassName,
+                                                    String businessIntf,
+                                                    long containerId) {
+        String packageName = getClassPackageName(ejbClassName);
+        String generatedSimpleName = "__EJB31_Generated__" + getClassSimpleName(ejbClassName)
+            + "__" + getClassSimpleName(businessIntf) + "__LocalProxy__"
+            + Long.toHexString(containerId);
+        return (packageName != null) ?
+            packageName + "." + generatedSimpleName : generatedSimpleName;
+    }
+
     public static String getGeneratedSerializableClassName(String beanClass) {
         String packageName = getClassPackageName(beanClass);
         String simpleName = getClassSimpleName(beanClass);
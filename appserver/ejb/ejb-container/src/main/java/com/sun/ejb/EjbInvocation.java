@@ -359,6 +359,54 @@ public class EjbInvocation
         return newInv;
     }
 
+    /**
+     * Restores this invocation to the state it had when created by the
+     * EjbInvocationFactory, so that it can be reused for another call.
+     */
+    void reset() {
+        clearState();
+        context = null;
+        transactionOperationsManager = this;
+        ejbObject = null;
+        isLocal = false;
+        isRemote = false;
+        invocationInfo = null;
+        isBusinessInterface = false;
+        isWebService = false;
+        isTimerCallback = false;
+        isMessageDriven = false;
+        isHome = false;
+        clientInterface = null;
+        method = null;
+        ejb = null;
+        exception = null;
+        exceptionFromBeanMethod = null;
+        clientTx = null;
+        transactionAttribute = 0;
+        containerStartsTx = false;
+        originalContextClassLoader = null;
+        methodParams = null;
+        timer = null;
+        preInvokeTxStatus = null;
+        foundInTxCache = false;
+        useFastPath = false;
+        cmcLock = null;
+        doTxProcessingInPostInvoke = false;
+        invId = 0;
+        yetToSubmitStatus = true;
+        asyncFuture = null;
+        wasCancelCalled = false;
+        webServiceTie = null;
+        webServiceMethod = null;
+        holdingSFSBSerializedLock = false;
+        interceptorIndex = 0;
+        beanMethod = null;
+        webServiceContext = null;
+        message = null;
+        soapMessage = null;
+        contextData = null;
+    }
+
     /**
      * Used by JACC implementation to get an enterprise bean
      * instance for the EnterpriseBean policy handler.  The jacc
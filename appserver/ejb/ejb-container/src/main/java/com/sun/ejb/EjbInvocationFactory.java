@@ -40,6 +40,8 @@
 
 package com.sun.ejb;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * @author Mahesh Kannan
  *         Date: Jan 30, 2008
@@ -50,21 +52,60 @@ public class EjbInvocationFactory {
 
     private Container container;
 
+    // Set when the container recycles its invocations. Spare invocations,
+    // in slots selected by thread id, see recycle(EjbInvocation)
+    private volatile AtomicReferenceArray<EjbInvocation> spareInvocations;
+
     public EjbInvocationFactory(String compEnvId, Container container) {
         this.compEnvId = compEnvId;
         this.container = container;
     }
 
+    public void setRecycling(boolean recycling) {
+        spareInvocations = recycling
+                ? new AtomicReferenceArray<EjbInvocation>(Integer.highestOneBit(
+                        Runtime.getRuntime().availableProcessors() * 4 - 1))
+                : null;
+    }
+
+    public boolean isRecycling() {
+        return spareInvocations != null;
+    }
+
     public EjbInvocation create() {
+        AtomicReferenceArray<EjbInvocation> spares = spareInvocations;
+        if (spares != null) {
+            EjbInvocation ejbInv = spares.getAndSet(slot(spares), null);
+            if (ejbInv != null) {
+                return ejbInv;
+            }
+        }
         return new EjbInvocation(compEnvId, container);
     }
 
+    private static int slot(AtomicReferenceArray<EjbInvocation> spares) {
+        return (int) Thread.currentThread().getId() & (spares.length() - 1);
+    }
+
     public <C extends ComponentContext> EjbInvocation create(Object ejb, C ctx) {
-        EjbInvocation ejbInv = new EjbInvocation(compEnvId, container);
+        EjbInvocation ejbInv = create();
         ejbInv.ejb = ejb;
         ejbInv.instance = ejb;
         ejbInv.context = ctx;
 
         return ejbInv;
     }
+
+    /**
+     * Gives back an invocation created by this factory once its call is
+     * complete. The caller must ensure that nothing references the
+     * invocation any more. Ignored when the factory does not recycle.
+     */
+    public void recycle(EjbInvocation ejbInv) {
+        AtomicReferenceArray<EjbInvocation> spares = spareInvocations;
+        if (spares != null) {
+            ejbInv.reset();
+            spares.compareAndSet(slot(spares), null, ejbInv);
+        }
+    }
 }
@@ -42,6 +42,8 @@ package com.sun.ejb.codegen;
 
 import com.sun.enterprise.container.common.spi.util.IndirectlySerializable;
 import com.sun.enterprise.container.common.spi.util.SerializableObjectFactory;
+import com.sun.ejb.spi.container.GeneratedLocalProxy;
+import com.sun.ejb.spi.container.LocalProxyDispatcher;
 import com.sun.ejb.spi.container.OptionalLocalInterfaceProvider;
 import org.objectweb.asm.*;
 import org.objectweb.asm.commons.GeneratorAdapter;
@@ -50,6 +52,7 @@ import org.objectweb.asm.commons.Method;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ReflectPermission;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -69,6 +72,8 @@ public class EjbOptionalIntfGenerator
 
     private static final String DELEGATE_FIELD_NAME = "__ejb31_delegate";
 
+    private static final String DISPATCHER_FIELD_NAME = "__ejb31_dispatcher";
+
     private static final Class[] emptyClassArray = new Class[] {};
 
     private Map<String, byte[]> classMap = new HashMap<String, byte[]>();
@@ -248,7 +253,12 @@ public class EjbOptionalIntfGenerator
 	    cv.visitMaxs(maxValue, 1);
 	}
 
-        generateSetDelegateMethod(tv, delegateClass, subClassName);
+        generateSetDelegateMethod(tv, delegateClass, subClassName,
+                OptionalLocalInterfaceProvider.class.getMethod(
+                        "setOptionalLocalIntfProxy", java.lang.reflect.Proxy.class));
+        generateSetDelegateMethod(tv, delegateClass, subClassName,
+                OptionalLocalInterfaceProvider.class.getMethod(
+                        "setOptionalLocalIntfDelegate", Object.class));
 
         for (Class anInterface : interfaces) {
 
@@ -310,6 +320,124 @@ public class EjbOptionalIntfGenerator
     }
 
 
+    /**
+     * Generates a class that implements the given business interface and
+     * IndirectlySerializable and forwards every method in methods to a
+     * LocalProxyDispatcher, passing the index of the method in the array
+     * instead of a java.lang.reflect.Method. As with java.lang.reflect.Proxy,
+     * a checked exception thrown by the dispatcher that the method does not
+     * declare is wrapped in an UndeclaredThrowableException. The class has a
+     * public constructor taking the dispatcher.
+     */
+    public void generateLocalProxy(Class intfClass, String proxyClassName,
+                                   java.lang.reflect.Method[] methods)
+        throws Exception {
+
+        if( protectionDomain == null ) {
+            protectionDomain = intfClass.getProtectionDomain();
+        }
+
+        ClassWriter cw = new ClassWriter(INTF_FLAGS);
+        ClassVisitor tv = cw;
+
+        String proxyInternalName = proxyClassName.replace('.', '/');
+        Type proxyType = Type.getObjectType(proxyInternalName);
+        Type dispatcherType = Type.getType(LocalProxyDispatcher.class);
+
+        tv.visit(V1_1, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, proxyInternalName, null,
+                Type.getType(Object.class).getInternalName(),
+                new String[] {
+                    Type.getInternalName(intfClass),
+                    Type.getInternalName(IndirectlySerializable.class),
+                    Type.getInternalName(GeneratedLocalProxy.class) });
+
+        FieldVisitor fv = tv.visitField(ACC_PRIVATE + ACC_FINAL, DISPATCHER_FIELD_NAME,
+                dispatcherType.getDescriptor(), null, null);
+        fv.visitEnd();
+
+        MethodVisitor ctor = tv.visitMethod(ACC_PUBLIC, "<init>",
+                Type.getMethodDescriptor(Type.VOID_TYPE, new Type[] { dispatcherType }),
+                null, null);
+        ctor.visitVarInsn(ALOAD, 0);
+        ctor.visitMethodInsn(INVOKESPECIAL, Type.getType(Object.class).getInternalName(),
+                "<init>", "()V");
+        ctor.visitVarInsn(ALOAD, 0);
+        ctor.visitVarInsn(ALOAD, 1);
+        ctor.visitFieldInsn(PUTFIELD, proxyInternalName, DISPATCHER_FIELD_NAME,
+                dispatcherType.getDescriptor());
+        ctor.visitInsn(RETURN);
+        ctor.visitMaxs(2, 2);
+        ctor.visitEnd();
+
+        Method getDispatcher = Method.getMethod(
+                GeneratedLocalProxy.class.getMethod("getLocalProxyDispatcher"));
+        GeneratorAdapter gd = new GeneratorAdapter(ACC_PUBLIC, getDispatcher, null, null, tv);
+        gd.loadThis();
+        gd.getField(proxyType, DISPATCHER_FIELD_NAME, dispatcherType);
+        gd.returnValue();
+        gd.endMethod();
+
+        Method dispatch = Method.getMethod(LocalProxyDispatcher.class.getMethod(
+                "invoke", Object.class, int.class, Object[].class));
+        Type undeclaredType = Type.getType(UndeclaredThrowableException.class);
+        Method undeclaredCtor = Method.getMethod(
+                UndeclaredThrowableException.class.getConstructor(Throwable.class));
+
+        for (int i = 0; i < methods.length; i++) {
+            java.lang.reflect.Method m = methods[i];
+            Type returnType = Type.getReturnType(m);
+            Type[] argTypes = Type.getArgumentTypes(m);
+            Method asmMethod = new Method(m.getName(), returnType, argTypes);
+
+            Type[] exceptionTypes = getExceptionTypes(m);
+            GeneratorAdapter mg = new GeneratorAdapter(ACC_PUBLIC, asmMethod, null,
+                    exceptionTypes, tv);
+            Label tryStart = mg.mark();
+            mg.loadThis();
+            mg.getField(proxyType, DISPATCHER_FIELD_NAME, dispatcherType);
+            mg.loadThis();
+            mg.push(i);
+            // Same as java.lang.reflect.Proxy : no argument array for
+            // methods without parameters
+            if (argTypes.length == 0) {
+                mg.visitInsn(ACONST_NULL);
+            } else {
+                mg.loadArgArray();
+            }
+            mg.invokeInterface(dispatcherType, dispatch);
+            if (returnType.getSort() == Type.VOID) {
+                mg.pop();
+            } else {
+                mg.unbox(returnType);
+            }
+            mg.returnValue();
+            Label tryEnd = mg.mark();
+
+            // Unchecked and declared exceptions are rethrown as is
+            mg.catchException(tryStart, tryEnd, Type.getType(RuntimeException.class));
+            mg.throwException();
+            mg.catchException(tryStart, tryEnd, Type.getType(Error.class));
+            mg.throwException();
+            for (Type exceptionType : exceptionTypes) {
+                mg.catchException(tryStart, tryEnd, exceptionType);
+                mg.throwException();
+            }
+            mg.catchException(tryStart, tryEnd, Type.getType(Throwable.class));
+            int cause = mg.newLocal(Type.getType(Throwable.class));
+            mg.storeLocal(cause);
+            mg.newInstance(undeclaredType);
+            mg.dup();
+            mg.loadLocal(cause);
+            mg.invokeConstructor(undeclaredType, undeclaredCtor);
+            mg.throwException();
+            mg.endMethod();
+        }
+
+        tv.visitEnd();
+
+        classMap.put(proxyClassName, cw.toByteArray());
+    }
+
     private static void generateInterfaceMethod(ClassVisitor cv, java.lang.reflect.Method m)
         throws Exception {
 
@@ -423,13 +551,10 @@ public class EjbOptionalIntfGenerator
     }
 
     private static void generateSetDelegateMethod(ClassVisitor cv, Class delegateClass,
-                                                  String subClassName)
+                                                  String subClassName,
+                                                  java.lang.reflect.Method proxyMethod)
         throws Exception {
 
-        Class optProxyClass = OptionalLocalInterfaceProvider.class;
-        java.lang.reflect.Method proxyMethod = optProxyClass.getMethod(
-                "setOptionalLocalIntfProxy", java.lang.reflect.Proxy.class);
-
         String methodName = proxyMethod.getName();
         Type returnType = Type.getReturnType(proxyMethod);
         Type[] argTypes = Type.getArgumentTypes(proxyMethod);
@@ -61,6 +61,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -288,6 +289,7 @@ public abstract class BaseContainer
     private static final byte[] homeInstanceKey = {HOME_KEY};
 
     protected static final String SINGLETON_BEAN_POOL_PROP = "singleton-bean-pool";
+    protected static final String STRIPED_BEAN_POOL_PROP = "striped-bean-pool";
 
     protected ClassLoader loader = null;
     protected Class ejbClass = null;
@@ -560,6 +562,18 @@ public abstract class BaseContainer
 
     private String optIntfClassName;
 
+    // Set if local business views use generated proxy classes rather than
+    // java.lang.reflect.Proxy. The proxy class of each view is generated
+    // once per container, when the first client object is created for it.
+    // Stateless and singleton containers create their shared client object
+    // at initialization, so their proxy classes are generated at deployment.
+    private boolean generatedLocalProxies;
+
+    private EjbOptionalIntfGenerator localProxyGenerator;
+
+    private final Map<Class, LocalBusinessProxyFactory> localProxyFactories =
+        new ConcurrentHashMap<Class, LocalBusinessProxyFactory>();
+
     // Used to track whether we've done the base container cleanup (JNDI entries, etc.)
     // Only.  Not applicable to concrete containers.
     private boolean baseContainerCleanupDone = false;
@@ -1034,6 +1048,28 @@ public abstract class BaseContainer
     public final EjbDescriptor getEjbDescriptor() {
         return ejbDescriptor;
     }
+
+    /**
+     * Whether the bean pool of this container is a StripedNonBlockingPool.
+     * The glassfish-ejb-jar.xml enterprise-beans property striped-bean-pool
+     * is either true, for all pooled beans of the module, or a comma
+     * separated list of bean names.
+     */
+    protected boolean isStripedBeanPool() {
+        String val = ejbDescriptor.getEjbBundleDescriptor().getEnterpriseBeansProperty(STRIPED_BEAN_POOL_PROP);
+        if (val == null) {
+            return false;
+        }
+        if (Boolean.parseBoolean(val.trim())) {
+            return true;
+        }
+        for (String name : val.split(",")) {
+            if (name.trim().equals(ejbDescriptor.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
     
     /**
      * Method defined on JavaEEContainer
@@ -1491,6 +1527,9 @@ public abstract class BaseContainer
 
         if (isLocal) {
 
+            generatedLocalProxies = Boolean.valueOf(ejbContainerUtilImpl.getEjbContainer().
+                    getPropertyValue(RuntimeTagNames.GENERATED_LOCAL_PROXIES));
+
             if( hasLocalHomeView ) {
                 this.ejbLocalHomeImpl = instantiateEJBLocalHomeImpl();
                 this.ejbLocalHome = ejbLocalHomeImpl.getEJBLocalHome();
@@ -3732,6 +3771,23 @@ public abstract class BaseContainer
         return invFactory.create();
     }
 
+    /**
+     * Hands a completed invocation back for reuse by a later call. Only
+     * effective if the container supports recycling and it is enabled.
+     * The invocation must not be referenced once this method returns.
+     */
+    protected void recycleEjbInvocation(EjbInvocation inv) {
+        invFactory.recycle(inv);
+    }
+
+    /**
+     * Returns true if the invocations of this container don't outlive
+     * the call that created them, so they can be recycled.
+     */
+    protected boolean supportsInvocationRecycling() {
+        return false;
+    }
+
     protected EjbInvocation createEjbInvocation(Object ejb, ComponentContext context) {
         return invFactory.create(ejb, context);
     }
@@ -3857,18 +3913,61 @@ public abstract class BaseContainer
         localBusinessObjImpl.setContainer(this);
 
         for (Class businessIntfClass : localBusinessIntfs) {
-            EJBLocalObjectInvocationHandlerDelegate delegate =
-                new EJBLocalObjectInvocationHandlerDelegate(
-                        businessIntfClass, getContainerId(), handler);
-            Proxy proxy = (Proxy) Proxy.newProxyInstance(
-                    loader, new Class[] { IndirectlySerializable.class,
-                                   businessIntfClass}, delegate);
+            Object proxy;
+            if( useGeneratedLocalProxy(businessIntfClass) ) {
+                LocalBusinessProxyFactory proxyFactory =
+                    getLocalBusinessProxyFactory(businessIntfClass);
+                proxy = proxyFactory.newProxy(
+                    new EJBLocalObjectInvocationHandlerDelegate(
+                        businessIntfClass, getContainerId(), handler, proxyFactory));
+            } else {
+                EJBLocalObjectInvocationHandlerDelegate delegate =
+                    new EJBLocalObjectInvocationHandlerDelegate(
+                            businessIntfClass, getContainerId(), handler);
+                proxy = Proxy.newProxyInstance(
+                        loader, new Class[] { IndirectlySerializable.class,
+                                       businessIntfClass}, delegate);
+            }
             localBusinessObjImpl.mapClientObject(businessIntfClass.getName(),
                     proxy);
         }
         return localBusinessObjImpl;
     }
 
+    /**
+     * The generated proxy class is defined in the package of the bean class,
+     * so it can only implement public interfaces. A non-public interface
+     * keeps the java.lang.reflect.Proxy, which is defined in the package of
+     * the interface.
+     */
+    private boolean useGeneratedLocalProxy(Class businessIntfClass) {
+        return generatedLocalProxies &&
+            Modifier.isPublic(businessIntfClass.getModifiers());
+    }
+
+    private LocalBusinessProxyFactory getLocalBusinessProxyFactory(Class businessIntfClass)
+        throws Exception {
+
+        LocalBusinessProxyFactory proxyFactory = localProxyFactories.get(businessIntfClass);
+        if( proxyFactory == null ) {
+            // The proxy class can only be defined once in the loader
+            synchronized(localProxyFactories) {
+                proxyFactory = localProxyFactories.get(businessIntfClass);
+                if( proxyFactory == null ) {
+                    if( localProxyGenerator == null ) {
+                        localProxyGenerator = new EjbOptionalIntfGenerator(loader);
+                    }
+                    String proxyClassName = EJBUtils.getGeneratedLocalProxyName(
+                        ejbClass.getName(), businessIntfClass.getName(), getContainerId());
+                    proxyFactory = new LocalBusinessProxyFactory(localProxyGenerator,
+                        proxyClassName, businessIntfClass, proxyInvocationInfoMap);
+                    localProxyFactories.put(businessIntfClass, proxyFactory);
+                }
+            }
+        }
+        return proxyFactory;
+    }
+
     protected EJBLocalObjectImpl instantiateOptionalEJBLocalBusinessObjectImpl()
         throws Exception {
 
@@ -3882,12 +3981,21 @@ public abstract class BaseContainer
         localBusinessObjImpl.setContainer(this);
 
         Class businessIntfClass = ejbGeneratedOptionalLocalBusinessIntfClass;
-        EJBLocalObjectInvocationHandlerDelegate delegate =
-            new EJBLocalObjectInvocationHandlerDelegate(
-                    businessIntfClass, getContainerId(), handler);
-        Proxy proxy = (Proxy) Proxy.newProxyInstance(
-                loader, new Class[] { IndirectlySerializable.class,
-                               businessIntfClass}, delegate);
+        Object proxy;
+        if( useGeneratedLocalProxy(businessIntfClass) ) {
+            LocalBusinessProxyFactory proxyFactory =
+                getLocalBusinessProxyFactory(businessIntfClass);
+            proxy = proxyFactory.newProxy(
+                new EJBLocalObjectInvocationHandlerDelegate(
+                    businessIntfClass, getContainerId(), handler, proxyFactory));
+        } else {
+            EJBLocalObjectInvocationHandlerDelegate delegate =
+                new EJBLocalObjectInvocationHandlerDelegate(
+                        businessIntfClass, getContainerId(), handler);
+            proxy = Proxy.newProxyInstance(
+                    loader, new Class[] { IndirectlySerializable.class,
+                                   businessIntfClass}, delegate);
+        }
 
         String beanSubClassName = ejbGeneratedOptionalLocalBusinessIntfClass.getName() + "__Bean__";
 
@@ -3899,7 +4007,11 @@ public abstract class BaseContainer
         Class subClass = optIntfClassLoader.loadClass(beanSubClassName);
         OptionalLocalInterfaceProvider provider =
                 (OptionalLocalInterfaceProvider) subClass.newInstance();
-        provider.setOptionalLocalIntfProxy(proxy);
+        if( proxy instanceof Proxy ) {
+            provider.setOptionalLocalIntfProxy((Proxy) proxy);
+        } else {
+            provider.setOptionalLocalIntfDelegate(proxy);
+        }
         localBusinessObjImpl.mapClientObject(ejbClass.getName(), provider);
 
         return localBusinessObjImpl;
@@ -4003,6 +4115,10 @@ public abstract class BaseContainer
         ComponentEnvManager envManager = ejbContainerUtilImpl.getComponentEnvManager();
         componentId = envManager.bindToComponentNamespace(ejbDescriptor);
         invFactory = new EjbInvocationFactory(componentId, this);
+        if (supportsInvocationRecycling()) {
+            invFactory.setRecycling(Boolean.valueOf(ejbContainerUtilImpl.getEjbContainer().
+                    getPropertyValue(RuntimeTagNames.RECYCLE_INVOCATIONS)));
+        }
         ejbContainerUtilImpl.registerContainer(this);
         // create envProps object to be returned from EJBContext.getEnvironment
         Set env = ejbDescriptor.getEnvironmentProperties();
@@ -4232,6 +4348,30 @@ public abstract class BaseContainer
                 method_sig);
         //callFlowAgent.ejbMethodEnd(callFlowInfo);
     }
+
+    final void onAsyncTaskQueued() {
+        ejbProbeNotifier.asyncTaskQueuedEvent(getContainerId(),
+                containerInfo.appName, containerInfo.modName, 
+                containerInfo.ejbName);
+    }
+
+    final void onAsyncTaskRejected() {
+        ejbProbeNotifier.asyncTaskRejectedEvent(getContainerId(),
+                containerInfo.appName, containerInfo.modName, 
+                containerInfo.ejbName);
+    }
+
+    final void onAsyncTaskStarted() {
+        ejbProbeNotifier.asyncTaskStartedEvent(getContainerId(),
+                containerInfo.appName, containerInfo.modName, 
+                containerInfo.ejbName);
+    }
+
+    final void onAsyncTaskCompleted() {
+        ejbProbeNotifier.asyncTaskCompletedEvent(getContainerId(),
+                containerInfo.appName, containerInfo.modName, 
+                containerInfo.ejbName);
+    }
     
     protected Object invokeTargetBeanMethod(Method beanClassMethod, EjbInvocation inv, Object target,
             Object[] params, com.sun.enterprise.security.SecurityManager mgr)
@@ -4951,6 +5091,10 @@ public abstract class BaseContainer
         timerProbeNotifier.ejbTimerDeliveredEvent();
     }
 
+    protected void timerDeliveryLag(long lagMillis) {
+        timerProbeNotifier.ejbTimerDeliveryLagEvent(lagMillis);
+    }
+
     private static class JndiInfo {
 
         private JndiInfo(String name, Object object) {
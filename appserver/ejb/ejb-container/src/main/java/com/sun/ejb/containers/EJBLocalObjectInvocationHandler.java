@@ -185,6 +185,49 @@ public final class EJBLocalObjectInvocationHandler
             throw new EJBException(errorMsg);
         }
 
+        return invokeBusinessMethod(clientInterface, method, invInfo, args);
+        } finally {
+            if( originalClassLoader != null ) {
+                Utility.setContextClassLoader(originalClassLoader);
+            }
+
+            container.onLeavingContainer();
+        }
+    }
+
+    /**
+     * Entry point for generated local business proxies. The proxy has
+     * already resolved the InvocationInfo of the business method, so
+     * there is no method map lookup.
+     */
+    Object invoke(Class clientInterface, Method method, InvocationInfo invInfo,
+                  Object[] args) throws Throwable {
+
+        ClassLoader originalClassLoader = null;
+
+        try {
+            container.onEnteringContainer();
+
+            if( Thread.currentThread().getContextClassLoader() !=
+                getContainer().getClassLoader() ) {
+                originalClassLoader = Utility.setContextClassLoader
+                    (getContainer().getClassLoader());
+            }
+
+            return invokeBusinessMethod(clientInterface, method, invInfo, args);
+        } finally {
+            if( originalClassLoader != null ) {
+                Utility.setContextClassLoader(originalClassLoader);
+            }
+
+            container.onLeavingContainer();
+        }
+    }
+
+    private Object invokeBusinessMethod(Class clientInterface, Method method,
+                                        InvocationInfo invInfo, Object[] args)
+        throws Throwable {
+
         // Process application-specific method.
 
         Object returnValue = null;
@@ -219,20 +262,18 @@ public final class EJBLocalObjectInvocationHandler
         } finally {
             container.postInvoke(inv);
         }
-            
-        if (inv.exception != null) {
+
+        Throwable exception = inv.exception;
+        if( !invInfo.isAsynchronous() ) {
+            container.recycleEjbInvocation(inv);
+        }
+
+        if (exception != null) {
             InvocationHandlerUtil.throwLocalException
-                (inv.exception, method.getExceptionTypes());
+                (exception, method.getExceptionTypes());
         }
 
         return returnValue;
-        } finally {
-            if( originalClassLoader != null ) {
-                Utility.setContextClassLoader(originalClassLoader);
-            }
-
-            container.onLeavingContainer();
-        }
     }
 
 
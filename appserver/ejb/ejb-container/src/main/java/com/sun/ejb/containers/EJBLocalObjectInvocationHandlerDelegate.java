@@ -40,6 +40,8 @@
 
 package com.sun.ejb.containers;
 
+import com.sun.ejb.InvocationInfo;
+import com.sun.ejb.spi.container.LocalProxyDispatcher;
 import com.sun.enterprise.container.common.spi.util.IndirectlySerializable;
 import com.sun.enterprise.container.common.spi.util.SerializableObjectFactory;
 
@@ -54,24 +56,36 @@ import java.lang.reflect.Method;
  *  methods and mthods of IndirectlySerializable are handled by this 
  *  InvocationHandler itself while the business interface methods are delegated
  *  to the delegate (which is the EJBLocalObjectInvocaionHandler). 
+ *
+ *  When the business interface is implemented by a generated proxy instead
+ *  of a java.lang.reflect.Proxy, calls come in through the LocalProxyDispatcher
+ *  method, with the index of the method in the LocalBusinessProxyFactory.
  *   
  * @author Mahesh Kannan
  *
  */
 public class EJBLocalObjectInvocationHandlerDelegate
-    implements InvocationHandler {
+    implements InvocationHandler, LocalProxyDispatcher {
 
     private Class intfClass;
     private long containerId;
     private EJBLocalObjectInvocationHandler delegate;
     private boolean isOptionalLocalBusinessView;
+    private LocalBusinessProxyFactory proxyFactory;
     
     EJBLocalObjectInvocationHandlerDelegate(Class intfClass, long containerId,
             EJBLocalObjectInvocationHandler delegate) {
+        this(intfClass, containerId, delegate, null);
+    }
+
+    EJBLocalObjectInvocationHandlerDelegate(Class intfClass, long containerId,
+            EJBLocalObjectInvocationHandler delegate,
+            LocalBusinessProxyFactory proxyFactory) {
         this.intfClass = intfClass;
         this.containerId = containerId;
         this.delegate = delegate;
         this.isOptionalLocalBusinessView = delegate.isOptionalLocalBusinessView();
+        this.proxyFactory = proxyFactory;
     }
     
     public Object invoke(Object proxy, Method method, Object[] args) 
@@ -91,6 +105,18 @@ public class EJBLocalObjectInvocationHandlerDelegate
         return result;
     }
 
+    public Object invoke(Object proxy, int methodIndex, Object[] args)
+        throws Throwable {
+
+        Method method = proxyFactory.getMethod(methodIndex);
+        InvocationInfo invInfo = proxyFactory.getInvocationInfo(methodIndex);
+        if( invInfo != null ) {
+            return delegate.invoke(intfClass, method, invInfo, args);
+        }
+
+        return invoke(proxy, method, args);
+    }
+
     EJBLocalObjectInvocationHandler getDelegate() {
         return delegate;
     }
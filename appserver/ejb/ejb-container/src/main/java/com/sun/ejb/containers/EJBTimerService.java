@@ -53,6 +53,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.ejb.CreateException;
@@ -152,6 +154,15 @@ public class EJBTimerService {
     private static final String RESCHEDULE_FAILED_TIMER = "reschedule-failed-timer";
     private boolean rescheduleFailedTimer = false;
 
+    // Schedule expirations on an EJBTimerWheel instead of the JDK timer
+    private static final String TIMER_WHEEL = "timer-wheel";
+    private static final String TIMER_WHEEL_TICK = "timer-wheel-tick-in-millis";
+
+    private static final long TIMER_WHEEL_TICK_MILLIS = 100;
+    private static final int TIMER_WHEEL_SIZE = 512;
+
+    private EJBTimerWheel timerWheel_;
+
     // Flag that allows to load EJBTimerService on the 1st access and
     // distinguish between not available and not loaded
     private static volatile boolean _timerServiceVerified = false;
@@ -274,6 +285,10 @@ public class EJBTimerService {
 
                 rescheduleFailedTimer = Boolean.valueOf(ejbt.getPropertyValue(RESCHEDULE_FAILED_TIMER));
 
+                if( Boolean.valueOf(ejbt.getPropertyValue(TIMER_WHEEL)) ) {
+                    initTimerWheel(ejbt);
+                }
+
                 // Load confing listener
                 ejbContainerUtil.getServices().getService(EJBTimerServiceConfigListener.class);
             }
@@ -289,6 +304,27 @@ public class EJBTimerService {
                    "\nredelivery interval = " + getRedeliveryInterval());
     }
 
+    private void initTimerWheel(EjbTimerService ejbt) {
+        String valString = ejbt.getPropertyValue(TIMER_WHEEL_TICK);
+        long tick = (valString != null) ? Long.parseLong(valString) : -1;
+        if( tick <= 0 ) {
+            tick = TIMER_WHEEL_TICK_MILLIS;
+        }
+
+        // Expirations run on the wheel thread, as they do on the JDK timer
+        // thread. taskExpired only hands them off to the work pool.
+        Executor dispatcher = new Executor() {
+            public void execute(Runnable r) {
+                r.run();
+            }
+        };
+
+        timerWheel_ = new EJBTimerWheel(tick, TIMER_WHEEL_SIZE, dispatcher);
+
+        logger.log(Level.FINE, "EJB Timer Service uses a timer wheel : tick = " +
+                   tick);
+    }
+
     synchronized void timedObjectCount() {
         totalTimedObjectsInitialized_++;
     }
@@ -356,6 +392,10 @@ public class EJBTimerService {
     private void shutdown() {
         // Set flag to prevent any new timer expirations.
         shutdown_ = true;
+
+        if( timerWheel_ != null ) {
+            timerWheel_.stop();
+        }
     }
 
     /**
@@ -467,8 +507,12 @@ public class EJBTimerService {
                     timerState.scheduled(timerTask);
                 }
 
-                java.util.Timer jdkTimer = ejbContainerUtil.getTimer();
-                jdkTimer.schedule(timerTask, timerExpiration);            
+                if( timerWheel_ != null ) {
+                    timerWheel_.schedule(timerTask, timerExpiration);
+                } else {
+                    java.util.Timer jdkTimer = ejbContainerUtil.getTimer();
+                    jdkTimer.schedule(timerTask, timerExpiration);            
+                }
             }
         } else {
             
@@ -1410,6 +1454,14 @@ public class EJBTimerService {
         if( timerState != null ) {
             synchronized(timerState) {
                 if( timerState.isScheduled() ) {
+                    EJBTimerTask timerTask = timerState.getCurrentTimerTask();
+                    BaseContainer container = getContainer(timerState.getContainerId());
+                    if( (timerTask != null) && (container != null) ) {
+                        // How late the expiration is, as seen by the scheduler
+                        container.timerDeliveryLag(System.currentTimeMillis() -
+                                                   timerTask.getTimeout().getTime());
+                    }
+
                     timerState.delivered();
 
                     if( logger.isLoggable(Level.FINE) ) {
@@ -1715,8 +1767,11 @@ public class EJBTimerService {
     //
     public static class TimerCache {
 
+        // Number of locks guarding the per-container timer information
+        private static final int LOCK_STRIPES = 64;
+
         // Maps timer id to timer state.
-        private Map timers_;
+        private final Map<TimerPrimaryKey, RuntimeTimerState> timers_;
 
         // Map of timer information per container.
         //
@@ -1729,51 +1784,66 @@ public class EJBTimerService {
         // primary keys.  NOTE : This list can contain duplicate primary keys
         // in the case where the same entity bean identity has more
         // than one associated timer.
+        //
+        // Updates for a container, and the matching updates of timers_,
+        // are done holding the lock stripe of the container.
         
-        private Map containerTimers_;
+        private final Map<Long, Object> containerTimers_;
 
         // Map of non-persistent timer id to timer state.
-        private Map<TimerPrimaryKey, RuntimeTimerState> nonpersistentTimers_;
+        private final Map<TimerPrimaryKey, RuntimeTimerState> nonpersistentTimers_;
+
+        private final Object[] locks_ = new Object[LOCK_STRIPES];
 
         public TimerCache() {
-            // Create unsynchronized collections.  TimerCache will 
-            // provide concurrency control.
-            timers_ = new HashMap();
-            containerTimers_ = new HashMap();
-            nonpersistentTimers_ = new HashMap<TimerPrimaryKey, RuntimeTimerState>();
+            // Lookups by timer id happen on every timer operation and
+            // expiration, so they don't take a lock.
+            timers_ = new ConcurrentHashMap<TimerPrimaryKey, RuntimeTimerState>();
+            containerTimers_ = new ConcurrentHashMap<Long, Object>();
+            nonpersistentTimers_ = new ConcurrentHashMap<TimerPrimaryKey, RuntimeTimerState>();
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                locks_[i] = new Object();
+            }
         }
 
-        public synchronized void addTimer(TimerPrimaryKey timerId, 
-                                          RuntimeTimerState timerState) {
+        private Object getLock(long containerId) {
+            int hash = (int) (containerId ^ (containerId >>> 32));
+            return locks_[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+        }
+
+        public void addTimer(TimerPrimaryKey timerId, 
+                             RuntimeTimerState timerState) {
             if( logger.isLoggable(Level.FINE) ) {
                 logger.log(Level.FINE, "Adding timer " + timerState);
             }
 
-            timers_.put(timerId, timerState);
-            if (!timerState.isPersistent()) {
-                nonpersistentTimers_.put(timerId, timerState);
-            }
-
             Long containerId = timerState.getContainerId();
 
-            Object containerInfo = containerTimers_.get(containerId);
+            synchronized(getLock(containerId)) {
+                timers_.put(timerId, timerState);
+                if (!timerState.isPersistent()) {
+                    nonpersistentTimers_.put(timerId, timerState);
+                }
+
+                Object containerInfo = containerTimers_.get(containerId);
 
-            if( timerState.timedObjectIsEntity() ) {
-                Collection entityBeans;
-                if( containerInfo == null ) {
-                    // NOTE : This list *can* contain duplicates, since
-                    // the same entity bean can be the timed object for 
-                    // multiple timers.
-                    entityBeans = new ArrayList();
-                    containerTimers_.put(containerId, entityBeans);
+                if( timerState.timedObjectIsEntity() ) {
+                    Collection entityBeans;
+                    if( containerInfo == null ) {
+                        // NOTE : This list *can* contain duplicates, since
+                        // the same entity bean can be the timed object for 
+                        // multiple timers.
+                        entityBeans = new ArrayList();
+                        containerTimers_.put(containerId, entityBeans);
+                    } else {
+                        entityBeans = (Collection) containerInfo;
+                    }
+                    entityBeans.add(timerState.getTimedObjectPrimaryKey());
                 } else {
-                    entityBeans = (Collection) containerInfo;
+                    Long timerCount = (containerInfo == null) ? 1 :
+                        ((Long) containerInfo).longValue() + 1;
+                    containerTimers_.put(containerId, timerCount);
                 }
-                entityBeans.add(timerState.getTimedObjectPrimaryKey());
-            } else {
-                Long timerCount = (containerInfo == null) ? 1 :
-                    ((Long) containerInfo).longValue() + 1;
-                containerTimers_.put(containerId, timerCount);
             }
 
         }
@@ -1783,80 +1853,87 @@ public class EJBTimerService {
          * defensively since it's possible it will be called multiple
          * times for the same timer.
          */
-        public synchronized void removeTimer(TimerPrimaryKey timerId) {
+        public void removeTimer(TimerPrimaryKey timerId) {
             if( logger.isLoggable(Level.FINE) ) {
                 logger.log(Level.FINE, "Removing timer " + timerId);
             }
 
-            RuntimeTimerState timerState = (RuntimeTimerState) 
-                timers_.remove(timerId);
+            RuntimeTimerState timerState = timers_.get(timerId);
 
             if( timerState == null) {
                 return;
             }
 
-            if (!timerState.isPersistent()) {
-                nonpersistentTimers_.remove(timerId);
-            }
             Long containerId = timerState.getContainerId();
-            Object containerInfo = containerTimers_.get(containerId);
+
+            synchronized(getLock(containerId)) {
+                // Somebody else removed it first
+                if( !timers_.remove(timerId, timerState) ) {
+                    return;
+                }
+
+                if (!timerState.isPersistent()) {
+                    nonpersistentTimers_.remove(timerId);
+                }
+                Object containerInfo = containerTimers_.get(containerId);
                 
-            if( containerInfo != null ) {
-                if( timerState.timedObjectIsEntity() ) {
-                    Collection entityBeans = (Collection) containerInfo;
-                    if( entityBeans.size() == 1 ) {
-                        // Only one left -- blow away the container.
-                        containerTimers_.remove(containerId);
+                if( containerInfo != null ) {
+                    if( timerState.timedObjectIsEntity() ) {
+                        Collection entityBeans = (Collection) containerInfo;
+                        if( entityBeans.size() == 1 ) {
+                            // Only one left -- blow away the container.
+                            containerTimers_.remove(containerId);
+                        } else {
+                            // Remove a single instance of this primary key
+                            // from the list.  There could still be other
+                            // instances of the same primary key.
+                            entityBeans.remove
+                                (timerState.getTimedObjectPrimaryKey());
+                        }
                     } else {
-                        // Remove a single instance of this primary key
-                        // from the list.  There could still be other
-                        // instances of the same primary key.
-                        entityBeans.remove
-                            (timerState.getTimedObjectPrimaryKey());
+                        long timerCount = ((Long) containerInfo).longValue();
+                        if( timerCount == 1 ) {
+                            // Only one left -- blow away the container
+                            containerTimers_.remove(containerId);
+                        } else {
+                            Long newCount = timerCount - 1;
+                            containerTimers_.put(containerId, newCount);
+                        }                         
                     }
-                } else {
-                    long timerCount = ((Long) containerInfo).longValue();
-                    if( timerCount == 1 ) {
-                        // Only one left -- blow away the container
-                        containerTimers_.remove(containerId);
-                    } else {
-                        Long newCount = timerCount - 1;
-                        containerTimers_.put(containerId, newCount);
-                    }                         
                 }
             }
         }
 
-        public synchronized RuntimeTimerState getTimerState(TimerPrimaryKey 
-                                                            timerId) {
-            return (RuntimeTimerState) timers_.get(timerId);
+        public RuntimeTimerState getTimerState(TimerPrimaryKey timerId) {
+            return timers_.get(timerId);
         }
 
-        public synchronized RuntimeTimerState getNonPersistentTimerState(
+        public RuntimeTimerState getNonPersistentTimerState(
                               TimerPrimaryKey timerId) {
-            return (RuntimeTimerState) nonpersistentTimers_.get(timerId);
+            return nonpersistentTimers_.get(timerId);
         }
 
         // True if the given entity bean has any timers and false otherwise.
-        public synchronized boolean entityBeanHasTimers(long containerId, 
-                                                        Object pkey) {
-            Object containerInfo = containerTimers_.get(containerId);
-            return (containerInfo != null) ?
-                ((Collection) containerInfo).contains(pkey) : false;
+        public boolean entityBeanHasTimers(long containerId, Object pkey) {
+            synchronized(getLock(containerId)) {
+                Object containerInfo = containerTimers_.get(containerId);
+                return (containerInfo != null) ?
+                    ((Collection) containerInfo).contains(pkey) : false;
+            }
         }
 
         // True if the ejb represented by this container id has any timers
         // and false otherwise.  
-        public synchronized boolean containerHasTimers(long containerId) {
+        public boolean containerHasTimers(long containerId) {
             return containerTimers_.containsKey(containerId);
         }
 
         // Placeholder for logic to ensure timer cache consistency.
-        public synchronized void validate() {
+        public void validate() {
         }
 
         // Returns a Set of non-persistent timer ids for this container
-        public synchronized Set<TimerPrimaryKey> getNonPersistentTimerIdsForContainer(
+        public Set<TimerPrimaryKey> getNonPersistentTimerIdsForContainer(
                                         long containerId_) {
             Set<TimerPrimaryKey> result = new HashSet<TimerPrimaryKey>();
             for (Map.Entry<TimerPrimaryKey, RuntimeTimerState> entry : nonpersistentTimers_.entrySet()) {
@@ -1871,7 +1948,7 @@ public class EJBTimerService {
         }
 
         // Returns a Set of active non-persistent timer ids for this container
-        public synchronized Set<TimerPrimaryKey> getNonPersistentActiveTimerIdsForContainer(
+        public Set<TimerPrimaryKey> getNonPersistentActiveTimerIdsForContainer(
                                         long containerId_) {
             Set<TimerPrimaryKey> result = new HashSet<TimerPrimaryKey>();
             for (Map.Entry<TimerPrimaryKey, RuntimeTimerState> entry : nonpersistentTimers_.entrySet()) {
@@ -1885,7 +1962,7 @@ public class EJBTimerService {
         }
 
         // Returns a Set of active non-persistent timer ids for this server
-        public synchronized Set<TimerPrimaryKey> getNonPersistentActiveTimerIdsByThisServer() {
+        public Set<TimerPrimaryKey> getNonPersistentActiveTimerIdsByThisServer() {
             Set<TimerPrimaryKey> result = new HashSet<TimerPrimaryKey>();
             for (Map.Entry<TimerPrimaryKey, RuntimeTimerState> entry : nonpersistentTimers_.entrySet()) {
                 TimerPrimaryKey key = entry.getKey();
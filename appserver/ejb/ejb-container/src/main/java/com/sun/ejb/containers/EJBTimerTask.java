@@ -62,6 +62,10 @@ public class EJBTimerTask extends TimerTask {
     private TimerPrimaryKey timerId_;
     private EJBTimerService timerService_;
 
+    // Set when the task is scheduled on the EJBTimerWheel instead of
+    // the JDK timer
+    private volatile EJBTimerWheel.Entry wheelEntry_;
+
     EJBTimerTask(Date timeout, TimerPrimaryKey timerId, 
                  EJBTimerService timerService)
     { 
@@ -79,5 +83,14 @@ public class EJBTimerTask extends TimerTask {
         return timeout_;
     }
 
+    void setWheelEntry(EJBTimerWheel.Entry wheelEntry) {
+        wheelEntry_ = wheelEntry;
+    }
+
+    public boolean cancel() {
+        EJBTimerWheel.Entry wheelEntry = wheelEntry_;
+        return (wheelEntry != null) ? wheelEntry.cancel() : super.cancel();
+    }
+
 } 
 
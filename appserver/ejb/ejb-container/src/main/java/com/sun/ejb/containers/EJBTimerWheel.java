@@ -0,0 +1,375 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers;
+
+import java.util.Date;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hierarchical timing wheel used in place of the JDK Timer for EJB timer
+ * expirations. Scheduling and cancelling a task are O(1), independent of
+ * the number of pending timers. Each level has wheelSize buckets, a level
+ * covers the span of one bucket of the next level, and tasks move down a
+ * level when the bucket they are in comes due.
+ *
+ * Only buckets that hold tasks are queued, so the wheel thread sleeps until
+ * the next non-empty bucket rather than ticking through empty ones. Tasks
+ * that are due are handed to the dispatch executor.
+ *
+ * Expirations are delivered at most one tick late.
+ */
+final class EJBTimerWheel {
+
+    private static final Logger logger = EJBTimerService.logger;
+
+    // How long the wheel thread waits before checking for shutdown
+    private static final long POLL_MILLIS = 500;
+
+    private final DelayQueue<Bucket> queue = new DelayQueue<Bucket>();
+
+    // Adding a task takes the read lock, moving the clock forward takes the
+    // write lock
+    private final ReentrantReadWriteLock clockLock = new ReentrantReadWriteLock();
+
+    private final Wheel wheel;
+
+    private final Executor dispatcher;
+
+    private final Thread wheelThread;
+
+    private volatile boolean stopped;
+
+    EJBTimerWheel(long tickMillis, int wheelSize, Executor dispatcher) {
+        this.wheel = new Wheel(tickMillis, wheelSize, System.currentTimeMillis());
+        this.dispatcher = dispatcher;
+
+        wheelThread = new Thread(new Runnable() {
+            public void run() {
+                while( !stopped ) {
+                    try {
+                        advance(POLL_MILLIS);
+                    } catch(InterruptedException ie) {
+                        // Checks the stopped flag
+                    } catch(Throwable t) {
+                        logger.log(Level.WARNING, "Error in EJB timer wheel", t);
+                    }
+                }
+            }
+        }, "ejb-timer-wheel");
+        wheelThread.setDaemon(true);
+        // Same as the JDK timer : the thread outlives the applications, so
+        // don't let it hold on to an application class loader.
+        wheelThread.setContextClassLoader(EJBTimerWheel.class.getClassLoader());
+        wheelThread.start();
+    }
+
+    /**
+     * Schedules the task to be run at the given time. The task can be
+     * cancelled through EJBTimerTask.cancel().
+     */
+    void schedule(EJBTimerTask task, Date time) {
+        Entry entry = new Entry(task, time.getTime());
+        task.setWheelEntry(entry);
+        add(entry);
+    }
+
+    void stop() {
+        stopped = true;
+        wheelThread.interrupt();
+    }
+
+    private void add(Entry entry) {
+        boolean added;
+        clockLock.readLock().lock();
+        try {
+            added = wheel.add(entry);
+        } finally {
+            clockLock.readLock().unlock();
+        }
+        if( !added && entry.markDispatched() ) {
+            // Already due
+            dispatcher.execute(entry.task);
+        }
+    }
+
+    private void advance(long timeoutMillis) throws InterruptedException {
+        Bucket bucket = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if( bucket != null ) {
+            clockLock.writeLock().lock();
+            try {
+                while( bucket != null ) {
+                    wheel.advanceClock(bucket.getExpiration());
+                    bucket.flush(this);
+                    bucket = queue.poll();
+                }
+            } finally {
+                clockLock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Called with the write lock held, for each task of a flushed bucket.
+    // Either moves the task to a lower level or dispatches it.
+    private void reinsert(Entry entry) {
+        if( !wheel.add(entry) && entry.markDispatched() ) {
+            dispatcher.execute(entry.task);
+        }
+    }
+
+    private final class Wheel {
+
+        private final long tickMillis;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket[] buckets;
+
+        // Rounded down to a multiple of tickMillis
+        private volatile long currentTime;
+
+        // Next level, created when a task is too far in the future for
+        // this one
+        private volatile Wheel overflowWheel;
+
+        Wheel(long tickMillis, int wheelSize, long startTime) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.interval = tickMillis * wheelSize;
+            this.currentTime = startTime - (startTime % tickMillis);
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+        }
+
+        /**
+         * Returns false if the entry is due or cancelled and was not added.
+         */
+        boolean add(Entry entry) {
+            long expiration = entry.expiration;
+            if( entry.isCancelled() ) {
+                return false;
+            } else if( expiration < currentTime + tickMillis ) {
+                return false;
+            } else if( expiration < currentTime + interval ) {
+                long virtualId = expiration / tickMillis;
+                Bucket bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.add(entry);
+                // Only queue the bucket the first time it is used for
+                // this round of the wheel
+                if( bucket.setExpiration(virtualId * tickMillis) ) {
+                    queue.offer(bucket);
+                }
+                return true;
+            } else {
+                return getOverflowWheel().add(entry);
+            }
+        }
+
+        void advanceClock(long time) {
+            if( time >= currentTime + tickMillis ) {
+                currentTime = time - (time % tickMillis);
+                Wheel overflow = overflowWheel;
+                if( overflow != null ) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+
+        private Wheel getOverflowWheel() {
+            if( overflowWheel == null ) {
+                synchronized(this) {
+                    if( overflowWheel == null ) {
+                        overflowWheel = new Wheel(interval, wheelSize, currentTime);
+                    }
+                }
+            }
+            return overflowWheel;
+        }
+    }
+
+    /**
+     * Doubly linked list of the entries that expire in the same tick.
+     */
+    private static final class Bucket implements Delayed {
+
+        // Sentinel of the circular list
+        private final Entry root = new Entry(null, -1);
+
+        private final AtomicLong expiration = new AtomicLong(-1);
+
+        Bucket() {
+            root.next = root;
+            root.prev = root;
+        }
+
+        boolean setExpiration(long expirationMillis) {
+            return expiration.getAndSet(expirationMillis) != expirationMillis;
+        }
+
+        long getExpiration() {
+            return expiration.get();
+        }
+
+        synchronized void add(Entry entry) {
+            // An entry that is moved down a level was already removed from
+            // its previous bucket by flush
+            entry.bucket = this;
+            Entry tail = root.prev;
+            entry.next = root;
+            entry.prev = tail;
+            tail.next = entry;
+            root.prev = entry;
+        }
+
+        synchronized void remove(Entry entry) {
+            if( entry.bucket == this ) {
+                entry.next.prev = entry.prev;
+                entry.prev.next = entry.next;
+                entry.next = null;
+                entry.prev = null;
+                entry.bucket = null;
+            }
+        }
+
+        void flush(EJBTimerWheel timerWheel) {
+            Entry head;
+            synchronized(this) {
+                head = root.next;
+                root.prev.next = null;
+                root.next = root;
+                root.prev = root;
+                expiration.set(-1);
+                if( head == root ) {
+                    return;
+                }
+                // Detach the entries so a concurrent cancel no longer
+                // unlinks them from this bucket
+                for (Entry entry = head; entry != null; entry = entry.next) {
+                    entry.bucket = null;
+                    entry.prev = null;
+                }
+            }
+            Entry entry = head;
+            while( entry != null ) {
+                Entry next = entry.next;
+                entry.next = null;
+                timerWheel.reinsert(entry);
+                entry = next;
+            }
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(
+                Math.max(getExpiration() - System.currentTimeMillis(), 0),
+                TimeUnit.MILLISECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            long otherExpiration = ((Bucket) other).getExpiration();
+            long thisExpiration = getExpiration();
+            return (thisExpiration < otherExpiration) ? -1 :
+                ((thisExpiration == otherExpiration) ? 0 : 1);
+        }
+    }
+
+    /**
+     * A scheduled task. Cancelling it unlinks it from its bucket.
+     */
+    static final class Entry {
+
+        private static final int SCHEDULED  = 0;
+        private static final int CANCELLED  = 1;
+        private static final int DISPATCHED = 2;
+
+        final Runnable task;
+        final long expiration;
+
+        // Guarded by the bucket the entry is in
+        volatile Bucket bucket;
+        Entry next;
+        Entry prev;
+
+        private int state = SCHEDULED;
+
+        Entry(Runnable task, long expiration) {
+            this.task = task;
+            this.expiration = expiration;
+        }
+
+        /**
+         * Returns true if the task had not been run or cancelled yet.
+         */
+        boolean cancel() {
+            synchronized(this) {
+                if( state != SCHEDULED ) {
+                    return false;
+                }
+                state = CANCELLED;
+            }
+            // The entry can move to another bucket while it is being removed
+            Bucket current = bucket;
+            while( current != null ) {
+                current.remove(this);
+                current = bucket;
+            }
+            return true;
+        }
+
+        synchronized boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        synchronized boolean markDispatched() {
+            if( state != SCHEDULED ) {
+                return false;
+            }
+            state = DISPATCHED;
+            return true;
+        }
+    }
+}
@@ -48,6 +48,7 @@ import org.jvnet.hk2.annotations.Service;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import com.sun.ejb.Container;
+import com.sun.enterprise.deployment.xml.RuntimeTagNames;
 import com.sun.logging.LogDomains;
 import java.lang.reflect.Method;
 import javax.ejb.EJBException;
@@ -65,6 +66,12 @@ public class EjbAsyncInvocationManager {
     private ConcurrentHashMap<Long, EjbFutureTask> remoteTaskMap =
             new ConcurrentHashMap<Long, EjbFutureTask>();
 
+    // Per-bean concurrency limits, only used if async-max-concurrency-per-bean is set
+    private ConcurrentHashMap<Container, EjbAsyncTaskLimiter> limiterMap =
+            new ConcurrentHashMap<Container, EjbAsyncTaskLimiter>();
+
+    private volatile int maxConcurrencyPerBean = -1;
+
     public Future createLocalFuture(EjbInvocation inv) {
         return createFuture(inv);
     }
@@ -143,11 +150,75 @@ public class EjbAsyncInvocationManager {
         futureTask.getEjbAsyncTask().initialize(asyncInv);
         
         EjbContainerUtil ejbContainerUtil = EjbContainerUtilImpl.getInstance();
-        return ejbContainerUtil.getThreadPoolExecutor(null).submit(futureTask.getEjbAsyncTask());
+        ThreadPoolExecutor executor = ejbContainerUtil.getThreadPoolExecutor(
+                EjbContainerUtil.ASYNC_THREAD_POOL_NAME);
+
+        BaseContainer container = (BaseContainer) asyncInv.container;
+        container.onAsyncTaskQueued();
+
+        EjbAsyncTaskLimiter limiter = getLimiter(container, ejbContainerUtil);
+        if (limiter != null) {
+            limiter.submit(futureTask, executor);
+            return futureTask;
+        }
+
+        try {
+            return executor.submit(futureTask.getEjbAsyncTask());
+        } catch (RejectedExecutionException ree) {
+            container.onAsyncTaskRejected();
+            throw ree;
+        }
+    }
+
+    private EjbAsyncTaskLimiter getLimiter(Container container, 
+            EjbContainerUtil ejbContainerUtil) {
+        int max = maxConcurrencyPerBean;
+        if (max < 0) {
+            max = readMaxConcurrencyPerBean(ejbContainerUtil);
+        }
+        if (max == 0) {
+            return null;
+        }
+
+        EjbAsyncTaskLimiter limiter = limiterMap.get(container);
+        if (limiter == null) {
+            limiter = new EjbAsyncTaskLimiter(max);
+            EjbAsyncTaskLimiter existing = limiterMap.putIfAbsent(container, limiter);
+            if (existing != null) {
+                limiter = existing;
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * Read async-max-concurrency-per-bean once. An invalid value is logged
+     * and the default, no limit, is cached in its place.
+     */
+    private synchronized int readMaxConcurrencyPerBean(EjbContainerUtil ejbContainerUtil) {
+        int max = maxConcurrencyPerBean;
+        if (max < 0) {
+            String val = ejbContainerUtil.getEjbContainer().getPropertyValue(
+                    RuntimeTagNames.ASYNC_MAX_CONCURRENCY_PER_BEAN);
+            max = 0;
+            if (val != null) {
+                try {
+                    max = Math.max(0, Integer.parseInt(val.trim()));
+                } catch (NumberFormatException nfe) {
+                    _logger.log(Level.WARNING, "Invalid value " + val + " for "
+                            + RuntimeTagNames.ASYNC_MAX_CONCURRENCY_PER_BEAN
+                            + ", async invocations are not limited per bean");
+                }
+            }
+            maxConcurrencyPerBean = max;
+        }
+        return max;
     }
 
     public void cleanupContainerTasks(Container container) {
 
+        limiterMap.remove(container);
+
         Set<Map.Entry<Long, EjbFutureTask>> entrySet = remoteTaskMap.entrySet();
         Iterator<Map.Entry<Long, EjbFutureTask>> iterator = entrySet.iterator();
 
@@ -90,6 +90,7 @@ public class EjbAsyncTask<V>
         V returnValue = null;
         BaseContainer container = (BaseContainer) inv.container;
         ClassLoader prevCL = Thread.currentThread().getContextClassLoader();
+        container.onAsyncTaskStarted();
         try {
             Utility.setContextClassLoader(container.getClassLoader());
 
@@ -134,6 +135,7 @@ public class EjbAsyncTask<V>
             } finally {
                 SecurityContext.setCurrent(null);
                 Utility.setContextClassLoader(prevCL);
+                container.onAsyncTaskCompleted();
             }
         }
 
@@ -0,0 +1,134 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ejb.EJBException;
+
+import com.sun.logging.LogDomains;
+
+/**
+ * Bounds the number of @Asynchronous invocations of a single bean that are 
+ * running at the same time.  Invocations above the bound wait in a per-bean
+ * queue and are handed to the executor as running ones complete, so the 
+ * calling thread never blocks and one bean can not occupy all the threads 
+ * of a shared executor.
+ */
+final class EjbAsyncTaskLimiter {
+
+    private static final Logger _logger = LogDomains.getLogger(EjbAsyncTaskLimiter.class, LogDomains.EJB_LOGGER);
+
+    private final int maxConcurrency;
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final Queue<EjbFutureTask> waiting = new ConcurrentLinkedQueue<EjbFutureTask>();
+
+    EjbAsyncTaskLimiter(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    void submit(EjbFutureTask task, Executor executor) {
+        waiting.offer(task);
+        dispatch(executor);
+    }
+
+    /**
+     * Hands waiting tasks to the executor while there are free slots.  
+     * Both submitters and completing tasks change the state first and then
+     * call this method, so a task is never left waiting with a free slot.
+     * The task taken from the queue may belong to another caller, so a
+     * rejection is reported through the task's future and not thrown.
+     */
+    private void dispatch(Executor executor) {
+        while (!waiting.isEmpty()) {
+            int current = running.get();
+            if (current >= maxConcurrency) {
+                return;
+            }
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            EjbFutureTask task = waiting.poll();
+            if (task == null) {
+                running.decrementAndGet();
+                continue;
+            }
+
+            try {
+                executor.execute(new LimitedTask(task, executor));
+            } catch (RejectedExecutionException ree) {
+                running.decrementAndGet();
+                _logger.log(Level.WARNING, "Async task " + task + " rejected by executor", ree);
+                task.setRejected(new EJBException("Async task rejected by executor", ree));
+                ((BaseContainer) task.getEjbAsyncTask().getEjbInvocation().container).onAsyncTaskRejected();
+            }
+        }
+    }
+
+    private final class LimitedTask implements Runnable {
+
+        private final EjbFutureTask task;
+        private final Executor executor;
+
+        LimitedTask(EjbFutureTask task, Executor executor) {
+            this.task = task;
+            this.executor = executor;
+        }
+
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+                dispatch(executor);
+            }
+        }
+    }
+}
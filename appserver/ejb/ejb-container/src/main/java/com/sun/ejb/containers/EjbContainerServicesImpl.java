@@ -59,6 +59,7 @@ import org.jvnet.hk2.annotations.Service;
 
 import com.sun.ejb.Container;
 import com.sun.ejb.EJBUtils;
+import com.sun.ejb.spi.container.GeneratedLocalProxy;
 import com.sun.ejb.spi.container.OptionalLocalInterfaceProvider;
 import com.sun.enterprise.deployment.EjbInterceptor;
 import com.sun.logging.LogDomains;
@@ -205,6 +206,12 @@ public class EjbContainerServicesImpl implements EjbContainerServices {
 
         EJBLocalObjectInvocationHandlerDelegate localObj = null;
 
+        if( ejbRef instanceof GeneratedLocalProxy ) {
+            localObj = (EJBLocalObjectInvocationHandlerDelegate)
+                    ((GeneratedLocalProxy) ejbRef).getLocalProxyDispatcher();
+            return localObj.getDelegate();
+        }
+
         // First try to convert it as a local or remote business interface object
         try {
 
@@ -212,7 +219,7 @@ public class EjbContainerServicesImpl implements EjbContainerServices {
             
         } catch(IllegalArgumentException iae) {
 
-            Proxy proxy;
+            Object proxy;
 
             if( ejbRef instanceof OptionalLocalInterfaceProvider ) {
 
@@ -231,7 +238,7 @@ public class EjbContainerServicesImpl implements EjbContainerServices {
                             }
                         });
 
-                      proxy = (Proxy) proxyField.get(ejbRef);
+                      proxy = proxyField.get(ejbRef);
 
                 } catch(Exception e) {
 
@@ -239,12 +246,21 @@ public class EjbContainerServicesImpl implements EjbContainerServices {
                 }
 
                               
-                try {
+                if( proxy instanceof GeneratedLocalProxy ) {
 
                     localObj = (EJBLocalObjectInvocationHandlerDelegate)
-                            Proxy.getInvocationHandler(proxy);
+                            ((GeneratedLocalProxy) proxy).getLocalProxyDispatcher();
+
+                } else {
 
-                } catch(IllegalArgumentException i) {}                      
+                    try {
+
+                        localObj = (EJBLocalObjectInvocationHandlerDelegate)
+                                Proxy.getInvocationHandler(proxy);
+
+                    } catch(IllegalArgumentException i) {}
+
+                }
 
             }
         }
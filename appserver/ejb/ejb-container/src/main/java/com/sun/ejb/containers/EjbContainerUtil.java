@@ -83,6 +83,10 @@ public interface EjbContainerUtil {
 
     public static final String DEFAULT_THREAD_POOL_NAME = "__ejb-thread-pool";
 
+    // Pool used for @Asynchronous methods.  Same as the default pool
+    // unless async-executor-mode is set to thread-per-task
+    public static final String ASYNC_THREAD_POOL_NAME = "__ejb-async-thread-pool";
+
     // Used by the TimerService upgrade
     public long MINIMUM_TIMER_DELIVERY_INTERVAL = 1000;
 
@@ -110,7 +110,11 @@ public class EjbContainerUtilImpl
 
     private static Logger _logger = LogDomains.getLogger(EjbContainerUtilImpl.class, LogDomains.EJB_LOGGER);
 
+    private static final String ASYNC_EXECUTOR_MODE_THREAD_PER_TASK = "thread-per-task";
+
     private ThreadPoolExecutor defaultThreadPoolExecutor;
+
+    private ThreadPoolExecutor asyncThreadPoolExecutor;
     
     @Inject
     private ServiceLocator services;
@@ -192,6 +196,7 @@ public class EjbContainerUtilImpl
         }
 
         defaultThreadPoolExecutor = createThreadPoolExecutor(DEFAULT_THREAD_POOL_NAME);
+        asyncThreadPoolExecutor = createAsyncThreadPoolExecutor();
         
         //avoid starting JDK timer in application class loader.  The life of _timer
         //field is longer than deployed apps, and any reference to app class loader
@@ -217,6 +222,10 @@ public class EjbContainerUtilImpl
             defaultThreadPoolExecutor.shutdown();
             defaultThreadPoolExecutor = null;
         }
+        if( asyncThreadPoolExecutor != null ) {
+            asyncThreadPoolExecutor.shutdown();
+            asyncThreadPoolExecutor = null;
+        }
         EJBTimerService.onShutdown();
         EJBTimerService.unsetEJBTimerService();
     }
@@ -504,10 +513,39 @@ public class EjbContainerUtilImpl
         return result;
     }
     
+    /**
+     * In thread-per-task mode @Asynchronous methods get their own executor
+     * that starts a new thread whenever no idle one is available, so that
+     * async methods blocking on I/O never wait for a free pool thread.
+     * Idle threads are kept for thread-keep-alive-seconds and reused.
+     */
+    private ThreadPoolExecutor createAsyncThreadPoolExecutor() {
+        String val = ejbContainer.getPropertyValue(RuntimeTagNames.ASYNC_EXECUTOR_MODE);
+        if (!ASYNC_EXECUTOR_MODE_THREAD_PER_TASK.equals(val == null ? null : val.trim())) {
+            return null;
+        }
+
+        val = ejbContainer.getPropertyValue(RuntimeTagNames.THREAD_KEEP_ALIVE_SECONDS);
+        long keepAliveSeconds = val != null ? Long.parseLong(val.trim())
+                : EjbContainer.DEFAULT_THREAD_KEEP_ALIVE_SECONDS;
+
+        ThreadPoolExecutor result = new EjbThreadPoolExecutor(0, Integer.MAX_VALUE, 
+                keepAliveSeconds, new SynchronousQueue<Runnable>(), ASYNC_THREAD_POOL_NAME);
+
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.fine("Created thread-per-task " + result.toString());
+        }
+        return result;
+    }
+    
     public ThreadPoolExecutor getThreadPoolExecutor(String poolName) {
         if(poolName == null) {
             return defaultThreadPoolExecutor;
         } 
+        if(ASYNC_THREAD_POOL_NAME.equals(poolName)) {
+            return (asyncThreadPoolExecutor != null) ? 
+                    asyncThreadPoolExecutor : defaultThreadPoolExecutor;
+        }
         return null;
 //        TODO retrieve the named ThreadPoolExecutor
     }
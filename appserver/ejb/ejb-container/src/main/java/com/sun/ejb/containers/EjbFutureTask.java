@@ -210,6 +210,13 @@ public class EjbFutureTask<V>
         complete = true;
     }
 
+    void setRejected(Throwable t) {
+        // Used when the task could not be handed to an executor.  Also
+        // releases any thread already blocked in super.get().
+        setResultException(new ExecutionException(t));
+        setException(t);
+    }
+
     // Internal method to retrieve any result value
     V getResultValue() {
         return resultValue;
@@ -48,6 +48,8 @@ import java.lang.reflect.Method;
 import javax.ejb.EJBException;
 import java.rmi.RemoteException;
 
+import com.sun.ejb.spi.container.GeneratedLocalProxy;
+
 public final class InvocationHandlerUtil {
 
     InvocationHandlerUtil() {}
@@ -69,8 +71,12 @@ public final class InvocationHandlerUtil {
             case 'e' :
                 boolean result = false;
                 if (args[0] != null) {
-                    Object other = Proxy.isProxyClass(args[0].getClass()) ?
-                            Proxy.getInvocationHandler(args[0]) : args[0];
+                    Object other = args[0];
+                    if( Proxy.isProxyClass(other.getClass()) ) {
+                        other = Proxy.getInvocationHandler(other);
+                    } else if( other instanceof GeneratedLocalProxy ) {
+                        other = ((GeneratedLocalProxy) other).getLocalProxyDispatcher();
+                    }
                             result = handler.equals(other);
                 }
                 returnValue = result;
@@ -0,0 +1,156 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ejb.EJBLocalObject;
+
+import com.sun.ejb.InvocationInfo;
+import com.sun.ejb.codegen.EjbOptionalIntfGenerator;
+import com.sun.ejb.containers.util.MethodMap;
+import com.sun.ejb.spi.container.LocalProxyDispatcher;
+import com.sun.enterprise.container.common.spi.util.IndirectlySerializable;
+
+/**
+ * Creates the generated proxies of one local business interface of a
+ * container. Holds the method table the proxy class was generated from,
+ * along with the InvocationInfo of each business method, so a call through
+ * the proxy is dispatched by index instead of a method map lookup.
+ *
+ * The proxy class is generated when the factory is created, which the
+ * container does the first time a client object of the view is needed :
+ * at initialization for stateless and singleton containers, on the first
+ * create for stateful containers.
+ */
+final class LocalBusinessProxyFactory {
+
+    private final Method[] methods;
+
+    // InvocationInfo of each entry in methods, or null for the methods
+    // that are handled by EJBLocalObjectInvocationHandlerDelegate itself
+    private final InvocationInfo[] invocationInfos;
+
+    private final Constructor proxyCtor;
+
+    LocalBusinessProxyFactory(EjbOptionalIntfGenerator generator, String proxyClassName,
+                              Class intfClass, MethodMap invocationInfoMap)
+        throws Exception {
+
+        methods = getProxyMethods(intfClass);
+        invocationInfos = new InvocationInfo[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            Method next = methods[i];
+            Class methodClass = next.getDeclaringClass();
+            if( (methodClass == Object.class) ||
+                (methodClass == IndirectlySerializable.class) ||
+                (methodClass == EJBLocalObject.class) ) {
+                continue;
+            }
+            InvocationInfo invInfo = (InvocationInfo)
+                invocationInfoMap.get(next, next.getParameterTypes().length);
+            // Anything that needs special handling goes through the
+            // regular invoke path of the handler
+            if( (invInfo != null) && !invInfo.ejbIntfOverride &&
+                (invInfo.targetMethod1 != null) ) {
+                invocationInfos[i] = invInfo;
+            }
+        }
+
+        generator.generateLocalProxy(intfClass, proxyClassName, methods);
+        proxyCtor = generator.loadClass(proxyClassName).
+            getConstructor(new Class[] { LocalProxyDispatcher.class });
+    }
+
+    Object newProxy(LocalProxyDispatcher dispatcher)
+        throws Exception {
+        return proxyCtor.newInstance(new Object[] { dispatcher });
+    }
+
+    Method getMethod(int methodIndex) {
+        return methods[methodIndex];
+    }
+
+    InvocationInfo getInvocationInfo(int methodIndex) {
+        return invocationInfos[methodIndex];
+    }
+
+    /**
+     * Methods implemented by the proxy, in the order java.lang.reflect.Proxy
+     * would pick them : the overridable java.lang.Object methods, then the
+     * methods of IndirectlySerializable and the business interface. Methods
+     * with the same name and descriptor are only listed once.
+     */
+    private static Method[] getProxyMethods(Class intfClass) throws Exception {
+        List<Method> proxyMethods = new ArrayList<Method>();
+        proxyMethods.add(Object.class.getMethod("hashCode"));
+        proxyMethods.add(Object.class.getMethod("equals", Object.class));
+        proxyMethods.add(Object.class.getMethod("toString"));
+
+        Set<String> signatures = new HashSet<String>();
+        for (Method next : proxyMethods) {
+            signatures.add(getSignature(next));
+        }
+
+        for (Class next : new Class[] { IndirectlySerializable.class, intfClass }) {
+            for (Method m : next.getMethods()) {
+                if( !Modifier.isStatic(m.getModifiers()) &&
+                    signatures.add(getSignature(m)) ) {
+                    proxyMethods.add(m);
+                }
+            }
+        }
+
+        return proxyMethods.toArray(new Method[proxyMethods.size()]);
+    }
+
+    private static String getSignature(Method m) {
+        return m.getName() + Arrays.toString(m.getParameterTypes()) +
+            m.getReturnType().getName();
+    }
+}
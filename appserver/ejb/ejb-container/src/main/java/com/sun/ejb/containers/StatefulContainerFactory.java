@@ -59,6 +59,7 @@ import com.sun.ejb.base.sfsb.util.SimpleKeyGenerator;
 import com.sun.ejb.containers.util.cache.FIFOSessionCache;
 import com.sun.ejb.containers.util.cache.LruSessionCache;
 import com.sun.ejb.containers.util.cache.NRUSessionCache;
+import com.sun.ejb.containers.util.cache.SegmentedLruSessionCache;
 import com.sun.ejb.containers.util.cache.UnBoundedSessionCache;
 import com.sun.enterprise.config.serverbeans.AvailabilityService;
 import com.sun.enterprise.config.serverbeans.Config;
@@ -385,6 +386,10 @@ public class StatefulContainerFactory extends BaseContainerFactory
             sessionCache = new LruSessionCache(cacheName, sfsbContainer,
                     cacheProps.getCacheIdleTimeoutInSeconds(),
                     cacheProps.getRemovalTimeoutInSeconds());
+        } else if ("segmented-lru".equalsIgnoreCase(victimPolicy)) {
+            sessionCache = new SegmentedLruSessionCache(cacheName, sfsbContainer,
+                    cacheProps.getCacheIdleTimeoutInSeconds(),
+                    cacheProps.getRemovalTimeoutInSeconds());
         } else if ("fifo".equalsIgnoreCase(victimPolicy)) {
             sessionCache = new FIFOSessionCache(cacheName, sfsbContainer,
                     cacheProps.getCacheIdleTimeoutInSeconds(),
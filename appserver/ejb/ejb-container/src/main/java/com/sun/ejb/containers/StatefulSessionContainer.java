@@ -55,9 +55,15 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.ejb.ConcurrentAccessException;
@@ -101,11 +107,13 @@ import com.sun.enterprise.admin.monitor.callflow.ComponentType;
 import com.sun.enterprise.container.common.impl.EntityManagerFactoryWrapper;
 import com.sun.enterprise.container.common.impl.EntityManagerWrapper;
 import com.sun.enterprise.container.common.impl.PhysicalEntityManagerWrapper;
+import com.sun.enterprise.container.common.spi.util.ClassDescriptorDictionary;
 import com.sun.enterprise.container.common.spi.util.IndirectlySerializable;
 import com.sun.enterprise.container.common.spi.util.SerializableObjectFactory;
 import com.sun.enterprise.deployment.EntityManagerReferenceDescriptor;
 import com.sun.enterprise.deployment.LifecycleCallbackDescriptor;
 import com.sun.enterprise.deployment.MethodDescriptor;
+import com.sun.enterprise.deployment.xml.RuntimeTagNames;
 import com.sun.enterprise.security.SecurityManager;
 import com.sun.enterprise.transaction.api.JavaEETransaction;
 import com.sun.enterprise.util.Utility;
@@ -278,6 +286,11 @@ public final class StatefulSessionContainer
         message = "Exception in backingStore.size()",
         level   = "WARNING")
     private static final String ERROR_WHILE_BACKSTORE_SIZE_ACCESS = "AS-EJB-00063";
+
+    @LogMessageInfo(
+        message = "[{0}]: Passivated {1} of {2} stateful session beans in {3} ms ({4} beans/s) using {5} threads",
+        level   = "INFO")
+    private static final String SFSB_SHUTDOWN_PASSIVATION_PROGRESS = "AS-EJB-00064";
     
     // We do not want too many ORB task for passivation
     public static final int MIN_PASSIVATION_BATCH_COUNT = 8;
@@ -326,6 +339,14 @@ public final class StatefulSessionContainer
     private Method beforeCompletionMethod;
     private Method afterCompletionMethod;
     private boolean isPassivationCapable;
+
+    // sfsb-state-serializer=compact: class descriptors of passivated and
+    // replicated state are recorded by name and kept in this dictionary
+    private boolean compactStateSerialization;
+    private boolean compressState;
+    private final ClassDescriptorDictionary stateClassDictionary = new ClassDescriptorDictionary();
+
+    private int shutdownPassivationThreads = 1;
     
     /*
      * Cache for keeping ref count for shared extended entity manager.
@@ -366,6 +387,23 @@ public final class StatefulSessionContainer
         prePassivateInvInfo = getLifecycleCallbackInvInfo(sfulDesc.getPrePassivateDescriptors());
 
         isPassivationCapable = sfulDesc.isPassivationCapable();
+
+        String val = ejbContainerUtilImpl.getEjbContainer().getPropertyValue(
+                RuntimeTagNames.SFSB_STATE_SERIALIZER);
+        compactStateSerialization = (val != null) && "compact".equalsIgnoreCase(val.trim());
+        compressState = Boolean.valueOf(ejbContainerUtilImpl.getEjbContainer().getPropertyValue(
+                RuntimeTagNames.SFSB_STATE_COMPRESSION));
+
+        val = ejbContainerUtilImpl.getEjbContainer().getPropertyValue(
+                RuntimeTagNames.SFSB_SHUTDOWN_PASSIVATION_THREADS);
+        if (val != null) {
+            try {
+                shutdownPassivationThreads = Math.max(1, Integer.parseInt(val.trim()));
+            } catch (NumberFormatException nfe) {
+                _logger.log(Level.FINE, "Invalid " + RuntimeTagNames.SFSB_SHUTDOWN_PASSIVATION_THREADS
+                        + " value: " + val);
+            }
+        }
     }
 
     public boolean isPassivationCapable() {
@@ -2477,6 +2515,78 @@ public final class StatefulSessionContainer
         return passivateEJB((ComponentContext) sfsbCtx.getSessionContext());
     }
 
+    /**
+     * Passivates all the given beans before the container shuts down. With
+     * sfsb-shutdown-passivation-threads set above 1 the calling thread and
+     * that many minus one helper threads take beans off the list, so that
+     * the serialization and store writes of different beans overlap.
+     */
+    public void passivateEJBs(final List<? extends StatefulEJBContext> contexts) {
+        final int total = contexts.size();
+        if (total == 0) {
+            return;
+        }
+
+        final long startTime = System.currentTimeMillis();
+        final int reportInterval = Math.max(total / 10, 1000);
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final AtomicInteger passivated = new AtomicInteger();
+        final int threads = Math.min(shutdownPassivationThreads, total);
+
+        Runnable worker = new Runnable() {
+            public void run() {
+                int idx;
+                while ((idx = nextIndex.getAndIncrement()) < total) {
+                    passivateEJB(contexts.get(idx));
+                    int count = passivated.incrementAndGet();
+                    if ((count % reportInterval == 0) && (count < total)) {
+                        logShutdownPassivationProgress(count, total, startTime, threads);
+                    }
+                }
+            }
+        };
+
+        if (threads <= 1) {
+            worker.run();
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread th = new Thread(r, "sfsb-passivator-" + ejbName
+                            + "-" + threadNumber.incrementAndGet());
+                    th.setDaemon(true);
+                    return th;
+                }
+            });
+            try {
+                for (int i = 1; i < threads; i++) {
+                    executor.execute(new AsynchronousTask(loader, worker));
+                }
+                worker.run();
+            } finally {
+                executor.shutdown();
+            }
+            try {
+                // Workers exit as soon as the list is exhausted
+                while (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    logShutdownPassivationProgress(passivated.get(), total, startTime, threads);
+                }
+            } catch (InterruptedException inEx) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        logShutdownPassivationProgress(passivated.get(), total, startTime, threads);
+    }
+
+    private void logShutdownPassivationProgress(int count, int total, long startTime, int threads) {
+        long elapsed = System.currentTimeMillis() - startTime;
+        long rate = (elapsed > 0) ? (count * 1000L) / elapsed : count;
+        _logger.log(Level.INFO, SFSB_SHUTDOWN_PASSIVATION_PROGRESS,
+                new Object[]{ejbName, count, total, elapsed, rate, threads});
+    }
+
     public long getMethodReadyCount() {
         return statMethodReadyCount;
     }
@@ -2671,7 +2781,10 @@ public final class StatefulSessionContainer
     }
 
     public Object deserializeData(byte[] data) throws Exception {
-        Object o = ejbContainerUtilImpl.getJavaEEIOUtils().deserializeObject(data, true, getClassLoader());
+        // Handles both formats, so state written before a change of
+        // sfsb-state-serializer stays readable
+        Object o = ejbContainerUtilImpl.getJavaEEIOUtils().deserializeObject(data, true, getClassLoader(),
+                stateClassDictionary);
         if (o instanceof SessionContextImpl) {
             SessionContextImpl ctx = (SessionContextImpl)o;
             Object ejb = ctx.getEJB();
@@ -2709,6 +2822,10 @@ public final class StatefulSessionContainer
             ctx.setEJB(null);
             ctx.setEJB(new SerializableEJB(ejb));
         }
+        if (compactStateSerialization) {
+            return ejbContainerUtilImpl.getJavaEEIOUtils().serializeObjectCompact(ctx, true,
+                    stateClassDictionary, compressState);
+        }
         return ejbContainerUtilImpl.getJavaEEIOUtils().serializeObject(ctx, true);
     }
 
@@ -2916,19 +3033,14 @@ public final class StatefulSessionContainer
             
             sessionBeanCache.shutdown();
 
-            while (true) {
-                ComponentContext ctx = null;
-                synchronized (asyncTaskSemaphore) {
-                    int sz = passivationCandidates.size();
-                    if (sz > 0) {
-                        ctx = (ComponentContext)
-                                passivationCandidates.remove(sz - 1);
-                    } else {
-                        break;
-                    }
+            ArrayList<StatefulEJBContext> pending = new ArrayList<StatefulEJBContext>();
+            synchronized (asyncTaskSemaphore) {
+                for (int i = passivationCandidates.size() - 1; i >= 0; i--) {
+                    pending.add((StatefulEJBContext) passivationCandidates.get(i));
                 }
-                passivateEJB(ctx);
+                passivationCandidates.clear();
             }
+            passivateEJBs(pending);
 
 
 
@@ -65,6 +65,7 @@ import com.sun.ejb.EjbInvocation;
 import com.sun.ejb.containers.util.pool.AbstractPool;
 import com.sun.ejb.containers.util.pool.NonBlockingPool;
 import com.sun.ejb.containers.util.pool.ObjectFactory;
+import com.sun.ejb.containers.util.pool.StripedNonBlockingPool;
 import com.sun.ejb.monitoring.stats.EjbMonitoringStatsProvider;
 import com.sun.ejb.monitoring.stats.EjbPoolStatsProvider;
 import com.sun.ejb.monitoring.stats.StatelessSessionBeanStatsProvider;
@@ -178,6 +179,11 @@ public class StatelessSessionContainer
         return true;
     }
 
+    @Override
+    protected boolean supportsInvocationRecycling() {
+        return true;
+    }
+
     protected EjbMonitoringStatsProvider getMonitoringStatsProvider(
             String appName, String modName, String ejbName) {
         return new StatelessSessionBeanStatsProvider(this, getContainerId(), appName, modName, ejbName);
@@ -255,6 +261,13 @@ public class StatelessSessionContainer
 
         poolProp = new PoolProperties(ejbContainer, beanPoolDes);
         String val = ejbDescriptor.getEjbBundleDescriptor().getEnterpriseBeansProperty(SINGLETON_BEAN_POOL_PROP);
+        if (!Boolean.parseBoolean(val) && isStripedBeanPool()) {
+            pool = new StripedNonBlockingPool(getContainerId(), ejbDescriptor.getName(),
+               sessionCtxFactory, poolProp.steadyPoolSize,
+               poolProp.poolResizeQuantity, poolProp.maxPoolSize,
+               poolProp.poolIdleTimeoutInSeconds, loader);
+            return;
+        }
         pool= new NonBlockingPool(getContainerId(), ejbDescriptor.getName(),
            sessionCtxFactory, poolProp.steadyPoolSize,
            poolProp.poolResizeQuantity, poolProp.maxPoolSize,
@@ -145,11 +145,11 @@ public final class InterceptorInvocationHandler
         try {
 
 
-            Method beanClassMethod = targetInstance.getClass().getMethod
-                (method.getName(), method.getParameterTypes());
+            InterceptorManager.ManagedBeanMethod beanMethod =
+                    interceptorManager.getManagedBeanMethod(targetInstance.getClass(), method);
+            Method beanClassMethod = beanMethod.beanClassMethod;
 
-            InterceptorManager.InterceptorChain chain =
-                    interceptorManager.getAroundInvokeChain(null, beanClassMethod);
+            InterceptorManager.InterceptorChain chain = beanMethod.chain;
 
             Object[] theArgs = (args == null) ? emptyArray : args;
 
@@ -41,6 +41,7 @@
 package com.sun.ejb.containers.interceptors;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -49,6 +50,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.PostConstruct;
@@ -112,6 +114,11 @@ public class InterceptorManager {
 
     List<InterceptorDescriptor> frameworkInterceptors = new LinkedList<InterceptorDescriptor>();
 
+    // Around invoke chains of a non-ejb, keyed by the method of the client view.
+    // Built on the first invocation of each method instead of every invocation.
+    private final Map<Method, ManagedBeanMethod> managedBeanMethods =
+            new ConcurrentHashMap<Method, ManagedBeanMethod>();
+
 
     public InterceptorManager(Logger _logger, BaseContainer container,
                               Class[] lcAnnotationClasses, String[] pre30LCMethodNames)
@@ -268,6 +275,23 @@ public class InterceptorManager {
         return new AroundInvokeChainImpl(inter);
     }
 
+    /**
+     * Returns the bean class method and around invoke chain of a non-ejb
+     * for the given method of its client view.
+     */
+    ManagedBeanMethod getManagedBeanMethod(Class targetClass, Method method)
+            throws NoSuchMethodException {
+        ManagedBeanMethod beanMethod = managedBeanMethods.get(method);
+        if (beanMethod == null || beanMethod.targetClass != targetClass) {
+            Method beanClassMethod = targetClass.getMethod(method.getName(),
+                    method.getParameterTypes());
+            beanMethod = new ManagedBeanMethod(targetClass, beanClassMethod,
+                    getAroundInvokeChain(null, beanClassMethod));
+            managedBeanMethods.put(method, beanMethod);
+        }
+        return beanMethod;
+    }
+
     public InterceptorManager.InterceptorChain getAroundTimeoutChain(
             MethodDescriptor mDesc, Method beanMethod) {
 
@@ -797,6 +821,19 @@ public class InterceptorManager {
 	    throws Throwable;
     }
 
+    static final class ManagedBeanMethod {
+        final Class targetClass;
+        final Method beanClassMethod;
+        final InterceptorChain chain;
+
+        ManagedBeanMethod(Class targetClass, Method beanClassMethod,
+                          InterceptorChain chain) {
+            this.targetClass = targetClass;
+            this.beanClassMethod = beanClassMethod;
+            this.chain = chain;
+        }
+    }
+
 
 
 }
@@ -838,6 +875,7 @@ class AroundInvokeChainImpl
 class AroundInvokeInterceptor {
     protected int index;
     protected Method method;
+    protected MethodHandle handle;
 
     AroundInvokeInterceptor(int index, Method method) {
         this.index = index;
@@ -862,36 +900,13 @@ class AroundInvokeInterceptor {
         } catch(Exception e) {
             throw new EJBException(e);
         }
+        handle = InterceptorUtil.getInterceptorHandle(method);
 
     }
 
     Object intercept(final InterceptorManager.AroundInvokeContext invCtx) throws Throwable {
-        try {
-            final Object[] interceptors = invCtx.getInterceptorInstances();
-
-            if( System.getSecurityManager() != null ) {
-            // Wrap actual value insertion in doPrivileged to
-            // allow for private/protected field access.
-            return java.security.AccessController
-                    .doPrivileged(new java.security.PrivilegedExceptionAction() {
-                        public java.lang.Object run() throws Exception {
-                            return method.invoke(interceptors[index], invCtx);
-                        }
-                    });
-            } else {
-
-                 return method.invoke(interceptors[index], invCtx);
-
-            }
-        } catch (java.lang.reflect.InvocationTargetException invEx) {
-            throw invEx.getCause();
-        } catch (java.security.PrivilegedActionException paEx) {
-            Throwable th = paEx.getCause();
-            if (th.getCause() != null) {
-                throw th.getCause();
-            }
-            throw th;
-        }
+        return InterceptorUtil.invokeInterceptor(handle,
+                invCtx.getInterceptorInstances()[index], invCtx);
     }
 
     public String toString() {
@@ -902,42 +917,20 @@ class AroundInvokeInterceptor {
 
 class BeanAroundInvokeInterceptor
         extends AroundInvokeInterceptor {
-    private static final Object[] NULL_ARGS = null;
 
     BeanAroundInvokeInterceptor(Method method) {
         super(-1, method);
     }
 
     Object intercept(final InterceptorManager.AroundInvokeContext invCtx) throws Throwable {
-        try {
-
-            if( System.getSecurityManager() != null ) {
-            // Wrap actual value insertion in doPrivileged to
-            // allow for private/protected field access.
-            return java.security.AccessController
-                    .doPrivileged(new java.security.PrivilegedExceptionAction() {
-                        public java.lang.Object run() throws Exception {
-                            return method.invoke(invCtx.getTarget(), invCtx);
-                        }
-                    });
-            } else {
-                return method.invoke(invCtx.getTarget(), invCtx);
-            }
-        } catch (java.lang.reflect.InvocationTargetException invEx) {
-            throw invEx.getCause();
-        } catch (java.security.PrivilegedActionException paEx) {
-            Throwable th = paEx.getCause();
-            if (th.getCause() != null) {
-                throw th.getCause();
-            }
-            throw th;
-        }
+        return InterceptorUtil.invokeInterceptor(handle, invCtx.getTarget(), invCtx);
     }
 }
 
 class CallbackInterceptor {
     protected int index;
     protected Method method;
+    protected MethodHandle handle;
 
     CallbackInterceptor(int index, Method method) {
         this.index = index;
@@ -962,39 +955,14 @@ class CallbackInterceptor {
         } catch(Exception e) {
             throw new EJBException(e);
         }
+        handle = InterceptorUtil.getInterceptorHandle(method);
 
     }
 
     Object intercept(final CallbackInvocationContext invContext) 
         throws Throwable {
-        try {
-
-            final Object[] interceptors = invContext
-                    .getInterceptorInstances();
-
-            if( System.getSecurityManager() != null ) {
-            // Wrap actual value insertion in doPrivileged to
-            // allow for private/protected field access.
-            return java.security.AccessController
-                    .doPrivileged(new java.security.PrivilegedExceptionAction() {
-                        public java.lang.Object run() throws Exception {
-                            return method.invoke(interceptors[index],
-                                                 invContext);
-                        }
-                    });
-            } else {
-                return method.invoke(interceptors[index], invContext);
-                                     
-            }
-        } catch (java.lang.reflect.InvocationTargetException invEx) {
-            throw invEx.getCause();
-        } catch (java.security.PrivilegedActionException paEx) {
-            Throwable th = paEx.getCause();
-            if (th.getCause() != null) {
-                throw th.getCause();
-            }
-            throw th;
-        }
+        return InterceptorUtil.invokeInterceptor(handle,
+                invContext.getInterceptorInstances()[index], invContext);
     }
 
     boolean isBeanCallback() {
@@ -1008,7 +976,6 @@ class CallbackInterceptor {
 
 class BeanCallbackInterceptor
         extends CallbackInterceptor {
-    private static final Object[] NULL_ARGS = null;
 
     BeanCallbackInterceptor(Method method) {
         super(-1, method);
@@ -1016,36 +983,11 @@ class BeanCallbackInterceptor
 
     Object intercept(final CallbackInvocationContext invContext) 
         throws Throwable {
-        try {
-
-            if( System.getSecurityManager() != null ) {
-            // Wrap actual value insertion in doPrivileged to
-            // allow for private/protected field access.
-               java.security.AccessController
-                    .doPrivileged(new java.security.PrivilegedExceptionAction() {
-                        public java.lang.Object run() throws Exception {
-
-                            method.invoke(invContext.getTarget(),
-                                          NULL_ARGS);
-                            return null;
-
-                        }
-                    });
-            } else {
-                method.invoke(invContext.getTarget(), NULL_ARGS);
-            }
+        // Bean class callbacks take no parameter, see
+        // InterceptorUtil.getInterceptorHandle
+        InterceptorUtil.invokeInterceptor(handle, invContext.getTarget(), null);
 
-            return invContext.proceed();
-
-        } catch (java.lang.reflect.InvocationTargetException invEx) {
-            throw invEx.getCause();
-        } catch (java.security.PrivilegedActionException paEx) {
-            Throwable th = paEx.getCause();
-            if (th.getCause() != null) {
-                throw th.getCause();
-            }
-            throw th;
-        }
+        return invContext.proceed();
     }
 
     boolean isBeanCallback() {
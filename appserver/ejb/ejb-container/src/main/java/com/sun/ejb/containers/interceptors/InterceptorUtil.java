@@ -42,7 +42,15 @@
  */
 package com.sun.ejb.containers.interceptors;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
 import java.util.Set;
 import java.util.Map;
 import java.util.HashMap;
@@ -53,6 +61,10 @@ import java.util.HashSet;
  */
 public class InterceptorUtil {
 
+    // Type of the handles returned by getInterceptorHandle : (target, context) -> result
+    private static final MethodType INTERCEPTOR_TYPE =
+            MethodType.methodType(Object.class, Object.class, Object.class);
+
     private static Map<Class, Set<Class>> compatiblePrimitiveWrapper
          = new HashMap<Class, Set<Class>>();
 
@@ -154,6 +166,60 @@ public class InterceptorUtil {
 
     }
 
+    /**
+     * Compiles an interceptor or callback method into a handle of type
+     * <code>(Object target, Object context)Object</code>, so that the chain
+     * does not go through reflection on every invocation. The context is
+     * not passed to methods without parameters, such as the lifecycle
+     * callbacks of the bean class. Void methods return null.
+     *
+     * @param method interceptor method, already made accessible
+     */
+    public static MethodHandle getInterceptorHandle(Method method) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access interceptor method " + method, e);
+        }
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        if (method.getParameterTypes().length == 0) {
+            handle = MethodHandles.dropArguments(handle, 1, Object.class);
+        }
+        return handle.asType(INTERCEPTOR_TYPE);
+    }
+
+    /**
+     * Invokes a handle returned by getInterceptorHandle. Exceptions thrown by
+     * the interceptor are propagated as is. When a SecurityManager is
+     * installed, the invocation is wrapped in a doPrivileged block.
+     */
+    public static Object invokeInterceptor(final MethodHandle handle,
+            final Object target, final Object context) throws Throwable {
+        if (System.getSecurityManager() == null) {
+            return handle.invokeExact(target, context);
+        }
+        try {
+            return AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
+                public Object run() throws Exception {
+                    try {
+                        return handle.invokeExact(target, context);
+                    } catch (Exception e) {
+                        throw e;
+                    } catch (Error e) {
+                        throw e;
+                    } catch (Throwable t) {
+                        throw new UndeclaredThrowableException(t);
+                    }
+                }
+            });
+        } catch (PrivilegedActionException paEx) {
+            throw paEx.getCause();
+        }
+    }
+
 
 
 }
@@ -49,7 +49,7 @@ import javax.interceptor.InvocationContext;
 import com.sun.enterprise.deployment.InterceptorDescriptor;
 import com.sun.enterprise.deployment.LifecycleCallbackDescriptor;
 import static com.sun.enterprise.deployment.LifecycleCallbackDescriptor.CallbackType;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.util.List;
 
@@ -72,6 +72,13 @@ public class SystemInterceptorProxy
     private Method aroundInvoke;
     private Method aroundTimeout;
 
+    // Handles of the above methods, see InterceptorUtil.getInterceptorHandle
+    private MethodHandle aroundConstructHandle;
+    private MethodHandle postConstructHandle;
+    private MethodHandle preDestroyHandle;
+    private MethodHandle aroundInvokeHandle;
+    private MethodHandle aroundTimeoutHandle;
+
 
     public void setDelegate(Object d) {
              
@@ -83,19 +90,19 @@ public class SystemInterceptorProxy
 
                if( m.getAnnotation(PostConstruct.class) != null ) {
                    postConstruct = m;
-                   prepareMethod(m);
+                   postConstructHandle = prepareMethod(m);
                } else if( m.getAnnotation(PreDestroy.class) != null ) {
                    preDestroy = m;
-                   prepareMethod(m);
+                   preDestroyHandle = prepareMethod(m);
                } else if( m.getAnnotation(AroundInvoke.class) != null ) {
                    aroundInvoke = m;
-                   prepareMethod(m);
+                   aroundInvokeHandle = prepareMethod(m);
                } else if( m.getAnnotation(AroundTimeout.class) != null ) {
                    aroundTimeout = m;
-                   prepareMethod(m);                         
+                   aroundTimeoutHandle = prepareMethod(m);
                } else if( m.getAnnotation(AroundConstruct.class) != null ) {
                    aroundConstruct = m;
-                   prepareMethod(m);                         
+                   aroundConstructHandle = prepareMethod(m);
                }
            }
 
@@ -107,7 +114,7 @@ public class SystemInterceptorProxy
 
     }
 
-    private void prepareMethod(final Method m) throws Exception {
+    private MethodHandle prepareMethod(final Method m) throws Exception {
 
          java.security.AccessController
                         .doPrivileged(new java.security.PrivilegedExceptionAction() {
@@ -118,45 +125,43 @@ public class SystemInterceptorProxy
                         return null;
                     }});
 
+         return InterceptorUtil.getInterceptorHandle(m);
     }
 
     @PostConstruct
     public Object init(InvocationContext ctx) throws Exception {
-        return doCall(ctx, postConstruct);
+        return doCall(ctx, postConstructHandle);
     }
 
     @PreDestroy
     public Object destroy(InvocationContext ctx) throws Exception {
-        return doCall(ctx, preDestroy);
+        return doCall(ctx, preDestroyHandle);
     }
 
     @AroundConstruct
     public Object create(InvocationContext ctx) throws Exception {
-        return doCall(ctx, aroundConstruct);
+        return doCall(ctx, aroundConstructHandle);
     }
 
     @AroundInvoke
     public Object aroundInvoke(InvocationContext ctx) throws Exception {
-        return doCall(ctx, aroundInvoke);
+        return doCall(ctx, aroundInvokeHandle);
     }
 
     @AroundTimeout
     public Object aroundTimeout(InvocationContext ctx) throws Exception {
-        return doCall(ctx, aroundTimeout);
+        return doCall(ctx, aroundTimeoutHandle);
     }
 
-    private Object doCall(InvocationContext ctx, Method m) throws Exception {
+    private Object doCall(InvocationContext ctx, MethodHandle m) throws Exception {
         Object returnValue = null;
 
         if( (delegate != null) && (m != null) ) {
             try {
-                returnValue = m.invoke(delegate, ctx);
-            } catch(InvocationTargetException ite) {
-                Throwable cause = ite.getCause();
-                if (cause instanceof Exception) {
-                    throw (Exception) cause;
-                }
-                
+                returnValue = m.invokeExact(delegate, (Object) ctx);
+            } catch(Exception e) {
+                throw e;
+            } catch(Throwable cause) {
                 throw new Exception(cause);
             }
         } else {
@@ -606,6 +606,10 @@ public class LruSessionCache
 	currentCacheState = STATE_UNDEPLOYING;
     }
 
+    protected boolean isCacheRunning() {
+        return currentCacheState == STATE_RUNNING;
+    }
+
     /**
      * get an Iterator for the values stored in the cache
      * @returns an Iterator
@@ -656,9 +660,7 @@ public class LruSessionCache
             }
         }
 
-        for (StatefulEJBContext ctx : valueList) {
-            container.passivateEJB(ctx);
-        }
+        container.passivateEJBs(valueList);
     }
     
 
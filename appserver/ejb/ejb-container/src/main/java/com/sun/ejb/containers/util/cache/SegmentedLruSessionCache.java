@@ -0,0 +1,482 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers.util.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import com.sun.appserv.util.cache.Constants;
+import com.sun.ejb.containers.EjbContainerUtilImpl;
+import com.sun.ejb.spi.container.SFSBContainerCallback;
+import com.sun.ejb.spi.container.StatefulEJBContext;
+import com.sun.enterprise.util.Utility;
+
+/**
+ * LRU session cache that splits the LRU list into independently locked
+ * segments.  An item always lives in the segment selected by its hash code.
+ *
+ * Accesses do not reorder the list right away.  They are recorded in a
+ * per-segment buffer and applied in batches by whichever thread gets the
+ * segment lock, so hot beans do not serialize on a single monitor.  When
+ * the cache overflows, the least recently used item of the segment that
+ * received the new item is trimmed.
+ *
+ * Trimmed items are handed to a background task through a bounded queue,
+ * so request threads do not passivate beans.  If the queue is full, the
+ * caller trims the item itself.
+ *
+ * Selected with victim-selection-policy "segmented-lru".
+ */
+public class SegmentedLruSessionCache
+    extends LruSessionCache
+{
+
+    // Number of recorded accesses after which a segment tries to drain them
+    private static final int ACCESS_DRAIN_THRESHOLD = 16;
+
+    // Recorded accesses beyond this are dropped; only ordering is affected
+    private static final int MAX_PENDING_ACCESSES = 256;
+
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private static final int MIN_TRIM_QUEUE_CAPACITY = 64;
+    private static final int MAX_TRIM_QUEUE_CAPACITY = 4096;
+
+    private Segment[] segments;
+    private int segmentMask;
+
+    private BlockingQueue<CacheItem> trimQueue;
+    private final AtomicBoolean trimTaskScheduled = new AtomicBoolean();
+
+    private final AtomicInteger segmentTrimCount = new AtomicInteger();
+    private final AtomicInteger victimsAccessed = new AtomicInteger();
+
+    public SegmentedLruSessionCache(String cacheName,
+        SFSBContainerCallback container, int cacheIdleTime, int removalTime)
+    {
+        super("SegmentedLRU-" + cacheName, container, cacheIdleTime, removalTime);
+    }
+
+    public void init(int maxEntries, float loadFactor, Properties props) {
+        super.init(maxEntries, loadFactor, props);
+
+        int count = Integer.highestOneBit(
+                Math.max(1, Runtime.getRuntime().availableProcessors() * 2));
+        while (count > 1 && maxEntries / count < MIN_SEGMENT_SIZE) {
+            count >>= 1;
+        }
+
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(i);
+        }
+        segmentMask = count - 1;
+
+        trimQueue = new ArrayBlockingQueue<CacheItem>(Math.max(MIN_TRIM_QUEUE_CAPACITY,
+                Math.min(maxEntries, MAX_TRIM_QUEUE_CAPACITY)));
+    }
+
+    private Segment segmentFor(CacheItem item) {
+        int h = item.getHashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    protected CacheItem itemAdded(CacheItem item) {
+        LruCacheItem lc = (LruCacheItem) item;
+        lc.setLastAccessed(System.currentTimeMillis());
+
+        Segment segment = segmentFor(lc);
+        segment.lock();
+        try {
+            segment.drainAccesses();
+            segment.addFirst(lc);
+        } finally {
+            segment.unlock();
+        }
+
+        return isThresholdReached() ? selectVictim(segment, lc) : null;
+    }
+
+    protected void itemAccessed(CacheItem item) {
+        LruCacheItem lc = (LruCacheItem) item;
+        Segment segment = segmentFor(lc);
+
+        if (lc.isTrimmed()) {
+            // Put the item back right away so that a pending passivation
+            // sees that the bean is in use again
+            boolean relinked = false;
+            segment.lock();
+            try {
+                if (lc.isTrimmed()) {
+                    lc.setTrimmed(false);
+                    lc.setLastAccessed(System.currentTimeMillis());
+                    segment.addFirst(lc);
+                    relinked = true;
+                }
+            } finally {
+                segment.unlock();
+            }
+
+            if (relinked) {
+                victimsAccessed.incrementAndGet();
+                if (isThresholdReached()) {
+                    CacheItem overflow = selectVictim(segment, lc);
+                    if (overflow != null) {
+                        trimItem(overflow);
+                    }
+                }
+            }
+            return;
+        }
+
+        lc.setLastAccessed(System.currentTimeMillis());
+        segment.recordAccess(lc);
+    }
+
+    protected void itemRefreshed(CacheItem item, int oldSize) {
+        itemAccessed(item);
+    }
+
+    protected void itemRemoved(CacheItem item) {
+        LruCacheItem lc = (LruCacheItem) item;
+        Segment segment = segmentFor(lc);
+        segment.lock();
+        try {
+            if (!lc.isTrimmed() && segment.isLinked(lc)) {
+                segment.unlink(lc);
+            }
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Unlinks and returns the least recently used item, starting with the
+     * given segment.  Only one segment lock is held at a time.
+     */
+    private CacheItem selectVictim(Segment start, LruCacheItem added) {
+        for (int i = 0; i < segments.length; i++) {
+            Segment segment = segments[(start.index + i) & segmentMask];
+            segment.lock();
+            try {
+                segment.drainAccesses();
+                LruCacheItem victim = segment.tail;
+                if (victim != null && victim != added) {
+                    segment.unlink(victim);
+                    victim.setTrimmed(true);
+                    segmentTrimCount.incrementAndGet();
+                    return victim;
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+        return null;
+    }
+
+    protected void trimItem(CacheItem item) {
+        if (isCacheRunning() && trimQueue.offer(item)) {
+            scheduleTrimTask();
+        } else {
+            super.trimItem(item);
+        }
+    }
+
+    private void scheduleTrimTask() {
+        if (trimTaskScheduled.compareAndSet(false, true)) {
+            try {
+                EjbContainerUtilImpl.getInstance().addWork(new TrimTask());
+            } catch (Exception ex) {
+                trimTaskScheduled.set(false);
+                _logger.log(Level.FINE, "[" + cacheName + "]: Cannot schedule trim task, "
+                        + "trimming on the calling thread", ex);
+                drainTrimQueue();
+            }
+        }
+    }
+
+    private void drainTrimQueue() {
+        CacheItem item;
+        while ((item = trimQueue.poll()) != null) {
+            super.trimItem(item);
+        }
+    }
+
+    public void trimTimedoutItems(int  maxTrimCount) {
+        long idleThresholdTime = System.currentTimeMillis() 
+                - cacheIdleTimeoutInSeconds*1000L;
+        ArrayList<LruCacheItem> victims = new ArrayList<LruCacheItem>();
+
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, 
+                "[" + cacheName + "]: TrimTimedoutBeans started...");
+        }
+
+        for (Segment segment : segments) {
+            if (!isCacheRunning()) {
+                break;
+            }
+            segment.lock();
+            try {
+                segment.drainAccesses();
+                LruCacheItem item = segment.tail;
+                while (item != null) {
+                    LruCacheItem prev = item.getLPrev();
+                    StatefulEJBContext ctx = (StatefulEJBContext) item.getValue();
+                    if (ctx != null) {
+                        if ((ctx.getLastAccessTime() <= idleThresholdTime) &&
+                            ctx.canBePassivated()) {
+                            segment.unlink(item);
+                            item.setTrimmed(true);
+                            victims.add(item);
+                        } else {
+                            break;
+                        }
+                    }
+                    item = prev;
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+
+        segmentTrimCount.addAndGet(victims.size());
+        for (LruCacheItem victim : victims) {
+            trimItem(victim);
+        }
+
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, 
+                        "[" + cacheName + "]: TrimTimedoutBeans "
+                        + " finished after removing " + victims.size() + " idle beans");
+        }
+    }
+
+    public Iterator values() {
+        ArrayList valueList = new ArrayList();
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                for (LruCacheItem item = segment.tail; item != null; item = item.getLPrev()) {
+                    StatefulEJBContext ctx = (StatefulEJBContext) item.getValue();
+                    if (ctx != null) {
+                        valueList.add(ctx);
+                    }
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+        return valueList.iterator();
+    }
+
+    public void shutdown() {
+        ArrayList<StatefulEJBContext> valueList = new ArrayList<StatefulEJBContext>();
+
+        // Trimmed items not yet handed to the container
+        CacheItem trimmed;
+        while ((trimmed = trimQueue.poll()) != null) {
+            StatefulEJBContext ctx = (StatefulEJBContext) trimmed.getValue();
+            if (ctx != null) {
+                valueList.add(ctx);
+            }
+        }
+
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                for (LruCacheItem item = segment.tail; item != null; item = item.getLPrev()) {
+                    StatefulEJBContext ctx = (StatefulEJBContext) item.getValue();
+                    if (ctx != null) {
+                        item.setTrimmed(true);
+                        valueList.add(ctx);
+                    }
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+
+        container.passivateEJBs(valueList);
+    }
+
+    public int getNumVictimsAccessed() {
+        return victimsAccessed.get();
+    }
+
+    private int getListSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public Object getStatByName(String key) {
+        if (Constants.STAT_LRUCACHE_LIST_LENGTH.equals(key)) {
+            return Integer.valueOf(getListSize());
+        } else if (Constants.STAT_LRUCACHE_TRIM_COUNT.equals(key)) {
+            return Integer.valueOf(segmentTrimCount.get());
+        }
+        return super.getStatByName(key);
+    }
+
+    public Map getStats() {
+        Map stats = super.getStats();
+        stats.put(Constants.STAT_LRUCACHE_LIST_LENGTH,
+                  Integer.valueOf(getListSize()));
+        stats.put(Constants.STAT_LRUCACHE_TRIM_COUNT,
+                  Integer.valueOf(segmentTrimCount.get()));
+        return stats;
+    }
+
+    /**
+     * Hands queued trimmed items to the container on a container thread
+     */
+    private class TrimTask implements Runnable {
+
+        public void run() {
+            ClassLoader prevCL = Utility.setContextClassLoader(container.getClassLoader());
+            try {
+                do {
+                    drainTrimQueue();
+                    trimTaskScheduled.set(false);
+                    // Re-check for items queued after the last poll
+                } while (!trimQueue.isEmpty() && trimTaskScheduled.compareAndSet(false, true));
+            } catch (Throwable th) {
+                trimTaskScheduled.set(false);
+                _logger.log(Level.WARNING, "[" + cacheName + "]: Exception while trimming beans", th);
+            } finally {
+                Utility.setContextClassLoader(prevCL);
+            }
+        }
+    }
+
+    /**
+     * One LRU list with its own lock.  The list fields are only accessed
+     * while holding the lock.
+     */
+    private static final class Segment extends ReentrantLock {
+
+        final int index;
+
+        LruCacheItem head;
+        LruCacheItem tail;
+        int size;
+
+        private final Queue<LruCacheItem> accesses = new ConcurrentLinkedQueue<LruCacheItem>();
+        private final AtomicInteger pendingAccesses = new AtomicInteger();
+
+        Segment(int index) {
+            this.index = index;
+        }
+
+        void recordAccess(LruCacheItem item) {
+            if (pendingAccesses.get() < MAX_PENDING_ACCESSES) {
+                pendingAccesses.incrementAndGet();
+                accesses.offer(item);
+            }
+            if (pendingAccesses.get() >= ACCESS_DRAIN_THRESHOLD && tryLock()) {
+                try {
+                    drainAccesses();
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        // Must hold the lock
+        void drainAccesses() {
+            LruCacheItem item;
+            while ((item = accesses.poll()) != null) {
+                pendingAccesses.decrementAndGet();
+                if (!item.isTrimmed() && isLinked(item) && item != head) {
+                    unlink(item);
+                    addFirst(item);
+                }
+            }
+        }
+
+        boolean isLinked(LruCacheItem item) {
+            return item.getLPrev() != null || item == head;
+        }
+
+        void addFirst(LruCacheItem item) {
+            item.setLPrev(null);
+            item.setLNext(head);
+            if (head != null) {
+                head.setLPrev(item);
+            } else {
+                tail = item;
+            }
+            head = item;
+            size++;
+        }
+
+        void unlink(LruCacheItem item) {
+            LruCacheItem prev = item.getLPrev();
+            LruCacheItem next = item.getLNext();
+            if (prev != null) {
+                prev.setLNext(next);
+            } else {
+                head = next;
+            }
+            if (next != null) {
+                next.setLPrev(prev);
+            } else {
+                tail = prev;
+            }
+            item.setLPrev(null);
+            item.setLNext(null);
+            size--;
+        }
+    }
+}
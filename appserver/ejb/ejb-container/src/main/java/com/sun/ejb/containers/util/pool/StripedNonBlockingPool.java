@@ -0,0 +1,665 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+
+package com.sun.ejb.containers.util.pool;
+
+import com.sun.ejb.containers.EJBContextImpl;
+import com.sun.ejb.containers.EjbContainerUtilImpl;
+import com.sun.enterprise.util.Utility;
+
+import java.util.ArrayList;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * <p>StripedNonBlockingPool has the same steady-pool-size, max-pool-size,
+ * resize-quantity and idle-timeout semantics as NonBlockingPool, but does
+ * not serialize getObject() and returnObject() on a single list. The
+ * available objects are spread over lock free stripes, one per processor.
+ * A thread gets and returns objects to the stripe selected by its id, most
+ * recently used first, and steals the least recently used object of another
+ * stripe when its own stripe is empty.
+ * <p>The number of available objects is tracked by a single counter, so
+ * max-pool-size is enforced exactly, while an object returned concurrently
+ * with a getObject() may not be seen by that getObject(), which then
+ * creates a new object exactly as NonBlockingPool does for an empty pool.
+ * <p>It is selected with the striped-bean-pool property of the
+ * glassfish-ejb-jar.xml enterprise-beans element.
+ */
+public class StripedNonBlockingPool
+    extends AbstractPool
+{
+
+    private final Stripe[]       stripes;
+    private final int            stripeMask;
+
+    // number of objects available in the stripes
+    private final AtomicInteger  size = new AtomicInteger();
+    private final AtomicInteger  created = new AtomicInteger();
+    private final AtomicInteger  destroyed = new AtomicInteger();
+    private final LongAdder      successes = new LongAdder();
+    private final LongAdder      returns = new LongAdder();
+
+    private TimerTask            poolTimerTask;
+    private final AtomicBoolean  addedResizeTask = new AtomicBoolean();
+    private final AtomicBoolean  addedIdleBeanWork = new AtomicBoolean();
+    private final AtomicBoolean  inResizing = new AtomicBoolean();
+    private boolean              maintainSteadySize = false;
+
+    // Set to true after close().  Prevents race condition
+    // of async resize task kicking in after close().
+    private volatile boolean     poolClosed = false;
+
+    public StripedNonBlockingPool(long beanId, String poolName, ObjectFactory factory,
+        int steadyPoolSize, int resizeQuantity,
+        int maxPoolSize, int idleTimeoutInSeconds,
+        ClassLoader loader)
+    {
+        this.poolName = poolName;
+        this.beanId = beanId;
+
+        int stripeCount = Integer.highestOneBit(
+                Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        stripeMask = stripeCount - 1;
+
+        initializePool(factory, steadyPoolSize, resizeQuantity, maxPoolSize,
+                       idleTimeoutInSeconds, loader);
+    }
+
+    private void initializePool(ObjectFactory factory, int steadyPoolSize,
+        int resizeQuantity, int maxPoolSize, int idleTimeoutInSeconds,
+        ClassLoader loader)
+    {
+        this.factory = factory;
+        this.steadyPoolSize = (steadyPoolSize <= 0) ? 0 : steadyPoolSize;
+        this.resizeQuantity = (resizeQuantity <= 0) ? 0 : resizeQuantity;
+        this.maxPoolSize = (maxPoolSize <= 0)
+            ? Integer.MAX_VALUE : maxPoolSize;
+        this.steadyPoolSize = (this.steadyPoolSize > this.maxPoolSize)
+            ? this.maxPoolSize : this.steadyPoolSize;
+        this.idleTimeoutInSeconds =
+            (idleTimeoutInSeconds <= 0) ? 0 : idleTimeoutInSeconds;
+
+        this.containerClassLoader = loader;
+
+        this.maintainSteadySize = (this.steadyPoolSize > 0);
+        if ((this.idleTimeoutInSeconds > 0) && (this.resizeQuantity > 0)) {
+            try {
+                this.poolTimerTask =  new PoolResizeTimerTask();
+                EjbContainerUtilImpl.getInstance().getTimer().scheduleAtFixedRate
+                    (poolTimerTask, idleTimeoutInSeconds*1000L,
+                     idleTimeoutInSeconds*1000L);
+                if(_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE,
+                      "[Pool-" + poolName + "]: Added PoolResizeTimerTask...");
+                }
+            } catch (Throwable th) {
+                _logger.log(Level.WARNING,"[Pool-" +
+                            poolName + "]: Could not add"
+                            + " PoolTimerTask. Continuing anyway...", th);
+            }
+        }
+    }
+
+    private Stripe homeStripe() {
+        return stripes[(int) Thread.currentThread().getId() & stripeMask];
+    }
+
+    /**
+     * Takes an available object, from the stripe of the calling thread
+     * first, then from the other stripes.
+     */
+    private Object poll() {
+        int home = (int) Thread.currentThread().getId() & stripeMask;
+        Object obj = stripes[home].objects.pollFirst();
+        for (int i = 1; (obj == null) && (i <= stripeMask); i++) {
+            obj = stripes[(home + i) & stripeMask].objects.pollLast();
+        }
+        if (obj != null) {
+            size.decrementAndGet();
+        }
+        return obj;
+    }
+
+    /**
+     * Get an object. Application can use pool.getObject() to get an object
+     *	instead of using new XXX().
+     * @param canWait Must be true if the calling thread is willing to
+     *  wait for infinite time to get an object, false if the calling
+     *  thread does not want to wait at all.
+     *
+     */
+    public Object getObject(boolean canWait, Object param)
+        throws PoolException
+    {
+        return getObject(param);
+    }
+
+    public Object getObject(long maxWaitTime, Object param)
+        throws PoolException
+    {
+        return getObject(param);
+    }
+
+    public Object getObject(Object param)
+    {
+        Object obj = poll();
+        if ((maintainSteadySize) && (size.get() < steadyPoolSize)
+                && addedResizeTask.compareAndSet(false, true)) {
+            addResizeTaskForImmediateExecution();
+        }
+        if (obj != null) {
+            successes.increment();
+            return obj;
+        }
+
+        poolProbeNotifier.ejbObjectAddedEvent(beanId, appName, modName, ejbName);
+        created.incrementAndGet();	//hope that everything will be OK.
+        try {
+            return factory.create(param);
+        } catch (RuntimeException th) {
+            poolProbeNotifier.ejbObjectAddFailedEvent(beanId, appName, modName, ejbName);
+            created.decrementAndGet();
+            throw th;
+        }
+    }
+
+    private void addResizeTaskForImmediateExecution() {
+        try {
+            ReSizeWork work = new ReSizeWork();
+            EjbContainerUtilImpl.getInstance().addWork(work);
+            if(_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE,
+                     "[Pool-" + poolName + "]: Added PoolResizeTimerTask...");
+            }
+        } catch (Exception ex) {
+            addedResizeTask.set(false);
+            if(_logger.isLoggable(Level.WARNING)) {
+            	_logger.log(Level.WARNING,
+                            "[Pool-"+poolName+"]: Cannot perform "
+                            + " pool resize task", ex);
+            }
+        }
+    }
+
+    /**
+     * Return an object back to the pool. An object that is obtained through
+     *	getObject() must always be returned back to the pool using either
+     *	returnObject(obj) or through destroyObject(obj).
+     */
+    public void returnObject(Object object) {
+        returns.increment();
+        if (!poolClosed && (size.incrementAndGet() <= maxPoolSize)) {
+            homeStripe().objects.offerFirst(object);
+            return;
+        }
+        size.decrementAndGet();
+        poolProbeNotifier.ejbObjectDestroyedEvent(beanId, appName, modName, ejbName);
+        destroyed.incrementAndGet();
+
+        try {
+            factory.destroy(object);
+        } catch (Exception ex) {
+            _logger.log(Level.FINE, "exception in returnObj", ex);
+        }
+    }
+
+    /**
+     * Destroys an Object. Note that applications should not ignore
+     * the reference to the object that they got from getObject(). An object
+     * that is obtained through getObject() must always be returned back to
+     * the pool using either returnObject(obj) or through destroyObject(obj).
+     * This method tells that the object should be destroyed and cannot
+     * be reused.
+     */
+    public void destroyObject(Object object) {
+        poolProbeNotifier.ejbObjectDestroyedEvent(beanId, appName, modName, ejbName);
+        destroyed.incrementAndGet();
+
+        try {
+            factory.destroy(object);
+        } catch (Exception ex) {
+            _logger.log(Level.FINE, "exception in destroyObject", ex);
+        }
+    }
+
+    /**
+    * Preload the pool with objects.
+    * @param count the number of objects to be added.
+    */
+    protected void preload(int count) {
+        ArrayList instances = new ArrayList(count);
+        try {
+            for (int i=0; i<count; i++) {
+                instances.add(factory.create(null));
+            }
+    	} catch (Exception ex) {
+            //Need not throw this exception up since we are pre-populating
+    	}
+        created.addAndGet(instances.size());
+
+        // spread the instances over the stripes, destroying the ones
+        // that do not fit
+        for (int i = 0; i < instances.size(); i++) {
+            Object obj = instances.get(i);
+            if (!poolClosed && (size.incrementAndGet() <= maxPoolSize)) {
+                stripes[i & stripeMask].objects.offerLast(obj);
+            } else {
+                size.decrementAndGet();
+                destroyObject(obj);
+            }
+        }
+    }
+
+    /**
+    * Prepopulate the pool with objects.
+    * @param count the number of objects to be added.
+    */
+    public void prepopulate(int count) {
+        this.steadyPoolSize = (count <= 0) ? 0 : count;
+        this.steadyPoolSize = (this.steadyPoolSize > this.maxPoolSize)
+            ? this.maxPoolSize : this.steadyPoolSize;
+
+        if (this.steadyPoolSize > 0) {
+            preload(this.steadyPoolSize);
+        }
+    }
+
+    /**
+    * Close the pool
+    */
+    public synchronized void close() {
+        if (poolClosed) {
+            return;
+        }
+        poolClosed = true;
+        if (poolTimerTask != null) {
+            try {
+                poolTimerTask.cancel();
+                if(_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE,
+                        "[Pool-"+poolName+"]: Cancelled pool timer task "
+                                + " at: " + (new java.util.Date()));
+                }
+            } catch (Throwable th) {
+                //Can safely ignore this!!
+            }
+        }
+
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE,"[Pool-"+poolName+"]: Destroying "
+                        + size.get() + " beans from the pool...");
+        }
+
+        // since we're calling into ejb code, we need to set context
+        // class loader
+        ClassLoader origLoader =
+            Utility.setContextClassLoader(containerClassLoader);
+
+        Object obj;
+        while ((obj = poll()) != null) {
+            try {
+                poolProbeNotifier.ejbObjectDestroyedEvent(beanId, appName, modName, ejbName);
+                destroyed.incrementAndGet();
+                try {
+                    factory.destroy(obj);
+                } catch (Throwable th) {
+                    _logger.log(Level.FINE, "exception in close", th);
+                }
+            } catch (Throwable th) {
+                _logger.log(Level.WARNING,
+                    "[Pool-"+poolName+"]: Error while destroying", th);
+            }
+        }
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE,"Pool-"+poolName+"]: Pool closed....");
+        }
+        unregisterProbeProvider();
+
+        Utility.setContextClassLoader(origLoader);
+
+        this.poolTimerTask         = null;
+        this.containerClassLoader  = null;
+    }
+
+    protected void remove(int count) {
+        ArrayList removeList = new ArrayList();
+        Object obj;
+        for (int i=0; (i<count) && ((obj = poll()) != null); i++) {
+            removeList.add(obj);
+            poolProbeNotifier.ejbObjectDestroyedEvent(beanId, appName, modName, ejbName);
+            destroyed.incrementAndGet();
+        }
+
+        int sz = removeList.size();
+        for (int i=0; i<sz; i++) {
+            try {
+                factory.destroy(removeList.get(i));
+            } catch (Throwable th) {
+                _logger.log(Level.FINE, "exception in remove", th);
+            }
+        }
+    }
+
+    protected void removeIdleObjects() {
+    }
+
+    /**
+     * Removes up to victimCount objects that were not used since
+     * allowedIdleTime, least recently used first, from all the stripes.
+     */
+    private void removeIdleObjects(int victimCount, long allowedIdleTime,
+                                   ArrayList removeList) {
+        boolean removed = true;
+        while (removed && (removeList.size() < victimCount)) {
+            removed = false;
+            for (int i = 0; (i <= stripeMask) && (removeList.size() < victimCount); i++) {
+                Object obj = stripes[i].objects.pollLast();
+                if (obj == null) {
+                    continue;
+                }
+                if (((EJBContextImpl) obj).getLastTimeUsed() <= allowedIdleTime) {
+                    size.decrementAndGet();
+                    removeList.add(obj);
+                    poolProbeNotifier.ejbObjectDestroyedEvent(beanId, appName, modName, ejbName);
+                    destroyed.incrementAndGet();
+                    removed = true;
+                } else {
+                    // the least recently used object of this stripe is
+                    // still in use, so are the others
+                    stripes[i].objects.offerLast(obj);
+                }
+            }
+        }
+    }
+
+    protected void doResize() {
+
+        if( poolClosed ) {
+            return;
+        }
+
+        //We need to set the context class loader for this (deamon) thread!!
+        final Thread currentThread = Thread.currentThread();
+        final ClassLoader previousClassLoader =
+            currentThread.getContextClassLoader();
+        final ClassLoader ctxClassLoader = containerClassLoader;
+
+        long startTime = 0;
+        boolean enteredResizeBlock = false;
+        try {
+            if (!inResizing.compareAndSet(false, true)) {
+                return;
+            }
+            enteredResizeBlock = true;
+
+            Utility.setContextClassLoader(ctxClassLoader);
+
+            if(_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE,
+                    "[Pool-"+poolName+"]: Resize started at: "
+                  + (new java.util.Date())+" steadyPoolSize ::"+steadyPoolSize
+                  + " resizeQuantity ::"+resizeQuantity+" maxPoolSize ::" +
+                  maxPoolSize );
+            }
+            startTime = System.currentTimeMillis();
+
+            ArrayList removeList = new ArrayList();
+            long populateCount = 0;
+            int curSize = size.get();
+
+            if (curSize > steadyPoolSize) {
+
+                //possible to reduce pool size....
+                if ((idleTimeoutInSeconds <= 0)  ||
+                    (resizeQuantity <= 0)) {
+                    return;
+                }
+                int victimCount =
+                    (curSize > (steadyPoolSize + resizeQuantity) )
+                    ? resizeQuantity : (curSize - steadyPoolSize);
+                long allowedIdleTime = System.currentTimeMillis() -
+                    idleTimeoutInSeconds*1000L;
+                if(_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE,
+                                "[Pool-"+poolName+"]: Resize:: reducing "
+                                + " pool size by: " + victimCount);
+                }
+                removeIdleObjects(victimCount, allowedIdleTime, removeList);
+            } else if (curSize < steadyPoolSize) {
+
+                //Need to populate....
+                if (maintainSteadySize  == false) {
+                    return;
+                }
+
+                if (resizeQuantity <= 0) {
+                    populateCount = steadyPoolSize - curSize;
+                } else {
+                    while ((curSize + populateCount) < steadyPoolSize) {
+                        populateCount += resizeQuantity;
+                    }
+                    if ((curSize + populateCount) > maxPoolSize) {
+                        populateCount -= (curSize + populateCount) - maxPoolSize;
+                    }
+                }
+            }
+
+            int sz = removeList.size();
+            for (int i=0; i<sz; i++) {
+                try {
+                    factory.destroy(removeList.get(i));
+                } catch (Throwable th) {
+                    _logger.log(Level.FINE, "exception in doResize", th);
+                }
+            }
+
+            if (populateCount > 0) {
+                if(_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE,
+                            "[Pool-"+poolName+"]: Attempting to preload "
+                            + populateCount + " beans. CurSize/MaxPoolSize: "
+                            + size.get() + "/" + maxPoolSize);
+                }
+
+                preload((int)populateCount);
+
+                if(_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE,
+                            "[Pool-"+poolName+"]: After preload "
+                            + "CurSize/MaxPoolSize: "
+                            + size.get() + "/" + maxPoolSize);
+                }
+            }
+
+        } catch (Throwable th) {
+            _logger.log(Level.WARNING,
+                        "[Pool-"+poolName+"]: Exception during reSize", th);
+
+        } finally {
+            if (enteredResizeBlock) {
+                Utility.setContextClassLoader(previousClassLoader);
+                inResizing.set(false);
+            }
+        }
+
+        long endTime = System.currentTimeMillis();
+        if(_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE,
+                "[Pool-"+poolName+"]: Resize completed at: "
+                + (new java.util.Date()) + "; after reSize: " +
+                getAllAttrValues());
+            _logger.log(Level.FINE, "[Pool-"+poolName+"]: Resize took: "
+                        + ((endTime-startTime)/1000.0) + " seconds.");
+        }
+    }
+
+    /**************** For Monitoring ***********************/
+    /*******************************************************/
+
+    public int getCreatedCount() {
+        return created.get();
+    }
+
+    public int getDestroyedCount() {
+        return destroyed.get();
+    }
+
+    public int getPoolSuccess() {
+        return successes.intValue();
+    }
+
+    public int getSize() {
+        return size.get();
+    }
+
+    public void appendStats(StringBuffer sbuf) {
+	sbuf.append("[Pool: ")
+	    .append("SZ=").append(size.get()).append("; ")
+	    .append("CC=").append(created.get()).append("; ")
+	    .append("DC=").append(destroyed.get()).append("; ")
+	    .append("WC=").append(waitCount).append("; ")
+	    .append("MSG=0");
+	if (configData != null) {
+	    sbuf.append(configData);
+	}
+	sbuf.append("]");
+    }
+
+    public int getNumBeansInPool() {
+	return size.get();
+    }
+
+    public int getTotalBeansCreated() {
+	return created.get();
+    }
+
+    public int getTotalBeansDestroyed() {
+	return destroyed.get();
+    }
+
+    public String getAllMonitoredAttrbuteValues() {
+        StringBuffer sbuf = new StringBuffer();
+        sbuf.append("createdCount=").append(created.get()).append(";")
+            .append("destroyedCount=").append(destroyed.get()).append(";")
+            .append("waitCount=").append(waitCount).append(";")
+            .append("size=").append(size.get()).append(";");
+        sbuf.append("maxPoolSize=").append(maxPoolSize).append(";");
+        return sbuf.toString();
+    }
+
+    public String getAllAttrValues() {
+        StringBuffer sbuf = new StringBuffer("[Pool-"+poolName+"] ");
+        sbuf.append("CC=").append(created.get()).append("; ")
+            .append("DC=").append(destroyed.get()).append("; ")
+            .append("CS=").append(size.get()).append("; ")
+            .append("SS=").append(steadyPoolSize).append("; ")
+            .append("MS=").append(maxPoolSize).append("; ")
+            .append("PR=").append(returns.sum()).append("; ")
+            .append("ST=").append(stripes.length).append(";");
+        return sbuf.toString();
+    }
+
+    /**
+     * A stripe of available objects, most recently used first.
+     */
+    private static final class Stripe {
+        final ConcurrentLinkedDeque<Object> objects = new ConcurrentLinkedDeque<Object>();
+    }
+
+    private class ReSizeWork
+        implements Runnable
+    {
+        public void run() {
+            try {
+                doResize();
+            } catch (Exception ex) {
+                _logger.log(Level.WARNING,
+                    "[Pool-"+poolName+"]: Exception during reSize", ex);
+            } finally {
+                addedResizeTask.set(false);
+            }
+        }
+    }
+
+    private class IdleBeanWork
+        implements Runnable
+    {
+        public void run() {
+            try {
+                doResize();
+            } catch (Exception ex) {
+            } finally {
+                addedIdleBeanWork.set(false);
+            }
+        }
+    }
+
+    private class PoolResizeTimerTask
+        extends java.util.TimerTask
+    {
+        PoolResizeTimerTask() {}
+
+        public void run() {
+            if (!addedIdleBeanWork.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                IdleBeanWork work = new IdleBeanWork();
+                EjbContainerUtilImpl.getInstance().addWork(work);
+            } catch (Exception ex) {
+                addedIdleBeanWork.set(false);
+                _logger.log(Level.WARNING,
+                            "[Pool-"+poolName+"]: Cannot perform "
+                            + " pool idle bean cleanup", ex);
+            }
+        }
+    } // End of class PoolResizeTimerTask
+
+}
@@ -117,4 +117,32 @@ public class EjbMonitoringProbeProvider {
             @ProbeParam("modName") String modName,
             @ProbeParam("ejbName") String ejbName) {}
 
+    @Probe(name="asyncTaskQueuedEvent")
+    public void asyncTaskQueuedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName) {}
+
+    @Probe(name="asyncTaskRejectedEvent")
+    public void asyncTaskRejectedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName) {}
+
+    @Probe(name="asyncTaskStartedEvent")
+    public void asyncTaskStartedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName) {}
+
+    @Probe(name="asyncTaskCompletedEvent")
+    public void asyncTaskCompletedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName) {}
+
 }
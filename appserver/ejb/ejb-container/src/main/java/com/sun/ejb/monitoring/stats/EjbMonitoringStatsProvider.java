@@ -41,6 +41,7 @@
 package com.sun.ejb.monitoring.stats;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -77,6 +78,12 @@ public abstract class EjbMonitoringStatsProvider {
     private CountStatisticImpl removeStat = new CountStatisticImpl("RemoveCount", 
             "count", "Number of times EJB remove method is called");
 
+    private final AtomicInteger asyncQueued = new AtomicInteger();
+    private final AtomicInteger asyncRunning = new AtomicInteger();
+
+    private RangeStatisticImpl asyncQueuedStat;
+    private RangeStatisticImpl asyncRunningStat;
+
     static final Logger _logger = EjbContainerUtilImpl.getLogger();
 
     public EjbMonitoringStatsProvider(long beanId, String appName, String moduleName,
@@ -85,6 +92,14 @@ public abstract class EjbMonitoringStatsProvider {
         this.appName = appName;
         this.moduleName = moduleName;
         this.beanName = beanName;
+
+        long now = System.currentTimeMillis();
+        asyncQueuedStat = new RangeStatisticImpl(0, 0, 0, "AsyncTasksQueued", 
+                StatisticImpl.UNIT_COUNT, 
+                "Number of asynchronous invocations waiting to be dispatched", now, now);
+        asyncRunningStat = new RangeStatisticImpl(0, 0, 0, "AsyncTasksRunning", 
+                StatisticImpl.UNIT_COUNT, 
+                "Number of asynchronous invocations currently executing", now, now);
     }
 
     public void addMethods(long beanId, String appName, String moduleName,
@@ -210,6 +225,55 @@ public abstract class EjbMonitoringStatsProvider {
         }
     }
 
+    @ProbeListener("glassfish:ejb:bean:asyncTaskQueuedEvent")
+    public void asyncTaskQueuedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName) {
+        if (this.beanId == beanId) {
+            _log("asyncTaskQueuedEvent");
+            asyncQueuedStat.setCurrent(asyncQueued.incrementAndGet());
+        }
+    }
+
+    @ProbeListener("glassfish:ejb:bean:asyncTaskRejectedEvent")
+    public void asyncTaskRejectedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName) {
+        if (this.beanId == beanId) {
+            _log("asyncTaskRejectedEvent");
+            asyncQueuedStat.setCurrent(asyncQueued.decrementAndGet());
+        }
+    }
+
+    @ProbeListener("glassfish:ejb:bean:asyncTaskStartedEvent")
+    public void asyncTaskStartedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName) {
+        if (this.beanId == beanId) {
+            _log("asyncTaskStartedEvent");
+            asyncQueuedStat.setCurrent(asyncQueued.decrementAndGet());
+            asyncRunningStat.setCurrent(asyncRunning.incrementAndGet());
+        }
+    }
+
+    @ProbeListener("glassfish:ejb:bean:asyncTaskCompletedEvent")
+    public void asyncTaskCompletedEvent(
+            @ProbeParam("beanId") long beanId,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("modName") String modName,
+            @ProbeParam("ejbName") String ejbName) {
+        if (this.beanId == beanId) {
+            _log("asyncTaskCompletedEvent");
+            asyncRunningStat.setCurrent(asyncRunning.decrementAndGet());
+        }
+    }
+
     @ManagedAttribute(id="createcount")
     @Description( "Number of times EJB create method is called")
     public CountStatistic getCreateCount() {
@@ -222,6 +286,18 @@ public abstract class EjbMonitoringStatsProvider {
         return removeStat;
     }
 
+    @ManagedAttribute(id="asynctasksqueued")
+    @Description( "Number of asynchronous invocations waiting to be dispatched")
+    public RangeStatistic getAsyncTasksQueued() {
+        return asyncQueuedStat;
+    }
+
+    @ManagedAttribute(id="asynctasksrunning")
+    @Description( "Number of asynchronous invocations currently executing")
+    public RangeStatistic getAsyncTasksRunning() {
+        return asyncRunningStat;
+    }
+
     protected void log(String mname, String provider) {
         if (_logger.isLoggable(Level.FINE)) {
             _logger.fine("===> In " + provider + " for: [" 
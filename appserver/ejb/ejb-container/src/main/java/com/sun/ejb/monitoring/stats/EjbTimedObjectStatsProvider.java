@@ -70,6 +70,11 @@ public class EjbTimedObjectStatsProvider {
     private CountStatisticImpl timerDeliveredStat = new CountStatisticImpl("NumTimersDelivered",
             "count", "Number of timers delivered by the system");
 
+    private TimeStatisticImpl timerDeliveryLagStat = new TimeStatisticImpl(0, 0, 0, 0,
+            "TimerDeliveryLag", "",
+            "Time between the scheduled expiration of the timers and their dispatch",
+            System.currentTimeMillis(), System.currentTimeMillis());
+
     private static final Logger _logger = EjbContainerUtilImpl.getLogger();
 
     private String appName = null;
@@ -118,6 +123,11 @@ public class EjbTimedObjectStatsProvider {
         timerDeliveredStat.increment();
     }
 
+    @ProbeListener("glassfish:ejb:timers:timerDeliveryLagEvent")
+    public void ejbTimerDeliveryLagEvent(@ProbeParam("lag") long lag) {
+        timerDeliveryLagStat.incrementCount(Math.max(lag, 0));
+    }
+
     @ManagedAttribute(id="numtimerscreated")
     @Description( "Number of timers created in the system")
     public CountStatistic getNumTimersCreated() {
@@ -135,4 +145,10 @@ public class EjbTimedObjectStatsProvider {
     public CountStatistic getNumTimersDelivered() {
         return timerDeliveredStat;
     }
+
+    @ManagedAttribute(id="timerdeliverylag")
+    @Description( "Time between the scheduled expiration of the timers and their dispatch")
+    public TimeStatistic getTimerDeliveryLag() {
+        return timerDeliveryLagStat;
+    }
 }
@@ -53,4 +53,10 @@ public interface OptionalLocalInterfaceProvider {
 
     public void setOptionalLocalIntfProxy(Proxy proxy);
 
+    /**
+     * Same as setOptionalLocalIntfProxy, for a delegate that implements
+     * the generated interface but is not a dynamic proxy.
+     */
+    public void setOptionalLocalIntfDelegate(Object delegate);
+
 }
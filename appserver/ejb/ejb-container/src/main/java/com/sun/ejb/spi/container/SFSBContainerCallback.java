@@ -41,6 +41,7 @@
 package com.sun.ejb.spi.container;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  *@author Mahesh Kannan
@@ -59,6 +60,8 @@ public interface SFSBContainerCallback {
 
     public boolean passivateEJB(StatefulEJBContext ctx);
 
+    public void passivateEJBs(List<? extends StatefulEJBContext> contexts);
+
     public boolean isPassivationCapable();
 
     public byte[] serializeContext(StatefulEJBContext ctx) throws IOException;
@@ -0,0 +1,170 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests scheduling, cancellation and the cascading of far away tasks down
+ * the levels of an {@link EJBTimerWheel}.
+ */
+public class EJBTimerWheelTest {
+
+    private static final long TICK = 10;
+
+    // Small enough for tasks a few hundred ms out to use overflow levels
+    private static final int WHEEL_SIZE = 4;
+
+    private static final Executor INLINE = new Executor() {
+        public void execute(Runnable r) {
+            r.run();
+        }
+    };
+
+    private EJBTimerWheel wheel = new EJBTimerWheel(TICK, WHEEL_SIZE, INLINE);
+
+    @After
+    public void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    public void testScheduledTaskRuns() throws Exception {
+        RecordingTask task = new RecordingTask(System.currentTimeMillis() + 30, null);
+        wheel.schedule(task, task.getTimeout());
+
+        assertTrue(task.await());
+        // Due tasks are dispatched when their tick comes up
+        assertTrue(task.ranAt >= task.getTimeout().getTime() - TICK);
+    }
+
+    @Test
+    public void testTaskAlreadyDueRunsInline() throws Exception {
+        RecordingTask task = new RecordingTask(System.currentTimeMillis() - 1000, null);
+        wheel.schedule(task, task.getTimeout());
+
+        assertEquals(0, task.done.getCount());
+        assertSame(Thread.currentThread(), task.ranOn);
+        assertFalse(task.cancel());
+    }
+
+    @Test
+    public void testCancelledTaskDoesNotRun() throws Exception {
+        RecordingTask task = new RecordingTask(System.currentTimeMillis() + 50, null);
+        wheel.schedule(task, task.getTimeout());
+
+        assertTrue(task.cancel());
+        assertFalse(task.cancel());
+        assertFalse(task.done.await(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFarTasksCascadeInOrder() throws Exception {
+        List<RecordingTask> order = new CopyOnWriteArrayList<RecordingTask>();
+        long now = System.currentTimeMillis();
+        // One wheel spans 40ms, the next two levels 160ms and 640ms
+        RecordingTask last = new RecordingTask(now + 500, order);
+        RecordingTask middle = new RecordingTask(now + 200, order);
+        RecordingTask cancelled = new RecordingTask(now + 300, order);
+        RecordingTask first = new RecordingTask(now + 60, order);
+        wheel.schedule(last, last.getTimeout());
+        wheel.schedule(middle, middle.getTimeout());
+        wheel.schedule(cancelled, cancelled.getTimeout());
+        wheel.schedule(first, first.getTimeout());
+
+        assertTrue(cancelled.cancel());
+        assertTrue(last.await());
+        assertTrue(middle.await());
+        assertTrue(first.await());
+
+        assertEquals(3, order.size());
+        assertSame(first, order.get(0));
+        assertSame(middle, order.get(1));
+        assertSame(last, order.get(2));
+        assertEquals(1, cancelled.done.getCount());
+        for (RecordingTask task : order) {
+            assertTrue(task.ranAt >= task.getTimeout().getTime() - TICK);
+        }
+    }
+
+    private static class RecordingTask extends EJBTimerTask {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private final List<RecordingTask> order;
+
+        private volatile long ranAt;
+
+        private volatile Thread ranOn;
+
+        RecordingTask(long timeout, List<RecordingTask> order) {
+            super(new Date(timeout), null, null);
+            this.order = order;
+        }
+
+        @Override
+        public void run() {
+            ranAt = System.currentTimeMillis();
+            ranOn = Thread.currentThread();
+            if (order != null) {
+                order.add(this);
+            }
+            done.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.ejb.containers;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.ejb.codegen.EjbOptionalIntfGenerator;
+import com.sun.ejb.containers.util.MethodMap;
+import com.sun.ejb.spi.container.GeneratedLocalProxy;
+import com.sun.ejb.spi.container.LocalProxyDispatcher;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the local business proxies generated by a
+ * {@link LocalBusinessProxyFactory}: dispatch by method index, unwrapping
+ * in equals and the wrapping of undeclared checked exceptions.
+ */
+public class LocalBusinessProxyFactoryTest {
+
+    private static final AtomicInteger proxyCount = new AtomicInteger();
+
+    private LocalBusinessProxyFactory proxyFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        // Proxy classes can only be defined once in the loader
+        String proxyClassName = LocalBusinessProxyFactoryTest.class.getName() +
+            "__LocalProxy__" + proxyCount.incrementAndGet();
+        proxyFactory = new LocalBusinessProxyFactory(
+            new EjbOptionalIntfGenerator(getClass().getClassLoader()),
+            proxyClassName, Greeter.class, new MethodMap(new HashMap(), 1));
+    }
+
+    @Test
+    public void testDispatchByMethodIndex() throws Exception {
+        RecordingDispatcher dispatcher = new RecordingDispatcher();
+        Greeter greeter = (Greeter) proxyFactory.newProxy(dispatcher);
+
+        dispatcher.result = "hello";
+        assertEquals("hello", greeter.greet("duke", 2));
+        Method greet = proxyFactory.getMethod(dispatcher.methodIndex);
+        assertEquals(Greeter.class.getMethod("greet", String.class, int.class), greet);
+        assertSame(greeter, dispatcher.proxy);
+        assertEquals(Arrays.asList("duke", 2), Arrays.asList(dispatcher.args));
+
+        dispatcher.result = 7;
+        assertEquals(7, greeter.count());
+        assertEquals("count", proxyFactory.getMethod(dispatcher.methodIndex).getName());
+        // Same as java.lang.reflect.Proxy
+        assertEquals(null, dispatcher.args);
+    }
+
+    @Test
+    public void testEqualsUnwrapsGeneratedProxy() throws Exception {
+        RecordingDispatcher dispatcher = new RecordingDispatcher();
+        Object greeter = proxyFactory.newProxy(dispatcher);
+        Object other = proxyFactory.newProxy(new RecordingDispatcher());
+        Method equals = Object.class.getMethod("equals", Object.class);
+
+        assertSame(dispatcher, ((GeneratedLocalProxy) greeter).getLocalProxyDispatcher());
+        assertEquals(Boolean.TRUE, InvocationHandlerUtil.invokeJavaObjectMethod(
+            new DispatcherHandler(dispatcher), equals, new Object[] { greeter }));
+        assertEquals(Boolean.FALSE, InvocationHandlerUtil.invokeJavaObjectMethod(
+            new DispatcherHandler(dispatcher), equals, new Object[] { other }));
+    }
+
+    @Test
+    public void testUndeclaredCheckedExceptionIsWrapped() throws Exception {
+        RecordingDispatcher dispatcher = new RecordingDispatcher();
+        Greeter greeter = (Greeter) proxyFactory.newProxy(dispatcher);
+        IOException ioe = new IOException();
+        dispatcher.exception = ioe;
+
+        try {
+            greeter.greet("duke", 1);
+            fail("UndeclaredThrowableException expected");
+        } catch(UndeclaredThrowableException ute) {
+            assertSame(ioe, ute.getCause());
+        }
+        try {
+            greeter.count();
+            fail("UndeclaredThrowableException expected");
+        } catch(UndeclaredThrowableException ute) {
+            assertSame(ioe, ute.getCause());
+        }
+    }
+
+    @Test
+    public void testDeclaredAndUncheckedExceptionsAreNotWrapped() throws Exception {
+        RecordingDispatcher dispatcher = new RecordingDispatcher();
+        Greeter greeter = (Greeter) proxyFactory.newProxy(dispatcher);
+
+        GreetingException ge = new GreetingException();
+        dispatcher.exception = ge;
+        try {
+            greeter.greet("duke", 1);
+            fail("GreetingException expected");
+        } catch(GreetingException e) {
+            assertSame(ge, e);
+        }
+
+        IllegalStateException ise = new IllegalStateException();
+        dispatcher.exception = ise;
+        try {
+            greeter.greet("duke", 1);
+            fail("IllegalStateException expected");
+        } catch(IllegalStateException e) {
+            assertSame(ise, e);
+        }
+    }
+
+    public interface Greeter {
+        String greet(String name, int times) throws GreetingException;
+        int count();
+    }
+
+    public static class GreetingException extends Exception {
+    }
+
+    private static class RecordingDispatcher implements LocalProxyDispatcher {
+        private Object result;
+        private Throwable exception;
+        private Object proxy;
+        private int methodIndex = -1;
+        private Object[] args;
+
+        public Object invoke(Object proxy, int methodIndex, Object[] args)
+            throws Throwable {
+            this.proxy = proxy;
+            this.methodIndex = methodIndex;
+            this.args = args;
+            if( exception != null ) {
+                throw exception;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Handler whose equality is that of the dispatcher it wraps, as for
+     * EJBLocalObjectInvocationHandlerDelegate.
+     */
+    private static class DispatcherHandler implements java.lang.reflect.InvocationHandler {
+        private final LocalProxyDispatcher dispatcher;
+
+        DispatcherHandler(LocalProxyDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            return null;
+        }
+
+        public boolean equals(Object other) {
+            return other == dispatcher;
+        }
+
+        public int hashCode() {
+            return dispatcher.hashCode();
+        }
+    }
+}
@@ -126,9 +126,22 @@ public class PersistentEJBTimerService extends EJBTimerService {
     private static final String OP_REDELIVER = "redeliver";
     private static final String OP_STOP = "stop";
 
+    // Number of timers restored per transaction on startup. Not set or a
+    // value <= 0 restores all timers owned by this server in a single
+    // transaction, as before paging was added.
+    private static final String RESTORE_PAGE_SIZE = "timer-restore-page-size";
+    private static final int DEFAULT_RESTORE_PAGE_SIZE = 0;
+
+    // If true, a successful delivery updates only the last expiration
+    // column of the timer row instead of loading and re-writing the timer.
+    private static final String DELTA_UPDATE = "timer-delta-update";
+
     // Possible values "redeliver" and "stop"
     private String operationOnConnectionFailure = null;
 
+    private int restorePageSize = DEFAULT_RESTORE_PAGE_SIZE;
+    private boolean deltaUpdate = false;
+
     private PersistentEJBTimerService(String ejbName, boolean removeOldTimers) throws Exception {
         super();
 
@@ -165,6 +178,12 @@ public class PersistentEJBTimerService extends EJBTimerService {
                     getDBReadBeforeTimeoutProperty();
 
                 operationOnConnectionFailure = ejbt.getPropertyValue(ON_CONECTION_FAILURE);
+
+                String pageSize = ejbt.getPropertyValue(RESTORE_PAGE_SIZE);
+                if (pageSize != null) {
+                    restorePageSize = Integer.parseInt(pageSize);
+                }
+                deltaUpdate = Boolean.valueOf(ejbt.getPropertyValue(DELTA_UPDATE));
             }
 
         } catch(Exception e) {
@@ -392,6 +411,11 @@ public class PersistentEJBTimerService extends EJBTimerService {
             return;
         }
 
+        if (restorePageSize > 0) {
+            restoreTimersInPages();
+            return;
+        }
+
         TransactionManager tm = ejbContainerUtil.getTransactionManager();
         try {
             // create a tx in which to do database access for all timers 
@@ -416,6 +440,48 @@ public class PersistentEJBTimerService extends EJBTimerService {
         }
     }
 
+    /**
+     * Restores the active timers owned by this server one page at a time,
+     * with a separate tx per page.  Pages are read in timer id order and
+     * each page starts after the last timer id of the previous one, so the
+     * owner index is used and neither the result set nor the tx grows with
+     * the total number of timers.
+     */
+    private void restoreTimersInPages() throws Exception {
+        TransactionManager tm = ejbContainerUtil.getTransactionManager();
+        String lastTimerId = "";
+        int restored = 0;
+        while (true) {
+            List<TimerState> page;
+            try {
+                tm.begin();
+                page = timerLocal_.findActiveTimersOwnedByThisServerAfter(
+                        lastTimerId, restorePageSize);
+                if (!page.isEmpty()) {
+                    _restoreTimers(new HashSet<TimerState>(page));
+                }
+            } finally {
+                // try to commit regardless of success or failure. 
+                try {
+                    tm.commit();
+                } catch(Exception e) {
+                    logger.log(Level.WARNING, "ejb.timer_service_init_error", e);
+                }
+            }
+
+            restored += page.size();
+            if (page.size() < restorePageSize) {
+                break;
+            }
+            lastTimerId = page.get(page.size() - 1).getTimerId();
+        }
+
+        if( logger.isLoggable(Level.FINE) ) {
+            logger.log(Level.FINE, "Restored " + restored + " timers in pages of " 
+                    + restorePageSize);
+        }
+    }
+
     /**
      * The portion of timer migration that notifies containers about 
      * automatic timers being migrated to this instance
@@ -441,7 +507,7 @@ public class PersistentEJBTimerService extends EJBTimerService {
         // the JDK timer tasks.  
         
         Map timersToRestore = new HashMap();
-        Set timerIdsToRemove = new HashSet();
+        Set<TimerState> timersToRemove = new HashSet<TimerState>();
         Set<TimerState> result = new HashSet<TimerState>();
 
         for(TimerState timer: timersEligibleForRestoration) {
@@ -576,7 +642,7 @@ public class PersistentEJBTimerService extends EJBTimerService {
                     logger.log(Level.INFO,
                             "Removing schedule-based timer " + timerState +
                                    " that will never expire again");
-                    timerIdsToRemove.add(timerId);
+                    timersToRemove.add(timer);
                 } else {
                     timersToRestore.put(timerState, expirationTime);
                     result.add(timer);
@@ -590,8 +656,8 @@ public class PersistentEJBTimerService extends EJBTimerService {
             }
         } // End -- for each active timer
 
-        if (timerIdsToRemove.size() > 0) {
-            timerLocal_.remove(timerIdsToRemove);
+        if (timersToRemove.size() > 0) {
+            timerLocal_.removeTimers(timersToRemove);
         }
 
         for(Iterator entries = timersToRestore.entrySet().iterator(); 
@@ -1175,13 +1241,24 @@ public class PersistentEJBTimerService extends EJBTimerService {
     protected void resetLastExpiration(TimerPrimaryKey timerId,
                                           RuntimeTimerState timerState) {
         if (timerState.isPersistent()) {
-            TimerState timer = getValidTimerFromDB( timerId );
-            if( null == timer ) {
-                return;
-            }
-
             Date now = new Date();
-            timer.setLastExpiration(now);   
+            if (deltaUpdate) {
+                // Write only the new last expiration.  If no row was
+                // updated, the timer was removed or migrated and the
+                // regular lookup takes care of expunging it.
+                if (timerLocal_.updateLastExpiration(timerId, 
+                        ownerIdOfThisServer_, now) == 0) {
+                    getValidTimerFromDB( timerId );
+                    return;
+                }
+            } else {
+                TimerState timer = getValidTimerFromDB( timerId );
+                if( null == timer ) {
+                    return;
+                }
+
+                timer.setLastExpiration(now);   
+            }
                             
             // Since timer was successfully delivered, update
             // last delivery time in database if that option is
@@ -47,6 +47,8 @@ import java.io.ObjectStreamException;
 import java.util.Date;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.logging.Logger;
@@ -95,6 +97,9 @@ public class TimerBean implements TimerLocal {
 
     private static final Logger logger = LogDomains.getLogger(TimerBean.class, LogDomains.EJB_LOGGER);
 
+    // Upper bound on the size of the IN list used by bulk timer deletes
+    private static final int MAX_TIMER_IDS_PER_DELETE = 500;
+
     @Resource private SessionContext context_;
 
     @PersistenceContext(unitName="__EJB__Timer__App")
@@ -212,6 +217,16 @@ public class TimerBean implements TimerLocal {
         return new HashSet(q.getResultList());
     }
 
+    private List findTimersByOwnerAndStateAfter
+        (String ownerId, int state, String afterTimerId, int maxTimers) {
+        Query q = em.createNamedQuery("findTimersByOwnerAndStateAfter");
+        q.setParameter(1, ownerId);
+        q.setParameter(2, state);
+        q.setParameter(3, afterTimerId);
+        q.setMaxResults(maxTimers);
+        return q.getResultList();
+    }
+
 
     //
     // Query methods for timer counts
@@ -359,6 +374,46 @@ public class TimerBean implements TimerLocal {
             }
         }
     }
+
+    public void removeTimers(Collection<TimerState> timers) {
+        // Write any pending change first, it must not reach the database
+        // after the rows are gone.
+        em.flush();
+
+        // Delete in chunks with a single statement each instead of
+        // removing every timer separately.  Chunks keep the IN list
+        // below the limits of all supported databases.
+        List<String> chunk = new ArrayList<String>(MAX_TIMER_IDS_PER_DELETE);
+        for(TimerState timer: timers) {
+            chunk.add(timer.getTimerId());
+            if (chunk.size() == MAX_TIMER_IDS_PER_DELETE) {
+                removeChunk(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            removeChunk(chunk);
+        }
+
+        // Bulk deletes bypass the persistence context, so drop the deleted
+        // timers from it.
+        for(TimerState timer: timers) {
+            if (em.contains(timer)) {
+                em.detach(timer);
+            }
+        }
+    }
+
+    private void removeChunk(List<String> timerIds) {
+        try {
+            Query q = em.createNamedQuery("deleteTimersByIds");
+            q.setParameter("timerIds", timerIds);
+            q.executeUpdate();
+        } catch(RuntimeException e) {
+            logger.log(Level.WARNING, "Cannot remove timers " + timerIds, e);
+            throw e;
+        }
+    }
     
     public void cancel(TimerPrimaryKey timerId) 
             throws FinderException, Exception {
@@ -531,6 +586,14 @@ public class TimerBean implements TimerLocal {
                                 EJBTimerService.STATE_CANCELLED);
     }
 
+    public List findActiveTimersOwnedByThisServerAfter(String afterTimerId,
+                                                       int maxTimers) {
+        return findTimersByOwnerAndStateAfter
+                       (getOwnerIdOfThisServer(),
+                                EJBTimerService.STATE_ACTIVE,
+                                afterTimerId, maxTimers);
+    }
+
     public Set findTimersOwnedBy(String ownerId) {
         return findTimersByOwner(ownerId);
     }
@@ -674,6 +737,15 @@ public class TimerBean implements TimerLocal {
         return success;
     }
 
+    public int updateLastExpiration(TimerPrimaryKey timerId, String ownerId,
+                                    Date lastExpiration) {
+        Query q = em.createNamedQuery("updateLastExpirationOfTimer");
+        q.setParameter("lastExpiration", lastExpiration.getTime());
+        q.setParameter("timerId", timerId.timerId);
+        q.setParameter("ownerId", ownerId);
+        return q.executeUpdate();
+    }
+
     public int migrateTimers(String fromOwnerId, String toOwnerId) {
         Query q = em.createNamedQuery("updateTimersFromOwnerToNewOwner");
         q.setParameter("fromOwner", fromOwnerId);
@@ -43,6 +43,7 @@ package org.glassfish.ejb.persistent.timer;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 
 import javax.ejb.CreateException;
@@ -81,6 +82,9 @@ public interface TimerLocal {
 
     void remove(Set<TimerPrimaryKey> timerIds);
 
+    // Remove timers loaded in the current tx with bulk deletes
+    void removeTimers(Collection<TimerState> timers);
+
     // 
     // Queries returning Timer Ids (TimerPrimaryKey)
     //
@@ -123,6 +127,10 @@ public interface TimerLocal {
     Set findActiveTimersOwnedBy(String owner);
     Set findCancelledTimersOwnedBy(String owner);
 
+    // Returns at most maxTimers active timers owned by this server with
+    // ids greater than afterTimerId, ordered by timer id
+    List findActiveTimersOwnedByThisServerAfter(String afterTimerId, int maxTimers);
+
 
     //
     // Queries returning counts
@@ -151,6 +159,10 @@ public interface TimerLocal {
     // Perform health check on timer database
     boolean checkStatus(String resourceJndiName, boolean checkDatabase);
 
+    // Update only the last expiration of a timer owned by ownerId.
+    // Returns the number of rows updated
+    int updateLastExpiration(TimerPrimaryKey timerId, String ownerId, Date lastExpiration);
+
     // Migrate timers from one server instance to another via bulk update
     int migrateTimers(String fromOwnerId, String toOwnerId);
 
@@ -46,6 +46,7 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
 import javax.persistence.IdClass;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.NamedQuery;
 import javax.persistence.NamedQueries;
@@ -126,6 +127,11 @@ import com.sun.logging.LogDomains;
         name="findTimersByOwnerAndState",
         query="SELECT t FROM Timer t WHERE t.ownerId = ?1 AND t.state=?2"
     ),
+    @NamedQuery(
+        // Keyset paging for timer restoration, so needs to have predictable return order
+        name="findTimersByOwnerAndStateAfter",
+        query="SELECT t FROM Timer t WHERE t.ownerId = ?1 AND t.state=?2 AND t.timerId > ?3 ORDER BY t.timerId"
+    ),
     @NamedQuery(
         name="countTimersByApplication",
         query="SELECT COUNT(t) FROM Timer t WHERE t.applicationId = ?1"
@@ -160,6 +166,16 @@ import com.sun.logging.LogDomains;
         query="UPDATE Timer t SET t.ownerId = :toOwner WHERE t.ownerId = :fromOwner"
     )
     ,
+    @NamedQuery(
+        name="updateLastExpirationOfTimer",
+        query="UPDATE Timer t SET t.lastExpirationRaw = :lastExpiration WHERE t.timerId = :timerId AND t.ownerId = :ownerId"
+    )
+    ,
+    @NamedQuery(
+        name="deleteTimersByIds",
+        query="DELETE FROM Timer t WHERE t.timerId IN :timerIds"
+    )
+    ,
     @NamedQuery(
         name="deleteTimersByContainer",
         query="DELETE FROM Timer t WHERE t.containerId = :containerId"
@@ -170,7 +186,8 @@ import com.sun.logging.LogDomains;
         query="DELETE FROM Timer t WHERE t.applicationId = :applicationId"
     )
 })
-@Table(name="EJB__TIMER__TBL")
+@Table(name="EJB__TIMER__TBL",
+       indexes={ @Index(name="EJB__TIMER__OWNER_IDX", columnList="OWNERID,STATE,TIMERID") })
 @IdClass(com.sun.ejb.containers.TimerPrimaryKey.class)
 public class TimerState {
 
@@ -55,3 +55,5 @@ PRIMARY KEY (TIMERID)
 );
 CREATE INDEX EJB__TIMER__TBL.IDX1 KEY(TIMERID)
 ;
+CREATE INDEX EJB__TIMER__TBL.EJB__TIMER__OWNER_IDX KEY(OWNERID, STATE, TIMERID)
+;
@@ -0,0 +1,828 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.ha.store.adapter.file;
+
+import org.glassfish.ha.store.api.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.*;
+import java.util.zip.CRC32;
+
+/**
+ * An implementation of BackingStore that appends serialized state to
+ * memory mapped segment files instead of writing one file per key.
+ * <p>
+ * The location of the latest record of every key is kept in an in-memory
+ * index that is rebuilt by replaying the segments on startup. Removals and
+ * timestamp updates are appended as small marker records. A background
+ * task copies the live records out of mostly dead segments, and segments
+ * without live records are deleted as a whole once every older segment is
+ * gone, so that their removal markers can no longer be needed.
+ * <p>
+ * Vendor specific settings:
+ * <ul>
+ * <li><code>max.idle.timeout.in.seconds</code> (default 600)</li>
+ * <li><code>segment.size.in.bytes</code> (default 4MB)</li>
+ * <li><code>segment.compaction.threshold</code>: compact sealed segments
+ *     whose live ratio falls below this value (default 0.5)</li>
+ * <li><code>segment.compaction.interval.in.seconds</code>: 0 disables
+ *     background compaction (default 60)</li>
+ * <li><code>segment.sync.on.save</code>: force the segment to disk after
+ *     every write (default false)</li>
+ * </ul>
+ */
+public class SegmentLogBackingStore<K extends Serializable, V extends Serializable>
+        extends BackingStore<K, V> {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // key length, value length or record type, timestamp, crc
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+    private static final int RECORD_REMOVED = -1;
+
+    private static final int RECORD_TOUCHED = -2;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    protected Logger logger =
+            Logger.getLogger(SegmentLogBackingStore.class.getName());
+
+    protected File baseDir;
+
+    private volatile boolean shutdown;
+
+    private static Level TRACE_LEVEL = Level.FINE;
+
+    private String debugStr;
+
+    private SegmentLogBackingStoreFactory factory;
+
+    private long defaultMaxIdleTimeoutInSeconds = 10L * 60L;
+
+    private int segmentSize = 4 * 1024 * 1024;
+
+    private double compactionThreshold = 0.5;
+
+    private long compactionIntervalInSeconds = 60L;
+
+    private boolean syncOnSave;
+
+    private final ConcurrentHashMap<String, Location> index =
+            new ConcurrentHashMap<String, Location>();
+
+    // Oldest first. Modified only while holding appendLock
+    private final List<Segment> segments = new CopyOnWriteArrayList<Segment>();
+
+    // Serializes appends together with the index update they imply
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private volatile Segment activeSegment;
+
+    private long nextSegmentId;
+
+    private ScheduledExecutorService compactor;
+
+    /**
+     * No arg constructor
+     */
+    public SegmentLogBackingStore() {
+    }
+
+    @Override
+    protected void initialize(BackingStoreConfiguration<K, V> conf)
+        throws BackingStoreException {
+
+        if (conf.getLogger() != null) {
+            logger = conf.getLogger();
+        }
+
+        super.initialize(conf);
+        debugStr = "[SegmentLogBackingStore - " + conf.getStoreName() + "] ";
+
+        Map<String, Object> vendorMap = conf.getVendorSpecificSettings();
+        defaultMaxIdleTimeoutInSeconds = getLong(vendorMap,
+                "max.idle.timeout.in.seconds", defaultMaxIdleTimeoutInSeconds);
+        segmentSize = (int) getLong(vendorMap, "segment.size.in.bytes", segmentSize);
+        compactionIntervalInSeconds = getLong(vendorMap,
+                "segment.compaction.interval.in.seconds", compactionIntervalInSeconds);
+        Object threshold = vendorMap.get("segment.compaction.threshold");
+        if (threshold != null) {
+            try {
+                compactionThreshold = Double.parseDouble(threshold.toString());
+            } catch (NumberFormatException ex) {
+                //Ignore. Use default
+            }
+        }
+        Object sync = vendorMap.get("segment.sync.on.save");
+        if (sync != null) {
+            syncOnSave = Boolean.parseBoolean(sync.toString());
+        }
+
+        baseDir = conf.getBaseDirectory();
+        if ((baseDir.mkdirs() == false) && (! baseDir.isDirectory())) {
+            throw new BackingStoreException("[SegmentLogBackingStore::initialize] Create base directory ("
+                    + baseDir.getAbsolutePath() + ") failed");
+        }
+
+        try {
+            recover();
+        } catch (IOException ioEx) {
+            throw new BackingStoreException(debugStr + "Failed to replay segments in "
+                    + baseDir.getAbsolutePath(), ioEx);
+        }
+
+        if (compactionIntervalInSeconds > 0) {
+            final String threadName = "SegmentLogCompactor-" + conf.getStoreName();
+            compactor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread th = new Thread(r, threadName);
+                    th.setDaemon(true);
+                    return th;
+                }
+            });
+            compactor.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        compact();
+                    } catch (Throwable th) {
+                        logger.log(Level.WARNING, debugStr + "Segment compaction failed", th);
+                    }
+                }
+            }, compactionIntervalInSeconds, compactionIntervalInSeconds, TimeUnit.SECONDS);
+        }
+
+        logger.log(Level.INFO, "[SegmentLogBackingStore::initialize] Successfully Created and initialized store. "
+                + "Working dir: " + baseDir + "; segments: " + segments.size()
+                + "; entries: " + index.size() + "; Configuration: " + conf);
+    }
+
+    /*package*/ void setSegmentLogBackingStoreFactory(SegmentLogBackingStoreFactory factory) {
+        this.factory = factory;
+    }
+
+    public BackingStoreFactory getBackingStoreFactory() {
+        return factory;
+    }
+
+    @Override
+    public V load(K key, String version) throws BackingStoreException {
+
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Entered load(" + key + ", " + version + ")");
+        }
+
+        V value = null;
+        Location location = index.get(key.toString());
+        if (location != null) {
+            try {
+                byte[] data = location.segment.read(location.offset, location.length);
+                ObjectInputStream ois = super.createObjectInputStream(new ByteArrayInputStream(data));
+                value = (V) ois.readObject();
+
+                if (logger.isLoggable(TRACE_LEVEL)) {
+                    logger.log(TRACE_LEVEL, debugStr + "Done load(" + key + ", " + version + ")");
+                }
+            } catch (Exception ex) {
+                logger.log(Level.WARNING, debugStr + "Failed to load(" + key + ", " + version + ")", ex);
+            }
+        }
+
+        return value;
+    }
+
+    @Override
+    public String save(K sessionKey, V value, boolean isNew)
+            throws BackingStoreException {
+
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Entered save(" + sessionKey + ")");
+        }
+
+        String key = sessionKey.toString();
+        byte[] data = getSerializedState(value);
+        appendLock.lock();
+        try {
+            Location location = append(key, data, 0, System.currentTimeMillis());
+            release(index.put(key, location));
+        } catch (IOException ioEx) {
+            throw new BackingStoreException("Could not save session: " + sessionKey, ioEx);
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Done save(" + sessionKey + ")");
+        }
+        return getBackingStoreConfiguration().getInstanceName();
+    }
+
+    public void remove(K sessionKey) {
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Entered remove(" + sessionKey + ")");
+        }
+
+        String key = sessionKey.toString();
+        appendLock.lock();
+        try {
+            Location removed = index.remove(key);
+            if (removed != null) {
+                append(key, null, RECORD_REMOVED, System.currentTimeMillis());
+                release(removed);
+            }
+            if (logger.isLoggable(TRACE_LEVEL)) {
+                logger.log(TRACE_LEVEL, debugStr + "Done remove( " + sessionKey + "); status => " + (removed != null));
+            }
+        } catch (Exception ex) {
+            logger.log(TRACE_LEVEL, debugStr + "Failed to remove(" + sessionKey + ")", ex);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    //TODO: deprecate after next shoal integration
+    public void updateTimeStamp(K k, String version, long timeStamp)
+            throws BackingStoreException {
+        updateTimestamp(k, timeStamp);
+    }
+
+    public void updateTimestamp(K sessionKey, long time)
+            throws BackingStoreException {
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Entered updateTimestamp(" + sessionKey + ", " + time + ")");
+        }
+
+        String key = sessionKey.toString();
+        appendLock.lock();
+        try {
+            Location location = index.get(key);
+            if (location == null) {
+                logger.log(Level.WARNING, debugStr
+                        + ": Cannot update timsestamp for: " + sessionKey
+                        + "; Entry does not exist");
+                return;
+            }
+            location.timestamp = time;
+            append(key, null, RECORD_TOUCHED, time);
+        } catch (IOException ioEx) {
+            throw new BackingStoreException(
+                    "Cannot update timsestamp for: " + sessionKey
+                            + "; Got exception: " + ioEx, ioEx);
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Done updateTimestamp(" + sessionKey + ", " + time + ")");
+        }
+    }
+
+    public int removeExpired() {
+        return removeExpired(defaultMaxIdleTimeoutInSeconds * 1000L);
+    }
+
+    //TODO: deprecate after next shoal integration
+    public int removeExpired(long idleForMillis) {
+        long threshold = System.currentTimeMillis() - idleForMillis;
+        int expiredSessions = 0;
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Entered removeExpired()");
+        }
+
+        // Expired entries get a removal marker like removed ones. Their
+        // segments are reclaimed in bulk once nothing live remains in them
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            if (shutdown) {
+                break;
+            }
+            Location location = entry.getValue();
+            if (location.timestamp < threshold && expire(entry.getKey(), location)) {
+                expiredSessions++;
+            }
+        }
+
+        appendLock.lock();
+        try {
+            Segment active = activeSegment;
+            if (active != null && active.writePosition > 0 && active.liveBytes.get() <= 0) {
+                // Start a fresh segment on the next write so this one can go
+                activeSegment = null;
+            }
+            for (Segment segment : segments) {
+                if (segment != activeSegment && segment.liveBytes.get() <= 0) {
+                    segment.drained = true;
+                }
+            }
+            deleteDrainedSegments();
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (logger.isLoggable(TRACE_LEVEL)) {
+            logger.log(TRACE_LEVEL, debugStr + "Done removeExpired(); removed " + expiredSessions);
+        }
+        return expiredSessions;
+    }
+
+    @Override
+    public int size() throws BackingStoreException {
+        return index.size();
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            if (logger.isLoggable(TRACE_LEVEL)) {
+                logger.log(TRACE_LEVEL, debugStr + "Entered destroy()");
+            }
+            stopCompactor();
+            appendLock.lock();
+            try {
+                index.clear();
+                for (Segment segment : segments) {
+                    deleteFile(segment.file);
+                }
+                segments.clear();
+                activeSegment = null;
+            } finally {
+                appendLock.unlock();
+            }
+
+            if (baseDir.delete() == false) {
+                if (baseDir.exists()) {
+                    logger.log(Level.WARNING, debugStr + " destroy() failed to remove dir: " + baseDir.getAbsolutePath());
+                }
+            }
+            if (logger.isLoggable(TRACE_LEVEL)) {
+                logger.log(TRACE_LEVEL, debugStr + "Done destroy()");
+            }
+        } catch (Throwable th) {
+            logger.log(Level.WARNING, debugStr + " destroy() failed ", th);
+        } finally {
+            SegmentLogBackingStoreFactory.removemapping(getBackingStoreConfiguration().getStoreName());
+        }
+    }
+
+    public void shutdown() {
+        stopCompactor();
+        appendLock.lock();
+        try {
+            Segment active = activeSegment;
+            if (active != null) {
+                active.buffer.force();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        //DO NOT DELETE THE WORKING DIRECTORY
+    }
+
+    /**
+     * Copies the live records of sealed segments whose live ratio dropped
+     * below the compaction threshold into the active segment, so that the
+     * sealed segments can be deleted. Expired entries are dropped instead
+     * of being copied.
+     * <p>
+     * Drained segments are only deleted as a prefix, so every live segment
+     * older than a drained one is compacted regardless of its live ratio.
+     * Otherwise a mostly live segment at the head would keep the drained
+     * ones behind it on disk indefinitely.
+     */
+    void compact() {
+        Set<Segment> candidates = new HashSet<Segment>();
+        Segment active = activeSegment;
+        Segment[] snapshot = segments.toArray(new Segment[0]);
+        int pinned = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            Segment segment = snapshot[i];
+            if (segment != active && segment.drained) {
+                pinned = i;
+            }
+        }
+        for (int i = 0; i < snapshot.length; i++) {
+            Segment segment = snapshot[i];
+            if (segment != active && !segment.drained
+                    && (i < pinned || segment.liveRatio() < compactionThreshold)) {
+                candidates.add(segment);
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            long threshold = System.currentTimeMillis() - defaultMaxIdleTimeoutInSeconds * 1000L;
+            int moved = 0;
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                if (shutdown) {
+                    return;
+                }
+                Location location = entry.getValue();
+                if (!candidates.contains(location.segment)) {
+                    continue;
+                }
+                if (location.timestamp < threshold) {
+                    expire(entry.getKey(), location);
+                } else if (relocate(entry.getKey(), location)) {
+                    moved++;
+                }
+            }
+            // Only the active segment receives new records, so a candidate
+            // is empty unless a relocation failed
+            for (Segment segment : candidates) {
+                if (segment.liveBytes.get() <= 0) {
+                    segment.drained = true;
+                }
+            }
+            if (logger.isLoggable(TRACE_LEVEL)) {
+                logger.log(TRACE_LEVEL, debugStr + "Compacted " + candidates.size()
+                        + " segments; relocated " + moved + " entries");
+            }
+        }
+
+        appendLock.lock();
+        try {
+            deleteDrainedSegments();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private boolean relocate(String key, Location location) {
+        appendLock.lock();
+        try {
+            if (shutdown || index.get(key) != location) {
+                return false;
+            }
+            byte[] data = location.segment.read(location.offset, location.length);
+            index.put(key, append(key, data, 0, location.timestamp));
+            release(location);
+            return true;
+        } catch (IOException ioEx) {
+            logger.log(Level.WARNING, debugStr + "Failed to relocate " + key, ioEx);
+            return false;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Removes an expired entry, appending a removal marker first so that
+     * the entry does not come back when older segments are replayed.
+     */
+    private boolean expire(String key, Location location) {
+        appendLock.lock();
+        try {
+            if (shutdown || index.get(key) != location) {
+                return false;
+            }
+            append(key, null, RECORD_REMOVED, System.currentTimeMillis());
+            index.remove(key);
+            release(location);
+            return true;
+        } catch (IOException ioEx) {
+            logger.log(Level.WARNING, debugStr + "Failed to expire " + key, ioEx);
+            return false;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Caller must hold appendLock. A segment may still hold removal markers
+    // for records in older segments, so only a drained prefix is deleted.
+    // compact() empties any live segment queued in front of a drained one
+    private void deleteDrainedSegments() {
+        while (!segments.isEmpty()) {
+            Segment segment = segments.get(0);
+            if (!segment.drained || segment == activeSegment) {
+                break;
+            }
+            segments.remove(0);
+            deleteFile(segment.file);
+        }
+    }
+
+    // Caller must hold appendLock
+    private Location append(String key, byte[] value, int recordType, long timestamp)
+            throws IOException {
+        if (shutdown) {
+            throw new IOException(debugStr + "Store has been shut down");
+        }
+        byte[] keyBytes = key.getBytes(UTF8);
+        int valueLength = (value == null) ? 0 : value.length;
+        int recordSize = HEADER_SIZE + keyBytes.length + valueLength;
+
+        Segment segment = activeSegment;
+        if (segment == null || segment.buffer.capacity() - segment.writePosition < recordSize) {
+            segment = rollSegment(recordSize);
+        }
+
+        int lengthOrType = (value == null) ? recordType : valueLength;
+        int checksum = checksum(keyBytes.length, lengthOrType, timestamp, keyBytes, value);
+
+        int position = segment.writePosition;
+        ByteBuffer buf = segment.buffer.duplicate();
+        buf.position(position);
+        buf.putInt(keyBytes.length);
+        buf.putInt(lengthOrType);
+        buf.putLong(timestamp);
+        buf.putInt(checksum);
+        buf.put(keyBytes);
+        if (value != null) {
+            buf.put(value);
+        }
+        segment.writePosition = position + recordSize;
+        if (syncOnSave) {
+            segment.buffer.force();
+        }
+
+        if (value == null) {
+            return null;
+        }
+        segment.liveBytes.addAndGet(recordSize);
+        return new Location(segment, position + HEADER_SIZE + keyBytes.length,
+                valueLength, recordSize, timestamp);
+    }
+
+    // Caller must hold appendLock
+    private Segment rollSegment(int minSize) throws IOException {
+        long id = nextSegmentId++;
+        File file = new File(baseDir, SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+        Segment segment = new Segment(file, map(file, Math.max(segmentSize, minSize)));
+        segments.add(segment);
+        activeSegment = segment;
+        return segment;
+    }
+
+    private static void release(Location location) {
+        if (location != null) {
+            location.segment.liveBytes.addAndGet(-location.recordSize);
+        }
+    }
+
+    /**
+     * Rebuilds the index by replaying the existing segments in order. A
+     * record with a bad checksum marks the end of the usable part of its
+     * segment.
+     */
+    private void recover() throws IOException {
+        String[] fileNames = baseDir.list();
+        if (fileNames == null) {
+            return;
+        }
+
+        TreeMap<Long, File> segmentFiles = new TreeMap<Long, File>();
+        for (String fileName : fileNames) {
+            if (fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    long id = Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(),
+                            fileName.length() - SEGMENT_SUFFIX.length()));
+                    segmentFiles.put(id, new File(baseDir, fileName));
+                } catch (NumberFormatException ex) {
+                    logger.log(Level.WARNING, debugStr + "Ignoring unexpected file: " + fileName);
+                }
+            }
+        }
+
+        appendLock.lock();
+        try {
+            for (Map.Entry<Long, File> entry : segmentFiles.entrySet()) {
+                File file = entry.getValue();
+                Segment segment = new Segment(file, map(file, (int) file.length()));
+                replay(segment);
+                segments.add(segment);
+                activeSegment = segment;
+                nextSegmentId = entry.getKey() + 1;
+            }
+            for (Segment segment : segments) {
+                if (segment != activeSegment && segment.liveBytes.get() <= 0) {
+                    segment.drained = true;
+                }
+            }
+            deleteDrainedSegments();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void replay(Segment segment) {
+        ByteBuffer buf = segment.buffer.duplicate();
+        int position = 0;
+        while (buf.capacity() - position >= HEADER_SIZE) {
+            buf.position(position);
+            int keyLength = buf.getInt();
+            int valueLength = buf.getInt();
+            long timestamp = buf.getLong();
+            int checksum = buf.getInt();
+            int dataLength = (valueLength >= 0) ? valueLength : 0;
+            if (keyLength <= 0 || valueLength < RECORD_TOUCHED
+                    || buf.remaining() - keyLength < dataLength || buf.remaining() < keyLength) {
+                break;
+            }
+
+            byte[] keyBytes = new byte[keyLength];
+            buf.get(keyBytes);
+            byte[] data = null;
+            if (dataLength > 0) {
+                data = new byte[dataLength];
+                buf.get(data);
+            }
+            if (checksum(keyLength, valueLength, timestamp, keyBytes, data) != checksum) {
+                logger.log(Level.WARNING, debugStr + "Truncating " + segment.file.getName()
+                        + " at offset " + position + " after a torn write");
+                break;
+            }
+
+            String key = new String(keyBytes, UTF8);
+            int recordSize = HEADER_SIZE + keyLength + dataLength;
+            if (valueLength >= 0) {
+                segment.liveBytes.addAndGet(recordSize);
+                release(index.put(key, new Location(segment,
+                        position + HEADER_SIZE + keyLength, valueLength, recordSize, timestamp)));
+            } else if (valueLength == RECORD_REMOVED) {
+                release(index.remove(key));
+            } else {
+                Location location = index.get(key);
+                if (location != null) {
+                    location.timestamp = timestamp;
+                }
+            }
+            position += recordSize;
+        }
+        segment.writePosition = position;
+    }
+
+    // Covers the header fields as well as the payload, so that a damaged
+    // length, type or timestamp is detected like a damaged key or value
+    private static int checksum(int keyLength, int lengthOrType, long timestamp,
+            byte[] keyBytes, byte[] value) {
+        ByteBuffer header = ByteBuffer.allocate(4 + 4 + 8);
+        header.putInt(keyLength);
+        header.putInt(lengthOrType);
+        header.putLong(timestamp);
+        CRC32 crc = new CRC32();
+        crc.update(header.array());
+        crc.update(keyBytes);
+        if (value != null) {
+            crc.update(value);
+        }
+        return (int) crc.getValue();
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            // The mapping stays valid after the channel is closed
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void deleteFile(File file) {
+        // Deleting a mapped file fails on some platforms. The segment is
+        // replayed harmlessly on restart since everything in it is stale
+        if (!file.delete() && file.exists()) {
+            logger.log(Level.FINE, debugStr + "Couldn't remove segment: " + file.getName());
+            file.deleteOnExit();
+        }
+    }
+
+    private void stopCompactor() {
+        shutdown = true;
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+    }
+
+    private byte[] getSerializedState(V value)
+            throws BackingStoreException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream oos = new ObjectOutputStream(bos);
+            oos.writeObject(value);
+            oos.close();
+        } catch (IOException ioEx) {
+            throw new BackingStoreException("Error during getSerializedState", ioEx);
+        }
+        return bos.toByteArray();
+    }
+
+    private static long getLong(Map<String, Object> vendorMap, String name, long defaultValue) {
+        Object value = vendorMap.get(name);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString());
+            } catch (NumberFormatException ex) {
+                //Ignore. Use default
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class Segment {
+
+        final File file;
+
+        final MappedByteBuffer buffer;
+
+        // Written while holding appendLock
+        volatile int writePosition;
+
+        final AtomicLong liveBytes = new AtomicLong();
+
+        volatile boolean drained;
+
+        Segment(File file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        byte[] read(int offset, int length) {
+            ByteBuffer buf = buffer.duplicate();
+            buf.position(offset);
+            byte[] data = new byte[length];
+            buf.get(data);
+            return data;
+        }
+
+        double liveRatio() {
+            int written = writePosition;
+            return (written == 0) ? 1.0 : ((double) liveBytes.get()) / written;
+        }
+    }
+
+    private static final class Location {
+
+        final Segment segment;
+
+        final int offset;
+
+        final int length;
+
+        final int recordSize;
+
+        volatile long timestamp;
+
+        Location(Segment segment, int offset, int length, int recordSize, long timestamp) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.recordSize = recordSize;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.ha.store.adapter.file;
+
+import org.glassfish.ha.store.api.BackingStoreConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests replay, torn write recovery, expiry and compaction of a
+ * {@link SegmentLogBackingStore}.
+ */
+public class SegmentLogBackingStoreTest {
+
+    // Two of the records written below fit in a segment
+    private static final int SEGMENT_SIZE = 700;
+
+    private File baseDir;
+
+    private SegmentLogBackingStore<String, String> store;
+
+    @Before
+    public void setUp() throws Exception {
+        baseDir = File.createTempFile("segment-log", "");
+        assertTrue(baseDir.delete());
+    }
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.destroy();
+        }
+        File[] files = baseDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        baseDir.delete();
+    }
+
+    @Test
+    public void testReplayAfterRestart() throws Exception {
+        store = open();
+        store.save("a", value('a'), true);
+        store.save("b", value('b'), true);
+        store.save("a", value('A'), false);
+        store.save("c", value('c'), true);
+        store.remove("b");
+        store.updateTimestamp("c", 42L);
+
+        store = restart();
+        assertEquals(2, store.size());
+        assertEquals(value('A'), store.load("a", null));
+        assertNull(store.load("b", null));
+        assertEquals(value('c'), store.load("c", null));
+        // The touched timestamp is replayed, so c is expired right away
+        assertEquals(1, store.removeExpired(60000L));
+        assertNull(store.load("c", null));
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws Exception {
+        store = open();
+        store.save("a", value('a'), true);
+        store.save("b", value('b'), true);
+        store.shutdown();
+
+        // Damage the last byte written, which belongs to the value of b
+        RandomAccessFile raf = new RandomAccessFile(segmentFile(0), "rw");
+        try {
+            raf.seek(endOfData(raf) - 1);
+            raf.write('x');
+        } finally {
+            raf.close();
+        }
+
+        store = open();
+        assertEquals(1, store.size());
+        assertEquals(value('a'), store.load("a", null));
+        assertNull(store.load("b", null));
+
+        // New records overwrite the torn one and survive another restart
+        store.save("c", value('c'), true);
+        store = restart();
+        assertEquals(2, store.size());
+        assertEquals(value('a'), store.load("a", null));
+        assertEquals(value('c'), store.load("c", null));
+    }
+
+    @Test
+    public void testPartialRecordIsIgnored() throws Exception {
+        store = open();
+        store.save("a", value('a'), true);
+        store.shutdown();
+
+        // A header that promises more bytes than the segment holds
+        RandomAccessFile raf = new RandomAccessFile(segmentFile(0), "rw");
+        try {
+            raf.seek(endOfData(raf));
+            raf.writeInt(1);
+            raf.writeInt(SEGMENT_SIZE);
+            raf.writeLong(System.currentTimeMillis());
+            raf.writeInt(0);
+        } finally {
+            raf.close();
+        }
+
+        store = open();
+        assertEquals(1, store.size());
+        assertEquals(value('a'), store.load("a", null));
+
+        store.save("b", value('b'), true);
+        store = restart();
+        assertEquals(2, store.size());
+        assertEquals(value('b'), store.load("b", null));
+    }
+
+    @Test
+    public void testExpiredEntriesStayRemovedAfterRestart() throws Exception {
+        store = open();
+        store.save("old", value('o'), true);
+        store.save("new", value('n'), true);
+        store.updateTimestamp("old", System.currentTimeMillis() - 120000L);
+
+        assertEquals(1, store.removeExpired(60000L));
+        assertNull(store.load("old", null));
+
+        store = restart();
+        assertEquals(1, store.size());
+        assertNull(store.load("old", null));
+        assertEquals(value('n'), store.load("new", null));
+    }
+
+    @Test
+    public void testCompactionRelocatesLiveRecords() throws Exception {
+        store = open();
+        store.save("k1", value('1'), true);
+        store.save("k2", value('2'), true);
+        store.save("k3", value('3'), true);
+        store.save("k4", value('4'), true);
+        store.save("k5", value('5'), true);
+        assertTrue(segmentFile(0).exists());
+        assertTrue(segmentFile(2).exists());
+
+        // Leaves the first segment half live, below the 0.6 threshold
+        store.remove("k1");
+        store.compact();
+
+        assertFalse(segmentFile(0).exists());
+        assertTrue(segmentFile(1).exists());
+        assertEquals(value('2'), store.load("k2", null));
+
+        store = restart();
+        assertEquals(4, store.size());
+        assertNull(store.load("k1", null));
+        assertEquals(value('2'), store.load("k2", null));
+        assertEquals(value('5'), store.load("k5", null));
+    }
+
+    @Test
+    public void testLiveHeadDoesNotPinDrainedSegments() throws Exception {
+        store = open();
+        store.save("a1", value('a'), true);
+        store.save("a2", value('a'), true);
+        store.save("b1", value('b'), true);
+        store.save("b2", value('b'), true);
+        store.save("c", value('c'), true);
+
+        // The second segment is drained, but the fully live head is in
+        // front of it
+        store.remove("b1");
+        store.remove("b2");
+        store.removeExpired(Long.MAX_VALUE);
+        assertTrue(segmentFile(0).exists());
+        assertTrue(segmentFile(1).exists());
+
+        store.compact();
+        assertFalse(segmentFile(0).exists());
+        assertFalse(segmentFile(1).exists());
+
+        store = restart();
+        assertEquals(3, store.size());
+        assertEquals(value('a'), store.load("a1", null));
+        assertEquals(value('a'), store.load("a2", null));
+        assertNull(store.load("b1", null));
+        assertEquals(value('c'), store.load("c", null));
+    }
+
+    private SegmentLogBackingStore<String, String> open() throws Exception {
+        BackingStoreConfiguration<String, String> conf =
+                new BackingStoreConfiguration<String, String>();
+        conf.setStoreName("segment-log-test")
+                .setInstanceName("instance1")
+                .setStoreType("segment-log")
+                .setKeyClazz(String.class).setValueClazz(String.class)
+                .setBaseDirectory(baseDir)
+                .setClassLoader(getClass().getClassLoader());
+        conf.getVendorSpecificSettings().put("segment.size.in.bytes", String.valueOf(SEGMENT_SIZE));
+        conf.getVendorSpecificSettings().put("segment.compaction.threshold", "0.6");
+        // Compaction is driven by the tests
+        conf.getVendorSpecificSettings().put("segment.compaction.interval.in.seconds", "0");
+        return (SegmentLogBackingStore<String, String>)
+                new SegmentLogBackingStoreFactory().createBackingStore(conf);
+    }
+
+    private SegmentLogBackingStore<String, String> restart() throws Exception {
+        store.shutdown();
+        return open();
+    }
+
+    private File segmentFile(long id) {
+        return new File(baseDir, "segment-" + id + ".log");
+    }
+
+    // Segments are preallocated with zeros, and every record written here
+    // ends with a non zero byte of its value
+    private static long endOfData(RandomAccessFile raf) throws IOException {
+        long position = raf.length();
+        do {
+            raf.seek(--position);
+        } while (position > 0 && raf.read() == 0);
+        return position + 1;
+    }
+
+    private static String value(char c) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
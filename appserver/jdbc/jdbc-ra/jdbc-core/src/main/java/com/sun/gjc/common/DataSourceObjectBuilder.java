@@ -89,6 +89,21 @@ public class DataSourceObjectBuilder implements java.io.Serializable {
 
     private boolean debug = false;
 
+    //A data source object is built for every physical connection; look up
+    //the methods that can take a property value only once per class.
+    private static final ClassValue<Method[]> setterMethods = new ClassValue<Method[]>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            List<Method> setters = new ArrayList<Method>();
+            for (Method method : type.getMethods()) {
+                if (method.getParameterTypes().length > 0) {
+                    setters.add(method);
+                }
+            }
+            return setters.toArray(new Method[setters.size()]);
+        }
+    };
+
     private static final StringManager sm = StringManager.getManager(
             DataSourceObjectBuilder.class);
 
@@ -112,7 +127,7 @@ public class DataSourceObjectBuilder implements java.io.Serializable {
     public Object constructDataSourceObject() throws ResourceException {
         driverProperties = parseDriverProperties(spec, true);
         Object dataSourceObject = getDataSourceObject();
-        Method[] methods = dataSourceObject.getClass().getMethods();
+        Method[] methods = setterMethods.get(dataSourceObject.getClass());
         for (int i = 0; i < methods.length; i++) {
             String methodName = methods[i].getName();
             //Check for driver properties first since some jdbc properties
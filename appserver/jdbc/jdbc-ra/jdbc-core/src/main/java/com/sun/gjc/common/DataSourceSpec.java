@@ -104,6 +104,9 @@ public class DataSourceSpec implements java.io.Serializable {
     public static final int POOLNAME = 45;
     public static final int APPLICATIONNAME = 46;
     public static final int MODULENAME = 47;
+    public static final int SQLPROFILERSAMPLINGRATE = 48;
+    public static final int RESULTSETFASTPATH = 49;
+    public static final int LEAKTRACESAMPLERATE = 50;
 
     private ConcurrentHashMap<Integer, String> details = new ConcurrentHashMap<Integer, String>();
 
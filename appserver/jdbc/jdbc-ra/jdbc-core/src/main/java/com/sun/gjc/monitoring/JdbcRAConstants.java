@@ -61,6 +61,11 @@ public interface JdbcRAConstants {
      */
     public static final String STATEMENT_CACHE_MISS = "statementCacheMissEvent";
 
+    /**
+     * Represents the hit ratio reported by a statement cache.
+     */
+    public static final String STATEMENT_CACHE_HIT_RATIO = "statementCacheHitRatioEvent";
+
     /**
      * Represents caching of sql query event.
      */
@@ -40,13 +40,16 @@
 
 package com.sun.gjc.monitoring;
 
+import com.sun.gjc.util.SQLProfiler;
 import com.sun.gjc.util.SQLTrace;
 import com.sun.gjc.util.SQLTraceCache;
 import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
 import org.glassfish.external.statistics.CountStatistic;
+import org.glassfish.external.statistics.RangeStatistic;
 import org.glassfish.external.statistics.StringStatistic;
 import org.glassfish.external.statistics.impl.CountStatisticImpl;
+import org.glassfish.external.statistics.impl.RangeStatisticImpl;
 import org.glassfish.external.statistics.impl.StatisticImpl;
 import org.glassfish.external.statistics.impl.StringStatisticImpl;
 import org.glassfish.gmbal.AMXMetadata;
@@ -69,6 +72,12 @@ public class JdbcStatsProvider {
             "FreqUsedSqlQueries", "List",
             "Most frequently used sql queries");
 
+    private StringStatisticImpl sqlProfile = new StringStatisticImpl(
+            "SqlProfile", "List",
+            "Sampled sql statements ordered by total execution time, with " +
+            "their latency percentiles and rows fetched, followed by the " +
+            "slowest sampled executions");
+
     private CountStatisticImpl numStatementCacheHit = new CountStatisticImpl(
             "NumStatementCacheHit", StatisticImpl.UNIT_COUNT,
             "The total number of Statement Cache hits.");
@@ -77,12 +86,24 @@ public class JdbcStatsProvider {
             "NumStatementCacheMiss", StatisticImpl.UNIT_COUNT,
             "The total number of Statement Cache misses.");
 
+    private CountStatisticImpl statementCacheHitRatio = new CountStatisticImpl(
+            "StatementCacheHitRatio", "Percent",
+            "The percentage of Statement Cache lookups that were hits.");
+
+    private RangeStatisticImpl statementCacheHitRatioPerCache = new RangeStatisticImpl(
+            0, 0, 0,
+            "StatementCacheHitRatioPerCache", "Percent",
+            "The hit ratio last reported by a connection's Statement Cache, as " +
+            "well as the highest and lowest reported hit ratios.",
+            System.currentTimeMillis(), System.currentTimeMillis());
+
     private CountStatisticImpl numPotentialStatementLeak = new CountStatisticImpl(
             "NumPotentialStatementLeak", StatisticImpl.UNIT_COUNT,
             "The total number of potential Statement leaks");
 
     private PoolInfo poolInfo;
     private SQLTraceCache sqlTraceCache;
+    private SQLProfiler sqlProfiler;
 
     public JdbcStatsProvider(String poolName, String appName, String moduleName, int sqlTraceCacheSize,
             long timeToKeepQueries) {
@@ -124,6 +145,25 @@ public class JdbcStatsProvider {
         }
     }
 
+    /**
+     * Whenever a statement cache reports its hit ratio, update
+     * statementCacheHitRatioPerCache.
+     * @param poolName JdbcConnectionPool to which the statement cache belongs.
+     * @param hitRatio hit ratio of the statement cache.
+     */
+    @ProbeListener(JdbcRAConstants.STATEMENT_CACHE_DOTTED_NAME + JdbcRAConstants.STATEMENT_CACHE_HIT_RATIO)
+    public void statementCacheHitRatioEvent(@ProbeParam("poolName") String poolName,
+                                            @ProbeParam("appName") String appName,
+                                            @ProbeParam("moduleName") String moduleName,
+                                            @ProbeParam("hitRatio") int hitRatio
+                                            ) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)){
+            statementCacheHitRatioPerCache.setCurrent(hitRatio);
+        }
+    }
+
     /**
      * Whenever a sql statement that is traced is to be cache for monitoring
      * purpose, the SQLTrace object is created for the specified sql and
@@ -179,6 +219,19 @@ public class JdbcStatsProvider {
         return numStatementCacheMiss;
     }
 
+    @ManagedAttribute(id="statementcachehitratio")
+    public CountStatistic getStatementCacheHitRatio() {
+        long hits = numStatementCacheHit.getCount();
+        long total = hits + numStatementCacheMiss.getCount();
+        statementCacheHitRatio.setCount(total == 0 ? 0 : hits * 100 / total);
+        return statementCacheHitRatio;
+    }
+
+    @ManagedAttribute(id="statementcachehitratiopercache")
+    public RangeStatistic getStatementCacheHitRatioPerCache() {
+        return statementCacheHitRatioPerCache;
+    }
+
     @ManagedAttribute(id="frequsedsqlqueries")
     public StringStatistic getfreqUsedSqlQueries() {
         if(sqlTraceCache != null) {
@@ -189,6 +242,14 @@ public class JdbcStatsProvider {
         return freqUsedSqlQueries;
     }
 
+    @ManagedAttribute(id="sqlprofile")
+    public StringStatistic getSqlProfile() {
+        if(sqlProfiler != null) {
+            sqlProfile.setCurrent(sqlProfiler.getReport());
+        }
+        return sqlProfile;
+    }
+
     @ManagedAttribute(id="numpotentialstatementleak")
     public CountStatistic getNumPotentialStatementLeak() {
         return numPotentialStatementLeak;
@@ -201,4 +262,16 @@ public class JdbcStatsProvider {
     public SQLTraceCache getSqlTraceCache() {
         return sqlTraceCache;
     }
+
+    /**
+     * Get the SQLProfiler associated with this stats provider.
+     * @return SQLProfiler
+     */
+    public SQLProfiler getSqlProfiler() {
+        return sqlProfiler;
+    }
+
+    public void setSqlProfiler(SQLProfiler sqlProfiler) {
+        this.sqlProfiler = sqlProfiler;
+    }
 }
@@ -83,4 +83,20 @@ public class StatementCacheProbeProvider {
 
     }
 
+    /**
+     * Emits probe event/notification with the hit ratio of one statement
+     * cache of the given connection pool <code>poolName</code>
+     *
+     * @param poolName to which the statement cache belongs
+     * @param hitRatio percentage of lookups that hit the statement cache
+     */
+    @Probe(name=JdbcRAConstants.STATEMENT_CACHE_HIT_RATIO)
+    public void statementCacheHitRatioEvent(@ProbeParam("poolName") String poolName,
+                                            @ProbeParam("appName") String appName,
+                                            @ProbeParam("moduleName") String moduleName,
+                                            @ProbeParam("hitRatio") int hitRatio
+                                            ) {
+
+    }
+
 }
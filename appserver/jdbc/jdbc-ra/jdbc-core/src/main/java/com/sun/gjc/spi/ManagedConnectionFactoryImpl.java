@@ -45,6 +45,9 @@ import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.gjc.common.DataSourceObjectBuilder;
 import com.sun.gjc.common.DataSourceSpec;
 import com.sun.gjc.monitoring.JdbcStatsProvider;
+import com.sun.gjc.spi.base.datastructure.CacheFactory;
+import com.sun.gjc.spi.base.datastructure.StatementKeyIndex;
+import com.sun.gjc.util.SQLProfiler;
 import com.sun.gjc.util.SQLTraceDelegator;
 import com.sun.gjc.util.SecurityUtils;
 import com.sun.logging.LogDomains;
@@ -97,6 +100,7 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
 
     private JdbcObjectsFactory jdbcObjectsFactory = JdbcObjectsFactory.getInstance();
     protected SQLTraceDelegator sqlTraceDelegator;
+    protected SQLProfiler sqlProfiler;
 
     static {
         _logger = LogDomains.getLogger(ManagedConnectionFactoryImpl.class, LogDomains.RSR_LOGGER);
@@ -108,9 +112,12 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
     private String statementCacheType = null;
     private long statementLeakTimeout = 0;
     private boolean statementLeakReclaim = false;
+    private boolean resultSetFastPath = false;
+    private int leakTraceSampleRate = 1;
 
     //Jdbc Stats provider that is created
     private JdbcStatsProvider jdbcStatsProvider = null;
+    private StatementKeyIndex statementKeyIndex = null;
 
     protected static final StringManager localStrings =
             StringManager.getManager(DataSourceObjectBuilder.class);
@@ -645,6 +652,45 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
         }
     }
 
+    private void detectSqlProfilerSupport() {
+        String samplingRate = getSqlProfilerSamplingRate();
+        double rate = 0;
+        if (samplingRate != null && !samplingRate.trim().equals("")) {
+            try {
+                rate = Double.parseDouble(samplingRate.trim());
+            } catch (NumberFormatException ex) {
+                _logger.log(Level.WARNING, "Invalid value for SqlProfilerSamplingRate : " + samplingRate);
+            }
+        }
+        if (rate <= 0) {
+            sqlProfiler = null;
+        } else {
+            int numTopQueriesToReport = 10;
+            String numTopQueries = getNumberOfTopQueriesToReport();
+            if (numTopQueries != null && !numTopQueries.equals("null")) {
+                try {
+                    numTopQueriesToReport = Integer.parseInt(numTopQueries.trim());
+                } catch (NumberFormatException ex) {
+                    _logger.log(Level.WARNING, "Invalid value for NumberOfTopQueriesToReport : " + numTopQueries);
+                }
+            }
+            sqlProfiler = new SQLProfiler(Math.min(rate, 100), numTopQueriesToReport);
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.fine("SqlProfilerSamplingRate : " + rate + " for pool : " + getPoolInfo());
+            }
+        }
+    }
+
+    /**
+     * Get the sql profiler of the pool, timing a sample of the statement
+     * executions in the statement wrappers.
+     *
+     * @return SQLProfiler, null if sql profiling is not enabled
+     */
+    public SQLProfiler getSQLProfiler() {
+        return sqlProfiler;
+    }
+
     private void detectStatementCachingSupport() {
         String cacheSize = getStatementCacheSize();
         if(cacheSize != null){
@@ -1088,6 +1134,9 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
 
     public void setNumberOfTopQueriesToReport(String numTopQueriesToReport) {
         spec.setDetail(DataSourceSpec.NUMBEROFTOPQUERIESTOREPORT, numTopQueriesToReport);
+        if (sqlProfiler != null) {
+            detectSqlProfilerSupport();
+        }
     }
 
     public String getTimeToKeepQueriesInMinutes() {
@@ -1098,6 +1147,66 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
         spec.setDetail(DataSourceSpec.TIMETOKEEPQUERIESINMINUTES, timeToKeepQueries);
     }
     
+    public String getResultSetFastPath() {
+        return spec.getDetail(DataSourceSpec.RESULTSETFASTPATH);
+    }
+
+    /**
+     * Enables the result set fast path of the statement wrappers : fetch
+     * size of cached statements is tuned from the observed result sizes and
+     * typed <code>getObject</code> calls are served by the primitive getters.
+     *
+     * @param value <code>String</code> representing "true" or "false"
+     */
+    public void setResultSetFastPath(String value) {
+        spec.setDetail(DataSourceSpec.RESULTSETFASTPATH, value);
+        resultSetFastPath = Boolean.valueOf(value);
+    }
+
+    public boolean isResultSetFastPathEnabled() {
+        return resultSetFastPath;
+    }
+
+    public String getSqlProfilerSamplingRate() {
+        return spec.getDetail(DataSourceSpec.SQLPROFILERSAMPLINGRATE);
+    }
+
+    /**
+     * Sets the percentage of statement executions that are timed by the
+     * sql profiler. The profiler is disabled when the rate is not positive.
+     *
+     * @param samplingRate <code>String</code>
+     */
+    public void setSqlProfilerSamplingRate(String samplingRate) {
+        spec.setDetail(DataSourceSpec.SQLPROFILERSAMPLINGRATE, samplingRate);
+        detectSqlProfilerSupport();
+    }
+
+    public String getLeakTraceSampleRate() {
+        return spec.getDetail(DataSourceSpec.LEAKTRACESAMPLERATE);
+    }
+
+    /**
+     * Sets the rate at which the statement leak detector captures the stack
+     * trace of the caller : 1 in <code>sampleRate</code> statements, and every
+     * statement of an application that leaked an untraced statement.
+     *
+     * @param sampleRate <code>String</code>
+     */
+    public void setLeakTraceSampleRate(String sampleRate) {
+        spec.setDetail(DataSourceSpec.LEAKTRACESAMPLERATE, sampleRate);
+        try {
+            leakTraceSampleRate = Math.max(1, Integer.parseInt(sampleRate));
+        } catch (NumberFormatException nfe) {
+            _logger.log(Level.WARNING, "Invalid value for 'LeakTraceSampleRate' : " + sampleRate);
+            leakTraceSampleRate = 1;
+        }
+    }
+
+    public int getStatementLeakTraceSampleRate() {
+        return leakTraceSampleRate;
+    }
+
     public String getInitSql() {
         return spec.getDetail(DataSourceSpec.INITSQL);
     }
@@ -1406,9 +1515,10 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
         }
         if (statementCacheSize > 0 ||
                 (sqlTraceListeners != null && !sqlTraceListeners.equals("null")) ||
-                statementLeakTimeout > 0) {
+                statementLeakTimeout > 0 || sqlProfiler != null) {
             jdbcStatsProvider = new JdbcStatsProvider(getPoolName(), getApplicationName(), getModuleName(),
                     sqlTraceCacheSize, timeToKeepQueries);
+            jdbcStatsProvider.setSqlProfiler(sqlProfiler);
             //get the poolname and use it to initialize the stats provider n register
             StatsProviderManager.register(
                     "jdbc-connection-pool",
@@ -1421,17 +1531,45 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
                 Timer timer = ((com.sun.gjc.spi.ResourceAdapterImpl) ra).getTimer();
                 jdbcStatsProvider.getSqlTraceCache().scheduleTimerTask(timer);
             }
+            if(sqlProfiler != null) {
+                if(_logger.isLoggable(Level.FINEST)) {
+                    _logger.finest("Scheduling timer task for sql profiler");
+                }
+                Timer timer = ((com.sun.gjc.spi.ResourceAdapterImpl) ra).getTimer();
+                sqlProfiler.scheduleTimerTask(timer);
+            }
             if(_logger.isLoggable(Level.FINEST)) {
                 _logger.finest("Registered JDBCRA Stats Provider");
             }
         }
     }
 
+    /**
+     * Get the key index shared by the statement caches of the connections
+     * created by this factory. The index is created on first use and
+     * dropped when the factory is destroyed.
+     *
+     * @param statementCacheSize statement cache size
+     * @return StatementKeyIndex
+     */
+    public synchronized StatementKeyIndex getStatementKeyIndex(int statementCacheSize) {
+        if (statementKeyIndex == null) {
+            statementKeyIndex = CacheFactory.createStatementKeyIndex(statementCacheSize);
+        }
+        return statementKeyIndex;
+    }
+
     @Override
     public void mcfDestroyed() {
         if(_logger.isLoggable(Level.FINEST)) {
             _logger.finest("MCF Destroyed");
         }
+        synchronized (this) {
+            if (statementKeyIndex != null) {
+                statementKeyIndex.clear();
+                statementKeyIndex = null;
+            }
+        }
         if(jdbcStatsProvider != null) {
             if(jdbcStatsProvider.getSqlTraceCache() != null) {
                 if(_logger.isLoggable(Level.FINEST)) {
@@ -1439,6 +1577,9 @@ public abstract class ManagedConnectionFactoryImpl implements javax.resource.spi
                 }
                 jdbcStatsProvider.getSqlTraceCache().cancelTimerTask();
             }
+            if(jdbcStatsProvider.getSqlProfiler() != null) {
+                jdbcStatsProvider.getSqlProfiler().cancelTimerTask();
+            }
             StatsProviderManager.unregister(jdbcStatsProvider);
             jdbcStatsProvider = null;
             if(_logger.isLoggable(Level.FINEST)) {
@@ -46,6 +46,8 @@ import com.sun.gjc.common.DataSourceObjectBuilder;
 import com.sun.gjc.spi.base.*;
 import com.sun.gjc.spi.base.datastructure.Cache;
 import com.sun.gjc.spi.base.datastructure.CacheFactory;
+import com.sun.gjc.spi.base.datastructure.CLOCKCacheImpl;
+import com.sun.gjc.spi.base.datastructure.StatementKeyIndex;
 import com.sun.gjc.util.SQLTraceDelegator;
 import com.sun.gjc.util.StatementLeakDetector;
 import com.sun.logging.LogDomains;
@@ -120,6 +122,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
     private int statementTimeout;
 
     private Cache statementCache = null;
+    private StatementKeyIndex statementKeyIndex = null;
     private int cacheSize;
     private String cacheType;
     private boolean statementCaching;
@@ -248,7 +251,15 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
         cacheType = statementCacheType;
         if (cacheSize > 0) {
             try {
-                statementCache = CacheFactory.getDataStructure(poolInfo, cacheType, cacheSize);
+                StatementKeyIndex keyIndex = null;
+                if (mcf instanceof ManagedConnectionFactoryImpl) {
+                    keyIndex = ((ManagedConnectionFactoryImpl) mcf).getStatementKeyIndex(cacheSize);
+                }
+                statementCache = CacheFactory.getDataStructure(poolInfo, cacheType,
+                        cacheSize, keyIndex);
+                if (statementCache instanceof CLOCKCacheImpl) {
+                    statementKeyIndex = ((CLOCKCacheImpl) statementCache).getKeyIndex();
+                }
                 statementCaching = true;
             } catch (ResourceException ex) {
                 _logger.severe(ex.getMessage());
@@ -267,7 +278,8 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
             if (leakDetector == null) {
                 leakDetector = new StatementLeakDetector(poolInfo, statementLeakTracing,
                         stmtLeakTimeout, stmtLeakReclaim,
-                        ((com.sun.gjc.spi.ResourceAdapterImpl) spiMCF.getResourceAdapter()).getTimer());
+                        ((com.sun.gjc.spi.ResourceAdapterImpl) spiMCF.getResourceAdapter()).getTimer(),
+                        spiMCF.getStatementLeakTraceSampleRate());
             }
         }
     }
@@ -949,12 +961,26 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
         }
     }
     
+    /**
+     * Get the statement cache key, shared with the other connections of the
+     * pool when the cache supports it.
+     */
+    private CacheObjectKey getCacheKey(String sql, String statementType,
+            int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+        if (statementKeyIndex != null) {
+            return statementKeyIndex.getKey(sql, statementType, resultSetType,
+                    resultSetConcurrency, resultSetHoldability);
+        }
+        return new CacheObjectKey(sql, statementType, resultSetType,
+                resultSetConcurrency, resultSetHoldability);
+    }
+
     public PreparedStatement prepareCachedStatement(
             ConnectionWrapper conWrapper, String sql, int resultSetType, 
             int resultSetConcurrency) throws SQLException {
         if (statementCaching) {
-            CacheObjectKey key = new CacheObjectKey(sql, 
-                    CacheObjectKey.PREPARED_STATEMENT, resultSetType, resultSetConcurrency);
+            CacheObjectKey key = getCacheKey(sql, 
+                    CacheObjectKey.PREPARED_STATEMENT, resultSetType, resultSetConcurrency, 0);
             //TODO-SC should a null check be done for statementCache?
             //TODO-SC refactor this method.
             PreparedStatementWrapper ps = 
@@ -997,7 +1023,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
             ConnectionWrapper conWrapper, String sql, int resultSetType, 
             int resultSetConcurrency, int resultSetHoldability) throws SQLException {
         if (statementCaching) {
-            CacheObjectKey key = new CacheObjectKey(sql, 
+            CacheObjectKey key = getCacheKey(sql, 
                     CacheObjectKey.PREPARED_STATEMENT, resultSetType, 
                     resultSetConcurrency, resultSetHoldability);
             //TODO-SC should a null check be done for statementCache?
@@ -1162,8 +1188,8 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
            int resultSetConcurrency) throws SQLException {
         if (statementCaching) {
             //Adding the sql as well as the Statement type "CS" to the CacheObjectKey object
-            CacheObjectKey key = new CacheObjectKey(sql, 
-                    CacheObjectKey.CALLABLE_STATEMENT, resultSetType, resultSetConcurrency);
+            CacheObjectKey key = getCacheKey(sql, 
+                    CacheObjectKey.CALLABLE_STATEMENT, resultSetType, resultSetConcurrency, 0);
             CallableStatementWrapper cs = 
                     (CallableStatementWrapper) 
                     statementCache.checkAndUpdateCache(key);
@@ -1206,7 +1232,7 @@ public class ManagedConnectionImpl implements javax.resource.spi.ManagedConnecti
            int resultSetConcurrency, int resultSetHoldability) throws SQLException {
         if (statementCaching) {
             //Adding the sql as well as the Statement type "CS" to the CacheObjectKey object
-            CacheObjectKey key = new CacheObjectKey(sql, 
+            CacheObjectKey key = getCacheKey(sql, 
                     CacheObjectKey.CALLABLE_STATEMENT, resultSetType, 
                     resultSetConcurrency, resultSetHoldability);
             CallableStatementWrapper cs = 
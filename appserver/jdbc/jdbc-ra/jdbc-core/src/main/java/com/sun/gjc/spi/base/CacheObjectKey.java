@@ -58,6 +58,8 @@ public class CacheObjectKey {
     protected int autoGeneratedKeys;
     protected int[] columnIndexes;
     protected String[] columnNames;
+    //hash is computed lazily and reset whenever a field is modified
+    private int hash;
 
     /**
      * Get the value of columnNames
@@ -75,6 +77,7 @@ public class CacheObjectKey {
      */
     public void setColumnNames(String[] columnNames) {
         this.columnNames = columnNames;
+        hash = 0;
     }
 
     /**
@@ -93,6 +96,7 @@ public class CacheObjectKey {
      */
     public void setColumnIndexes(int[] columnIndexes) {
         this.columnIndexes = columnIndexes;
+        hash = 0;
     }
 
     public CacheObjectKey(String sql, String statementType, 
@@ -140,6 +144,7 @@ public class CacheObjectKey {
 
     public void setAutoGeneratedKeys(int autoGeneratedKeys) {
         this.autoGeneratedKeys = autoGeneratedKeys;
+        hash = 0;
     }
 
     /**
@@ -158,6 +163,7 @@ public class CacheObjectKey {
      */
     public void setResultSetConcurrency(int resultSetConcurrency) {
         this.resultSetConcurrency = resultSetConcurrency;
+        hash = 0;
     }
 
     /**
@@ -176,6 +182,7 @@ public class CacheObjectKey {
      */
     public void setResultSetType(int resultSetType) {
         this.resultSetType = resultSetType;
+        hash = 0;
     }
     /**
      * Get the value of resultSetHoldability
@@ -193,6 +200,7 @@ public class CacheObjectKey {
      */
     public void setResultSetHoldability(int resultSetHoldability) {
         this.resultSetHoldability = resultSetHoldability;
+        hash = 0;
     }
 
     public CacheObjectKey() {
@@ -208,6 +216,9 @@ public class CacheObjectKey {
      */    
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
         if (obj == null) {
             return false;
         }
@@ -251,11 +262,22 @@ public class CacheObjectKey {
     }
 
     /**
-     * Generate hashCode for this object using the sql and statementType fields
+     * Generate hashCode for this object using the sql and statementType fields.
+     * The value is computed once as the key is used for every statement cache
+     * lookup.
      * @return has integer value
      */    
     @Override
     public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = computeHashCode();
+            hash = h;
+        }
+        return h;
+    }
+
+    private int computeHashCode() {
         int hash = 7;
         hash = 41 * hash + (this.sql != null ? this.sql.hashCode() : 0);
         hash = 41 * hash + (this.statementType != null ? this.statementType.hashCode() : 0);
@@ -294,6 +316,7 @@ public class CacheObjectKey {
      */
     public void setStatementType(String statementType) {
         this.statementType = statementType;
+        hash = 0;
     }
 
     /**
@@ -312,5 +335,6 @@ public class CacheObjectKey {
      */
     public void setSql(String sql) {
         this.sql = sql;
+        hash = 0;
     }    
 }
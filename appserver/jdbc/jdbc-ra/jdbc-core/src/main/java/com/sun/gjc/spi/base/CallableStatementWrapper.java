@@ -63,7 +63,19 @@ public abstract class CallableStatementWrapper extends PreparedStatementWrapper
      */
     public CallableStatementWrapper(Connection con, CallableStatement statement,
                                     boolean cachingEnabled) throws SQLException{
-        super(con, statement, cachingEnabled);
+        this(con, statement, cachingEnabled, null);
+    }
+
+    /**
+     * Creates a new instance of CallableStatementWrapper<br>
+     *
+     * @param con       ConnectionWrapper <br>
+     * @param statement Statement that is to be wrapped<br>
+     * @param sql       sql text the statement was prepared with <br>
+     */
+    public CallableStatementWrapper(Connection con, CallableStatement statement,
+                                    boolean cachingEnabled, String sql) throws SQLException{
+        super(con, statement, cachingEnabled, sql);
         callableStatement = statement;
     }
 
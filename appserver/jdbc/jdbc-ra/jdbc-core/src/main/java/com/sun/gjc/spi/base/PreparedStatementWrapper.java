@@ -70,6 +70,11 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
     private int currentFetchDirection;
     private int currentFetchSize;
     private boolean valid = true;
+    //Fetch size tuning of cached statements
+    private static final int MAX_TUNED_FETCH_SIZE = 1000;
+    private boolean fetchSizeSet;
+    private boolean fetchSizeTuned;
+    private int observedResultSize;
 
     /**
      * Abstract class for wrapping PreparedStatement <br>
@@ -81,7 +86,22 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
     */
     public PreparedStatementWrapper(Connection con,
                                     PreparedStatement statement, boolean cachingEnabled) throws SQLException {
+        this(con, statement, cachingEnabled, null);
+    }
+
+    /**
+     * Abstract class for wrapping PreparedStatement <br>
+     *
+     * @param con       Connection Wrapper <br>
+     * @param statement PreparedStatement that is to be wrapped.<br>
+     * @param cachingEnabled boolean that enabled/ disables caching <br>
+     * @param sql       sql text the statement was prepared with <br>
+     * @throws SQLException Exception thrown from underlying statement<br>
+    */
+    public PreparedStatementWrapper(Connection con, PreparedStatement statement,
+                                    boolean cachingEnabled, String sql) throws SQLException {
         super(con, statement);
+        preparedSql = sql;
         preparedStatement = statement;
         cached = cachingEnabled;
         ConnectionHolder wrappedCon = (ConnectionHolder) con;
@@ -122,7 +142,12 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
      *                               statement returns a <code>ResultSet</code> object
      */
     public int executeUpdate() throws SQLException {
-        return preparedStatement.executeUpdate();
+        long start = startExecution();
+        try {
+            return preparedStatement.executeUpdate();
+        } finally {
+            endExecution(preparedSql, start);
+        }
     }
 
     /**
@@ -505,7 +530,12 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
      * @see java.sql.Statement#getMoreResults
      */
     public boolean execute() throws SQLException {
-        return preparedStatement.execute();
+        long start = startExecution();
+        try {
+            return preparedStatement.execute();
+        } finally {
+            endExecution(preparedSql, start);
+        }
     }
 
     /**
@@ -803,6 +833,7 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
                 preparedStatement.setFetchSize(defaultFetchSize);
                 currentFetchSize = defaultFetchSize;
             }
+            fetchSizeSet = false;
             if (defaultMaxRows != currentMaxRows) {
                 preparedStatement.setMaxRows(defaultMaxRows);
                 currentMaxRows = defaultMaxRows;
@@ -867,8 +898,10 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
 
     public void setFetchSize(int rows) throws SQLException {
         preparedStatement.setFetchSize(rows);
-        if (cached)
+        if (cached) {
             currentFetchSize = rows;
+            fetchSizeSet = true;
+        }
     }
 
     public void setCached(boolean cached){
@@ -883,6 +916,60 @@ public abstract class PreparedStatementWrapper extends StatementWrapper implemen
         this.valid = valid;
     }
 
+    /**
+     * Size the fetch of a cached statement from the result sizes observed
+     * during its previous executions, so that a typical result is read in a
+     * single round trip. Only done when the result set fast path is enabled,
+     * the application has not set a fetch size itself and the driver uses a
+     * positive default fetch size; a fetch size of 0 leaves it to the driver
+     * and changing it may alter the driver's behavior (eg. cursor based fetch).
+     * The tuned fetch size only applies to the execution that follows, it is
+     * undone by <code>restoreFetchSize</code>.
+     *
+     * @throws SQLException if the fetch size could not be set
+     */
+    protected void tuneFetchSize() throws SQLException {
+        if (!cached || !isResultSetFastPath() || fetchSizeSet
+                || defaultFetchSize <= 0 || observedResultSize == 0) {
+            return;
+        }
+        int fetchSize = Math.max(defaultFetchSize,
+                Math.min(MAX_TUNED_FETCH_SIZE, observedResultSize + 1));
+        if (fetchSize != currentFetchSize) {
+            preparedStatement.setFetchSize(fetchSize);
+            fetchSizeTuned = true;
+        }
+    }
+
+    /**
+     * Put back the fetch size seen by the application once the tuned
+     * execution is done. The result set that was opened keeps the fetch size
+     * it was created with.
+     *
+     * @throws SQLException if the fetch size could not be set
+     */
+    protected void restoreFetchSize() throws SQLException {
+        if (fetchSizeTuned) {
+            fetchSizeTuned = false;
+            preparedStatement.setFetchSize(currentFetchSize);
+        }
+    }
+
+    /**
+     * Record the number of rows read from a result set of this statement.
+     * The observed result size is a moving average biased towards the larger
+     * results, so that an occasional small result does not shrink the fetch.
+     *
+     * @param rows number of rows read
+     */
+    public void resultSetFetched(int rows) {
+        if (rows >= observedResultSize) {
+            observedResultSize = rows;
+        } else {
+            observedResultSize = (3 * observedResultSize + rows) / 4;
+        }
+    }
+
     public void incrementResultSetReferenceCount() {
         //Update resultSetCount to be used in case of jdbc41 closeOnCompletion
         if (DataSourceObjectBuilder.isJDBC41() && getCached()) {
@@ -42,6 +42,7 @@ package com.sun.gjc.spi.base;
 
 import com.sun.gjc.util.MethodExecutor;
 import com.sun.gjc.util.ResultSetClosedEventListener;
+import com.sun.gjc.util.SQLProfiler;
 import com.sun.logging.LogDomains;
 import java.io.InputStream;
 import java.io.Reader;
@@ -63,6 +64,12 @@ public abstract class ResultSetWrapper implements ResultSet {
     private MethodExecutor executor = null;
     protected final static Logger _logger;
     private ResultSetClosedEventListener eventListener = null;
+    protected boolean fastPath = false;
+    //Statement whose fetch size is tuned from the rows read through this result set
+    private PreparedStatementWrapper fetchSizeTuner = null;
+    //Sampled execution whose rows fetched are recorded by the sql profiler
+    private SQLProfiler.Sample profilerSample = null;
+    private int rowsFetched;
 
     static {
         _logger = LogDomains.getLogger(MethodExecutor.class, LogDomains.RSR_LOGGER);
@@ -77,10 +84,16 @@ public abstract class ResultSetWrapper implements ResultSet {
     public ResultSetWrapper(Statement stmt, ResultSet rs) {
         resultSet = rs;
         statement = stmt;
-        executor = new MethodExecutor();
         if(stmt instanceof ResultSetClosedEventListener) {
             eventListener = (ResultSetClosedEventListener) stmt;
         }
+        if (stmt instanceof StatementWrapper) {
+            fastPath = ((StatementWrapper) stmt).isResultSetFastPath();
+            if (fastPath && stmt instanceof PreparedStatementWrapper
+                    && ((PreparedStatementWrapper) stmt).getCached()) {
+                fetchSizeTuner = (PreparedStatementWrapper) stmt;
+            }
+        }
     }
 
     /**
@@ -100,7 +113,36 @@ public abstract class ResultSetWrapper implements ResultSet {
      * @throws java.sql.SQLException if a database access error occurs
      */
     public boolean next() throws SQLException {
-        return resultSet.next();
+        boolean hasNext = resultSet.next();
+        if (fetchSizeTuner != null || profilerSample != null) {
+            if (hasNext) {
+                rowsFetched++;
+            } else {
+                reportRowsFetched();
+            }
+        }
+        return hasNext;
+    }
+
+    private void reportRowsFetched() {
+        if (fetchSizeTuner != null) {
+            fetchSizeTuner.resultSetFetched(rowsFetched);
+            fetchSizeTuner = null;
+        }
+        if (profilerSample != null) {
+            profilerSample.rowsFetched(rowsFetched);
+            profilerSample = null;
+        }
+    }
+
+    /**
+     * Record the rows fetched through this result set with the sample of
+     * the execution that produced it.
+     *
+     * @param sample sampled execution, null if the execution is not sampled
+     */
+    public void setSQLProfilerSample(SQLProfiler.Sample sample) {
+        profilerSample = sample;
     }
 
     /**
@@ -119,6 +161,7 @@ public abstract class ResultSetWrapper implements ResultSet {
      * @throws java.sql.SQLException if a database access error occurs
      */
     public void close() throws SQLException {
+        reportRowsFetched();
         resultSet.close();
         if (eventListener != null) {
             eventListener.resultSetClosed();
@@ -2475,6 +2518,9 @@ public abstract class ResultSetWrapper implements ResultSet {
     }
 
     protected MethodExecutor getMethodExecutor() {
+        if (executor == null) {
+            executor = new MethodExecutor();
+        }
         return executor;
     }
 }
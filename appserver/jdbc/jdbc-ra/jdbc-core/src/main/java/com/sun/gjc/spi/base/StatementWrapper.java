@@ -41,7 +41,9 @@
 package com.sun.gjc.spi.base;
 
 import com.sun.gjc.common.DataSourceObjectBuilder;
+import com.sun.gjc.spi.ManagedConnectionFactoryImpl;
 import com.sun.gjc.util.MethodExecutor;
+import com.sun.gjc.util.SQLProfiler;
 import com.sun.gjc.util.StatementLeakDetector;
 import com.sun.gjc.util.StatementLeakListener;
 import com.sun.logging.LogDomains;
@@ -69,6 +71,13 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
     protected MethodExecutor executor = null;
     private boolean closeOnCompletion = false;
     protected AtomicInteger resultSetCount = new AtomicInteger();
+    private boolean resultSetFastPath = false;
+    protected SQLProfiler sqlProfiler = null;
+    //sql text the statement was prepared with, null for a plain statement
+    protected String preparedSql = null;
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+    //profiled sql of a batch of a plain statement, which may mix statements
+    private static final String BATCH_SQL = "<batch>";
 
 
     static {
@@ -85,6 +94,12 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
         connection = con;
         jdbcStatement = statement;
         executor = new MethodExecutor();
+        if (con instanceof ConnectionHolder) {
+            ManagedConnectionFactoryImpl mcf = ((ConnectionHolder) con)
+                    .getManagedConnection().getManagedConnectionFactory();
+            resultSetFastPath = mcf.isResultSetFastPathEnabled();
+            sqlProfiler = mcf.getSQLProfiler();
+        }
         //Start leak tracing if statement is a pure Statement & stmtWrapping is ON
         //Check if this is an instanceof PS/CS. There could exist
         //a CustomStatement class in a jdbc driver that implements PS/CS as well
@@ -115,7 +130,12 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
      *                               SQL statement produces a <code>ResultSet</code> object
      */
     public int executeUpdate(final String sql) throws SQLException {
-        return jdbcStatement.executeUpdate(sql);
+        long start = startExecution();
+        try {
+            return jdbcStatement.executeUpdate(sql);
+        } finally {
+            endExecution(sql, start);
+        }
     }
 
     /**
@@ -357,7 +377,12 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
      * @see #getMoreResults
      */
     public boolean execute(final String sql) throws SQLException {
-        return jdbcStatement.execute(sql);
+        long start = startExecution();
+        try {
+            return jdbcStatement.execute(sql);
+        } finally {
+            endExecution(sql, start);
+        }
     }
 
 
@@ -583,7 +608,12 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
      * @since 1.3
      */
     public int[] executeBatch() throws SQLException {
-        return jdbcStatement.executeBatch();
+        long start = startExecution();
+        try {
+            return jdbcStatement.executeBatch();
+        } finally {
+            endExecution((preparedSql != null) ? preparedSql : BATCH_SQL, start);
+        }
     }
 
     /**
@@ -665,7 +695,12 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
      * @since 1.4
      */
     public int executeUpdate(final String sql, int autoGeneratedKeys) throws SQLException {
-        return jdbcStatement.executeUpdate(sql, autoGeneratedKeys);
+        long start = startExecution();
+        try {
+            return jdbcStatement.executeUpdate(sql, autoGeneratedKeys);
+        } finally {
+            endExecution(sql, start);
+        }
     }
 
     /**
@@ -689,7 +724,12 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
      * @since 1.4
      */
     public int executeUpdate(final String sql, int columnIndexes[]) throws SQLException {
-        return jdbcStatement.executeUpdate(sql, columnIndexes);
+        long start = startExecution();
+        try {
+            return jdbcStatement.executeUpdate(sql, columnIndexes);
+        } finally {
+            endExecution(sql, start);
+        }
     }
 
     /**
@@ -712,7 +752,12 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
      * @since 1.4
      */
     public int executeUpdate(final String sql, String columnNames[]) throws SQLException {
-        return jdbcStatement.executeUpdate(sql, columnNames);
+        long start = startExecution();
+        try {
+            return jdbcStatement.executeUpdate(sql, columnNames);
+        } finally {
+            endExecution(sql, start);
+        }
     }
 
     /**
@@ -754,7 +799,12 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
      * @since 1.4
      */
     public boolean execute(final String sql, int autoGeneratedKeys) throws SQLException {
-        return jdbcStatement.execute(sql, autoGeneratedKeys);
+        long start = startExecution();
+        try {
+            return jdbcStatement.execute(sql, autoGeneratedKeys);
+        } finally {
+            endExecution(sql, start);
+        }
     }
 
     /**
@@ -794,7 +844,12 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
      * @since 1.4
      */
     public boolean execute(final String sql, int columnIndexes[]) throws SQLException {
-        return jdbcStatement.execute(sql, columnIndexes);
+        long start = startExecution();
+        try {
+            return jdbcStatement.execute(sql, columnIndexes);
+        } finally {
+            endExecution(sql, start);
+        }
     }
 
     /**
@@ -835,7 +890,12 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
      * @since 1.4
      */
     public boolean execute(final String sql, String columnNames[]) throws SQLException {
-        return jdbcStatement.execute(sql, columnNames);
+        long start = startExecution();
+        try {
+            return jdbcStatement.execute(sql, columnNames);
+        } finally {
+            endExecution(sql, start);
+        }
     }
 
     /**
@@ -864,6 +924,37 @@ public abstract class StatementWrapper implements Statement, StatementLeakListen
         return markedForReclaim;
     }
 
+    /**
+     * Starts timing an execution if the sql profiler samples it.
+     *
+     * @return start time of a sampled execution
+     */
+    protected long startExecution() {
+        if (sqlProfiler != null && sqlProfiler.sample()) {
+            return System.nanoTime();
+        }
+        return NOT_SAMPLED;
+    }
+
+    /**
+     * Records a sampled execution with the sql profiler.
+     *
+     * @param sql   sql text executed
+     * @param start value returned by startExecution()
+     * @return Sample to record the rows fetched by the execution, null if
+     *         the execution is not sampled
+     */
+    protected SQLProfiler.Sample endExecution(String sql, long start) {
+        if (start == NOT_SAMPLED || sql == null) {
+            return null;
+        }
+        return sqlProfiler.recordExecution(sql, System.nanoTime() - start);
+    }
+
+    public boolean isResultSetFastPath() {
+        return resultSetFastPath;
+    }
+
     public void closeOnCompletion() throws SQLException {
         if (leakDetector != null) {
             _logger.log(Level.INFO, "jdbc.invalid_operation.close_on_completion");
@@ -0,0 +1,329 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.monitoring.StatementCacheProbeProvider;
+import com.sun.gjc.spi.base.CacheObjectKey;
+import com.sun.gjc.spi.base.PreparedStatementWrapper;
+import com.sun.logging.LogDomains;
+import org.glassfish.resourcebase.resources.api.PoolInfo;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Statement cache with CLOCK (second chance) eviction.<br>
+ * Lookups do not take a lock: a hit only marks the entry as referenced.
+ * Additions and evictions are serialized on the cache. When the cache is full
+ * the clock hand sweeps the entries, clearing the reference mark of recently
+ * used ones, and evicts the first entry that was not referenced since the
+ * last sweep. Statements in use are never evicted. When no entry can be
+ * evicted the new statement is not cached.
+ * <p/>
+ * Keys are shared with the other statement caches of the pool through the
+ * pool's {@link StatementKeyIndex}. Callers obtain lookup keys from
+ * {@link #getKeyIndex()}, so that a hit is found with the canonical key.
+ */
+public class CLOCKCacheImpl implements Cache {
+
+    /**
+     * hit ratio is published after every so many lookups
+     */
+    private static final int HIT_RATIO_REPORT_INTERVAL = 1024;
+
+    private final ConcurrentMap<CacheObjectKey, CacheEntry> map;
+    private final CacheEntry[] clock;
+    private int hand = 0;
+    private final int maxSize;
+    private final StatementKeyIndex keyIndex;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+
+    protected final static Logger _logger =
+            LogDomains.getLogger(CLOCKCacheImpl.class, LogDomains.RSR_LOGGER);
+    private StatementCacheProbeProvider probeProvider = null;
+    private PoolInfo poolInfo;
+
+    public CLOCKCacheImpl(PoolInfo poolInfo, int maxSize, StatementKeyIndex keyIndex) {
+        this.poolInfo = poolInfo;
+        this.maxSize = maxSize;
+        this.keyIndex = keyIndex;
+        map = new ConcurrentHashMap<CacheObjectKey, CacheEntry>(maxSize * 4 / 3 + 1);
+        clock = new CacheEntry[maxSize];
+        try {
+            probeProvider = new StatementCacheProbeProvider();
+        } catch (Exception ex) {
+            _logger.log(Level.FINE, "Unable to create statement cache probe provider", ex);
+        }
+    }
+
+    public Object checkAndUpdateCache(CacheObjectKey key) {
+        Object result = null;
+        CacheEntry entry = map.get(key);
+        if (entry != null) {
+            entry.referenced = true;
+            result = entry.entryObj;
+            if (_logger.isLoggable(Level.FINEST)) {
+                _logger.finest("Cache Hit");
+            }
+            hits.incrementAndGet();
+            if (probeProvider != null) {
+                probeProvider.statementCacheHitEvent(poolInfo.getName(),
+                        poolInfo.getApplicationName(), poolInfo.getModuleName());
+            }
+        } else {
+            if (_logger.isLoggable(Level.FINEST)) {
+                _logger.finest("Cache Miss");
+            }
+            if (probeProvider != null) {
+                probeProvider.statementCacheMissEvent(poolInfo.getName(),
+                        poolInfo.getApplicationName(), poolInfo.getModuleName());
+            }
+        }
+        if (lookups.incrementAndGet() % HIT_RATIO_REPORT_INTERVAL == 0) {
+            reportHitRatio();
+        }
+        return result;
+    }
+
+    public synchronized void addToCache(CacheObjectKey key, Object o, boolean force) {
+        CacheEntry existing = map.get(key);
+        if (existing != null && !force) {
+            return;
+        }
+        if (existing == null && map.size() >= maxSize && !evict()) {
+            //every cached statement is in use
+            setCached(o, false);
+            return;
+        }
+        if (keyIndex != null) {
+            key = keyIndex.intern(key);
+        }
+        CacheEntry entry = new CacheEntry(key, o);
+        if (existing != null) {
+            entry.slot = existing.slot;
+            if (existing.entryObj != o) {
+                release(existing.entryObj);
+            }
+        } else {
+            entry.slot = freeSlot();
+        }
+        clock[entry.slot] = entry;
+        map.put(key, entry);
+    }
+
+    /**
+     * @return index of an unused slot. Called only when the cache is not full.
+     */
+    private int freeSlot() {
+        for (int i = 0; i < clock.length; i++) {
+            int slot = (hand + i) % clock.length;
+            if (clock[slot] == null) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("No free slot in statement cache");
+    }
+
+    /**
+     * Evict one entry chosen by the clock hand.
+     *
+     * @return boolean indicating whether an entry was evicted
+     */
+    private boolean evict() {
+        //two sweeps: the first one may only clear the reference marks
+        for (int i = 0; i < 2 * clock.length; i++) {
+            CacheEntry entry = clock[hand];
+            int slot = hand;
+            hand = (hand + 1) % clock.length;
+            if (entry == null) {
+                continue;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+            } else if (!isBusy(entry.entryObj)) {
+                remove(entry, slot);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Release a statement displaced from the cache. A statement in use is
+     * closed by the application, as it is no longer marked cached.
+     */
+    private static void release(Object o) {
+        if (isBusy(o)) {
+            setCached(o, false);
+        } else {
+            closeStatement(o);
+        }
+    }
+
+    private void remove(CacheEntry entry, int slot) {
+        clock[slot] = null;
+        map.remove(entry.key, entry);
+        closeStatement(entry.entryObj);
+    }
+
+    public synchronized void clearCache() {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.fine("clearing objects in cache");
+        }
+        map.clear();
+        for (int i = 0; i < clock.length; i++) {
+            clock[i] = null;
+        }
+    }
+
+    public synchronized void flushCache() {
+        reportHitRatio();
+        for (int i = 0; i < clock.length; i++) {
+            CacheEntry entry = clock[i];
+            if (entry != null) {
+                remove(entry, i);
+            }
+        }
+    }
+
+    public synchronized void purge() {
+        if (map.size() > 0 && !evict()) {
+            //all statements are in use, remove the one under the hand
+            for (int i = 0; i < clock.length; i++) {
+                int slot = (hand + i) % clock.length;
+                if (clock[slot] != null) {
+                    remove(clock[slot], slot);
+                    break;
+                }
+            }
+        }
+    }
+
+    public synchronized void purge(Object obj) {
+        for (int i = 0; i < clock.length; i++) {
+            CacheEntry entry = clock[i];
+            if (entry != null && entry.entryObj == obj) {
+                if (_logger.isLoggable(Level.FINEST)) {
+                    _logger.log(Level.FINEST, "Purging an entry from cache");
+                }
+                remove(entry, i);
+                break;
+            }
+        }
+    }
+
+    public int getSize() {
+        return map.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return percentage of lookups that found a statement in this cache
+     */
+    public int getHitRatio() {
+        long total = lookups.get();
+        long h = hits.get();
+        //hits may be counted ahead of the lookup that produced them
+        return total == 0 ? 0 : (int) (Math.min(h, total) * 100 / total);
+    }
+
+    /**
+     * @return StatementKeyIndex of the pool, or null if keys are not shared
+     */
+    public StatementKeyIndex getKeyIndex() {
+        return keyIndex;
+    }
+
+    public boolean isSynchronized() {
+        return true;
+    }
+
+    private void reportHitRatio() {
+        if (probeProvider != null) {
+            probeProvider.statementCacheHitRatioEvent(poolInfo.getName(),
+                    poolInfo.getApplicationName(), poolInfo.getModuleName(), getHitRatio());
+        }
+    }
+
+    private static boolean isBusy(Object o) {
+        return o instanceof PreparedStatementWrapper && ((PreparedStatementWrapper) o).isBusy();
+    }
+
+    private static void setCached(Object o, boolean cached) {
+        if (o instanceof PreparedStatementWrapper) {
+            ((PreparedStatementWrapper) o).setCached(cached);
+        }
+    }
+
+    private static void closeStatement(Object o) {
+        try {
+            //TODO Move to a more generic Contract and invoke close()
+            PreparedStatementWrapper ps = (PreparedStatementWrapper) o;
+            ps.setCached(false);
+            ps.close();
+        } catch (SQLException e) {
+            //ignore
+        }
+    }
+
+    /**
+     * Cache entry with the CLOCK reference mark.
+     */
+    private static class CacheEntry {
+        private final CacheObjectKey key;
+        private final Object entryObj;
+        private volatile boolean referenced;
+        private int slot;
+
+        CacheEntry(CacheObjectKey key, Object o) {
+            this.key = key;
+            this.entryObj = o;
+        }
+    }
+}
@@ -65,8 +65,22 @@ public class CacheFactory {
     protected final static StringManager localStrings =
             StringManager.getManager(DataSourceObjectBuilder.class);
 
+    /**
+     * Number of keys indexed per pool, as a multiple of the statement cache size
+     */
+    private static final int KEY_INDEX_SIZE_FACTOR = 4;
+
     public static Cache getDataStructure(PoolInfo poolInfo, String cacheType,
             int maxSize) throws ResourceException {
+        return getDataStructure(poolInfo, cacheType, maxSize, null);
+    }
+
+    /**
+     * @param keyIndex key index shared by the statement caches of the pool,
+     *                 or null if keys are not to be shared
+     */
+    public static Cache getDataStructure(PoolInfo poolInfo, String cacheType,
+            int maxSize, StatementKeyIndex keyIndex) throws ResourceException {
         Cache stmtCacheStructure;
 
         if(cacheType == null || cacheType.trim().equals("")) {
@@ -75,6 +89,9 @@ public class CacheFactory {
         } else if(cacheType.equals("FIXED")) {
             debug("Initializing FIXED Cache Implementation");
             stmtCacheStructure = new FIXEDCacheImpl(poolInfo, maxSize);
+        } else if(cacheType.equals("CLOCK")) {
+            debug("Initializing CLOCK Cache Implementation");
+            stmtCacheStructure = new CLOCKCacheImpl(poolInfo, maxSize, keyIndex);
         } else { // consider the value of cacheType as a className
             stmtCacheStructure = initCustomCacheStructurePrivileged(cacheType,
                     maxSize);
@@ -85,6 +102,17 @@ public class CacheFactory {
         return stmtCacheStructure;
     }
 
+    /**
+     * Create the statement key index to be shared by the statement caches of
+     * a pool.
+     *
+     * @param maxSize statement cache size
+     * @return StatementKeyIndex
+     */
+    public static StatementKeyIndex createStatementKeyIndex(int maxSize) {
+        return new StatementKeyIndex(maxSize * KEY_INDEX_SIZE_FACTOR);
+    }
+
     private static Cache initCustomCacheStructurePrivileged(
             final String className, final int cacheSize) throws ResourceException {
         Object result = AccessController.doPrivileged(new PrivilegedAction() {
@@ -0,0 +1,169 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.gjc.spi.base.datastructure;
+
+import com.sun.gjc.spi.base.CacheObjectKey;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pool wide index of statement cache keys.<br>
+ * Statements are bound to their physical connection and hence are cached per
+ * managed connection, but the keys describing them are the same on every
+ * connection of the pool. The statement caches of a pool share one canonical
+ * key instance (with its hash code computed once) per sql text and statement
+ * type instead of keeping a copy per connection.
+ * <p/>
+ * The index is bounded. When it is full, keys are evicted in insertion order,
+ * skipping (once) keys that were looked up since they were last examined.
+ * Caches that still hold an evicted key keep working, as keys are compared by
+ * value; the key just is no longer shared.
+ */
+public class StatementKeyIndex {
+
+    private final ConcurrentMap<CacheObjectKey, IndexEntry> keys =
+            new ConcurrentHashMap<CacheObjectKey, IndexEntry>();
+    private final Queue<IndexEntry> order = new ConcurrentLinkedQueue<IndexEntry>();
+    private final int maxSize;
+
+    /**
+     * Reusable key per thread for lookups by statement attributes. Shared by
+     * all indexes, so that recreating pools does not leave a stale entry per
+     * index in the thread local map of every request thread.
+     */
+    private static final ThreadLocal<CacheObjectKey> probe = new ThreadLocal<CacheObjectKey>() {
+        @Override
+        protected CacheObjectKey initialValue() {
+            return new CacheObjectKey();
+        }
+    };
+
+    /**
+     * @param maxSize maximum number of keys indexed
+     */
+    public StatementKeyIndex(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the canonical key for the statement attributes. No key is
+     * created when the statement is already indexed.
+     *
+     * @return CacheObjectKey canonical key
+     */
+    public CacheObjectKey getKey(String sql, String statementType,
+            int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+        CacheObjectKey key = probe.get();
+        key.setSql(sql);
+        key.setStatementType(statementType);
+        key.setResultSetType(resultSetType);
+        key.setResultSetConcurrency(resultSetConcurrency);
+        key.setResultSetHoldability(resultSetHoldability);
+        IndexEntry entry = keys.get(key);
+        //do not keep the sql of the last statement reachable from the thread
+        key.setSql(null);
+        if (entry != null) {
+            entry.referenced = true;
+            return entry.key;
+        }
+        return intern(new CacheObjectKey(sql, statementType, resultSetType,
+                resultSetConcurrency, resultSetHoldability));
+    }
+
+    /**
+     * Returns the canonical instance of the key.
+     *
+     * @param key statement cache key
+     * @return CacheObjectKey canonical key
+     */
+    public CacheObjectKey intern(CacheObjectKey key) {
+        IndexEntry entry = keys.get(key);
+        if (entry == null) {
+            IndexEntry newEntry = new IndexEntry(key);
+            entry = keys.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                order.offer(newEntry);
+                evictOverflow();
+                return key;
+            }
+        }
+        entry.referenced = true;
+        return entry.key;
+    }
+
+    private void evictOverflow() {
+        //bounded, so that a queue of referenced keys is not cycled forever
+        int attempts = 2 * maxSize;
+        while (keys.size() > maxSize && attempts-- > 0) {
+            IndexEntry entry = order.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                order.offer(entry);
+            } else {
+                keys.remove(entry.key, entry);
+            }
+        }
+    }
+
+    public int getSize() {
+        return keys.size();
+    }
+
+    public void clear() {
+        keys.clear();
+        order.clear();
+    }
+
+    private static class IndexEntry {
+        private final CacheObjectKey key;
+        private volatile boolean referenced;
+
+        IndexEntry(CacheObjectKey key) {
+            this.key = key;
+        }
+    }
+}
@@ -45,14 +45,21 @@ import com.sun.gjc.common.DataSourceObjectBuilder;
 import com.sun.logging.LogDomains;
 
 import javax.resource.ResourceException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Vector;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -71,6 +78,18 @@ public class MethodExecutor implements java.io.Serializable {
     }
 
     private boolean debug = false;
+
+    private static final MethodType INVOKER_TYPE =
+            MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    //Invokers of the methods of a class, keyed by method name and parameter types
+    private static final ClassValue<ConcurrentHashMap<String, Invoker>> invokers =
+            new ClassValue<ConcurrentHashMap<String, Invoker>>() {
+                @Override
+                protected ConcurrentHashMap<String, Invoker> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<String, Invoker>();
+                }
+            };
     
     private final static String newline = System.getProperty("line.separator");
 
@@ -96,33 +115,7 @@ public class MethodExecutor implements java.io.Serializable {
         if (parameters.length == 1) {
             Object[] values = new Object[1];
             values[0] = convertType(parameters[0], value);
-
-            final ResourceException[] exception = new ResourceException[1];
-            AccessController
-                .doPrivileged(new PrivilegedAction() {
-                    public Object run() {
-                        try {
-                            method.setAccessible(true);
-                            method.invoke(obj, values);
-                        } catch (IllegalAccessException | InvocationTargetException | SecurityException iae) {
-                            _logger.log(Level.SEVERE, "jdbc.exc_jb_val", value);
-                            _logger.log(Level.SEVERE, "", iae);
-                            String msg = sm.getString("me.access_denied",
-                                method.getName());
-                            exception[0] = new ResourceException(msg);
-                        } catch (IllegalArgumentException ie) {
-                            _logger.log(Level.SEVERE, "jdbc.exc_jb_val", value);
-                            _logger.log(Level.SEVERE, "", ie);
-                            String msg = sm
-                                .getString("me.illegal_args", method.getName());
-                            exception[0] = new ResourceException(msg);
-                        }
-                        return null;
-                    }
-                });
-            if( exception[0] != null){
-                throw exception[0];
-            }
+            runMethod(method, obj, values, value);
         }
     }
 
@@ -150,30 +143,26 @@ public class MethodExecutor implements java.io.Serializable {
                     actualValues[i] = convertType(parameters[i], val);
                 }
             }
-        final ResourceException[] exception = new ResourceException[1];
-         AccessController.doPrivileged(new PrivilegedAction() {
-            public Object run() {
-                try {
-                    method.setAccessible(true);
-                    method.invoke(obj, actualValues);
-                } catch (IllegalAccessException | InvocationTargetException | SecurityException iae) {
-                    _logger.log(Level.SEVERE, "jdbc.exc_jb_val", values);
-                    _logger.log(Level.SEVERE, "", iae);
-                    String msg = sm
-                        .getString("me.access_denied", method.getName());
-                    exception[0] = new ResourceException(msg);
-                } catch (IllegalArgumentException ie) {
-                    _logger.log(Level.SEVERE, "jdbc.exc_jb_val", values);
-                    _logger.log(Level.SEVERE, "", ie);
-                    String msg = sm
-                        .getString("me.illegal_args", method.getName());
-                    exception[0] = new ResourceException(msg);
-                }
-                return null;
-            }
-        });
-        if( exception[0] != null){
-            throw exception[0];
+            runMethod(method, obj, actualValues, values);
+    }
+
+    private void runMethod(Method method, Object obj, Object[] actualValues, Object values)
+            throws ResourceException {
+        try {
+            Invoker invoker = getInvoker(method.getDeclaringClass(), method);
+            invoke(invoker, obj, actualValues);
+        } catch (IllegalAccessException | InvocationTargetException | SecurityException iae) {
+            _logger.log(Level.SEVERE, "jdbc.exc_jb_val", values);
+            _logger.log(Level.SEVERE, "", iae);
+            String msg = sm
+                .getString("me.access_denied", method.getName());
+            throw new ResourceException(msg);
+        } catch (IllegalArgumentException | ClassCastException ie) {
+            _logger.log(Level.SEVERE, "jdbc.exc_jb_val", values);
+            _logger.log(Level.SEVERE, "", ie);
+            String msg = sm
+                .getString("me.illegal_args", method.getName());
+            throw new ResourceException(msg);
         }
     }
 
@@ -245,31 +234,196 @@ public class MethodExecutor implements java.io.Serializable {
 
     public Object invokeMethod(Object object, String methodName, 
             Class<?>[] valueTypes, Object... values) throws ResourceException {
-        Object returnValue = null;
-        Method actualMethod ;
+        Class<?> type = object.getClass();
+        String key = getInvokerKey(methodName, valueTypes);
+        Invoker invoker = invokers.get(type).get(key);
         try {
-            actualMethod = object.getClass().getMethod(methodName, valueTypes);
-        } catch (NoSuchMethodException ex) {
-            throw new ResourceException(ex);
-        } catch (SecurityException ex) {
+            if (invoker == null) {
+                invoker = getInvoker(type, type.getMethod(methodName, valueTypes));
+            }
+            return invoke(invoker, object, values);
+        } catch (NoSuchMethodException | SecurityException | IllegalAccessException
+                | InvocationTargetException ex) {
             throw new ResourceException(ex);
         }
-        if (actualMethod != null) {
-            try {
-                returnValue = AccessController.doPrivileged(
-                    (PrivilegedExceptionAction<Object>) () -> {
-                            actualMethod.setAccessible(true);
-                            return actualMethod.invoke(object, values);
-                    });
-            } catch (PrivilegedActionException e) {
-                if(e.getException() != null){
-                    throw new ResourceException(e.getException());
-                }else{
-                    throw new ResourceException(e);
+    }
+
+    /**
+     * Get the invoker of a method, creating and caching it on first use.
+     * An invoker takes the target object and the array of arguments and
+     * returns the result, null for void methods.
+     *
+     * @param type   class of the objects on which the method is invoked
+     * @param method method to be invoked
+     * @return invoker of the method
+     * @throws IllegalAccessException if the method is not accessible
+     */
+    private static Invoker getInvoker(Class<?> type, final Method method)
+            throws IllegalAccessException {
+        ConcurrentHashMap<String, Invoker> typeInvokers = invokers.get(type);
+        String key = getInvokerKey(method.getName(), method.getParameterTypes());
+        Invoker invoker = typeInvokers.get(key);
+        if (invoker == null) {
+            //The class of a driver object need not be public
+            AccessController.doPrivileged(new PrivilegedAction<Object>() {
+                public Object run() {
+                    method.setAccessible(true);
+                    return null;
+                }
+            });
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            handle = handle.asSpreader(Object[].class, method.getParameterTypes().length)
+                    .asType(INVOKER_TYPE);
+            invoker = new Invoker(method, handle);
+            Invoker existing = typeInvokers.putIfAbsent(key, invoker);
+            if (existing != null) {
+                invoker = existing;
+            }
+        }
+        return invoker;
+    }
+
+    private static String getInvokerKey(String methodName, Class<?>[] valueTypes) {
+        if (valueTypes == null || valueTypes.length == 0) {
+            return methodName;
+        }
+        StringBuilder key = new StringBuilder(methodName);
+        for (Class<?> valueType : valueTypes) {
+            key.append(',').append(valueType.getName());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Invoke the method, in a privileged block when a security manager is
+     * installed. Arguments that do not match the method are reported as an
+     * <code>IllegalArgumentException</code> and an exception thrown by the
+     * method itself as an <code>InvocationTargetException</code>, as
+     * <code>Method.invoke</code> does.
+     */
+    private static Object invoke(final Invoker invoker, final Object object,
+            final Object[] values) throws InvocationTargetException {
+        invoker.checkArguments(object, values);
+        if (System.getSecurityManager() == null) {
+            return invokeExact(invoker, object, values);
+        }
+        try {
+            return AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
+                public Object run() throws InvocationTargetException {
+                    return invokeExact(invoker, object, values);
+                }
+            });
+        } catch (PrivilegedActionException e) {
+            throw (InvocationTargetException) e.getException();
+        }
+    }
+
+    /**
+     * Invoke the method with arguments already checked by the invoker, so
+     * that anything thrown here comes from the method itself.
+     */
+    private static Object invokeExact(Invoker invoker, Object object, Object[] values)
+            throws InvocationTargetException {
+        try {
+            return (Object) invoker.handle.invokeExact(object, values);
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * Invoker of a method along with what is needed to check the arguments
+     * the way <code>Method.invoke</code> does.
+     */
+    private static final class Invoker {
+        private static final Map<Class<?>, Class<?>> PRIMITIVES = new HashMap<Class<?>, Class<?>>();
+
+        static {
+            PRIMITIVES.put(Boolean.class, boolean.class);
+            PRIMITIVES.put(Byte.class, byte.class);
+            PRIMITIVES.put(Character.class, char.class);
+            PRIMITIVES.put(Short.class, short.class);
+            PRIMITIVES.put(Integer.class, int.class);
+            PRIMITIVES.put(Long.class, long.class);
+            PRIMITIVES.put(Float.class, float.class);
+            PRIMITIVES.put(Double.class, double.class);
+        }
+
+        private final MethodHandle handle;
+        private final Class<?> declaringClass;
+        private final Class<?>[] parameterTypes;
+        private final boolean isStatic;
+
+        private Invoker(Method method, MethodHandle handle) {
+            this.handle = handle;
+            this.declaringClass = method.getDeclaringClass();
+            this.parameterTypes = method.getParameterTypes();
+            this.isStatic = Modifier.isStatic(method.getModifiers());
+        }
+
+        private void checkArguments(Object object, Object[] values) {
+            if (!isStatic) {
+                if (object == null) {
+                    throw new NullPointerException();
                 }
+                if (!declaringClass.isInstance(object)) {
+                    throw new IllegalArgumentException("object is not an instance of declaring class");
+                }
+            }
+            int length = values == null ? 0 : values.length;
+            if (length != parameterTypes.length) {
+                throw new IllegalArgumentException("wrong number of arguments");
+            }
+            for (int i = 0; i < length; i++) {
+                if (!isAssignable(parameterTypes[i], values[i])) {
+                    throw new IllegalArgumentException("argument type mismatch");
+                }
+            }
+        }
+
+        private static boolean isAssignable(Class<?> parameterType, Object value) {
+            if (!parameterType.isPrimitive()) {
+                return value == null || parameterType.isInstance(value);
+            }
+            if (value == null) {
+                return false;
+            }
+            return isWidening(PRIMITIVES.get(value.getClass()), parameterType);
+        }
+
+        /**
+         * @return true if a value of primitive type from can be passed for
+         *         type to, possibly through a widening primitive conversion
+         */
+        private static boolean isWidening(Class<?> from, Class<?> to) {
+            if (from == null) {
+                return false;
+            }
+            if (from == to) {
+                return true;
+            }
+            if (from == boolean.class || to == boolean.class || to == char.class
+                    || to == byte.class) {
+                return false;
+            }
+            if (to == short.class) {
+                return from == byte.class;
+            }
+            if (to == int.class) {
+                return from == byte.class || from == short.class || from == char.class;
+            }
+            if (to == long.class) {
+                return from != float.class && from != double.class;
+            }
+            if (to == float.class) {
+                return from != double.class;
             }
+            //double
+            return true;
         }
-        return returnValue;
     }
 
     private Properties stringToProperties(String parameter)
@@ -0,0 +1,434 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+
+package com.sun.gjc.util;
+
+import com.sun.logging.LogDomains;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Sampling SQL profiler used by the JDBCRA monitoring to report where the
+ * time spent in the database goes, without the cost of tracing every
+ * statement.
+ * <p>
+ * Only one in every <code>sampleInterval</code> executions on a thread is
+ * timed. The sampling decision is made by the statement wrappers, which call
+ * the driver directly and report sampled executions to the profiler. Samples
+ * are aggregated per normalized sql text (literals replaced by
+ * <code>?</code>) into an accumulator owned by the executing thread, so the
+ * execution path never contends on a shared lock. The accumulators are
+ * handed over to the profiler through an <code>AtomicReference</code> and
+ * merged periodically by a timer task, as well as on every read of the
+ * report.
+ */
+public class SQLProfiler {
+
+    private final static Logger _logger = LogDomains.getLogger(SQLProfiler.class,
+            LogDomains.RSR_LOGGER);
+
+    private static final String LINE_BREAK = "%%%EOL%%%";
+
+    //Bucket used once the number of distinct statements exceeds MAX_STATEMENTS
+    private static final String OTHER_STATEMENTS = "<other>";
+    private static final int MAX_STATEMENTS = 500;
+
+    //Latency buckets are powers of two in microseconds (1us .. ~35min)
+    private static final int LATENCY_BUCKETS = 32;
+
+    private static final long MERGE_INTERVAL = 10 * 1000;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL =
+            Pattern.compile("(?<![\\w$.])[-+]?\\d+(?:\\.\\d*)?(?:[eE][-+]?\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Comparator<SlowExecution> FASTEST_FIRST = new Comparator<SlowExecution>() {
+        public int compare(SlowExecution a, SlowExecution b) {
+            return a.elapsedNanos < b.elapsedNanos ? -1 : (a.elapsedNanos == b.elapsedNanos ? 0 : 1);
+        }
+    };
+
+    private final int sampleInterval;
+    private final int numTopQueriesToReport;
+
+    private final ThreadLocal<ThreadAccumulator> localAccumulator = new ThreadLocal<ThreadAccumulator>() {
+        @Override
+        protected ThreadAccumulator initialValue() {
+            ThreadAccumulator accumulator = new ThreadAccumulator();
+            accumulators.add(accumulator);
+            return accumulator;
+        }
+    };
+    private final ConcurrentLinkedQueue<ThreadAccumulator> accumulators =
+            new ConcurrentLinkedQueue<ThreadAccumulator>();
+
+    //Merged results, guarded by this
+    private final Map<String, StatementProfile> profiles = new HashMap<String, StatementProfile>();
+    private final PriorityQueue<SlowExecution> slowest;
+
+    private TimerTask mergeTask;
+
+    /**
+     * @param samplingRate percentage of executions that are timed, 0 &lt; rate &lt;= 100
+     * @param numTopQueriesToReport number of statements and slowest executions reported
+     */
+    public SQLProfiler(double samplingRate, int numTopQueriesToReport) {
+        this.sampleInterval = (int) Math.max(1, Math.round(100 / samplingRate));
+        this.numTopQueriesToReport = Math.max(1, numTopQueriesToReport);
+        slowest = new PriorityQueue<SlowExecution>(this.numTopQueriesToReport, FASTEST_FIRST);
+    }
+
+    /**
+     * Schedule the timer task that merges the per thread accumulators.
+     */
+    public synchronized void scheduleTimerTask(Timer timer) {
+        cancelTimerTask();
+        mergeTask = new TimerTask() {
+            @Override
+            public void run() {
+                merge();
+            }
+        };
+        if (timer != null) {
+            timer.scheduleAtFixedRate(mergeTask, MERGE_INTERVAL, MERGE_INTERVAL);
+        }
+        if (_logger.isLoggable(Level.FINEST)) {
+            _logger.finest("Scheduled Sql Profiler timer task");
+        }
+    }
+
+    /**
+     * Cancel the timer task that merges the per thread accumulators.
+     */
+    public synchronized void cancelTimerTask() {
+        if (mergeTask != null) {
+            mergeTask.cancel();
+            mergeTask = null;
+        }
+    }
+
+    /**
+     * Decide whether the execution about to start on the current thread is
+     * timed. Called by the statement wrappers before every execution.
+     *
+     * @return true if the execution is to be timed and recorded
+     */
+    public boolean sample() {
+        return localAccumulator.get().sample();
+    }
+
+    /**
+     * Record a sampled execution.
+     *
+     * @param sql sql text executed
+     * @param elapsedNanos time taken by the execution
+     * @return Sample through which the rows fetched by the execution are recorded
+     */
+    public Sample recordExecution(String sql, long elapsedNanos) {
+        String normalizedSql = normalize(sql);
+        localAccumulator.get().recordExecution(normalizedSql, elapsedNanos);
+        return new Sample(normalizedSql);
+    }
+
+    /**
+     * Replace string and numeric literals by <code>?</code> and collapse
+     * whitespace and in-lists, so that executions differing only in their
+     * literal values are aggregated together.
+     *
+     * @param sql sql text
+     * @return normalized sql text
+     */
+    public static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMERIC_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("?");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    /**
+     * Merge the samples collected by every thread since the last merge.
+     * Accumulators of threads that are no longer alive are dropped once drained.
+     */
+    public synchronized void merge() {
+        Iterator<ThreadAccumulator> it = accumulators.iterator();
+        while (it.hasNext()) {
+            ThreadAccumulator accumulator = it.next();
+            Samples samples = accumulator.slot.getAndSet(null);
+            if (samples != null) {
+                for (Map.Entry<String, StatementProfile> entry : samples.profiles.entrySet()) {
+                    profileFor(profiles, entry.getKey()).merge(entry.getValue());
+                }
+                for (SlowExecution execution : samples.slowest) {
+                    offer(slowest, execution, numTopQueriesToReport);
+                }
+            }
+            Thread owner = accumulator.owner.get();
+            if (owner == null || !owner.isAlive()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the profiled statements ordered by the total time spent
+     * executing them, followed by the slowest sampled executions. Only the
+     * top 'n' entries represented by numTopQueriesToReport are reported.
+     *
+     * @return string representation of the sql profile
+     */
+    public synchronized String getReport() {
+        merge();
+        List<Map.Entry<String, StatementProfile>> entries =
+                new ArrayList<Map.Entry<String, StatementProfile>>(profiles.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, StatementProfile>>() {
+            public int compare(Map.Entry<String, StatementProfile> a, Map.Entry<String, StatementProfile> b) {
+                long x = a.getValue().totalNanos;
+                long y = b.getValue().totalNanos;
+                return x > y ? -1 : (x == y ? 0 : 1);
+            }
+        });
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < entries.size() && i < numTopQueriesToReport; i++) {
+            StatementProfile profile = entries.get(i).getValue();
+            sb.append(LINE_BREAK);
+            sb.append(profile).append(" : ").append(entries.get(i).getKey());
+        }
+        List<SlowExecution> executions = new ArrayList<SlowExecution>(slowest);
+        Collections.sort(executions, Collections.reverseOrder(FASTEST_FIRST));
+        if (!executions.isEmpty()) {
+            sb.append(LINE_BREAK).append("Slowest sampled executions:");
+        }
+        for (SlowExecution execution : executions) {
+            sb.append(LINE_BREAK);
+            sb.append(execution);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Discard everything that has been merged so far.
+     */
+    public synchronized void reset() {
+        merge();
+        profiles.clear();
+        slowest.clear();
+    }
+
+    private static StatementProfile profileFor(Map<String, StatementProfile> profiles, String sql) {
+        StatementProfile profile = profiles.get(sql);
+        if (profile == null) {
+            if (profiles.size() >= MAX_STATEMENTS) {
+                sql = OTHER_STATEMENTS;
+                profile = profiles.get(sql);
+            }
+            if (profile == null) {
+                profile = new StatementProfile();
+                profiles.put(sql, profile);
+            }
+        }
+        return profile;
+    }
+
+    private static void offer(PriorityQueue<SlowExecution> queue, SlowExecution execution, int max) {
+        if (queue.size() < max) {
+            queue.add(execution);
+        } else if (queue.peek().elapsedNanos < execution.elapsedNanos) {
+            queue.poll();
+            queue.add(execution);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Samples collected by one thread since the last merge.
+     */
+    private static final class Samples {
+        private final Map<String, StatementProfile> profiles = new HashMap<String, StatementProfile>();
+        private final PriorityQueue<SlowExecution> slowest =
+                new PriorityQueue<SlowExecution>(11, FASTEST_FIRST);
+    }
+
+    /**
+     * Per thread accumulator. Only the owning thread writes to it; the
+     * profiler takes the collected samples away by swapping the slot with
+     * null, in which case the owner simply starts a new set of samples.
+     */
+    private final class ThreadAccumulator {
+        private final WeakReference<Thread> owner = new WeakReference<Thread>(Thread.currentThread());
+        private final AtomicReference<Samples> slot = new AtomicReference<Samples>();
+        private int executions;
+
+        private boolean sample() {
+            if (++executions < sampleInterval) {
+                return false;
+            }
+            executions = 0;
+            return true;
+        }
+
+        private Samples take() {
+            Samples samples = slot.getAndSet(null);
+            return samples == null ? new Samples() : samples;
+        }
+
+        private void recordExecution(String sql, long elapsedNanos) {
+            Samples samples = take();
+            profileFor(samples.profiles, sql).addExecution(elapsedNanos);
+            offer(samples.slowest, new SlowExecution(sql, elapsedNanos), numTopQueriesToReport);
+            slot.lazySet(samples);
+        }
+
+        private void recordRows(String sql, long rows) {
+            Samples samples = take();
+            profileFor(samples.profiles, sql).rows += rows;
+            slot.lazySet(samples);
+        }
+    }
+
+    /**
+     * Aggregated execution statistics of a normalized sql statement.
+     */
+    private static final class StatementProfile {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long rows;
+        private final long[] buckets = new long[LATENCY_BUCKETS];
+
+        private void addExecution(long elapsedNanos) {
+            count++;
+            totalNanos += elapsedNanos;
+            maxNanos = Math.max(maxNanos, elapsedNanos);
+            long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+            int bucket = 63 - Long.numberOfLeadingZeros(micros);
+            buckets[Math.min(bucket, LATENCY_BUCKETS - 1)]++;
+        }
+
+        private void merge(StatementProfile other) {
+            count += other.count;
+            totalNanos += other.totalNanos;
+            maxNanos = Math.max(maxNanos, other.maxNanos);
+            rows += other.rows;
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                buckets[i] += other.buckets[i];
+            }
+        }
+
+        /**
+         * @return upper bound, in milliseconds, of the bucket holding the percentile
+         */
+        private double getPercentile(double percentile) {
+            long threshold = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= threshold) {
+                    return Math.min(toMillis(maxNanos), (2L << i) / 1000.0);
+                }
+            }
+            return toMillis(maxNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d total=%.3fms avg=%.3fms p50=%.3fms p99=%.3fms max=%.3fms rows=%d",
+                    count, toMillis(totalNanos), count == 0 ? 0.0 : toMillis(totalNanos / count),
+                    getPercentile(50), getPercentile(99), toMillis(maxNanos), rows);
+        }
+    }
+
+    /**
+     * A single sampled execution, kept when it is among the slowest.
+     */
+    private static final class SlowExecution {
+        private final String sql;
+        private final long elapsedNanos;
+        private final long timeStamp = System.currentTimeMillis();
+        private final String threadName = Thread.currentThread().getName();
+
+        private SlowExecution(String sql, long elapsedNanos) {
+            this.sql = sql;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3fms at %tc on %s : %s", toMillis(elapsedNanos), timeStamp,
+                    threadName, sql);
+        }
+    }
+
+    /**
+     * A sampled execution. The result set returned by the execution reports
+     * the number of rows fetched when it is exhausted or closed.
+     */
+    public final class Sample {
+        private final String sql;
+
+        private Sample(String sql) {
+            this.sql = sql;
+        }
+
+        public void rowsFetched(long rows) {
+            localAccumulator.get().recordRows(sql, rows);
+        }
+    }
+}
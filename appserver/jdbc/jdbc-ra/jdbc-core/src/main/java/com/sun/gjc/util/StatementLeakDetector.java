@@ -40,6 +40,9 @@
 
 package com.sun.gjc.util;
 
+import com.sun.appserv.connectors.internal.api.LeakTraceSampler;
+import com.sun.appserv.connectors.internal.api.LeakTraceSampler.CallSite;
+import com.sun.appserv.connectors.internal.api.LeakTraceSampler.LeakTrace;
 import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.gjc.monitoring.StatementLeakProbeProvider;
 import com.sun.logging.LogDomains;
@@ -59,12 +62,13 @@ import java.util.logging.Logger;
  * Statement leak detector that prints the stack trace of the thread when a
  * statement object is leaked. Once the leak timeout expires, a statement leak
  * is assumed and the caller stack trace is printed. When statement-leak-reclaim
- * is set to true, the statement object is reclaimed.
+ * is set to true, the statement object is reclaimed. The caller stack trace
+ * may be sampled, see {@link LeakTraceSampler}.
  *
  * @author Shalini M
  */
 public class StatementLeakDetector {
-    private HashMap<Statement, StackTraceElement[]> statementLeakThreadStackHashMap;
+    private HashMap<Statement, LeakTrace> statementLeakThreadStackHashMap;
     private HashMap<Statement, StatementLeakTask> statementLeakTimerTaskHashMap;
     private PoolInfo poolInfo;
     private boolean statementLeakTracing;
@@ -79,11 +83,18 @@ public class StatementLeakDetector {
             StringManager.getManager(StatementLeakDetector.class);
     private Timer timer;
     private StatementLeakProbeProvider stmtLeakProbeProvider = null;
+    private volatile LeakTraceSampler leakTraceSampler;
 
     public StatementLeakDetector(PoolInfo poolInfo, boolean leakTracing,
             long leakTimeoutInMillis, boolean leakReclaim, Timer timer) {
+        this(poolInfo, leakTracing, leakTimeoutInMillis, leakReclaim, timer, 1);
+    }
+
+    public StatementLeakDetector(PoolInfo poolInfo, boolean leakTracing,
+            long leakTimeoutInMillis, boolean leakReclaim, Timer timer,
+            int leakTraceSampleRate) {
         this.poolInfo = poolInfo;
-        statementLeakThreadStackHashMap = new HashMap<Statement, StackTraceElement[]>();
+        statementLeakThreadStackHashMap = new HashMap<Statement, LeakTrace>();
         statementLeakTimerTaskHashMap = new HashMap<Statement, StatementLeakTask>();
         listeners = new HashMap<Statement, StatementLeakListener>();
         statementLeakLock = new Object();
@@ -92,15 +103,24 @@ public class StatementLeakDetector {
         statementLeakReclaim = leakReclaim;
         this.timer = timer;
         stmtLeakProbeProvider = new StatementLeakProbeProvider();
+        leakTraceSampler = new LeakTraceSampler(leakTraceSampleRate);
     }
 
     public void reset(boolean leakTracing, long leakTimeoutInMillis, boolean leakReclaim) {
+        reset(leakTracing, leakTimeoutInMillis, leakReclaim, leakTraceSampler.getSampleRate());
+    }
+
+    public void reset(boolean leakTracing, long leakTimeoutInMillis, boolean leakReclaim,
+            int leakTraceSampleRate) {
         if (!statementLeakTracing && leakTracing) {
             clearAllStatementLeakTasks();
         }
         statementLeakTracing = leakTracing;
         statementLeakTimeoutInMillis = leakTimeoutInMillis;
         statementLeakReclaim = leakReclaim;
+        if (leakTraceSampler.getSampleRate() != leakTraceSampleRate) {
+            leakTraceSampler = new LeakTraceSampler(leakTraceSampleRate);
+        }
     }
 
 
@@ -122,7 +142,7 @@ public class StatementLeakDetector {
     public void startStatementLeakTracing(Statement stmt, StatementLeakListener listener) {
         synchronized (statementLeakLock) {
             if (!statementLeakThreadStackHashMap.containsKey(stmt)) {
-                statementLeakThreadStackHashMap.put(stmt, Thread.currentThread().getStackTrace());
+                statementLeakThreadStackHashMap.put(stmt, leakTraceSampler.capture());
                 StatementLeakTask statementLeakTask = new StatementLeakTask(stmt);
                 statementLeakTimerTaskHashMap.put(stmt, statementLeakTask);
                 registerListener(stmt, listener);
@@ -167,11 +187,11 @@ public class StatementLeakDetector {
     private void potentialStatementLeakFound(Statement stmt) {
         synchronized (statementLeakLock) {
             if (statementLeakThreadStackHashMap.containsKey(stmt)) {
-                StackTraceElement[] threadStack = statementLeakThreadStackHashMap.remove(stmt);
+                LeakTrace leakTrace = statementLeakThreadStackHashMap.remove(stmt);
                 StatementLeakListener stmtLeakListener = listeners.get(stmt);
                 stmtLeakProbeProvider.potentialStatementLeakEvent(poolInfo.getName(),
                         poolInfo.getApplicationName(), poolInfo.getModuleName());
-                printStatementLeakTrace(threadStack);
+                printStatementLeakTrace(leakTraceSampler.leakDetected(leakTrace));
                 statementLeakTimerTaskHashMap.remove(stmt);
                 if (statementLeakReclaim) {
                     try {
@@ -192,9 +212,19 @@ public class StatementLeakDetector {
     /**
      * Prints the stack trace of thread leaking statement to server logs
      *
-     * @param threadStackTrace Application(caller) thread stack trace
+     * @param callSite Application(caller) call site, null if its stack trace was not sampled
      */
-    private void printStatementLeakTrace(StackTraceElement[] threadStackTrace) {
+    private void printStatementLeakTrace(CallSite callSite) {
+        if (callSite == null) {
+            _logger.log(Level.WARNING, localStrings.getStringWithDefault(
+                    "potential.statement.leak.unsampled.msg",
+                    "A potential statement leak detected for connection pool " + poolInfo +
+                            ". The stack trace of the thread was not sampled, it will be captured for" +
+                            " every statement the application creates from now on.",
+                    new Object[]{poolInfo}), "ConnectionPoolName=" + poolInfo);
+            return;
+        }
+        StackTraceElement[] threadStackTrace = callSite.getStack();
         StringBuffer stackTrace = new StringBuffer();
         String msg = localStrings.getStringWithDefault(
                 "potential.statement.leak.msg",
@@ -203,7 +233,8 @@ public class StatementLeakDetector {
                 new Object[]{poolInfo});
         stackTrace.append(msg);
         stackTrace.append("\n");
-        for (int i = 2; i < threadStackTrace.length; i++) {
+        //Skip the frame of startStatementLeakTracing
+        for (int i = 1; i < threadStackTrace.length; i++) {
             stackTrace.append(threadStackTrace[i].toString());
             stackTrace.append("\n");
         }
@@ -42,6 +42,7 @@ package com.sun.gjc.spi.jdbc40;
 
 import com.sun.gjc.common.DataSourceObjectBuilder;
 import com.sun.gjc.spi.base.CallableStatementWrapper;
+import com.sun.gjc.util.SQLProfiler;
 
 import java.io.InputStream;
 import java.io.Reader;
@@ -65,6 +66,19 @@ public class CallableStatementWrapper40 extends CallableStatementWrapper {
         super(con, statement, cachingEnabled);
     }
 
+    /**
+     * Creates a new instance of CallableStatement wrapper for JDBC 3.0<br>
+     *
+     * @param con       ConnectionWrapper<br>
+     * @param statement CallableStatement that is wrapped<br>
+     * @param sql       sql text the statement was prepared with<br>
+     */
+    public CallableStatementWrapper40(Connection con, CallableStatement statement,
+                                      boolean cachingEnabled, String sql)
+            throws SQLException {
+        super(con, statement, cachingEnabled, sql);
+    }
+
     /**
      * Retrieves the value of the designated parameter as a
      * <code>java.io.Reader</code> object in the Java programming language.
@@ -1404,9 +1418,20 @@ public class CallableStatementWrapper40 extends CallableStatementWrapper {
      *                      statement does not return a <code>ResultSet</code> object
      */
     public java.sql.ResultSet executeQuery() throws java.sql.SQLException {
-        ResultSet rs = callableStatement.executeQuery();
+        tuneFetchSize();
+        ResultSet rs;
+        SQLProfiler.Sample sample = null;
+        long start = startExecution();
+        try {
+            rs = callableStatement.executeQuery();
+        } finally {
+            sample = endExecution(preparedSql, start);
+            restoreFetchSize();
+        }
         incrementResultSetReferenceCount();
-        return new ResultSetWrapper40(this, rs);
+        ResultSetWrapper40 wrapper = new ResultSetWrapper40(this, rs);
+        wrapper.setSQLProfilerSample(sample);
+        return wrapper;
     }
 
     /**
@@ -1424,9 +1449,18 @@ public class CallableStatementWrapper40 extends CallableStatementWrapper {
      */
     public java.sql.ResultSet executeQuery(String sql) throws
             java.sql.SQLException {
-        ResultSet rs = callableStatement.executeQuery(sql);
+        ResultSet rs;
+        SQLProfiler.Sample sample = null;
+        long start = startExecution();
+        try {
+            rs = callableStatement.executeQuery(sql);
+        } finally {
+            sample = endExecution(sql, start);
+        }
         incrementResultSetReferenceCount();
-        return new ResultSetWrapper40(this, rs);
+        ResultSetWrapper40 wrapper = new ResultSetWrapper40(this, rs);
+        wrapper.setSQLProfilerSample(sample);
+        return wrapper;
     }
 
     /**
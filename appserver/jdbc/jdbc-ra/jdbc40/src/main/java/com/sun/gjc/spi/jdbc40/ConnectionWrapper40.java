@@ -253,14 +253,14 @@ public class ConnectionWrapper40 extends ConnectionHolder40 implements Connectio
               int resultSetType, int resultSetConcurrency, boolean enableCaching) 
               throws SQLException {
            return new PreparedStatementWrapper40(this, super.prepareStatement(sql,
-                   resultSetType, resultSetConcurrency), enableCaching);
+                   resultSetType, resultSetConcurrency), enableCaching, sql);
        }
 
        public PreparedStatementWrapper40 prepareCachedStatement(String sql, 
               String[] columnNames, boolean enableCaching) 
               throws SQLException {
            return new PreparedStatementWrapper40(this, 
-                   super.prepareStatement(sql, columnNames), enableCaching);
+                   super.prepareStatement(sql, columnNames), enableCaching, sql);
        }
 
         public PreparedStatementWrapper40 prepareCachedStatement(String sql, 
@@ -268,28 +268,28 @@ public class ConnectionWrapper40 extends ConnectionHolder40 implements Connectio
                 boolean enableCaching) throws SQLException {
             return new PreparedStatementWrapper40(this, 
                     super.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability),
-                    enableCaching);
+                    enableCaching, sql);
         }
 
         public PreparedStatementWrapper40 prepareCachedStatement(String sql, 
               int[] columnIndexes, boolean enableCaching) 
               throws SQLException {
            return new PreparedStatementWrapper40(this, 
-                   super.prepareStatement(sql, columnIndexes), enableCaching);
+                   super.prepareStatement(sql, columnIndexes), enableCaching, sql);
        }
 
         public PreparedStatementWrapper40 prepareCachedStatement(String sql, 
               int autoGeneratedKeys, boolean enableCaching) 
               throws SQLException {
            return new PreparedStatementWrapper40(this, 
-                   super.prepareStatement(sql, autoGeneratedKeys), enableCaching);
+                   super.prepareStatement(sql, autoGeneratedKeys), enableCaching, sql);
        }
 
         public CallableStatementWrapper40 callableCachedStatement(String sql, 
                int resultSetType, int resultSetConcurrency, boolean enableCaching) 
                throws SQLException {
            return new CallableStatementWrapper40(this, super.prepareCall(sql,
-                   resultSetType, resultSetConcurrency), enableCaching);
+                   resultSetType, resultSetConcurrency), enableCaching, sql);
        }
 
         public CallableStatementWrapper40 callableCachedStatement(String sql, 
@@ -298,7 +298,7 @@ public class ConnectionWrapper40 extends ConnectionHolder40 implements Connectio
                throws SQLException {
            return new CallableStatementWrapper40(this, super.prepareCall(sql,
                    resultSetType, resultSetConcurrency, resultSetHoldability), 
-                   enableCaching);
+                   enableCaching, sql);
        }
        
 }
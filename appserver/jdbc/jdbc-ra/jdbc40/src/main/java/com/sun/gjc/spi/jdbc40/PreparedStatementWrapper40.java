@@ -41,6 +41,7 @@
 package com.sun.gjc.spi.jdbc40;
 
 import com.sun.gjc.spi.base.PreparedStatementWrapper;
+import com.sun.gjc.util.SQLProfiler;
 
 import java.io.InputStream;
 import java.io.Reader;
@@ -64,6 +65,19 @@ public class PreparedStatementWrapper40 extends PreparedStatementWrapper {
         super(con, statement, statementCaching);
     }
 
+    /**
+     * Creates a new instance of PreparedStatement Wrapper for JDBC 3.0<br>
+     *
+     * @param con       ConnectionWrapper<br>
+     * @param statement PreparedStatement that is wrapped<br>
+     * @param sql       sql text the statement was prepared with<br>
+     */
+    public PreparedStatementWrapper40(Connection con, PreparedStatement statement,
+                                      boolean statementCaching, String sql)
+            throws SQLException {
+        super(con, statement, statementCaching, sql);
+    }
+
     /**
      * Sets the designated parameter to the given <code>java.sql.RowId</code> object. The
      * driver converts this to a SQL <code>ROWID</code> value when it sends it
@@ -639,9 +653,20 @@ public class PreparedStatementWrapper40 extends PreparedStatementWrapper {
      *                      statement does not return a <code>ResultSet</code> object
      */
     public java.sql.ResultSet executeQuery() throws java.sql.SQLException {
-        ResultSet rs = preparedStatement.executeQuery();
+        tuneFetchSize();
+        ResultSet rs;
+        SQLProfiler.Sample sample = null;
+        long start = startExecution();
+        try {
+            rs = preparedStatement.executeQuery();
+        } finally {
+            sample = endExecution(preparedSql, start);
+            restoreFetchSize();
+        }
         incrementResultSetReferenceCount();
-        return new ResultSetWrapper40(this, rs);
+        ResultSetWrapper40 wrapper = new ResultSetWrapper40(this, rs);
+        wrapper.setSQLProfilerSample(sample);
+        return wrapper;
     }
 
     /**
@@ -659,9 +684,18 @@ public class PreparedStatementWrapper40 extends PreparedStatementWrapper {
      */
     public java.sql.ResultSet executeQuery(String sql) throws
             java.sql.SQLException {
-        ResultSet rs = preparedStatement.executeQuery(sql);
+        ResultSet rs;
+        SQLProfiler.Sample sample = null;
+        long start = startExecution();
+        try {
+            rs = preparedStatement.executeQuery(sql);
+        } finally {
+            sample = endExecution(sql, start);
+        }
         incrementResultSetReferenceCount();
-        return new ResultSetWrapper40(this, rs);
+        ResultSetWrapper40 wrapper = new ResultSetWrapper40(this, rs);
+        wrapper.setSQLProfilerSample(sample);
+        return wrapper;
     }
 
     /**
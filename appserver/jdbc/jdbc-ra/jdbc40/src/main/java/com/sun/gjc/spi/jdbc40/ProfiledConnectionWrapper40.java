@@ -369,14 +369,14 @@ public class ProfiledConnectionWrapper40 extends ConnectionHolder40 implements C
             int resultSetType, int resultSetConcurrency, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this, super.prepareStatement(sql,
-                resultSetType, resultSetConcurrency), enableCaching);
+                resultSetType, resultSetConcurrency), enableCaching, sql);
     }
 
     public PreparedStatementWrapper40 prepareCachedStatement(String sql,
             String[] columnNames, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this,
-                super.prepareStatement(sql, columnNames), enableCaching);
+                super.prepareStatement(sql, columnNames), enableCaching, sql);
     }
 
     public PreparedStatementWrapper40 prepareCachedStatement(String sql,
@@ -384,28 +384,28 @@ public class ProfiledConnectionWrapper40 extends ConnectionHolder40 implements C
             boolean enableCaching) throws SQLException {
         return new PreparedStatementWrapper40(this,
                 super.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability),
-                enableCaching);
+                enableCaching, sql);
     }
 
     public PreparedStatementWrapper40 prepareCachedStatement(String sql,
             int[] columnIndexes, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this,
-                super.prepareStatement(sql, columnIndexes), enableCaching);
+                super.prepareStatement(sql, columnIndexes), enableCaching, sql);
     }
 
     public PreparedStatementWrapper40 prepareCachedStatement(String sql,
             int autoGeneratedKeys, boolean enableCaching)
             throws SQLException {
         return new PreparedStatementWrapper40(this,
-                super.prepareStatement(sql, autoGeneratedKeys), enableCaching);
+                super.prepareStatement(sql, autoGeneratedKeys), enableCaching, sql);
     }
 
     public CallableStatementWrapper40 callableCachedStatement(String sql,
             int resultSetType, int resultSetConcurrency, boolean enableCaching)
             throws SQLException {
         return new CallableStatementWrapper40(this, super.prepareCall(sql,
-                resultSetType, resultSetConcurrency), enableCaching);
+                resultSetType, resultSetConcurrency), enableCaching, sql);
     }
 
     public CallableStatementWrapper40 callableCachedStatement(String sql,
@@ -414,7 +414,7 @@ public class ProfiledConnectionWrapper40 extends ConnectionHolder40 implements C
             throws SQLException {
         return new CallableStatementWrapper40(this, super.prepareCall(sql,
                 resultSetType, resultSetConcurrency, resultSetHoldability),
-                enableCaching);
+                enableCaching, sql);
     }
 
     //TODO refactor this method and move to a higher level
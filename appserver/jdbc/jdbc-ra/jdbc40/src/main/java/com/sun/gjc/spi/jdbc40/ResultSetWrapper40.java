@@ -60,6 +60,9 @@ public class ResultSetWrapper40 extends ResultSetWrapper {
     protected final static StringManager localStrings =
             StringManager.getManager(ManagedConnectionFactoryImpl.class);
 
+    private static final Class<?>[] GET_OBJECT_BY_INDEX = new Class<?>[]{Integer.TYPE, Class.class};
+    private static final Class<?>[] GET_OBJECT_BY_LABEL = new Class<?>[]{String.class, Class.class};
+
     /**
      * Creates a new instance of ResultSetWrapper for JDBC 4.0
      *
@@ -113,9 +116,15 @@ public class ResultSetWrapper40 extends ResultSetWrapper {
 
     public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
         if (DataSourceObjectBuilder.isJDBC41()) {
-            Class<?>[] valueTypes = new Class<?>[]{Integer.TYPE, Class.class};
+            if (fastPath) {
+                try {
+                    return resultSet.getObject(columnIndex, type);
+                } catch (AbstractMethodError e) {
+                    //driver does not implement JDBC 4.1, report it as below
+                }
+            }
             try {
-                return (T) getMethodExecutor().invokeMethod(resultSet, "getObject", valueTypes, columnIndex, type);
+                return (T) getMethodExecutor().invokeMethod(resultSet, "getObject", GET_OBJECT_BY_INDEX, columnIndex, type);
             } catch (ResourceException ex) {
                 _logger.log(Level.SEVERE, "jdbc.ex_get_object", ex);
                 throw new SQLException(ex);
@@ -126,9 +135,15 @@ public class ResultSetWrapper40 extends ResultSetWrapper {
 
     public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
         if (DataSourceObjectBuilder.isJDBC41()) {
-            Class<?>[] valueTypes = new Class<?>[]{String.class, Class.class};
+            if (fastPath) {
+                try {
+                    return resultSet.getObject(columnLabel, type);
+                } catch (AbstractMethodError e) {
+                    //driver does not implement JDBC 4.1, report it as below
+                }
+            }
             try {
-                return (T) getMethodExecutor().invokeMethod(resultSet, "getObject", valueTypes, columnLabel, type);
+                return (T) getMethodExecutor().invokeMethod(resultSet, "getObject", GET_OBJECT_BY_LABEL, columnLabel, type);
             } catch (ResourceException ex) {
                 _logger.log(Level.SEVERE, "jdbc.ex_get_object", ex);
                 throw new SQLException(ex);
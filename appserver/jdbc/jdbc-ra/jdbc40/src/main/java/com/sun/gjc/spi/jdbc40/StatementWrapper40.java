@@ -43,6 +43,7 @@ package com.sun.gjc.spi.jdbc40;
 import com.sun.enterprise.util.i18n.StringManager;
 import com.sun.gjc.spi.ManagedConnectionFactoryImpl;
 import com.sun.gjc.spi.base.StatementWrapper;
+import com.sun.gjc.util.SQLProfiler;
 
 import java.sql.*;
 
@@ -231,7 +232,16 @@ public class StatementWrapper40 extends StatementWrapper {
      */
     public java.sql.ResultSet executeQuery(final String sql) throws
             java.sql.SQLException {
-        ResultSet rs = jdbcStatement.executeQuery(sql);
-        return new ResultSetWrapper40(this, rs);
+        ResultSet rs;
+        SQLProfiler.Sample sample = null;
+        long start = startExecution();
+        try {
+            rs = jdbcStatement.executeQuery(sql);
+        } finally {
+            sample = endExecution(sql, start);
+        }
+        ResultSetWrapper40 wrapper = new ResultSetWrapper40(this, rs);
+        wrapper.setSQLProfilerSample(sample);
+        return wrapper;
     }
 }
@@ -470,6 +470,40 @@ public class JdbcConnectionPoolDeployer implements ResourceDeployer {
                     conConnPool.setDataStructureParameters(rp.getValue());
                     logFine("DATASTRUCTUREPARAMETERS");
 
+                } else if ("THREADAFFINITYCACHESIZE".equals(name.toUpperCase(locale))) {
+                    String value = rp.getValue();
+                    try {
+                        conConnPool.setThreadAffinityCacheSize(Integer.parseInt(value));
+                        logFine("THREADAFFINITYCACHESIZE");
+                    } catch (NumberFormatException nfe) {
+                        _logger.log(Level.WARNING, "Invalid value for 'ThreadAffinityCacheSize' : " + value);
+                    }
+
+                } else if ("BACKGROUNDVALIDATIONINTERVAL".equals(name.toUpperCase(locale))) {
+                    String value = rp.getValue();
+                    try {
+                        conConnPool.setBackgroundValidationInterval(Integer.parseInt(value));
+                        logFine("BACKGROUNDVALIDATIONINTERVAL");
+                    } catch (NumberFormatException nfe) {
+                        _logger.log(Level.WARNING, "Invalid value for 'BackgroundValidationInterval' : " + value);
+                    }
+
+                } else if ("LEAKTRACESAMPLERATE".equals(name.toUpperCase(locale))) {
+                    String value = rp.getValue();
+                    try {
+                        conConnPool.setLeakTraceSampleRate(Integer.parseInt(value));
+                        logFine("LEAKTRACESAMPLERATE");
+                    } catch (NumberFormatException nfe) {
+                        _logger.log(Level.WARNING, "Invalid value for 'LeakTraceSampleRate' : " + value);
+                    }
+                    //Statements are traced by the leak detector of the resource adapter
+                    propList.add(new ConnectorConfigProperty("LeakTraceSampleRate",
+                            value, "LeakTraceSampleRate", "java.lang.String"));
+
+                } else if ("PREWARMCONNECTIONS".equals(name.toUpperCase(locale))) {
+                    conConnPool.setPrewarmConnections(toBoolean(rp.getValue(), false));
+                    logFine("PREWARMCONNECTIONS");
+
                 } else if ("USERNAME".equals(name.toUpperCase(Locale.getDefault()))
                         || "USER".equals(name.toUpperCase(locale))) {
 
@@ -508,6 +542,16 @@ public class JdbcConnectionPoolDeployer implements ResourceDeployer {
                     propList.add(new ConnectorConfigProperty("TimeToKeepQueriesInMinutes",
                             rp.getValue(), "TimeToKeepQueriesInMinutes", "java.lang.String"));
 
+                } else if ("RESULT-SET-FAST-PATH".equals(name.toUpperCase(Locale.getDefault()))) {
+
+                    propList.add(new ConnectorConfigProperty("ResultSetFastPath",
+                            rp.getValue(), "ResultSetFastPath", "java.lang.String"));
+
+                } else if ("SQL-PROFILER-SAMPLING-RATE".equals(name.toUpperCase(Locale.getDefault()))) {
+
+                    propList.add(new ConnectorConfigProperty("SqlProfilerSamplingRate",
+                            rp.getValue(), "SqlProfilerSamplingRate", "java.lang.String"));
+
                 } else if (mcfConPropKeys.containsKey(name.toUpperCase(Locale.getDefault()))) {
 
                     propList.add(new ConnectorConfigProperty(
@@ -43,14 +43,17 @@ package org.glassfish.jdbc.pool.monitor;
 import com.sun.enterprise.connectors.ConnectorRuntime;
 import com.sun.enterprise.resource.pool.PoolLifeCycleListenerRegistry;
 import com.sun.enterprise.resource.pool.PoolStatus;
+import com.sun.enterprise.resource.pool.monitor.WaitTimeHistogram;
 import org.glassfish.external.probe.provider.annotations.ProbeListener;
 import org.glassfish.external.probe.provider.annotations.ProbeParam;
 import org.glassfish.external.statistics.CountStatistic;
 import org.glassfish.external.statistics.RangeStatistic;
+import org.glassfish.external.statistics.StringStatistic;
 import org.glassfish.external.statistics.annotations.Reset;
 import org.glassfish.external.statistics.impl.CountStatisticImpl;
 import org.glassfish.external.statistics.impl.RangeStatisticImpl;
 import org.glassfish.external.statistics.impl.StatisticImpl;
+import org.glassfish.external.statistics.impl.StringStatisticImpl;
 import org.glassfish.gmbal.AMXMetadata;
 import org.glassfish.gmbal.Description;
 import org.glassfish.gmbal.ManagedAttribute;
@@ -131,12 +134,25 @@ public class JdbcConnPoolStatsProvider {
     private CountStatisticImpl totalConnRequestWaitTime = new CountStatisticImpl(
             "TotalConnRequestWaitTime", StatisticImpl.UNIT_MILLISECOND,
             "Total wait time per successful connection request");
+    private StringStatisticImpl connRequestWaitTimeHistogram = new StringStatisticImpl(
+            "ConnRequestWaitTimeHistogram", "List",
+            "Distribution of the wait times of successful connection requests that had to wait in the queue");
+    private WaitTimeHistogram waitTimeHistogram = new WaitTimeHistogram();
     private CountStatisticImpl averageConnWaitTime = new CountStatisticImpl(
             "AverageConnWaitTime", StatisticImpl.UNIT_MILLISECOND,
             "Average wait-time-duration per successful connection request");
     private CountStatisticImpl waitQueueLength = new CountStatisticImpl(
             "WaitQueueLength", StatisticImpl.UNIT_COUNT, 
             "Number of connection requests in the queue waiting to be serviced.");
+    private CountStatisticImpl numAffinityCacheHits = new CountStatisticImpl(
+            "NumAffinityCacheHits", StatisticImpl.UNIT_COUNT,
+            "Number of connection requests served from the thread affinity cache.");
+    private CountStatisticImpl numAffinityCacheMisses = new CountStatisticImpl(
+            "NumAffinityCacheMisses", StatisticImpl.UNIT_COUNT,
+            "Number of connection requests not served from the thread affinity cache.");
+    private CountStatisticImpl numAffinityCacheSteals = new CountStatisticImpl(
+            "NumAffinityCacheSteals", StatisticImpl.UNIT_COUNT,
+            "Number of connections stolen back from the thread affinity cache.");
     private static final String JDBC_PROBE_LISTENER = "glassfish:jdbc:connection-pool:";
 
 
@@ -374,6 +390,30 @@ public class JdbcConnPoolStatsProvider {
             totalConnRequestWaitTime.increment(timeTakenInMillis);
         }        
     }  
+
+    /**
+     * Event that a connection request that had to wait in the wait queue is
+     * served in timeTakenInMillis.
+     *
+     * @param poolName
+     * @param timeTakenInMillis
+     */
+    @ProbeListener(JDBC_PROBE_LISTENER + "queuedConnectionRequestServedEvent")
+    public void queuedConnectionRequestServedEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("timeTakenInMillis") long timeTakenInMillis) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)) {
+            if(logger.isLoggable(Level.FINEST)) {
+                logger.finest("Queued connection request served event received - " +
+                    "poolName = " + poolName);
+            }
+            waitTimeHistogram.record(timeTakenInMillis);
+        }
+    }
     
     /**
      * When connection destroyed event is got increment numConnDestroyed.
@@ -481,7 +521,11 @@ public class JdbcConnPoolStatsProvider {
         numPotentialConnLeak.reset();
         averageConnWaitTime.reset();
         totalConnRequestWaitTime.reset();
+        waitTimeHistogram.reset();
         waitQueueLength.reset();        
+        numAffinityCacheHits.reset();
+        numAffinityCacheMisses.reset();
+        numAffinityCacheSteals.reset();
     }
     
     /**
@@ -566,6 +610,67 @@ public class JdbcConnPoolStatsProvider {
         }                        
     }
 
+    /**
+     * When a request is served from the thread affinity cache, increment
+     * numAffinityCacheHits.
+     */
+    @ProbeListener(JDBC_PROBE_LISTENER + "affinityCacheHitEvent")
+    public void affinityCacheHitEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)) {
+            if(logger.isLoggable(Level.FINEST)) {
+                logger.finest("Affinity cache hit event received - " +
+                    "poolName = " + poolName);
+            }
+            numAffinityCacheHits.increment();
+        }
+    }
+
+    /**
+     * When a request is not served from the thread affinity cache, increment
+     * numAffinityCacheMisses.
+     */
+    @ProbeListener(JDBC_PROBE_LISTENER + "affinityCacheMissEvent")
+    public void affinityCacheMissEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)) {
+            if(logger.isLoggable(Level.FINEST)) {
+                logger.finest("Affinity cache miss event received - " +
+                    "poolName = " + poolName);
+            }
+            numAffinityCacheMisses.increment();
+        }
+    }
+
+    /**
+     * When connections are stolen back from the thread affinity cache,
+     * increment numAffinityCacheSteals.
+     */
+    @ProbeListener(JDBC_PROBE_LISTENER + "affinityCacheStealEvent")
+    public void affinityCacheStealEvent(
+            @ProbeParam("poolName") String poolName,
+            @ProbeParam("appName") String appName,
+            @ProbeParam("moduleName") String moduleName,
+            @ProbeParam("count") int count) {
+
+        PoolInfo poolInfo = new PoolInfo(poolName, appName, moduleName);
+        if(this.poolInfo.equals(poolInfo)) {
+            if(logger.isLoggable(Level.FINEST)) {
+                logger.finest("Affinity cache steal event received - " +
+                    "poolName = " + poolName);
+            }
+            numAffinityCacheSteals.increment(count);
+        }
+    }
+
     public PoolInfo getPoolInfo() {
         return poolInfo;
     }
@@ -710,4 +815,25 @@ public class JdbcConnPoolStatsProvider {
     public CountStatistic getWaitQueueLength() {
         return waitQueueLength;
     }
+
+    @ManagedAttribute(id="connrequestwaittimehistogram")
+    public StringStatistic getConnRequestWaitTimeHistogram() {
+        connRequestWaitTimeHistogram.setCurrent(waitTimeHistogram.toString());
+        return connRequestWaitTimeHistogram;
+    }
+
+    @ManagedAttribute(id="numaffinitycachehits")
+    public CountStatistic getNumAffinityCacheHits() {
+        return numAffinityCacheHits;
+    }
+
+    @ManagedAttribute(id="numaffinitycachemisses")
+    public CountStatistic getNumAffinityCacheMisses() {
+        return numAffinityCacheMisses;
+    }
+
+    @ManagedAttribute(id="numaffinitycachesteals")
+    public CountStatistic getNumAffinityCacheSteals() {
+        return numAffinityCacheSteals;
+    }
 }
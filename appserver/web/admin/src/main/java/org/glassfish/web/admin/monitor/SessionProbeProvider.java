@@ -109,4 +109,12 @@ public class SessionProbeProvider {
         @ProbeParam("sessionId") String sessionId,
         @ProbeParam("appName") String appName,
         @ProbeParam("hostName") String hostName) {}
+
+    @Probe(name="sessionExpirySweepEvent")
+    public void sessionExpirySweepEvent(
+        @ProbeParam("sweepTime") long sweepTime,
+        @ProbeParam("expiryLag") long expiryLag,
+        @ProbeParam("sessionsVisited") int sessionsVisited,
+        @ProbeParam("appName") String appName,
+        @ProbeParam("hostName") String hostName) {}
 }
@@ -80,6 +80,10 @@ public class SessionStatsProvider{
         "Total number of sessions ever passivated";
     private static final String ACTIVATED_SESSIONS_DESCRIPTION =
         "Total number of sessions ever activated";
+    private static final String EXPIRY_SWEEP_TIME_DESCRIPTION =
+        "Time in milliseconds taken by the last session expiry sweep";
+    private static final String EXPIRY_LAG_DESCRIPTION =
+        "Largest delay in milliseconds between the deadline and the expiry of a session in the last expiry sweep";
 
     private String moduleName;
     private String vsName;
@@ -91,6 +95,8 @@ public class SessionStatsProvider{
     private CountStatisticImpl persistedSessionsTotal;
     private CountStatisticImpl passivatedSessionsTotal;
     private CountStatisticImpl activatedSessionsTotal;
+    private RangeStatisticImpl expirySweepTime;
+    private RangeStatisticImpl expiryLag;
 
     public SessionStatsProvider(String moduleName, String vsName) {
         this.moduleName = moduleName;
@@ -116,6 +122,12 @@ public class SessionStatsProvider{
         activatedSessionsTotal = new CountStatisticImpl(
             "ActivatedSessionsTotal", StatisticImpl.UNIT_COUNT,
             ACTIVATED_SESSIONS_DESCRIPTION);
+        expirySweepTime = new RangeStatisticImpl(
+            0L, 0L, 0L, "ExpirySweepTime", StatisticImpl.UNIT_MILLISECOND,
+            EXPIRY_SWEEP_TIME_DESCRIPTION, curTime, curTime);
+        expiryLag = new RangeStatisticImpl(
+            0L, 0L, 0L, "ExpiryLag", StatisticImpl.UNIT_MILLISECOND,
+            EXPIRY_LAG_DESCRIPTION, curTime, curTime);
     }
     
     @ManagedAttribute(id="activesessionscurrent")
@@ -159,6 +171,18 @@ public class SessionStatsProvider{
     public CountStatistic getActivatedSessionsTotal() {
         return activatedSessionsTotal;
     }
+
+    @ManagedAttribute(id="expirysweeptime")
+    @Description(EXPIRY_SWEEP_TIME_DESCRIPTION)
+    public RangeStatistic getExpirySweepTime() {
+        return expirySweepTime;
+    }
+
+    @ManagedAttribute(id="expirylag")
+    @Description(EXPIRY_LAG_DESCRIPTION)
+    public RangeStatistic getExpiryLag() {
+        return expiryLag;
+    }
     
     @ProbeListener("glassfish:web:session:sessionCreatedEvent")
     public void sessionCreatedEvent(
@@ -313,6 +337,27 @@ public class SessionStatsProvider{
             passivatedSessionsTotal.increment();
         }
     }
+
+    @ProbeListener("glassfish:web:session:sessionExpirySweepEvent")
+    public void sessionExpirySweepEvent(
+        @ProbeParam("sweepTime") long sweepTime,
+        @ProbeParam("expiryLag") long expiryLag,
+        @ProbeParam("sessionsVisited") int sessionsVisited,
+        @ProbeParam("appName") String appName,
+        @ProbeParam("hostName") String hostName){
+
+        if (logger.isLoggable(Level.FINEST)) {
+            logger.finest("[TM]sessionExpirySweepEvent received - sweepTime = " +
+                          sweepTime + ": expiryLag = " + expiryLag +
+                          ": sessionsVisited = " + sessionsVisited +
+                          ": appname = " + appName +
+                          ": hostName = " + hostName);
+        }
+        if (isValidEvent(appName, hostName)) {
+            this.expirySweepTime.setCurrent(sweepTime);
+            this.expiryLag.setCurrent(expiryLag);
+        }
+    }
     
     public String getModuleName() {
         return moduleName;
@@ -58,6 +58,10 @@ final class ApplicationFilterChain implements FilterChain {
     public static final int INCREMENT = 10;
 
 
+    private static final ApplicationFilterConfig[] NO_FILTERS =
+        new ApplicationFilterConfig[0];
+
+
     // ----------------------------------------------------------- Constructors
 
 
@@ -75,8 +79,14 @@ final class ApplicationFilterChain implements FilterChain {
     /**
      * Filters.
      */
-    private ApplicationFilterConfig[] filters = 
-        new ApplicationFilterConfig[0];
+    private ApplicationFilterConfig[] filters = NO_FILTERS;
+
+
+    /**
+     * Whether <code>filters</code> is an array cached by the context,
+     * which must be copied before it is modified.
+     */
+    private boolean filtersShared = false;
 
 
     /**
@@ -309,20 +319,40 @@ final class ApplicationFilterChain implements FilterChain {
      * @param filterConfig The FilterConfig for the servlet to be executed
      */
     void addFilter(ApplicationFilterConfig filterConfig) {
-        if (n == filters.length) {
+        if (filtersShared || (n == filters.length)) {
             ApplicationFilterConfig[] newFilters =
                 new ApplicationFilterConfig[n + INCREMENT];
             System.arraycopy(filters, 0, newFilters, 0, n);
             filters = newFilters;
+            filtersShared = false;
         }
         filters[n++] = filterConfig;
     }
 
 
+    /**
+     * Use the given precomputed filters, which are shared with other
+     * requests and are never modified by this chain.  Only the position
+     * in the chain is per request.
+     *
+     * @param filterConfigs The filters to execute, in order
+     */
+    void setFilters(ApplicationFilterConfig[] filterConfigs) {
+        filters = filterConfigs;
+        filtersShared = true;
+        n = filterConfigs.length;
+        pos = 0;
+    }
+
+
     /**
      * Release references to the filters and wrapper executed by this chain.
      */
     void release() {
+        if (filtersShared) {
+            filters = NO_FILTERS;
+            filtersShared = false;
+        }
         n = 0;
         pos = 0;
         servlet = null;
@@ -25,6 +25,7 @@ import org.apache.catalina.deploy.FilterMap;
 import javax.servlet.DispatcherType;
 import javax.servlet.Servlet;
 import javax.servlet.ServletRequest;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -124,9 +125,8 @@ public final class ApplicationFilterFactory {
         // Acquire the information we will need to match filter mappings
         String servletName = wrapper.getName();
 
-        int n = 0;
-
         // Add the relevant path-mapped filters to this filter chain
+        List<ApplicationFilterConfig> urlFilters = null;
         Iterator<FilterMap> i = filterMaps.iterator(); 
         while (i.hasNext()) {
             FilterMap filterMap = i.next();
@@ -148,41 +148,69 @@ public final class ApplicationFilterFactory {
                 // FIXME - log configuration problem
                 continue;
             }
-            // START IASRI 4665318
-            // Create a filter chain only when there are filters to add
-            if (filterChain == null)
-                filterChain = internalCreateFilterChain(request, wrapper,
-                                                        servlet);
-            // END IASRI 4665318
-            filterChain.addFilter(filterConfig);
-            n++;
+            if (urlFilters == null) {
+                urlFilters = new ArrayList<ApplicationFilterConfig>();
+            }
+            urlFilters.add(filterConfig);
         }
 
-        // Add filters that match on servlet name second
-        i = filterMaps.iterator(); 
-        while (i.hasNext()) {
-            FilterMap filterMap = i.next();
-            if (!filterMap.getDispatcherTypes().contains(dispatcher)) {
-                continue;
+        // Add filters that match on servlet name second.  They only depend
+        // on the servlet and dispatcher type, so they are reused across
+        // requests until the mappings change
+        FilterChainCache cache = context.getFilterChainCache();
+        ApplicationFilterConfig[] servletFilters =
+            cache.get(servletName, dispatcher);
+        if (servletFilters == null) {
+            int generation = cache.getGeneration();
+            List<ApplicationFilterConfig> matched =
+                new ArrayList<ApplicationFilterConfig>();
+            boolean complete = true;
+            i = filterMaps.iterator(); 
+            while (i.hasNext()) {
+                FilterMap filterMap = i.next();
+                if (!filterMap.getDispatcherTypes().contains(dispatcher)) {
+                    continue;
+                }
+                if (!matchFiltersServlet(filterMap, servletName))
+                    continue;
+                ApplicationFilterConfig filterConfig = (ApplicationFilterConfig)
+                    context.findFilterConfig(filterMap.getFilterName());
+                if (filterConfig == null) {
+                    // FIXME - log configuration problem
+                    complete = false;
+                    continue;
+                }
+                matched.add(filterConfig);
             }
-            if (!matchFiltersServlet(filterMap, servletName))
-                continue;
-            ApplicationFilterConfig filterConfig = (ApplicationFilterConfig)
-                context.findFilterConfig(filterMap.getFilterName());
-            if (filterConfig == null) {
-                // FIXME - log configuration problem
-                continue;
+            servletFilters = matched.toArray(
+                new ApplicationFilterConfig[matched.size()]);
+            // Filters that are not started yet must be looked up again
+            if (complete) {
+                cache.put(servletName, dispatcher, servletFilters, generation);
             }
-            // START IASRI 4665318
-            // Create a filter chain only when there are filters to add
-            if (filterChain == null)
-                filterChain = internalCreateFilterChain(request, wrapper,
-                                                        servlet);
-            // END IASRI 4665318
-            filterChain.addFilter(filterConfig);
-            n++;
         }
 
+        ApplicationFilterConfig[] filters = servletFilters;
+        if (urlFilters != null) {
+            filters = new ApplicationFilterConfig[
+                urlFilters.size() + servletFilters.length];
+            int n = 0;
+            for (ApplicationFilterConfig filterConfig : urlFilters) {
+                filters[n++] = filterConfig;
+            }
+            System.arraycopy(servletFilters, 0, filters, n,
+                             servletFilters.length);
+        }
+
+        // START IASRI 4665318
+        // Create a filter chain only when there are filters to add
+        if (filters.length > 0) {
+            filterChain = internalCreateFilterChain(request, wrapper,
+                                                    servlet);
+            filterChain.setFilters(filters);
+        }
+        // END IASRI 4665318
+
         // Return the completed filter chain
         return (filterChain);
 
@@ -0,0 +1,155 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.apache.catalina.core;
+
+import javax.servlet.DispatcherType;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache of the filters that <code>ApplicationFilterFactory</code> matched
+ * on servlet name for a servlet and dispatcher type, so that repeated
+ * requests do not re-match every servlet name mapping of the context.
+ * Filters mapped by URL pattern depend on the full request path and are
+ * still matched per request.  The number of entries is bounded by the
+ * number of servlets.  The owning context clears the cache whenever its
+ * filter definitions or mappings change.
+ */
+final class FilterChainCache {
+
+
+    // ----------------------------------------------------- Instance Variables
+
+
+    private final ConcurrentHashMap<Key, ApplicationFilterConfig[]> cache =
+        new ConcurrentHashMap<Key, ApplicationFilterConfig[]>();
+
+
+    /**
+     * Incremented on every clear, so that a chain matched against the old
+     * mappings is not stored after the cache was cleared.
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+
+    // -------------------------------------------------------- Package Methods
+
+
+    /**
+     * Return the cached filters, or <code>null</code> if they have not been
+     * matched yet.
+     */
+    ApplicationFilterConfig[] get(String servletName,
+                                  DispatcherType dispatcher) {
+        return cache.get(new Key(servletName, dispatcher));
+    }
+
+
+    /**
+     * Return the generation to pass to {@link #put} for filters about to be
+     * matched.
+     */
+    int getGeneration() {
+        return generation.get();
+    }
+
+
+    /**
+     * Cache the given filters, unless the cache has been cleared since
+     * <code>expectedGeneration</code> was obtained.
+     */
+    void put(String servletName, DispatcherType dispatcher,
+             ApplicationFilterConfig[] filters, int expectedGeneration) {
+        Key key = new Key(servletName, dispatcher);
+        cache.put(key, filters);
+        if (generation.get() != expectedGeneration) {
+            cache.remove(key, filters);
+        }
+    }
+
+
+    /**
+     * Drop all cached filters.
+     */
+    void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+
+    // ---------------------------------------------------------- Inner Classes
+
+
+    private static final class Key {
+
+        private final String servletName;
+        private final DispatcherType dispatcher;
+        private final int hash;
+
+        Key(String servletName, DispatcherType dispatcher) {
+            this.servletName = servletName;
+            this.dispatcher = dispatcher;
+            int h = (servletName == null) ? 0 : servletName.hashCode();
+            h = 31 * h + ((dispatcher == null) ? 0 : dispatcher.hashCode());
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return (hash == other.hash)
+                && (dispatcher == other.dispatcher)
+                && ((servletName == null) ? (other.servletName == null)
+                    : servletName.equals(other.servletName));
+        }
+    }
+}
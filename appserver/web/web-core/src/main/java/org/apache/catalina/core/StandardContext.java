@@ -327,6 +327,12 @@ public class StandardContext
      */
     private List<FilterMap> filterMaps = new ArrayList<FilterMap>();
 
+    /**
+     * The filters matched per servlet, dispatcher type and request path,
+     * cleared whenever filter definitions or mappings change.
+     */
+    private final FilterChainCache filterChainCache = new FilterChainCache();
+
     /**
      * The list of classnames of InstanceListeners that will be added
      * to each newly created Wrapper by <code>createWrapper()</code>.
@@ -2386,6 +2392,7 @@ public class StandardContext
         synchronized (filterDefs) {
             filterDefs.put(filterDef.getFilterName(), filterDef);
         }
+        filterChainCache.clear();
 
         if (notifyContainerListeners) {
             fireContainerEvent("addFilterDef", filterDef);
@@ -2479,6 +2486,7 @@ public class StandardContext
         } else {
             filterMaps.add(0, filterMap);
         }
+        filterChainCache.clear();
 
         if (notifyContainerListeners) {
             fireContainerEvent("addFilterMap", filterMap);
@@ -4565,6 +4573,7 @@ public class StandardContext
         synchronized (filterDefs) {
             filterDefs.remove(filterDef.getFilterName());
         }
+        filterChainCache.clear();
 
         if (notifyContainerListeners) {
             fireContainerEvent("removeFilterDef", filterDef);
@@ -4584,6 +4593,7 @@ public class StandardContext
             }
         }
         filterMaps.clear();
+        filterChainCache.clear();
     }
 
     /**
@@ -4946,6 +4956,7 @@ public class StandardContext
                 }
             }
         }
+        filterChainCache.clear();
 
         return (ok);
 
@@ -4973,6 +4984,7 @@ public class StandardContext
             }
             filterConfigs.clear();
         }
+        filterChainCache.clear();
         return (true);
     }
 
@@ -4986,6 +4998,14 @@ public class StandardContext
         return filterConfigs.get(name);
     }
 
+    /**
+     * Return the cache of filters matched by
+     * <code>ApplicationFilterFactory</code> for this Context.
+     */
+    FilterChainCache getFilterChainCache() {
+        return filterChainCache;
+    }
+
     /**
      * Notifies all ServletContextListeners at their contextInitialized
      * method.
@@ -7611,6 +7631,11 @@ public class StandardContext
         // Deliberate noop
     }
 
+    public void sessionExpirySweepEvent(long sweepTime, long expiryLag,
+                                        int sessionsVisited) {
+        // Deliberate noop
+    }
+
     public static class RestrictedServletContextListener
             implements ServletContextListener {
 
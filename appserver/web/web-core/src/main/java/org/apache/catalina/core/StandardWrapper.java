@@ -24,7 +24,9 @@ import java.security.Principal;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.text.MessageFormat;
 import javax.management.Notification;
@@ -114,8 +116,10 @@ public class StandardWrapper
     /**
      * The count of allocations that are currently active (even if they
      * are for the same instance, as will be true on a non-STM servlet).
+     * A LongAdder, so that concurrent requests to a hot servlet do not
+     * contend on a single counter.
      */
-    private AtomicInteger countAllocated = new AtomicInteger(0);
+    private final LongAdder countAllocated = new LongAdder();
 
 
     /**
@@ -223,7 +227,7 @@ public class StandardWrapper
     /**
      * Are we unloading our servlet instance at the moment?
      */
-    private boolean unloading = false;
+    private volatile boolean unloading = false;
 
 
     /**
@@ -241,7 +245,13 @@ public class StandardWrapper
     /**
      * Stack containing the STM instances.
      */
-    private Stack<Servlet> instancePool = null;
+    private volatile ConcurrentLinkedDeque<Servlet> instancePool = null;
+
+
+    /**
+     * Number of threads waiting for an STM instance to be deallocated.
+     */
+    private final AtomicInteger instancePoolWaiters = new AtomicInteger();
 
 
     /**
@@ -349,7 +359,7 @@ public class StandardWrapper
      */
     public int getCountAllocated() {
 
-        return (this.countAllocated.get());
+        return (this.countAllocated.intValue());
 
     }
 
@@ -1049,7 +1059,47 @@ public class StandardWrapper
      *  an exception
      * @exception ServletException if a loading error occurs
      */
-    public synchronized Servlet allocate() throws ServletException {
+    public Servlet allocate() throws ServletException {
+
+        // The allocation is counted before unloading is checked, so that
+        // either unload() waits for it or this thread sees the unload and
+        // falls back to the synchronized path
+        if (!singleThreadModel) {
+            countAllocated.increment();
+            Servlet servlet = instance;
+            if (!unloading && (servlet != null) && instanceInitialized
+                    && !singleThreadModel) {
+                if (log.isLoggable(Level.FINEST))
+                    log.log(Level.FINEST, "Returning non-STM instance");
+                return servlet;
+            }
+            countAllocated.decrement();
+        } else {
+            ConcurrentLinkedDeque<Servlet> pool = instancePool;
+            if (pool != null) {
+                countAllocated.increment();
+                if (!unloading) {
+                    Servlet servlet = pool.pollFirst();
+                    if (servlet != null) {
+                        if (log.isLoggable(Level.FINEST)) {
+                            log.log(Level.FINEST, "Returning allocated STM instance");
+                        }
+                        return servlet;
+                    }
+                }
+                countAllocated.decrement();
+            }
+        }
+
+        return allocateInstance();
+    }
+
+
+    /**
+     * Slow path of {@link #allocate()}: loads and initializes the instance,
+     * or grows or waits on the STM instance pool.
+     */
+    private synchronized Servlet allocateInstance() throws ServletException {
 
         // If we are currently unloading this servlet, throw an exception
         if (unloading) {
@@ -1086,40 +1136,47 @@ public class StandardWrapper
             if (!singleThreadModel) {
                 if (log.isLoggable(Level.FINEST))
                     log.log(Level.FINEST, "Returning non-STM instance");
-                countAllocated.incrementAndGet();
+                countAllocated.increment();
                 return (instance);
             }
         }
 
-        synchronized (instancePool) {
-
-            while (countAllocated.get() >= nInstances) {
-                // Allocate a new instance if possible, or else wait
-                if (nInstances < maxInstances) {
-                    try {
-                        Servlet servlet = loadServlet();
-                        initServlet(servlet);
-                        instancePool.push(servlet);
-                        nInstances++;
-                    } catch (ServletException e) {
-                        throw e;
-                    } catch (Throwable e) {
-                        throw new ServletException
-                                (rb.getString(LogFacade.ERROR_ALLOCATE_SERVLET_INSTANCE_EXCEPTION), e);
+        ConcurrentLinkedDeque<Servlet> pool = instancePool;
+        synchronized (pool) {
+            // Registered before polling, so that deallocate() either sees
+            // this waiter or pushes an instance this thread will find
+            instancePoolWaiters.incrementAndGet();
+            try {
+                Servlet servlet;
+                while ((servlet = pool.pollFirst()) == null) {
+                    // Allocate a new instance if possible, or else wait
+                    if (nInstances < maxInstances) {
+                        try {
+                            servlet = loadServlet();
+                            initServlet(servlet);
+                            nInstances++;
+                        } catch (ServletException e) {
+                            throw e;
+                        } catch (Throwable e) {
+                            throw new ServletException
+                                    (rb.getString(LogFacade.ERROR_ALLOCATE_SERVLET_INSTANCE_EXCEPTION), e);
+                        }
+                        break;
                     }
-                } else {
                     try {
-                        instancePool.wait();
+                        pool.wait();
                     } catch (InterruptedException e) {
                         // Ignore
                     }
                 }
+                if (log.isLoggable(Level.FINEST)) {
+                    log.log(Level.FINEST, "Returning allocated STM instance");
+                }
+                countAllocated.increment();
+                return servlet;
+            } finally {
+                instancePoolWaiters.decrementAndGet();
             }
-            if (log.isLoggable(Level.FINEST)) {
-                log.log(Level.FINEST, "Returning allocated STM instance");
-            }
-            countAllocated.incrementAndGet();
-            return instancePool.pop();
         }
     }
 
@@ -1137,15 +1194,19 @@ public class StandardWrapper
 
         // If not SingleThreadModel, no action is required
         if (!singleThreadModel) {
-            countAllocated.decrementAndGet();
+            countAllocated.decrement();
             return;
         }
 
-        // Unlock and free this instance
-        synchronized (instancePool) {
-            countAllocated.decrementAndGet();
-            instancePool.push(servlet);
-            instancePool.notify();
+        // Free this instance, and only take the pool monitor when a
+        // thread is waiting for it
+        ConcurrentLinkedDeque<Servlet> pool = instancePool;
+        pool.push(servlet);
+        countAllocated.decrement();
+        if (instancePoolWaiters.get() > 0) {
+            synchronized (pool) {
+                pool.notify();
+            }
         }
     }
 
@@ -1293,7 +1354,7 @@ public class StandardWrapper
         singleThreadModel = servlet instanceof SingleThreadModel;
         if (singleThreadModel) {
             if (instancePool == null)
-                instancePool = new Stack<Servlet>();
+                instancePool = new ConcurrentLinkedDeque<Servlet>();
         }
 
         if (notifyContainerListeners) {
@@ -1719,10 +1780,10 @@ public class StandardWrapper
 
         // Loaf a while if the current instance is allocated
         // (possibly more than once if non-STM)
-        if (countAllocated.get() > 0) {
+        if (countAllocated.sum() > 0) {
             int nRetries = 0;
             long delay = unloadDelay / 20;
-            while ((nRetries < 21) && (countAllocated.get() > 0)) {
+            while ((nRetries < 21) && (countAllocated.sum() > 0)) {
                 if ((nRetries % 10) == 0) {
                     if (log.isLoggable(Level.FINE)) {
                         log.log(Level.FINE, LogFacade.WAITING_INSTANCE_BE_DEALLOCATED, new Object[] {countAllocated.toString(),
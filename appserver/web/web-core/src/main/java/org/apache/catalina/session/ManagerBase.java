@@ -19,6 +19,7 @@ package org.apache.catalina.session;
 
 import com.sun.enterprise.util.uuid.UuidGenerator;
 import com.sun.enterprise.util.uuid.UuidGeneratorImpl;
+import com.sun.enterprise.util.uuid.UuidGeneratorPaddedImpl;
 import org.apache.catalina.*;
 import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.core.StandardHost;
@@ -132,7 +133,7 @@ public abstract class ManagerBase implements Manager {
      * when generating universally unique session identifiers.
      * HERCULES: add
      */
-    protected UuidGenerator uuidGenerator = new UuidGeneratorImpl();     
+    protected volatile UuidGenerator uuidGenerator = new UuidGeneratorImpl();     
 
 
     /**
@@ -165,6 +166,12 @@ public abstract class ManagerBase implements Manager {
      * session identifier.
      */
     protected Map<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+
+    /**
+     * The active sessions, filed by the second in which they expire, so
+     * that background expiry only visits sessions that are due.
+     */
+    private final SessionExpiryQueue expiryQueue = new SessionExpiryQueue();
     
     // Number of sessions created by this manager
     protected int sessionCounter=0;
@@ -638,6 +645,9 @@ public abstract class ManagerBase implements Manager {
      */
     public void add(Session session) {
         sessions.put(session.getIdInternal(), session);
+        if (session instanceof StandardSession) {
+            scheduleExpiry((StandardSession) session);
+        }
         int size = sessions.size();
         if (size > maxActive) {
             synchronized(maxActiveUpdateLock) {
@@ -818,6 +828,7 @@ public abstract class ManagerBase implements Manager {
      */
     public void clearSessions() {
         sessions.clear();
+        expiryQueue.clear();
     }    
 
 
@@ -836,6 +847,72 @@ public abstract class ManagerBase implements Manager {
     }
 
 
+    /**
+     * File the given session for expiry at its current deadline.  Sessions
+     * that never time out are not filed.
+     *
+     * @param session The session to file
+     */
+    void scheduleExpiry(StandardSession session) {
+        long deadline = session.getExpiryTime();
+        if (deadline >= 0) {
+            expiryQueue.schedule(session, deadline);
+        } else {
+            session.expiryBucket = -1L;
+        }
+    }
+
+
+    /**
+     * Return the active sessions that are invalid or whose deadline has
+     * passed, visiting only the expiry buckets that are due.  Sessions in
+     * those buckets that were accessed since they were filed are filed
+     * again under their new deadline.  The caller must call
+     * {@link #scheduleExpiry} for any returned session it does not expire.
+     *
+     * @param timeNow The current time in milliseconds
+     */
+    protected List<StandardSession> findExpiringSessions(long timeNow) {
+        List<StandardSession> expiring = new ArrayList<StandardSession>();
+        expiryQueue.startSweep(timeNow);
+        SessionExpiryQueue.Bucket bucket;
+        while ((bucket = expiryQueue.pollDue()) != null) {
+            for (String id : bucket.getSessionIds()) {
+                Session session = sessions.get(id);
+                if (!(session instanceof StandardSession)) {
+                    continue;
+                }
+                StandardSession sess = (StandardSession) session;
+                if (sess.expiryBucket != bucket.id) {
+                    // Filed again under another bucket since
+                    continue;
+                }
+                long deadline = sess.getExpiryTime();
+                if (!sess.getIsValid() || (deadline >= 0 && deadline <= timeNow)) {
+                    expiring.add(sess);
+                } else {
+                    scheduleExpiry(sess);
+                }
+            }
+        }
+        return expiring;
+    }
+
+
+    /**
+     * Report the duration of an expiry sweep and the largest delay between
+     * the deadline and the actual expiry of a session it expired.
+     */
+    protected void sessionExpirySweepEvent(long sweepTime, long expiryLag,
+                                           int sessionsVisited) {
+        Container c = getContainer();
+        if (c instanceof StandardContext) {
+            ((StandardContext) c).sessionExpirySweepEvent(sweepTime,
+                expiryLag, sessionsVisited);
+        }
+    }
+
+
     /**
      * Remove this Session from the active Sessions for this Manager.
      *
@@ -909,16 +986,28 @@ public abstract class ManagerBase implements Manager {
     /**
      * Generate and return a new session identifier.
      * Hercules:added
-     */
-    protected synchronized String generateSessionId(Object obj) {
-        return uuidGenerator.generateUuid(obj);
+     * <p>
+     * The built-in generators are safe for concurrent use and are called
+     * without holding any lock.  Calls to a custom generator are still
+     * serialized on this manager.
+     */
+    protected String generateSessionId(Object obj) {
+        UuidGenerator generator = uuidGenerator;
+        Class<?> clazz = generator.getClass();
+        if (clazz == UuidGeneratorImpl.class
+                || clazz == UuidGeneratorPaddedImpl.class) {
+            return generator.generateUuid(obj);
+        }
+        synchronized (this) {
+            return generator.generateUuid(obj);
+        }
     }   
     
     /**
      * Generate and return a new session identifier.
      * Hercules:modified
      */
-    protected synchronized String generateSessionId() {
+    protected String generateSessionId() {
         return generateSessionId(new Object());
     }    
 
@@ -552,10 +552,13 @@ public abstract class PersistentManagerBase
         if (!started)
             return;
 
-        Session sessions[] = findSessions();
+        long timeNow = System.currentTimeMillis();
+        long expiryLag = 0L;
 
-        for (int i = 0; i < sessions.length; i++) {
-            StandardSession session = (StandardSession) sessions[i];
+        List<StandardSession> sessions = findExpiringSessions(timeNow);
+        for (StandardSession session : sessions) {
+            long deadline = session.getExpiryTime();
+            boolean expired = false;
             /* START CR 6363689
             if (!session.isValid()) {
             */
@@ -565,12 +568,21 @@ public abstract class PersistentManagerBase
                 if(session.lockBackground()) { 
                     try {
                         session.expire();
+                        expired = true;
                     } finally {
                         session.unlockBackground();
                     }
                 }                                
 	    }            
+            if (!expired) {
+                scheduleExpiry(session);
+            } else if (deadline >= 0 && timeNow - deadline > expiryLag) {
+                expiryLag = timeNow - deadline;
+            }
         }
+
+        sessionExpirySweepEvent(System.currentTimeMillis() - timeNow,
+                                expiryLag, sessions.size());
     }        
 
 
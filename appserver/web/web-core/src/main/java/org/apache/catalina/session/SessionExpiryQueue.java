@@ -0,0 +1,190 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.apache.catalina.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Bucketed deadline queue of session ids, used by <code>ManagerBase</code>
+ * so that a background expiry sweep only looks at sessions whose deadline
+ * has come up instead of at every active session.
+ * <p>
+ * A session is filed under the bucket of the second in which it would
+ * expire if it was not accessed again.  Accessing a session does not touch
+ * the queue: when the bucket comes up, a session that was accessed in the
+ * meantime is simply filed again under its new deadline.  Every filing
+ * stamps the session with its bucket, so that entries left behind by an
+ * earlier filing are recognized and skipped.
+ */
+final class SessionExpiryQueue {
+
+
+    // -------------------------------------------------------------- Constants
+
+
+    /**
+     * Width of a bucket in milliseconds.
+     */
+    static final long BUCKET_MILLIS = 1000L;
+
+
+    // ----------------------------------------------------- Instance Variables
+
+
+    private final ConcurrentSkipListMap<Long, Bucket> buckets =
+        new ConcurrentSkipListMap<Long, Bucket>();
+
+
+    /**
+     * The last bucket a sweep has started on.  Sessions are never filed at
+     * or before it, since that bucket may already have been drained.
+     */
+    private volatile long sweptBucket =
+        System.currentTimeMillis() / BUCKET_MILLIS;
+
+
+    // -------------------------------------------------------- Package Methods
+
+
+    /**
+     * File the given session under the bucket of the given deadline.
+     *
+     * @param session The session to file
+     * @param deadline Time in milliseconds at which the session expires
+     */
+    void schedule(StandardSession session, long deadline) {
+        String id = session.getIdInternal();
+        if (id == null) {
+            return;
+        }
+        while (true) {
+            long bucketId = Math.max((deadline + BUCKET_MILLIS - 1) / BUCKET_MILLIS,
+                                     sweptBucket + 1);
+            session.expiryBucket = bucketId;
+            Bucket bucket = buckets.get(bucketId);
+            if (bucket == null) {
+                Bucket newBucket = new Bucket(bucketId);
+                bucket = buckets.putIfAbsent(bucketId, newBucket);
+                if (bucket == null) {
+                    bucket = newBucket;
+                }
+            }
+            if (bucket.add(id)) {
+                return;
+            }
+            // Drained by a concurrent sweep, try again with a later bucket
+        }
+    }
+
+
+    /**
+     * Mark the start of a sweep at the given time.  Sessions filed from
+     * now on go into later buckets.
+     */
+    void startSweep(long timeNow) {
+        long bucketId = timeNow / BUCKET_MILLIS;
+        if (bucketId > sweptBucket) {
+            sweptBucket = bucketId;
+        }
+    }
+
+
+    /**
+     * Remove and return the oldest bucket that is due, or <code>null</code>
+     * if there is none.
+     */
+    Bucket pollDue() {
+        while (true) {
+            Map.Entry<Long, Bucket> first = buckets.firstEntry();
+            if (first == null || first.getKey() > sweptBucket) {
+                return null;
+            }
+            if (buckets.remove(first.getKey(), first.getValue())) {
+                first.getValue().drain();
+                return first.getValue();
+            }
+        }
+    }
+
+
+    /**
+     * Drop all filed sessions.
+     */
+    void clear() {
+        buckets.clear();
+    }
+
+
+    // ---------------------------------------------------------- Inner Classes
+
+
+    static final class Bucket {
+
+        final long id;
+
+        private List<String> sessionIds = new ArrayList<String>();
+
+        private boolean drained = false;
+
+        Bucket(long id) {
+            this.id = id;
+        }
+
+        synchronized boolean add(String sessionId) {
+            if (drained) {
+                return false;
+            }
+            sessionIds.add(sessionId);
+            return true;
+        }
+
+        synchronized void drain() {
+            drained = true;
+        }
+
+        synchronized List<String> getSessionIds() {
+            return sessionIds;
+        }
+    }
+}
@@ -459,6 +459,7 @@ public class StandardManager
                         StandardSession.deserialize(ois, this);
                     session.setManager(this);
                     sessions.put(session.getIdInternal(), session);
+                    scheduleExpiry(session);
                     session.activate();
                 }
             } catch (ClassNotFoundException e) {
@@ -948,23 +949,30 @@ public class StandardManager
     public void processExpires() {
 
         long timeNow = System.currentTimeMillis();
+        long expiryLag = 0L;
 
-        Session[] sessions = findSessions();
-        if (sessions != null) {
-            for (Session session : sessions) {
-                StandardSession sess = (StandardSession) session;
-                if (sess.lockBackground()) {
-                    try {
-                        sess.isValid();
-                    } finally {
-                        sess.unlockBackground();
-                    }
+        List<StandardSession> sessions = findExpiringSessions(timeNow);
+        for (StandardSession sess : sessions) {
+            long deadline = sess.getExpiryTime();
+            boolean valid = true;
+            if (sess.lockBackground()) {
+                try {
+                    valid = sess.isValid();
+                } finally {
+                    sess.unlockBackground();
                 }
             }
+            if (valid) {
+                // Locked by a request, or its deadline was moved
+                scheduleExpiry(sess);
+            } else if (deadline >= 0 && timeNow - deadline > expiryLag) {
+                expiryLag = timeNow - deadline;
+            }
         }
 
         long timeEnd = System.currentTimeMillis();
         processingTime += ( timeEnd - timeNow );
+        sessionExpirySweepEvent(timeEnd - timeNow, expiryLag, sessions.size());
     }
 
 }
@@ -276,6 +276,12 @@ public class StandardSession
      */
     protected long thisAccessedTime = creationTime;
 
+    /**
+     * The expiry bucket this session was last filed under by its manager,
+     * or -1 if it is not filed.
+     */
+    transient volatile long expiryBucket = -1L;
+
     /**
      * The session version, incremented and used by in-memory-replicating
      * session managers
@@ -590,11 +596,33 @@ public class StandardSession
         this.maxInactiveInterval = interval;
         if (isValid && interval == 0) {
             expire();
+        } else if (!expiring && manager instanceof ManagerBase) {
+            // Only an earlier deadline needs filing right away, a later
+            // one is picked up when the current bucket comes up
+            long deadline = getExpiryTime();
+            long bucket = expiryBucket;
+            if (deadline >= 0 && (bucket < 0 ||
+                    deadline < bucket * SessionExpiryQueue.BUCKET_MILLIS)) {
+                ((ManagerBase) manager).scheduleExpiry(this);
+            }
         }
 
     }
 
 
+    /**
+     * Return the time in milliseconds at which this session expires unless
+     * it is accessed again, or -1 if it never times out.
+     */
+    long getExpiryTime() {
+        int interval = maxInactiveInterval;
+        if (interval < 0) {
+            return -1L;
+        }
+        return thisAccessedTime + interval * 1000L;
+    }
+
+
     /**
      * Set the <code>isNew</code> flag for this session.
      *
@@ -1951,6 +1979,7 @@ public class StandardSession
             throws ClassNotFoundException, IOException {
 
         version = new AtomicLong();
+        expiryBucket = -1L;
 
         lastAccessedTime = ((Long) stream.readObject()).longValue();
         maxInactiveInterval = ((Integer) stream.readObject()).intValue();
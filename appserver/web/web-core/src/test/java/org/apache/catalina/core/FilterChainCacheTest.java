@@ -0,0 +1,104 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.apache.catalina.core;
+
+import javax.servlet.DispatcherType;
+
+import org.apache.catalina.deploy.FilterDef;
+import org.apache.catalina.deploy.FilterMap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that the filters cached for a servlet are dropped when the filter
+ * mappings of the context change.
+ */
+public class FilterChainCacheTest {
+
+    private static final ApplicationFilterConfig[] FILTERS =
+        new ApplicationFilterConfig[0];
+
+    @Test
+    public void testAddFilterMapInvalidatesCache() {
+        StandardContext context = new StandardContext();
+        FilterDef filterDef = new FilterDef();
+        filterDef.setFilterName("filter");
+        filterDef.setFilterClassName("org.example.Filter");
+        context.addFilterDef(filterDef);
+
+        FilterChainCache cache = context.getFilterChainCache();
+        cache.put("servlet", DispatcherType.REQUEST, FILTERS,
+                  cache.getGeneration());
+        assertSame(FILTERS, cache.get("servlet", DispatcherType.REQUEST));
+
+        FilterMap servletMap = new FilterMap();
+        servletMap.setFilterName("filter");
+        servletMap.setServletName("servlet");
+        context.addFilterMap(servletMap);
+        assertNull(cache.get("servlet", DispatcherType.REQUEST));
+
+        cache.put("servlet", DispatcherType.REQUEST, FILTERS,
+                  cache.getGeneration());
+        FilterMap urlMap = new FilterMap();
+        urlMap.setFilterName("filter");
+        urlMap.setURLPattern("/app/*");
+        context.addFilterMap(urlMap, false);
+        assertNull(cache.get("servlet", DispatcherType.REQUEST));
+    }
+
+    @Test
+    public void testStaleFiltersAreNotCached() {
+        FilterChainCache cache = new FilterChainCache();
+        int generation = cache.getGeneration();
+        // Mappings changed while the filters were being matched
+        cache.clear();
+        cache.put("servlet", DispatcherType.REQUEST, FILTERS, generation);
+        assertNull(cache.get("servlet", DispatcherType.REQUEST));
+
+        cache.put("servlet", DispatcherType.REQUEST, FILTERS,
+                  cache.getGeneration());
+        assertNotNull(cache.get("servlet", DispatcherType.REQUEST));
+        assertNull(cache.get("servlet", DispatcherType.FORWARD));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.apache.catalina.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.apache.catalina.core.StandardContext;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that sessions restored from a persisted session file are filed
+ * for expiry and time out like sessions created by the manager.
+ */
+public class StandardManagerExpiryTest {
+
+    @Test
+    public void testLoadedSessionsExpire() throws Exception {
+        StandardContext context = new StandardContext();
+
+        StandardManager source = new StandardManager();
+        source.setContainer(context);
+        long now = System.currentTimeMillis();
+        newSession(source, "expired", now - 10000L, 1);
+        newSession(source, "live", now, 3600);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        source.writeSessions(bos, false);
+
+        StandardManager target = new StandardManager();
+        target.setContainer(context);
+        target.readSessions(new ByteArrayInputStream(bos.toByteArray()));
+        assertNotNull(target.findSession("expired"));
+        assertNotNull(target.findSession("live"));
+
+        // Overdue sessions are filed under the next bucket to be swept
+        Thread.sleep(2 * SessionExpiryQueue.BUCKET_MILLIS);
+        target.processExpires();
+
+        assertNull(target.findSession("expired"));
+        assertNotNull(target.findSession("live"));
+    }
+
+    private static StandardSession newSession(StandardManager manager,
+            String id, long accessedTime, int maxInactiveInterval) {
+        StandardSession session = new StandardSession(manager);
+        session.setValid(true);
+        session.setCreationTime(accessedTime);
+        session.setMaxInactiveInterval(maxInactiveInterval);
+        session.setId(id);
+        return session;
+    }
+}
@@ -63,9 +63,16 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -79,6 +86,14 @@ import java.util.logging.Logger;
  * </p>This class uses a direct <code>ByteBuffer</code> to store and write 
  * logs. 
  *
+ * <p>When asynchronous writing is enabled, request threads format their
+ * entry into a thread local buffer and hand it to a background writer
+ * through a lock free queue.  The writer encodes the queued entries in
+ * batches into a direct <code>ByteBuffer</code>, writes them to the log
+ * file and takes care of rotation, so request threads never wait on the
+ * file or on each other.  If the writer falls too far behind, entries
+ * are dropped and the number of dropped entries is logged.
+ *
  * @author Jean-Francois Arcand
  * @author Charlie J. Hunt
  */
@@ -114,6 +129,34 @@ public final class PEAccessLogValve
      * The minimum size a buffer can have.
      */
     private final static int MIN_BUFFER_SIZE = 5120;
+
+
+    /**
+     * The initial size of the buffer each request thread formats its
+     * entry into when writing asynchronously.
+     */
+    private final static int MIN_RECORD_BUFFER_SIZE = 512;
+
+
+    /**
+     * The maximum number of entries that may wait for the asynchronous
+     * writer before new entries are dropped.
+     */
+    private final static int MAX_PENDING_RECORDS = 65536;
+
+
+    /**
+     * The longest time (in milliseconds) the asynchronous writer waits for
+     * new entries before it checks for rotation again.
+     */
+    private final static long ASYNC_WRITER_IDLE_MILLIS = 1000L;
+
+
+    /**
+     * The minimum time (in milliseconds) between two warnings about
+     * dropped entries.
+     */
+    private final static long DROPPED_RECORDS_WARNING_MILLIS = 60000L;
     
     
     // ----------------------------------------------------- Instance Variables
@@ -295,6 +338,58 @@ public final class PEAccessLogValve
      * Simple lock
      */
     private Object lock = new Object();
+
+
+    /**
+     * Should entries be handed to a background writer instead of being
+     * written by the request thread?
+     */
+    private boolean asyncWrite = false;
+
+
+    /**
+     * The entries formatted by request threads and not yet written by the
+     * asynchronous writer.
+     */
+    private final ConcurrentLinkedQueue<String> pendingRecords =
+        new ConcurrentLinkedQueue<String>();
+
+
+    /**
+     * The number of entries in <code>pendingRecords</code>.
+     */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+
+    /**
+     * The number of entries dropped since the last warning.
+     */
+    private final AtomicLong droppedRecords = new AtomicLong();
+
+
+    /**
+     * The buffer each request thread formats its entry into when writing
+     * asynchronously.
+     */
+    private ThreadLocal<CharBuffer> recordBuffer = null;
+
+
+    /**
+     * The asynchronous writer thread.
+     */
+    private volatile Thread asyncWriterThread = null;
+
+
+    /**
+     * Set by the asynchronous writer while it waits for new entries.
+     */
+    private volatile boolean asyncWriterIdle = false;
+
+
+    /**
+     * The asynchronous writer completion semaphore.
+     */
+    private volatile boolean asyncWriterDone = false;
     
 
     /**
@@ -353,6 +448,24 @@ public final class PEAccessLogValve
         return bufferSize;
     }
 
+
+    /**
+     * Should entries be written by a background writer?
+     */
+    public boolean isAsyncWrite() {
+        return asyncWrite;
+    }
+
+
+    /**
+     * Set whether entries are handed to a background writer instead of
+     * being written by the request thread.  Takes effect on the next
+     * <code>start()</code>.
+     */
+    public void setAsyncWrite(boolean asyncWrite) {
+        this.asyncWrite = asyncWrite;
+    }
+
     // ------------------------------------------------------------- Properties
 
 
@@ -579,6 +692,11 @@ public final class PEAccessLogValve
                 null!=request.getRequest().getAttribute(condition)) {
              return;
         }
+
+        if (asyncWriterThread != null) {
+            queueLogEntry(request, response);
+            return;
+        }
         
         synchronized (lock){
             // Reset properly the buffer in case of an unexpected
@@ -623,6 +741,32 @@ public final class PEAccessLogValve
      * has changed since the previous log call.
      */
     public void log() throws IOException {
+
+        rotateIfNeeded();
+        
+        synchronized(lock){
+            try{
+                charBuffer.flip();
+                ByteBuffer byteBuffer =
+                    ByteBuffer.wrap(charBuffer.toString().getBytes(Charset.defaultCharset()));
+                while (byteBuffer.hasRemaining()){
+                    fileChannel.write(byteBuffer);
+                }
+            } catch (IOException ex){
+                ;
+            } finally {
+                charBuffer.clear();
+            }
+        }
+
+    }
+
+
+    /**
+     * Switch to a new log file if the rotation interval has elapsed and
+     * the date stamp has changed since the current file was opened.
+     */
+    private void rotateIfNeeded() throws IOException {
         
         if (rotatable){
 
@@ -651,22 +795,56 @@ public final class PEAccessLogValve
                 }
             }
         }
-        
-        synchronized(lock){
-            try{
-                charBuffer.flip();
-                ByteBuffer byteBuffer =
-                    ByteBuffer.wrap(charBuffer.toString().getBytes(Charset.defaultCharset()));
-                while (byteBuffer.hasRemaining()){
-                    fileChannel.write(byteBuffer);
+
+    }
+
+
+    /**
+     * Format the entry for the given request into this thread's buffer
+     * and hand it to the asynchronous writer.
+     */
+    private void queueLogEntry(Request request, Response response) {
+
+        if (formatter == null) {
+            return;
+        }
+
+        CharBuffer cb = recordBuffer.get();
+        while (true) {
+            cb.clear();
+            try {
+                formatter.appendLogEntry(request, response, cb);
+                cb.put('\n');
+                break;
+            } catch (BufferOverflowException ex) {
+                // Grow this thread's buffer, up to the configured size
+                if (cb.capacity() >= bufferSize) {
+                    _logger.log(
+                        Level.SEVERE,
+                        LogFacade.ACCESS_LOG_UNABLE_TO_WRITE,
+                        new Object[] {ex});
+                    return;
                 }
-            } catch (IOException ex){
-                ;
-            } finally {
-                charBuffer.clear();
+                cb = CharBuffer.allocate(
+                    Math.min(cb.capacity() * 2, bufferSize));
+                recordBuffer.set(cb);
             }
         }
+        cb.flip();
+
+        if (pendingCount.incrementAndGet() > MAX_PENDING_RECORDS) {
+            pendingCount.decrementAndGet();
+            droppedRecords.incrementAndGet();
+            return;
+        }
+        pendingRecords.offer(cb.toString());
 
+        if (asyncWriterIdle) {
+            Thread writer = asyncWriterThread;
+            if (writer != null) {
+                LockSupport.unpark(writer);
+            }
+        }
     }
 
 
@@ -790,6 +968,13 @@ public final class PEAccessLogValve
             }
         }
 
+        /*
+         * The accessLogAsync property under <virtual-server> enables the
+         * background writer for this virtual server
+         */
+        setAsyncWrite(Boolean.valueOf(vsBean.getPropertyValue(
+            Constants.ACCESS_LOG_ASYNC_PROPERTY, "false")));
+
         return true;
     }
 
@@ -1085,7 +1270,11 @@ public final class PEAccessLogValve
 
         lastAccessLogCreationTime = systime;
 
-        if (!flushRealTime){
+        if (asyncWrite) {
+            // Start the background writer the request threads hand
+            // their entries to
+            asyncWriterStart();
+        } else if (!flushRealTime){
             // Start the background writer writerThread
             threadStart();
         }
@@ -1112,7 +1301,10 @@ public final class PEAccessLogValve
         lifecycle.fireLifecycleEvent(STOP_EVENT, null);
         started = false;
         
-        if (!flushRealTime){
+        if (asyncWriterThread != null) {
+            // Write the pending entries and stop the background writer
+            asyncWriterStop();
+        } else if (!flushRealTime){
             // Stop the background writer thread
             threadStop();
         }
@@ -1193,4 +1385,132 @@ public final class PEAccessLogValve
         writerThread = null;
 
     }
+
+
+    /**
+     * Start the background writer that writes the entries queued by
+     * request threads.
+     */
+    private void asyncWriterStart() {
+
+        recordBuffer = new ThreadLocal<CharBuffer>() {
+            @Override
+            protected CharBuffer initialValue() {
+                return CharBuffer.allocate(
+                    Math.min(MIN_RECORD_BUFFER_SIZE, bufferSize));
+            }
+        };
+
+        asyncWriterDone = false;
+        asyncWriterIdle = false;
+        Thread writer = new Thread(new AsyncWriter(), "AccessLogAsyncWriter");
+        writer.setDaemon(true);
+        asyncWriterThread = writer;
+        writer.start();
+
+    }
+
+
+    /**
+     * Stop the background writer once it has written all queued entries.
+     */
+    private void asyncWriterStop() {
+
+        Thread writer = asyncWriterThread;
+        asyncWriterDone = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            ;
+        }
+
+        asyncWriterThread = null;
+
+    }
+
+
+    /**
+     * The background writer that encodes the entries queued by request
+     * threads in batches and writes them to the log file.
+     */
+    private class AsyncWriter implements Runnable {
+
+        private final CharsetEncoder encoder = Charset.defaultCharset()
+            .newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private final ByteBuffer batch = ByteBuffer.allocateDirect(bufferSize);
+
+        private long lastDropWarningTime = 0L;
+
+        public void run() {
+
+            while (true) {
+                String record = pendingRecords.poll();
+                if (record != null) {
+                    pendingCount.decrementAndGet();
+                    append(record);
+                    continue;
+                }
+
+                // Nothing left to batch: write what we have and wait
+                writeBatch();
+                if (asyncWriterDone && pendingRecords.isEmpty()) {
+                    break;
+                }
+                asyncWriterIdle = true;
+                if (pendingRecords.isEmpty() && !asyncWriterDone) {
+                    LockSupport.parkNanos(this,
+                        ASYNC_WRITER_IDLE_MILLIS * 1000000L);
+                }
+                asyncWriterIdle = false;
+            }
+
+        }
+
+        private void append(String record) {
+
+            CharBuffer in = CharBuffer.wrap(record);
+            while (true) {
+                CoderResult result = encoder.encode(in, batch, true);
+                if (!result.isOverflow()) {
+                    break;
+                }
+                writeBatch();
+            }
+            encoder.reset();
+
+        }
+
+        private void writeBatch() {
+
+            try {
+                rotateIfNeeded();
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    fileChannel.write(batch);
+                }
+            } catch (IOException ex) {
+                _logger.log(
+                    Level.SEVERE,
+                    LogFacade.ACCESS_LOG_UNABLE_TO_WRITE,
+                    new Object[] {ex});
+            } finally {
+                batch.clear();
+            }
+
+            if (droppedRecords.get() > 0) {
+                long now = System.currentTimeMillis();
+                if (now - lastDropWarningTime >= DROPPED_RECORDS_WARNING_MILLIS) {
+                    lastDropWarningTime = now;
+                    _logger.log(Level.WARNING,
+                        LogFacade.ACCESS_LOG_ENTRIES_DROPPED,
+                        new Object[] {droppedRecords.getAndSet(0), logFile});
+                }
+            }
+
+        }
+    }
 }
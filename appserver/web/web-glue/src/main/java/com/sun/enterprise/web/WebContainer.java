@@ -2985,6 +2985,12 @@ public class WebContainer implements org.glassfish.api.container.Container, Post
                     habitat,
                     domain,
                     globalAccessLoggingEnabled);
+        } else if (Constants.ACCESS_LOG_ASYNC_PROPERTY.equals(name)) {
+            vs.reconfigureAccessLog(globalAccessLogBufferSize,
+                    globalAccessLogWriteInterval,
+                    habitat,
+                    domain,
+                    globalAccessLoggingEnabled);
         } else if ("allowRemoteHost".equals(name)
                 || "denyRemoteHost".equals(name)) {
             vs.configureRemoteHostFilterValve();
@@ -2117,6 +2117,13 @@ public class WebModule extends PwcWebModule implements Context {
             monitoringNodeName, vsId);
     }
 
+    @Override
+    public void sessionExpirySweepEvent(long sweepTime, long expiryLag,
+                                        int sessionsVisited) {
+        sessionProbeProvider.sessionExpirySweepEvent(sweepTime, expiryLag,
+            sessionsVisited, monitoringNodeName, vsId);
+    }
+
 
     /*
      * Web module lifecycle related probe events
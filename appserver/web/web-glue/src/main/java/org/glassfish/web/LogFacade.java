@@ -605,6 +605,11 @@ public class LogFacade {
             level = "WARNING")
     public static final String INVALID_MAX_HISTORY_FILES = prefix + "00102";
 
+    @LogMessageInfo(
+            message = "Access log writer fell behind, dropped {0} entries for access log file {1}",
+            level = "WARNING")
+    public static final String ACCESS_LOG_ENTRIES_DROPPED = prefix + "00286";
+
     @LogMessageInfo(
             message = "Unable to create {0}",
             level = "WARNING")
@@ -50,6 +50,7 @@ import java.net.InetAddress;
 
 import java.rmi.server.UID;
 
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 
 /**
@@ -189,8 +190,8 @@ public class UuidUtil
         return result;
     }
 
-    private static synchronized int getNextInt() {
-        return _seeder.nextInt();
+    private static int getNextInt() {
+        return _seeder.get().nextInt();
     }
 
     private static String getNextRandomString() {
@@ -209,7 +210,36 @@ public class UuidUtil
         return result;
     }
 
-    private static SecureRandom _seeder = new SecureRandom();
+    /*
+     * One generator per thread, so that threads creating ids at the same
+     * time do not contend on a single generator.  The platform default
+     * (NativePRNG on Linux) cannot be used for this: all its instances
+     * share one native source behind a global lock.  Each thread gets its
+     * own SHA1PRNG instead, seeded explicitly with 160 bits (the size of
+     * its internal state) from the shared default generator, so the shared
+     * generator is only touched once per thread.
+     */
+    private static final int SEED_BYTES = 20;
+
+    private static final SecureRandom _seedSource = new SecureRandom();
+
+    private static final ThreadLocal<SecureRandom> _seeder =
+        new ThreadLocal<SecureRandom>() {
+            @Override
+            protected SecureRandom initialValue() {
+                byte[] seed = new byte[SEED_BYTES];
+                _seedSource.nextBytes(seed);
+                SecureRandom random;
+                try {
+                    random = SecureRandom.getInstance("SHA1PRNG");
+                } catch (NoSuchAlgorithmException ex) {
+                    return new SecureRandom();
+                }
+                //seeding before the first use replaces the self-seeding
+                random.setSeed(seed);
+                return random;
+            }
+        };
 
     /**
      * Method main
@@ -306,4 +306,24 @@ public class ComponentInvocation
 
         return newInv;
     }
+
+    /**
+     * Clears the per-call state of this invocation, so that a container can
+     * reuse it for another call on the same component. The invocation type,
+     * component id, container, application and module names are kept.
+     */
+    protected void clearState() {
+        preInvokeDoneStatus = false;
+        auth = null;
+        instance = null;
+        instanceName = null;
+        jndiEnvironment = null;
+        transaction = null;
+        transactionCompleting = false;
+        oldSecurityContext = null;
+        resourceTableKey = null;
+        resourceHandler = null;
+        registry = null;
+        transactionOperationsManager = null;
+    }
 }
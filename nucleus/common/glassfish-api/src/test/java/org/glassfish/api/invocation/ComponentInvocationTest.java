@@ -0,0 +1,145 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.api.invocation;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.glassfish.api.invocation.ComponentInvocation.ComponentInvocationType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that {@link ComponentInvocation#clearState()} leaves nothing of
+ * the previous call behind when a container reuses an invocation.
+ */
+public class ComponentInvocationTest {
+
+    // Identity of the component, kept across calls
+    private static final Set<String> KEPT = new HashSet<String>(Arrays.asList(
+            "invocationType", "componentId", "container", "appName", "moduleName"));
+
+    @Test
+    public void testClearStateResetsCallState() throws Exception {
+        Object container = new Object();
+        ComponentInvocation inv = new ComponentInvocation("comp",
+                ComponentInvocationType.EJB_INVOCATION, container, "app", "module");
+        inv.setTransaction(new Object());
+        inv.oldSecurityContext = new Object();
+        inv.setAuth(true);
+        inv.setPreInvokeDone(true);
+        inv.setRegistryFor(String.class, "registered");
+
+        inv.clearState();
+
+        assertNull(inv.getTransaction());
+        assertNull(inv.oldSecurityContext);
+        assertNull(inv.getAuth());
+        assertFalse(inv.isPreInvokeDone());
+        assertNull(inv.getRegistryFor(String.class));
+        assertEquals("comp", inv.getComponentId());
+        assertSame(container, inv.getContainer());
+        assertEquals(ComponentInvocationType.EJB_INVOCATION, inv.getInvocationType());
+        assertEquals("app", inv.getAppName());
+        assertEquals("module", inv.getModuleName());
+    }
+
+    @Test
+    public void testClearStateCoversEveryField() throws Exception {
+        ComponentInvocation inv = new ComponentInvocation("comp",
+                ComponentInvocationType.EJB_INVOCATION, new Object(), "app", "module");
+        for (Field field : stateFields()) {
+            field.set(inv, dirtyValue(field.getType()));
+        }
+
+        inv.clearState();
+
+        // Fails for a field added without being cleared in clearState
+        for (Field field : stateFields()) {
+            Object value = field.get(inv);
+            if (field.getType() == boolean.class) {
+                assertEquals(field.getName(), Boolean.FALSE, value);
+            } else {
+                assertNull(field.getName(), value);
+            }
+        }
+    }
+
+    private static Set<Field> stateFields() {
+        Set<Field> fields = new HashSet<Field>();
+        for (Field field : ComponentInvocation.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !KEPT.contains(field.getName())) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static Object dirtyValue(Class<?> type) {
+        if (type == boolean.class || type == Boolean.class) {
+            return Boolean.TRUE;
+        } else if (type == String.class) {
+            return "dirty";
+        } else if (type.isAssignableFrom(HashMap.class)) {
+            return new HashMap<Object, Object>();
+        } else if (type.isInterface()) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                    new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            return null;
+                        }
+                    });
+        }
+        return new Object();
+    }
+}